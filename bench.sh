@@ -0,0 +1,34 @@
+#!/bin/sh
+# Compiles the application and the JMH benchmarks in bench/, then runs them. All arguments are passed to JMH, e.g.
+#   ./bench.sh                              runs every benchmark
+#   ./bench.sh AmountBenchmark -prof gc     runs one benchmark class with allocation profiling
+#   ./bench.sh -p basketSize=1,10000        runs only some basket sizes
+# The JMH jars are downloaded to lib/ the first time.
+set -e
+cd "$(dirname "$0")"
+
+JMH_VERSION=1.37
+MAVEN_CENTRAL=https://repo1.maven.org/maven2
+LIB_DIR=lib
+OUT_DIR=bin/bench
+
+fetch() {
+	if [ ! -f "$LIB_DIR/$2" ]; then
+		echo "Downloading $2"
+		curl -sSfL -o "$LIB_DIR/$2" "$MAVEN_CENTRAL/$1/$2"
+	fi
+}
+
+fetch org/openjdk/jmh/jmh-core/$JMH_VERSION jmh-core-$JMH_VERSION.jar
+fetch org/openjdk/jmh/jmh-generator-annprocess/$JMH_VERSION jmh-generator-annprocess-$JMH_VERSION.jar
+fetch net/sf/jopt-simple/jopt-simple/5.0.4 jopt-simple-5.0.4.jar
+fetch org/apache/commons/commons-math3/3.6.1 commons-math3-3.6.1.jar
+
+CLASSPATH="$LIB_DIR/jmh-core-$JMH_VERSION.jar:$LIB_DIR/jopt-simple-5.0.4.jar:$LIB_DIR/commons-math3-3.6.1.jar"
+PROCESSOR_PATH="$CLASSPATH:$LIB_DIR/jmh-generator-annprocess-$JMH_VERSION.jar"
+
+rm -rf "$OUT_DIR"
+mkdir -p "$OUT_DIR"
+javac -encoding UTF-8 -cp "$CLASSPATH" -processorpath "$PROCESSOR_PATH" -d "$OUT_DIR" \
+	$(find src bench -name '*.java')
+java -cp "$OUT_DIR:$CLASSPATH" org.openjdk.jmh.Main "$@"
@@ -0,0 +1,136 @@
+package controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import dto.BatchEntryDTO;
+import dto.ItemDTO;
+import dto.ItemLookupDTO;
+import dto.SaleInfoDTO;
+import integration.AccountingSystem;
+import integration.DiscountCatalog;
+import integration.InventorySystem;
+import integration.ItemNotFoundException;
+import integration.ItemSource;
+import integration.Printer;
+import model.discount.DiscountFactory;
+
+/**
+ * Compares entering a burst of barcodes one by one with entering them as one batch, for bursts of different sizes.
+ * The items are retrieved from an inventory that costs a fixed amount of work per call, like a round trip to a remote
+ * catalog, and not through the item cache. The {@code items} counter is the number of entered items per second, so the
+ * cost per item is its inverse.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BatchEntryBenchmark {
+	private static final long ROUND_TRIP_TOKENS = 2_000;
+
+	@Param({ "1", "10", "100" })
+	private int batchSize;
+
+	private Controller controller;
+	private Path journalFile;
+	private PrintStream originalSysOut;
+	private List<String> burst;
+
+	/**
+	 * Counts the entered items, so the items per second can be compared between batch sizes.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class EnteredItems {
+		public long items;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			items = 0;
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void silenceConsole() {
+		originalSysOut = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+		burst = new ArrayList<>(batchSize);
+		for (int i = 0; i < batchSize; i++) {
+			burst.add(ControllerBenchmark.ITEM_IDS[i % ControllerBenchmark.ITEM_IDS.length]);
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void createController() throws IOException {
+		journalFile = Files.createTempFile("batch-entry-benchmark", ".journal");
+		InventorySystem inventorySystem = new InventorySystem();
+		controller = new Controller(new AccountingSystem(journalFile), inventorySystem,
+				new RemoteInventory(inventorySystem), new DiscountFactory(new DiscountCatalog()), new Printer());
+	}
+
+	@TearDown(Level.Iteration)
+	public void removeController() throws IOException {
+		controller.shutdown();
+		Files.deleteIfExists(journalFile);
+	}
+
+	@TearDown(Level.Trial)
+	public void restoreConsole() {
+		System.setOut(originalSysOut);
+	}
+
+	@Benchmark
+	public SaleInfoDTO enterOneByOne(EnteredItems enteredItems) throws ItemNotFoundException {
+		controller.startSale("benchmark");
+		SaleInfoDTO saleInfo = null;
+		for (String itemId : burst) {
+			saleInfo = controller.enterItem("benchmark", itemId);
+		}
+		enteredItems.items += batchSize;
+		return saleInfo;
+	}
+
+	@Benchmark
+	public BatchEntryDTO enterBatch(EnteredItems enteredItems) {
+		controller.startSale("benchmark");
+		BatchEntryDTO result = controller.enterItems("benchmark", burst);
+		enteredItems.items += result.enteredItemCount();
+		return result;
+	}
+
+	/**
+	 * An inventory where every call costs the same, no matter how many items it retrieves.
+	 */
+	private static class RemoteInventory implements ItemSource {
+		private final InventorySystem inventorySystem;
+
+		RemoteInventory(InventorySystem inventorySystem) {
+			this.inventorySystem = inventorySystem;
+		}
+
+		@Override
+		public ItemDTO retrieveItem(String itemId) throws ItemNotFoundException {
+			Blackhole.consumeCPU(ROUND_TRIP_TOKENS);
+			return inventorySystem.retrieveItem(itemId);
+		}
+
+		@Override
+		public ItemLookupDTO retrieveItems(Collection<String> itemIds) {
+			Blackhole.consumeCPU(ROUND_TRIP_TOKENS);
+			return inventorySystem.retrieveItems(itemIds);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import dto.SaleInfoDTO;
+import integration.AccountingSystem;
+import integration.DiscountCatalog;
+import integration.InventorySystem;
+import integration.ItemNotFoundException;
+import integration.Printer;
+import model.discount.DiscountFactory;
+
+/**
+ * Measures scanning a whole basket through the controller, for baskets of different sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ControllerBenchmark {
+	static final String[] ITEM_IDS = { "abc123", "def456" };
+
+	@Param({ "1", "10", "100", "1000", "10000" })
+	private int basketSize;
+
+	private Controller controller;
+	private Path journalFile;
+	private PrintStream originalSysOut;
+
+	@Setup(Level.Trial)
+	public void silenceConsole() {
+		originalSysOut = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+	}
+
+	@Setup(Level.Iteration)
+	public void createController() throws IOException {
+		journalFile = Files.createTempFile("controller-benchmark", ".journal");
+		controller = new Controller(new AccountingSystem(journalFile), new InventorySystem(),
+				new DiscountFactory(new DiscountCatalog()), new Printer());
+	}
+
+	@TearDown(Level.Iteration)
+	public void removeController() throws IOException {
+		controller.shutdown();
+		Files.deleteIfExists(journalFile);
+	}
+
+	@TearDown(Level.Trial)
+	public void restoreConsole() {
+		System.setOut(originalSysOut);
+	}
+
+	@Benchmark
+	public SaleInfoDTO enterItem() throws ItemNotFoundException {
+		return scan(controller, "benchmark", basketSize);
+	}
+
+	/**
+	 * Starts a sale on the specified lane and enters a basket of items.
+	 */
+	static SaleInfoDTO scan(Controller controller, String laneId, int basketSize) throws ItemNotFoundException {
+		controller.startSale(laneId);
+		SaleInfoDTO saleInfo = null;
+		for (int i = 0; i < basketSize; i++) {
+			saleInfo = controller.enterItem(laneId, ITEM_IDS[i % ITEM_IDS.length]);
+		}
+		return saleInfo;
+	}
+}
@@ -0,0 +1,77 @@
+package controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import integration.AccountingSystem;
+import integration.DiscountCatalog;
+import integration.InventorySystem;
+import integration.ItemNotFoundException;
+import integration.Printer;
+import model.Amount;
+import model.discount.DiscountFactory;
+
+/**
+ * Measures the controller operations at the end of a sale, for baskets of different sizes. The basket is scanned
+ * before each invocation and is not part of the measurement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class EndSaleBenchmark {
+	@Param({ "1", "10", "100", "1000", "10000" })
+	private int basketSize;
+
+	private Controller controller;
+	private Path journalFile;
+	private PrintStream originalSysOut;
+
+	@Setup(Level.Trial)
+	public void silenceConsole() {
+		originalSysOut = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+	}
+
+	@Setup(Level.Iteration)
+	public void createController() throws IOException {
+		journalFile = Files.createTempFile("end-sale-benchmark", ".journal");
+		controller = new Controller(new AccountingSystem(journalFile), new InventorySystem(),
+				new DiscountFactory(new DiscountCatalog()), new Printer());
+	}
+
+	@Setup(Level.Invocation)
+	public void scanBasket() throws ItemNotFoundException {
+		ControllerBenchmark.scan(controller, Controller.DEFAULT_LANE, basketSize);
+		controller.endSale();
+	}
+
+	@TearDown(Level.Iteration)
+	public void removeController() throws IOException {
+		controller.shutdown();
+		Files.deleteIfExists(journalFile);
+	}
+
+	@TearDown(Level.Trial)
+	public void restoreConsole() {
+		System.setOut(originalSysOut);
+	}
+
+	@Benchmark
+	public Amount requestDiscount() {
+		return controller.requestDiscount(114514);
+	}
+
+	@Benchmark
+	public Amount finalizeSaleWithPayment() {
+		return controller.finalizeSaleWithPayment(new Amount(1_000_000_000, 0));
+	}
+}
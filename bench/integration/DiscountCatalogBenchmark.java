@@ -0,0 +1,55 @@
+package integration;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import dto.DiscountDTO;
+import dto.DiscountInfoDTO;
+import model.Amount;
+
+/**
+ * Measures finding the eligible discounts for a basket, for catalogs with different numbers of promotions. The catalog
+ * holds an item, a customer and a total price promotion for each promoted item.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DiscountCatalogBenchmark {
+	@Param({ "10", "1000", "100000" })
+	private int promotionCount;
+
+	@Param({ "10", "1000" })
+	private int distinctItems;
+
+	private DiscountCatalog discountCatalog;
+	private DiscountDTO discountInfo;
+
+	@Setup(Level.Trial)
+	public void createCatalog() {
+		discountCatalog = new DiscountCatalog();
+		for (int i = 0; i < promotionCount; i++) {
+			DiscountInfoDTO discount = new DiscountInfoDTO("ITEM_BASED", new Amount(i, 2), "Promotion " + i);
+			discountCatalog.addItemPromotion("item" + i, 1 + i % 3, discount);
+			discountCatalog.addCustomerPromotion(i, discount);
+			discountCatalog.addTotalPricePromotion(new Amount(500 + i, 0), discount);
+		}
+
+		Map<String, Integer> basket = new HashMap<>();
+		for (int i = 0; i < distinctItems; i++) {
+			basket.put("item" + (i * 7), 1 + i % 4);
+		}
+		discountInfo = new DiscountDTO(distinctItems, basket, new Amount("520.00"), promotionCount / 2);
+	}
+
+	@Benchmark
+	public List<DiscountInfoDTO> fetchEligibleDiscounts() {
+		return discountCatalog.fetchEligibleDiscounts(discountInfo);
+	}
+}
@@ -0,0 +1,62 @@
+package integration;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import dto.ItemDTO;
+import dto.ReceiptDTO;
+import dto.SaleDTO;
+import model.Amount;
+import model.Sale;
+
+/**
+ * Measures formatting and printing a receipt, for baskets of different sizes. The console output is discarded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PrinterBenchmark {
+	private static final int DISTINCT_ITEMS = 50;
+
+	@Param({ "1", "10", "100", "1000", "10000" })
+	private int basketSize;
+
+	private Printer printer;
+	private ReceiptDTO receipt;
+	private PrintStream originalSysOut;
+
+	@Setup(Level.Trial)
+	public void createReceipt() {
+		originalSysOut = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		printer = new Printer();
+
+		Sale basket = new Sale();
+		for (int i = 0; i < basketSize; i++) {
+			int itemNumber = i % DISTINCT_ITEMS;
+			basket.addBoughtItem(new ItemDTO("item" + itemNumber, "Benchmark item number " + itemNumber,
+					new Amount(1000 + itemNumber, 2), new Amount("0.12"), "Benchmark item"));
+		}
+		SaleDTO sale = new SaleDTO(LocalDateTime.parse("2024-02-12T16:05"), new ArrayList<>(basket.getSaleLines()), new Amount("1234.56"),
+				new Amount("123.45"), new Amount("2000"), new Amount("765.44"), new Amount("0"));
+		receipt = new ReceiptDTO(sale);
+	}
+
+	@TearDown(Level.Trial)
+	public void restoreConsole() {
+		System.setOut(originalSysOut);
+	}
+
+	@Benchmark
+	public void printReceipt() {
+		printer.printReceipt(receipt);
+	}
+}
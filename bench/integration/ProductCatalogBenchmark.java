@@ -0,0 +1,80 @@
+package integration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import dto.ItemDTO;
+import model.Amount;
+
+/**
+ * Measures opening a catalog file and looking up items in it, for catalogs with different numbers of items. The
+ * catalog file is written once per trial to a temporary directory. Opening is measured one call at a time, since the
+ * mappings of a catalog are only released when it is garbage collected.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ProductCatalogBenchmark {
+	@Param({ "1000", "1000000" })
+	private int itemCount;
+
+	private Path catalogFile;
+	private ProductCatalog catalog;
+	private String[] itemIds;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void createCatalog() throws IOException {
+		catalogFile = Files.createTempFile("products", ".catalog");
+		LinkedHashMap<ItemDTO, Integer> stock = new LinkedHashMap<>();
+		Amount vatRate = new Amount("0.12");
+		for (int i = 0; i < itemCount; i++) {
+			stock.put(new ItemDTO("sku" + i, "Benchmark item number " + i, new Amount(1000 + i % 5000, 2), vatRate,
+					"Benchmark item"), 1_000_000);
+		}
+		ProductCatalog.create(catalogFile, stock);
+		catalog = ProductCatalog.open(catalogFile);
+
+		itemIds = new String[1024];
+		for (int i = 0; i < itemIds.length; i++) {
+			itemIds[i] = "sku" + (int) ((long) i * 7919 % itemCount);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteCatalog() throws IOException {
+		catalog = null;
+		Files.deleteIfExists(catalogFile);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Measurement(iterations = 20)
+	public ProductCatalog open() throws IOException {
+		return ProductCatalog.open(catalogFile);
+	}
+
+	@Benchmark
+	public int find() {
+		return catalog.find(nextItemId());
+	}
+
+	@Benchmark
+	public ItemDTO findAndRead() {
+		return catalog.getItem(catalog.find(nextItemId()));
+	}
+
+	private String nextItemId() {
+		next = (next + 1) & (itemIds.length - 1);
+		return itemIds[next];
+	}
+}
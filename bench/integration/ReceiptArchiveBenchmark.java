@@ -0,0 +1,95 @@
+package integration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.*;
+
+import dto.ArchivedReceiptDTO;
+import dto.ItemDTO;
+import dto.ReceiptDTO;
+import dto.SaleDTO;
+import model.Amount;
+import model.Sale;
+
+/**
+ * Measures finding archived receipts by ID and by time, in an archive of one busy day. The archive is written once
+ * per trial to a temporary directory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ReceiptArchiveBenchmark {
+	private static final LocalDateTime OPENING_TIME = LocalDateTime.parse("2024-02-12T08:00");
+
+	@Param({ "20000" })
+	private int receiptCount;
+
+	private Path directory;
+	private ReceiptArchive archive;
+	private long[] receiptIds;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void createArchive() throws IOException {
+		directory = Files.createTempDirectory("receipt-archive-benchmark");
+		archive = new ReceiptArchive(directory);
+
+		List<CompletableFuture<Long>> archived = new ArrayList<>(receiptCount);
+		for (int i = 0; i < receiptCount; i++) {
+			archived.add(archive.archive(createReceipt(i)));
+		}
+		receiptIds = new long[1024];
+		for (int i = 0; i < receiptIds.length; i++) {
+			receiptIds[i] = archived.get((int) ((long) i * 7919 % receiptCount)).join();
+		}
+		archived.get(receiptCount - 1).join();
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteArchive() throws IOException {
+		archive.close();
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	@Benchmark
+	public ArchivedReceiptDTO findReceipt() {
+		next = (next + 1) & (receiptIds.length - 1);
+		return archive.findReceipt(receiptIds[next]);
+	}
+
+	@Benchmark
+	public List<ArchivedReceiptDTO> findReceiptsOfFiveMinutes() {
+		next = (next + 1) & (receiptIds.length - 1);
+		LocalDateTime from = OPENING_TIME.plusSeconds(next * 40L);
+		return archive.findReceipts(from, from.plusMinutes(5));
+	}
+
+	private ReceiptDTO createReceipt(int receiptNumber) {
+		Sale basket = new Sale();
+		for (int i = 0; i < 1 + receiptNumber % 8; i++) {
+			int itemNumber = (receiptNumber + i) % 50;
+			basket.addBoughtItem(new ItemDTO("item" + itemNumber, "Benchmark item number " + itemNumber,
+					new Amount(1000 + itemNumber, 2), new Amount("0.12"), "Benchmark item"));
+		}
+		Amount total = basket.getTotalPrice();
+		SaleDTO sale = new SaleDTO(OPENING_TIME.plusSeconds(2L * receiptNumber), new ArrayList<>(basket.getSaleLines()),
+				total, new Amount("1.00"), new Amount("2000"), new Amount("2000").subtract(total), total);
+		return new ReceiptDTO(sale);
+	}
+}
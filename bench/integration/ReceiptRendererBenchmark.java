@@ -0,0 +1,73 @@
+package integration;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import dto.ItemDTO;
+import dto.ReceiptDTO;
+import dto.SaleDTO;
+import model.Amount;
+import model.Sale;
+
+/**
+ * Compares printing a receipt with {@link Printer} and rendering it with {@link ReceiptRenderer}, for receipts with
+ * different numbers of sale lines. Every item in the basket is distinct, so each item is one line. All output is
+ * discarded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ReceiptRendererBenchmark {
+	@Param({ "10", "1000", "10000" })
+	private int lineCount;
+
+	private Printer printer;
+	private ReceiptRenderer renderer;
+	private WritableByteChannel channel;
+	private ReceiptDTO receipt;
+	private PrintStream originalSysOut;
+
+	@Setup(Level.Trial)
+	public void createReceipt() {
+		originalSysOut = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		printer = new Printer();
+		renderer = new ReceiptRenderer();
+		channel = Channels.newChannel(OutputStream.nullOutputStream());
+
+		Sale basket = new Sale();
+		for (int i = 0; i < lineCount; i++) {
+			basket.addBoughtItem(new ItemDTO("item" + i, "Benchmark item number " + i, new Amount(1000 + i, 2),
+					new Amount("0.12"), "Benchmark item"), 1 + i % 3);
+		}
+		SaleDTO sale = new SaleDTO(LocalDateTime.parse("2024-02-12T16:05"), new ArrayList<>(basket.getSaleLines()),
+				new Amount("1234.56"), new Amount("123.45"), new Amount("2000"), new Amount("765.44"), new Amount("0"));
+		receipt = new ReceiptDTO(sale);
+	}
+
+	@TearDown(Level.Trial)
+	public void restoreConsole() {
+		System.setOut(originalSysOut);
+	}
+
+	@Benchmark
+	public void printReceipt() {
+		printer.printReceipt(receipt);
+	}
+
+	@Benchmark
+	public void renderReceipt() throws IOException {
+		renderer.render(receipt, channel);
+	}
+}
@@ -0,0 +1,77 @@
+package integration.analytics;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import dto.ItemDTO;
+import dto.SaleDTO;
+import dto.SaleLineDTO;
+import model.Amount;
+
+/**
+ * Measures the revenue by item of one busy day of sales, aggregated from the columns of the store and from the list of
+ * sale DTOs that the accounting system used to keep.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SalesColumnStoreBenchmark {
+	private static final LocalDateTime OPENING_TIME = LocalDateTime.parse("2024-02-12T08:00");
+	private static final int ITEM_COUNT = 500;
+	private static final int LINES_PER_SALE = 4;
+
+	@Param({ "200000" })
+	private int saleCount;
+
+	private SalesColumnStore store;
+	private List<SaleDTO> sales;
+
+	@Setup(Level.Trial)
+	public void recordSales() {
+		ItemDTO[] items = new ItemDTO[ITEM_COUNT];
+		for (int i = 0; i < ITEM_COUNT; i++) {
+			items[i] = new ItemDTO("item" + i, "Item " + i, new Amount(1000 + i, 2), new Amount("0.12"), "Item");
+		}
+		store = new SalesColumnStore();
+		sales = new ArrayList<>(saleCount);
+		for (int sale = 0; sale < saleCount; sale++) {
+			ArrayList<SaleLineDTO> saleLines = new ArrayList<>(LINES_PER_SALE);
+			Amount total = Amount.ZERO;
+			for (int line = 0; line < LINES_PER_SALE; line++) {
+				ItemDTO item = items[(sale * 31 + line * 7) % ITEM_COUNT];
+				Amount lineTotal = item.fullPrice().multiply(new Amount(line + 1, 0));
+				saleLines.add(new SaleLineDTO(item, line + 1, item.fullPrice(), lineTotal));
+				total = total.add(lineTotal);
+			}
+			SaleDTO saleDTO = new SaleDTO(OPENING_TIME.plusSeconds(sale / 5), saleLines, total, Amount.ZERO, total,
+					Amount.ZERO, Amount.ZERO);
+			store.add(saleDTO);
+			sales.add(saleDTO);
+		}
+	}
+
+	@Benchmark
+	public Map<String, Amount> columnScan() {
+		return store.getRevenueByItem();
+	}
+
+	@Benchmark
+	public Map<String, Amount> saleListScan() {
+		HashMap<String, Amount> revenueByItem = new HashMap<>();
+		for (SaleDTO sale : sales) {
+			for (SaleLineDTO line : sale.saleLines()) {
+				revenueByItem.merge(line.item().id(), line.lineTotal(), Amount::add);
+			}
+		}
+		return revenueByItem;
+	}
+}
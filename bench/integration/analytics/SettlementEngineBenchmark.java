@@ -0,0 +1,74 @@
+package integration.analytics;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import dto.AppliedDiscountDTO;
+import dto.ItemDTO;
+import dto.SaleDTO;
+import dto.SaleLineDTO;
+import model.Amount;
+
+/**
+ * Measures the settlement of one busy day of sales, from a list of sales and from a replay that passes the sales one at
+ * a time, as the journal does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SettlementEngineBenchmark {
+	private static final LocalDateTime OPENING_TIME = LocalDateTime.parse("2024-02-12T08:00");
+	private static final int ITEM_COUNT = 500;
+	private static final int LINES_PER_SALE = 4;
+	private static final int LANE_COUNT = 20;
+
+	@Param({ "200000" })
+	private int saleCount;
+
+	private final SettlementEngine engine = new SettlementEngine();
+	private List<SaleDTO> sales;
+
+	@Setup(Level.Trial)
+	public void recordSales() {
+		ItemDTO[] items = new ItemDTO[ITEM_COUNT];
+		for (int i = 0; i < ITEM_COUNT; i++) {
+			Amount vatRate = new Amount(i % 2 == 0 ? 6 : 12, 2);
+			items[i] = new ItemDTO("item" + i, "Item " + i, new Amount(1000 + i, 2), vatRate, "Item");
+		}
+		sales = new ArrayList<>(saleCount);
+		for (int sale = 0; sale < saleCount; sale++) {
+			ArrayList<SaleLineDTO> saleLines = new ArrayList<>(LINES_PER_SALE);
+			Amount total = Amount.ZERO;
+			for (int line = 0; line < LINES_PER_SALE; line++) {
+				ItemDTO item = items[(sale * 31 + line * 7) % ITEM_COUNT];
+				Amount lineTotal = item.fullPrice().multiply(new Amount(line + 1, 0));
+				saleLines.add(new SaleLineDTO(item, line + 1, item.fullPrice(), lineTotal));
+				total = total.add(lineTotal);
+			}
+			ArrayList<AppliedDiscountDTO> discounts = new ArrayList<>();
+			if (sale % 3 == 0) {
+				discounts.add(new AppliedDiscountDTO("ITEM_BASED", new Amount("5.00")));
+			}
+			Amount paid = new Amount("1000");
+			sales.add(new SaleDTO(OPENING_TIME.plusSeconds(sale / 5), saleLines, total, Amount.ZERO, paid,
+					paid.subtract(total), Amount.ZERO, discounts, "lane" + sale % LANE_COUNT));
+		}
+	}
+
+	@Benchmark
+	public SettlementReport settleList() {
+		return engine.settle(sales);
+	}
+
+	@Benchmark
+	public SettlementReport settleReplay() {
+		return engine.settleReplay(sales::forEach);
+	}
+}
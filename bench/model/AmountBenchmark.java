@@ -0,0 +1,85 @@
+package model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import util.StringUtils;
+
+/**
+ * Measures the Amount arithmetic used when scanning items, compared with plain BigDecimal arithmetic.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AmountBenchmark {
+	private Amount price;
+	private Amount vatRate;
+	private Amount total;
+	private BigDecimal bigPrice;
+	private BigDecimal bigVatRate;
+	private BigDecimal bigTotal;
+	private StringBuilder line;
+
+	@Setup(Level.Trial)
+	public void createAmounts() {
+		price = new Amount("12.50");
+		vatRate = new Amount("0.25");
+		total = new Amount("1234.5625");
+		bigPrice = new BigDecimal("12.50");
+		bigVatRate = new BigDecimal("0.25");
+		bigTotal = new BigDecimal("1234.5625");
+		line = new StringBuilder(64);
+	}
+
+	@Benchmark
+	public Amount add() {
+		return total.add(price);
+	}
+
+	@Benchmark
+	public Amount multiply() {
+		return price.multiply(vatRate);
+	}
+
+	@Benchmark
+	public Amount fullPrice() {
+		return price.multiply(vatRate.add(Amount.ONE));
+	}
+
+	@Benchmark
+	public Amount rounded() {
+		return total.rounded();
+	}
+
+	@Benchmark
+	public String colonized() {
+		return total.colonized();
+	}
+
+	@Benchmark
+	public StringBuilder appendColonized() {
+		line.setLength(0);
+		return total.appendColonized(line);
+	}
+
+	@Benchmark
+	public String bigDecimalColonized() {
+		return StringUtils.formatBigDecimalToColon(bigTotal);
+	}
+
+	@Benchmark
+	public BigDecimal bigDecimalFullPrice() {
+		return bigPrice.multiply(bigVatRate.add(BigDecimal.ONE));
+	}
+
+	@Benchmark
+	public BigDecimal bigDecimalRounded() {
+		return bigTotal.setScale(2, RoundingMode.HALF_UP);
+	}
+}
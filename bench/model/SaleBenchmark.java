@@ -0,0 +1,45 @@
+package model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import dto.ItemDTO;
+import dto.SaleInfoDTO;
+
+/**
+ * Measures adding items to a sale, for baskets of different sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SaleBenchmark {
+	@Param({ "1", "10", "100", "1000", "10000" })
+	private int basketSize;
+
+	private ItemDTO[] items;
+
+	@Setup(Level.Trial)
+	public void createItems() {
+		Amount vat = new Amount("0.06");
+		items = new ItemDTO[] {
+				new ItemDTO("abc123", "BigWheel Oatmeal", new Amount("29.9").divide(vat.add(Amount.ONE)), vat,
+						"BigWheel Oatmeal 500g, whole grain oats, high fiber, gluten free"),
+				new ItemDTO("def456", "YouGoGo Blueberry", new Amount("14.9").divide(vat.add(Amount.ONE)), vat,
+						"YouGoGo Blueberry 240g, low sugar youghurt, blueberry flavour"),
+				new ItemDTO("ghi789", "Whole Milk", new Amount("12.50"), new Amount("0.12"), "Whole milk 1l") };
+	}
+
+	@Benchmark
+	public SaleInfoDTO addBoughtItem() {
+		Sale sale = new Sale();
+		SaleInfoDTO saleInfo = null;
+		for (int i = 0; i < basketSize; i++) {
+			saleInfo = sale.addBoughtItem(items[i % items.length]);
+		}
+		return saleInfo;
+	}
+}
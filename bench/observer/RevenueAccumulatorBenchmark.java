@@ -0,0 +1,37 @@
+package observer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import model.Amount;
+
+/**
+ * Measures adding sale amounts from several lanes at once, to a striped accumulator and to a single synchronized
+ * total.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Threads(8)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RevenueAccumulatorBenchmark {
+	private static final Amount SALE_AMOUNT = new Amount("149.90");
+
+	private final RevenueAccumulator accumulator = new RevenueAccumulator();
+	private Amount synchronizedTotal = Amount.ZERO;
+
+	@Benchmark
+	public void stripedAccumulator() {
+		accumulator.add(SALE_AMOUNT);
+	}
+
+	@Benchmark
+	public void synchronizedTotal() {
+		synchronized (this) {
+			synchronizedTotal = synchronizedTotal.add(SALE_AMOUNT);
+		}
+	}
+}
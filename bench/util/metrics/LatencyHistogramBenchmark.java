@@ -0,0 +1,46 @@
+package util.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the overhead of recording a latency: recording a known value, and timing an operation with
+ * {@link System#nanoTime()} and recording it. The second benchmark is what an instrumented controller call pays.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LatencyHistogramBenchmark {
+	private final LatencyHistogram histogram = new LatencyHistogram();
+
+	@State(Scope.Thread)
+	public static class Values {
+		private long value = 12_345;
+
+		long next() {
+			value = value * 6364136223846793005L + 1442695040888963407L;
+			return (value >>> 40) & 0xFFFFFF;
+		}
+	}
+
+	@Benchmark
+	public void record(Values values) {
+		histogram.record(values.next());
+	}
+
+	@Benchmark
+	public void timeAndRecord() {
+		long startTime = System.nanoTime();
+		histogram.recordSince(startTime);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public void recordFromFourThreads(Values values) {
+		histogram.record(values.next());
+	}
+}
@@ -1,71 +1,325 @@
 package controller;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import dto.BatchEntryDTO;
 import dto.DiscountDTO;
 import dto.ItemDTO;
+import dto.ItemLookupDTO;
 import dto.ReceiptDTO;
 import dto.SaleDTO;
 import dto.SaleInfoDTO;
 import integration.AccountingSystem;
+import integration.CachingItemSource;
+import integration.CircuitBreaker;
 import integration.DatabaseFailureException;
 import integration.DiscountCatalog;
 import integration.InventorySystem;
 import integration.ItemNotFoundException;
+import integration.ItemSource;
 import integration.Printer;
+import integration.ReceiptArchive;
+import integration.ResilientItemSource;
+import integration.SaleQueue;
+import integration.SaleSyncer;
+import integration.analytics.SettlementEngine;
+import integration.analytics.SettlementReport;
 import model.Amount;
 import model.discount.DiscountFactory;
 import model.discount.DiscountStrategy;
 import model.Sale;
+import observer.RevenueEventBus;
+import observer.RevenueTotals;
 import observer.TotalRevenueObserver;
 import util.LogHandler;
+import util.metrics.Counter;
+import util.metrics.LatencyHistogram;
+import util.metrics.MetricsRegistry;
 
 /**
- * This serves as the main controller that the cashier interacts with the model and integration systems.
+ * This serves as the main controller that the cashier interacts with the model and integration systems. One controller
+ * can serve several registers (lanes) at the same time, each lane has its own ongoing sale. The methods without a lane
+ * ID operate on the {@link #DEFAULT_LANE}. Different lanes may be used concurrently from different threads, but the
+ * calls for a single lane are expected to come from one thread at a time.
  */
 public class Controller {
+	/**
+	 * The lane used by the methods that do not take a lane ID.
+	 */
+	public static final String DEFAULT_LANE = "default";
+
+	private static final int ITEM_CACHE_SIZE = 100_000;
+	private static final Duration ITEM_CACHE_TIME_TO_LIVE = Duration.ofMinutes(5);
+	private static final Duration ITEM_CACHE_NOT_FOUND_TIME_TO_LIVE = Duration.ofSeconds(30);
+	private static final int INVENTORY_FAILURE_THRESHOLD = 5;
+	private static final Duration INVENTORY_OPEN_DURATION = Duration.ofSeconds(10);
+	private static final int INVENTORY_MAX_CONCURRENT_CALLS = 32;
+	private static final Duration INVENTORY_MAX_BULKHEAD_WAIT = Duration.ofMillis(250);
+	private static final int INVENTORY_SNAPSHOT_SIZE = 100_000;
+	private static final String OPERATION_LATENCY = "pos_operation_latency_seconds";
+	private static final String JOURNAL_FILE_NAME = "sales.journal";
+	private static final String RECEIPT_DIRECTORY_NAME = "receipts";
+
 	private final AccountingSystem accountingSystem;
 	private final InventorySystem inventorySystem;
+	private final ItemSource itemSource;
 	private final DiscountFactory discountFactory;
 	private final Printer printer;
+	private final ReceiptArchive receiptArchive;
+	private final SaleQueue saleQueue;
+	private final SaleSyncer saleSyncer;
 
 	private final LogHandler logger = LogHandler.getLogger();
-	private final ArrayList<TotalRevenueObserver> observers = new ArrayList<>();
-
-	private Sale sale;
+	private final RevenueEventBus revenueEventBus = new RevenueEventBus();
+	private final RevenueTotals revenueTotals = new RevenueTotals();
+	private final SettlementEngine settlementEngine = new SettlementEngine();
+	private final ConcurrentHashMap<String, Sale> sales = new ConcurrentHashMap<>();
+	private final MetricsRegistry metrics = new MetricsRegistry();
+	private final ConcurrentHashMap<String, LaneMetrics> laneMetrics = new ConcurrentHashMap<>();
 
 	/**
-	 * Constructor for the Controller class.
+	 * Constructor for the Controller class. The sale journal and the receipt archive are kept in the working
+	 * directory.
 	 */
 	public Controller() {
-		accountingSystem = new AccountingSystem();
-		inventorySystem = new InventorySystem();
-		discountFactory = new DiscountFactory(new DiscountCatalog());
-		printer = new Printer();
+		this(Path.of(""));
+	}
+
+	/**
+	 * Creates a controller that keeps the sale journal and the receipt archive in the specified directory.
+	 * 
+	 * @param dataDirectory The directory of the sale journal and the receipt archive.
+	 * @throws java.io.UncheckedIOException if the journal or the archive could not be opened.
+	 */
+	public Controller(Path dataDirectory) {
+		this(new AccountingSystem(dataDirectory.resolve(JOURNAL_FILE_NAME)), new InventorySystem(),
+				new DiscountFactory(new DiscountCatalog()), new Printer(),
+				new ReceiptArchive(dataDirectory.resolve(RECEIPT_DIRECTORY_NAME)));
+	}
+
+	/**
+	 * Creates a controller that uses the specified systems. Items are retrieved through a cache in front of the
+	 * inventory system. Calls to the inventory system are protected by a circuit breaker and a bulkhead, and items are
+	 * served from a snapshot of the last retrieved items while it is unavailable. Receipts are not archived.
+	 * 
+	 * @param accountingSystem The accounting system that records finished sales.
+	 * @param inventorySystem  The inventory system that items are retrieved from.
+	 * @param discountFactory  The factory that creates eligible discounts.
+	 * @param printer          The printer that prints receipts.
+	 */
+	public Controller(AccountingSystem accountingSystem, InventorySystem inventorySystem,
+			DiscountFactory discountFactory, Printer printer) {
+		this(accountingSystem, inventorySystem, discountFactory, printer, null);
+	}
+
+	/**
+	 * Creates a controller that uses the specified systems, and archives the receipt of every finished sale. Items are
+	 * retrieved through the same protected cache as {@link #Controller(AccountingSystem, InventorySystem,
+	 * DiscountFactory, Printer)}.
+	 * 
+	 * @param accountingSystem The accounting system that records finished sales.
+	 * @param inventorySystem  The inventory system that items are retrieved from.
+	 * @param discountFactory  The factory that creates eligible discounts.
+	 * @param printer          The printer that prints receipts.
+	 * @param receiptArchive   The archive that receipts are stored in, or null if receipts are not archived.
+	 */
+	public Controller(AccountingSystem accountingSystem, InventorySystem inventorySystem,
+			DiscountFactory discountFactory, Printer printer, ReceiptArchive receiptArchive) {
+		this(accountingSystem, inventorySystem, createItemSource(inventorySystem), discountFactory, printer,
+				receiptArchive);
+	}
+
+	/**
+	 * Creates a controller that uses the specified systems, and retrieves items from the specified item source.
+	 * Receipts are not archived.
+	 * 
+	 * @param accountingSystem The accounting system that records finished sales.
+	 * @param inventorySystem  The inventory system that is updated after each sale.
+	 * @param itemSource       The source that entered items are retrieved from.
+	 * @param discountFactory  The factory that creates eligible discounts.
+	 * @param printer          The printer that prints receipts.
+	 */
+	public Controller(AccountingSystem accountingSystem, InventorySystem inventorySystem, ItemSource itemSource,
+			DiscountFactory discountFactory, Printer printer) {
+		this(accountingSystem, inventorySystem, itemSource, discountFactory, printer, null);
+	}
+
+	/**
+	 * Creates a controller that uses the specified systems, and archives the receipt of every finished sale.
+	 * 
+	 * @param accountingSystem The accounting system that records finished sales.
+	 * @param inventorySystem  The inventory system that is updated after each sale.
+	 * @param itemSource       The source that entered items are retrieved from.
+	 * @param discountFactory  The factory that creates eligible discounts.
+	 * @param printer          The printer that prints receipts.
+	 * @param receiptArchive   The archive that receipts are stored in, or null if receipts are not archived.
+	 */
+	public Controller(AccountingSystem accountingSystem, InventorySystem inventorySystem, ItemSource itemSource,
+			DiscountFactory discountFactory, Printer printer, ReceiptArchive receiptArchive) {
+		this(accountingSystem, inventorySystem, itemSource, discountFactory, printer, receiptArchive, null);
+	}
+
+	/**
+	 * Creates a controller that works offline first: finished sales are added to the specified sale queue, and a
+	 * background syncer records them in the accounting and inventory systems. Lanes can finish sales while those
+	 * systems are unreachable, the syncer catches up when they are back. The syncer is stopped and the queue closed by
+	 * {@link #shutdown()}.
+	 * 
+	 * @param accountingSystem The accounting system that the queued sales are recorded in.
+	 * @param inventorySystem  The inventory system that is updated with the queued sales.
+	 * @param itemSource       The source that entered items are retrieved from.
+	 * @param discountFactory  The factory that creates eligible discounts.
+	 * @param printer          The printer that prints receipts.
+	 * @param receiptArchive   The archive that receipts are stored in, or null if receipts are not archived.
+	 * @param saleQueue        The queue of sales to sync, or null to record sales in the systems directly.
+	 */
+	public Controller(AccountingSystem accountingSystem, InventorySystem inventorySystem, ItemSource itemSource,
+			DiscountFactory discountFactory, Printer printer, ReceiptArchive receiptArchive, SaleQueue saleQueue) {
+		this.accountingSystem = accountingSystem;
+		this.inventorySystem = inventorySystem;
+		this.itemSource = itemSource;
+		this.discountFactory = discountFactory;
+		this.printer = printer;
+		this.receiptArchive = receiptArchive;
+		this.saleQueue = saleQueue;
+		this.saleSyncer = saleQueue == null ? null : new SaleSyncer(saleQueue, accountingSystem, inventorySystem);
+
+		if (saleSyncer != null) {
+			metrics.gauge("pos_sale_queue_pending", saleSyncer::getPendingSaleCount);
+			metrics.gauge("pos_sale_sync_failures", saleSyncer::getFailedAttemptCount);
+		}
+		metrics.gauge("pos_open_sales", sales::size);
+		metrics.gauge("pos_revenue_event_queue_depth", revenueEventBus::getQueueDepth);
+		metrics.gauge("pos_revenue_events_dropped", revenueEventBus::getDroppedEventCount);
+		metrics.gauge("pos_revenue", () -> revenueTotals.getTotalRevenue().toBigDecimal().doubleValue());
+	}
+
+	private static ItemSource createItemSource(InventorySystem inventorySystem) {
+		CircuitBreaker circuitBreaker = new CircuitBreaker(INVENTORY_FAILURE_THRESHOLD, INVENTORY_OPEN_DURATION);
+		ItemSource protectedInventory = new ResilientItemSource(inventorySystem, circuitBreaker,
+				INVENTORY_MAX_CONCURRENT_CALLS, INVENTORY_MAX_BULKHEAD_WAIT, INVENTORY_SNAPSHOT_SIZE);
+		return new CachingItemSource(protectedInventory, ITEM_CACHE_SIZE, ITEM_CACHE_TIME_TO_LIVE,
+				ITEM_CACHE_NOT_FOUND_TIME_TO_LIVE);
 	}
 
 	/**
-	 * Registers an observer instance.
+	 * Registers an observer instance. The observer is notified asynchronously, on the thread of the revenue event bus.
 	 * 
 	 * @param observer The observer instance to be added
 	 */
 	public void registerObserver(TotalRevenueObserver observer) {
-		observers.add(observer);
+		revenueEventBus.subscribe(observer);
 	}
 
 	/**
-	 * Starts a new sale.
+	 * Returns the bus that delivers revenue updates to the registered observers, for example to read its metrics.
+	 * 
+	 * @return The revenue event bus.
 	 */
-	public void startSale() {
-		sale = new Sale();
+	public RevenueEventBus getRevenueEventBus() {
+		return revenueEventBus;
+	}
+
+	/**
+	 * Returns the revenue of all lanes, in total, per lane and per time window. The totals are updated by each lane
+	 * when a sale is paid, before the registered observers are notified.
+	 * 
+	 * @return The revenue totals.
+	 */
+	public RevenueTotals getRevenueTotals() {
+		return revenueTotals;
+	}
+
+	/**
+	 * Returns the syncer that records queued sales in the accounting and inventory systems, for example to wait until
+	 * they are synced.
+	 * 
+	 * @return The sale syncer, or null if the controller records sales directly.
+	 */
+	public SaleSyncer getSaleSyncer() {
+		return saleSyncer;
+	}
+
+	/**
+	 * Settles the specified day: reads the sales made on that day from the part of the sale journal that holds them and
+	 * computes the totals by VAT rate, the discounts by type, the cash in and change out of each lane and the sell-through of
+	 * each item. Sales whose journal write has not completed yet are not included.
+	 * 
+	 * @param businessDay The day to settle.
+	 * @return The settlement report of the day.
+	 * @throws java.io.UncheckedIOException if the journal could not be read.
+	 */
+	public SettlementReport createSettlementReport(LocalDate businessDay) {
+		return settlementEngine.settleReplay(settler -> accountingSystem.replayRecordedSales(businessDay, settler));
+	}
 
-		for (TotalRevenueObserver observer : observers) {
-			sale.registerObserver(observer);
+	/**
+	 * Returns the metrics of the controller, to be published by an exporter. The latency of every operation is recorded
+	 * per lane in the histogram <code>pos_operation_latency_seconds</code>, labelled with the operation and the lane.
+	 * 
+	 * @return The metrics registry.
+	 */
+	public MetricsRegistry getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Delivers all pending revenue updates, writes all recorded sales and archived receipts to disk and stops the
+	 * background threads. Queued sales that are not synced yet stay in the sale queue.
+	 */
+	public void shutdown() {
+		revenueEventBus.close();
+		if (saleSyncer != null) {
+			saleSyncer.close();
+			saleQueue.close();
 		}
+		accountingSystem.close();
+		if (receiptArchive != null) {
+			receiptArchive.close();
+		}
+	}
+
+	/**
+	 * Starts a new sale on the default lane.
+	 */
+	public void startSale() {
+		startSale(DEFAULT_LANE);
+	}
+
+	/**
+	 * Starts a new sale on the specified lane. Any unfinished sale on that lane is discarded.
+	 * 
+	 * @param laneId The ID of the lane (register) the sale belongs to.
+	 */
+	public void startSale(String laneId) {
+		Sale sale = new Sale(laneId);
+		sale.registerObserver(saleAmount -> revenueTotals.record(laneId, saleAmount));
+		sale.registerObserver(revenueEventBus);
+
+		sales.put(laneId, sale);
+	}
+
+	/**
+	 * Discards the unfinished sale on the specified lane, for example when the lane disconnects. Nothing is recorded
+	 * for the discarded sale.
+	 * 
+	 * @param laneId The ID of the lane.
+	 * @return true if a sale was discarded, false if no sale was started on the lane.
+	 */
+	public boolean cancelSale(String laneId) {
+		return sales.remove(laneId) != null;
 	}
 
 	/**
-	 * Enter an item into the sale.
+	 * Enter an item into the sale on the default lane.
 	 * 
 	 * @param itemId The ID of the item to be entered into the sale.
 	 * @return The current item information and running total.
@@ -73,58 +327,277 @@ public class Controller {
 	 * @throws RuntimeException      if the item cannot be retrieved due to inventory system failure.
 	 */
 	public SaleInfoDTO enterItem(String itemId) throws ItemNotFoundException {
+		return enterItem(DEFAULT_LANE, itemId);
+	}
+
+	/**
+	 * Enter an item into the sale on the specified lane.
+	 * 
+	 * @param laneId The ID of the lane the sale belongs to.
+	 * @param itemId The ID of the item to be entered into the sale.
+	 * @return The current item information and running total.
+	 * @throws ItemNotFoundException if the item is not found in the inventory.
+	 * @throws RuntimeException      if the item cannot be retrieved due to inventory system failure.
+	 * @throws IllegalStateException if no sale is started on the lane.
+	 */
+	public SaleInfoDTO enterItem(String laneId, String itemId) throws ItemNotFoundException {
+		return enterItem(laneId, itemId, 1);
+	}
+
+	/**
+	 * Enter several items with the same ID into the sale on the default lane.
+	 * 
+	 * @param itemId   The ID of the item to be entered into the sale.
+	 * @param quantity The number of items to enter.
+	 * @return The current item information and running total.
+	 * @throws ItemNotFoundException    if the item is not found in the inventory.
+	 * @throws RuntimeException         if the item cannot be retrieved due to inventory system failure.
+	 * @throws IllegalArgumentException if the quantity is not positive.
+	 */
+	public SaleInfoDTO enterItem(String itemId, int quantity) throws ItemNotFoundException {
+		return enterItem(DEFAULT_LANE, itemId, quantity);
+	}
+
+	/**
+	 * Enter several items with the same ID into the sale on the specified lane. The item is looked up once, and the
+	 * quantity is added to its sale line.
+	 * 
+	 * @param laneId   The ID of the lane the sale belongs to.
+	 * @param itemId   The ID of the item to be entered into the sale.
+	 * @param quantity The number of items to enter.
+	 * @return The current item information and running total.
+	 * @throws ItemNotFoundException    if the item is not found in the inventory.
+	 * @throws RuntimeException         if the item cannot be retrieved due to inventory system failure.
+	 * @throws IllegalStateException    if no sale is started on the lane.
+	 * @throws IllegalArgumentException if the quantity is not positive.
+	 */
+	public SaleInfoDTO enterItem(String laneId, String itemId, int quantity) throws ItemNotFoundException {
+		Sale sale = getSale(laneId);
+		LaneMetrics lane = laneMetrics(laneId);
+		long startTime = System.nanoTime();
 		try {
-			ItemDTO boughtItem = inventorySystem.retrieveItem(itemId);
-			SaleInfoDTO saleInfo = sale.addBoughtItem(boughtItem);
+			ItemDTO boughtItem = retrieveItem(itemId, lane);
+			SaleInfoDTO saleInfo = sale.addBoughtItem(boughtItem, quantity);
 			return saleInfo;
+		} catch (ItemNotFoundException e) {
+			lane.itemsNotFound().increment();
+			throw e;
 		} catch (DatabaseFailureException e) {
+			lane.inventoryFailures().increment();
 			logger.logException(e);
 			throw new RuntimeException("An inventory database error occurred", e);
+		} finally {
+			lane.enterItem().recordSince(startTime);
+		}
+	}
+
+	private ItemDTO retrieveItem(String itemId, LaneMetrics lane) throws ItemNotFoundException {
+		long startTime = System.nanoTime();
+		try {
+			return itemSource.retrieveItem(itemId);
+		} finally {
+			lane.inventoryLookup().recordSince(startTime);
+		}
+	}
+
+	/**
+	 * Enter several items into the sale on the default lane at once.
+	 * 
+	 * @param itemIds The IDs of the items to be entered, in the order they were scanned.
+	 * @return The number of entered items, the items that could not be entered, and the running total.
+	 */
+	public BatchEntryDTO enterItems(List<String> itemIds) {
+		return enterItems(DEFAULT_LANE, itemIds);
+	}
+
+	/**
+	 * Enter several items into the sale on the specified lane at once, for example a burst of barcodes from a scanner.
+	 * All items are retrieved with one call to the item source and added to the sale in one pass. Items that are not
+	 * found, or that could not be retrieved, are reported in the result and the other items are still entered.
+	 * 
+	 * @param laneId  The ID of the lane the sale belongs to.
+	 * @param itemIds The IDs of the items to be entered, in the order they were scanned.
+	 * @return The number of entered items, the items that could not be entered, and the running total.
+	 * @throws IllegalStateException if no sale is started on the lane.
+	 */
+	public BatchEntryDTO enterItems(String laneId, List<String> itemIds) {
+		Sale sale = getSale(laneId);
+		LaneMetrics lane = laneMetrics(laneId);
+		long startTime = System.nanoTime();
+		LinkedHashSet<String> distinctItemIds = new LinkedHashSet<>(itemIds);
+		ItemLookupDTO lookup;
+		try {
+			lookup = itemSource.retrieveItems(distinctItemIds);
+		} catch (DatabaseFailureException e) {
+			lane.inventoryFailures().increment();
+			logger.logException(e);
+			lookup = new ItemLookupDTO(Map.of(), Set.of(), distinctItemIds);
+		} finally {
+			lane.inventoryLookup().recordSince(startTime);
+		}
+
+		ArrayList<ItemDTO> boughtItems = new ArrayList<>(itemIds.size());
+		ArrayList<String> notFoundItemIds = new ArrayList<>();
+		ArrayList<String> unavailableItemIds = new ArrayList<>();
+		for (String itemId : itemIds) {
+			ItemDTO item = lookup.foundItems().get(itemId);
+			if (item != null) {
+				boughtItems.add(item);
+			} else if (lookup.unavailableItemIds().contains(itemId)) {
+				unavailableItemIds.add(itemId);
+			} else {
+				notFoundItemIds.add(itemId);
+			}
 		}
+
+		SaleInfoDTO saleInfo = sale.addBoughtItems(boughtItems);
+		lane.itemsNotFound().add(notFoundItemIds.size());
+		lane.enterItems().recordSince(startTime);
+		return new BatchEntryDTO(boughtItems.size(), notFoundItemIds, unavailableItemIds, saleInfo.totalPrice(),
+				saleInfo.totalVat());
 	}
 
 	/**
-	 * Ends the current sale and returns the total price for this sale.
+	 * Ends the current sale on the default lane and returns the total price for this sale.
 	 * 
 	 * @return The total price of the current sale.
 	 */
 	public Amount endSale() {
-		return sale.getTotalPrice().rounded();
+		return endSale(DEFAULT_LANE);
+	}
+
+	/**
+	 * Ends the current sale on the specified lane and returns the total price for this sale.
+	 * 
+	 * @param laneId The ID of the lane the sale belongs to.
+	 * @return The total price of the current sale.
+	 * @throws IllegalStateException if no sale is started on the lane.
+	 */
+	public Amount endSale(String laneId) {
+		return getSale(laneId).getTotalPrice().rounded();
 	}
 
 	/**
-	 * Requests and applies all eligible discounts for the given customer.
+	 * Requests and applies all eligible discounts for the given customer on the default lane.
 	 *
 	 * @param customerId The customer ID.
 	 * @return The discounted total price.
 	 */
 	public Amount requestDiscount(int customerId) {
-		ArrayList<ItemDTO> boughtItems = sale.getBoughtItems();
-		Amount totalPrice = sale.getTotalPrice();
+		return requestDiscount(DEFAULT_LANE, customerId);
+	}
+
+	/**
+	 * Requests and applies all eligible discounts for the given customer on the specified lane.
+	 *
+	 * @param laneId     The ID of the lane the sale belongs to.
+	 * @param customerId The customer ID.
+	 * @return The discounted total price.
+	 * @throws IllegalStateException if no sale is started on the lane.
+	 */
+	public Amount requestDiscount(String laneId, int customerId) {
+		Sale sale = getSale(laneId);
+		long startTime = System.nanoTime();
 
-		DiscountDTO discountDTO = new DiscountDTO(boughtItems, totalPrice, customerId);
+		DiscountDTO discountDTO = sale.getDiscountInfo(customerId);
 		ArrayList<DiscountStrategy> discounts = discountFactory.fetchEligibleDiscounts(discountDTO);
 
 		Amount discountedPrice = sale.setDiscountedPrice(discounts);
+		laneMetrics(laneId).requestDiscount().recordSince(startTime);
 		return discountedPrice;
 	}
 
 	/**
-	 * Handles payment and returns the change, then prints the receipt.
+	 * Handles payment on the default lane and returns the change, then prints the receipt.
 	 * 
 	 * @param amount The paid amount.
 	 * @return The change to be returned to the customer.
 	 */
 	public Amount finalizeSaleWithPayment(Amount amount) {
+		return finalizeSaleWithPayment(DEFAULT_LANE, amount);
+	}
+
+	/**
+	 * Handles payment on the specified lane and returns the change, then prints the receipt. The sale is recorded in
+	 * the accounting and inventory systems, or added to the sale queue if the controller works offline first. The
+	 * receipt is archived without waiting for it to be written, if the controller has a receipt archive. The sale is
+	 * closed and removed from the lane.
+	 * 
+	 * @param laneId The ID of the lane the sale belongs to.
+	 * @param amount The paid amount.
+	 * @return The change to be returned to the customer.
+	 * @throws IllegalStateException if no sale is started on the lane.
+	 */
+	public Amount finalizeSaleWithPayment(String laneId, Amount amount) {
+		Sale sale = getSale(laneId);
+		LaneMetrics lane = laneMetrics(laneId);
+		long startTime = System.nanoTime();
 		sale.setAmountPaid(amount);
 
 		SaleDTO saleDTO = sale.getSaleInfo(amount);
 		ReceiptDTO receiptDTO = sale.getReceiptInfo(saleDTO);
 
-		accountingSystem.account(saleDTO);
-		inventorySystem.updateInventory(saleDTO);
+		long stepStartTime = System.nanoTime();
+		if (saleQueue != null) {
+			saleQueue.append(saleDTO);
+			lane.saleQueueing().recordSince(stepStartTime);
+		} else {
+			accountingSystem.account(saleDTO);
+			lane.accounting().recordSince(stepStartTime);
+			stepStartTime = System.nanoTime();
+			inventorySystem.updateInventory(saleDTO);
+			lane.inventoryUpdate().recordSince(stepStartTime);
+		}
+		stepStartTime = System.nanoTime();
 		printer.printReceipt(receiptDTO);
+		lane.receiptPrinting().recordSince(stepStartTime);
+		if (receiptArchive != null) {
+			receiptArchive.archive(receiptDTO);
+		}
 
+		sales.remove(laneId, sale);
+		lane.finishedSales().increment();
+		lane.finalizeSale().recordSince(startTime);
 		return saleDTO.change().rounded();
 	}
+
+	private Sale getSale(String laneId) {
+		Sale sale = sales.get(laneId);
+		if (sale == null) {
+			throw new IllegalStateException("No sale is started on lane '%s'".formatted(laneId));
+		}
+		return sale;
+	}
+
+	private LaneMetrics laneMetrics(String laneId) {
+		LaneMetrics lane = laneMetrics.get(laneId);
+		if (lane == null) {
+			lane = laneMetrics.computeIfAbsent(laneId, newLane -> LaneMetrics.register(metrics, newLane));
+		}
+		return lane;
+	}
+
+	/**
+	 * The metrics of one lane, looked up once so that recording does not need the registry.
+	 */
+	private record LaneMetrics(LatencyHistogram enterItem, LatencyHistogram enterItems,
+			LatencyHistogram requestDiscount, LatencyHistogram finalizeSale, LatencyHistogram inventoryLookup,
+			LatencyHistogram accounting, LatencyHistogram inventoryUpdate, LatencyHistogram saleQueueing,
+			LatencyHistogram receiptPrinting, Counter finishedSales, Counter itemsNotFound, Counter inventoryFailures) {
+		static LaneMetrics register(MetricsRegistry metrics, String laneId) {
+			return new LaneMetrics(
+					metrics.histogram(OPERATION_LATENCY, "operation", "enterItem", "lane", laneId),
+					metrics.histogram(OPERATION_LATENCY, "operation", "enterItems", "lane", laneId),
+					metrics.histogram(OPERATION_LATENCY, "operation", "requestDiscount", "lane", laneId),
+					metrics.histogram(OPERATION_LATENCY, "operation", "finalizeSaleWithPayment", "lane", laneId),
+					metrics.histogram(OPERATION_LATENCY, "operation", "inventoryLookup", "lane", laneId),
+					metrics.histogram(OPERATION_LATENCY, "operation", "accounting", "lane", laneId),
+					metrics.histogram(OPERATION_LATENCY, "operation", "inventoryUpdate", "lane", laneId),
+					metrics.histogram(OPERATION_LATENCY, "operation", "saleQueueing", "lane", laneId),
+					metrics.histogram(OPERATION_LATENCY, "operation", "receiptPrinting", "lane", laneId),
+					metrics.counter("pos_sales_finished_total", "lane", laneId),
+					metrics.counter("pos_items_not_found_total", "lane", laneId),
+					metrics.counter("pos_inventory_failures_total", "lane", laneId));
+		}
+	}
 }
@@ -0,0 +1,5 @@
+package dto;
+
+import model.Amount;
+
+public record AppliedDiscountDTO(String type, Amount amount) {}
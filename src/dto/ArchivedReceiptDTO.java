@@ -0,0 +1,3 @@
+package dto;
+
+public record ArchivedReceiptDTO(long receiptId, ReceiptDTO receipt) {}
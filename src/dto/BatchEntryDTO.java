@@ -0,0 +1,8 @@
+package dto;
+
+import java.util.List;
+
+import model.Amount;
+
+public record BatchEntryDTO(int enteredItemCount, List<String> notFoundItemIds, List<String> unavailableItemIds,
+		Amount totalPrice, Amount totalVat) {}
@@ -1,7 +1,7 @@
 package dto;
 
-import java.util.ArrayList;
+import java.util.Map;
 
 import model.Amount;
 
-public record DiscountDTO(ArrayList<ItemDTO> boughtIitems, Amount totalPrice, int customerId) {}
+public record DiscountDTO(int itemCount, Map<String, Integer> itemQuantities, Amount totalPrice, int customerId) {}
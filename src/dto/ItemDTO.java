@@ -2,4 +2,34 @@ package dto;
 
 import model.Amount;
 
-public record ItemDTO(String id, String name, Amount price, Amount vat, String description) {}
+/**
+ * An item in the catalog. The VAT and the price including VAT are calculated once, when the item is created, so that
+ * entering and printing the item needs no further arithmetic.
+ *
+ * @param id          The item ID.
+ * @param name        The item name.
+ * @param price       The price excluding VAT.
+ * @param vat         The VAT rate.
+ * @param description The item description.
+ * @param vatPrice    The VAT of the price.
+ * @param fullPrice   The price including VAT.
+ */
+public record ItemDTO(String id, String name, Amount price, Amount vat, String description, Amount vatPrice,
+		Amount fullPrice) {
+	/**
+	 * Creates an item and calculates its VAT and price including VAT.
+	 *
+	 * @param id          The item ID.
+	 * @param name        The item name.
+	 * @param price       The price excluding VAT.
+	 * @param vat         The VAT rate.
+	 * @param description The item description.
+	 */
+	public ItemDTO(String id, String name, Amount price, Amount vat, String description) {
+		this(id, name, price, vat, description, price.multiply(vat));
+	}
+
+	private ItemDTO(String id, String name, Amount price, Amount vat, String description, Amount vatPrice) {
+		this(id, name, price, vat, description, vatPrice, price.add(vatPrice));
+	}
+}
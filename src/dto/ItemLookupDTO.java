@@ -0,0 +1,7 @@
+package dto;
+
+import java.util.Map;
+import java.util.Set;
+
+public record ItemLookupDTO(Map<String, ItemDTO> foundItems, Set<String> notFoundItemIds,
+		Set<String> unavailableItemIds) {}
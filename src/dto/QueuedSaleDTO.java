@@ -0,0 +1,3 @@
+package dto;
+
+public record QueuedSaleDTO(long sequence, SaleDTO sale) {}
@@ -5,5 +5,23 @@ import java.util.ArrayList;
 
 import model.Amount;
 
-public record SaleDTO(LocalDateTime saleDateTime, ArrayList<ItemDTO> boughtItems, Amount totalPrice,
-		Amount totalVat, Amount amountPaid, Amount change, Amount discountedPrice) {}
+public record SaleDTO(LocalDateTime saleDateTime, ArrayList<SaleLineDTO> saleLines, Amount totalPrice,
+		Amount totalVat, Amount amountPaid, Amount change, Amount discountedPrice,
+		ArrayList<AppliedDiscountDTO> discounts, String registerId) {
+	/**
+	 * Creates a sale without a breakdown of its discount by discount type, made on an unknown register. The ID of an
+	 * unknown register is the empty string.
+	 *
+	 * @param saleDateTime    The time of the sale.
+	 * @param saleLines       The sale lines.
+	 * @param totalPrice      The total price after discounts, including VAT.
+	 * @param totalVat        The total VAT.
+	 * @param amountPaid      The amount paid.
+	 * @param change          The change given back.
+	 * @param discountedPrice The total discount.
+	 */
+	public SaleDTO(LocalDateTime saleDateTime, ArrayList<SaleLineDTO> saleLines, Amount totalPrice, Amount totalVat,
+			Amount amountPaid, Amount change, Amount discountedPrice) {
+		this(saleDateTime, saleLines, totalPrice, totalVat, amountPaid, change, discountedPrice, new ArrayList<>(), "");
+	}
+}
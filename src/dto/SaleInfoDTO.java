@@ -2,4 +2,4 @@ package dto;
 
 import model.Amount;
 
-public record SaleInfoDTO(ItemDTO currentItem, Amount totalPrice, Amount totalVat) {}
+public record SaleInfoDTO(ItemDTO currentItem, int quantity, Amount totalPrice, Amount totalVat) {}
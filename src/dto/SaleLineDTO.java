@@ -0,0 +1,5 @@
+package dto;
+
+import model.Amount;
+
+public record SaleLineDTO(ItemDTO item, int quantity, Amount unitPrice, Amount lineTotal) {}
@@ -1,28 +1,158 @@
 package integration;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import dto.SaleDTO;
+import integration.analytics.SalesColumnStore;
 
 /**
- * The AccountingSystem class is responsible for recording sales information.
+ * The AccountingSystem class is responsible for recording sales information. Sales may be recorded concurrently from
+ * several lanes. Recorded sales are stored in a sale journal on disk, so they survive a restart, and are added to a
+ * {@link SalesColumnStore} for analytics queries. A sale is only counted and added to the analytics store once it is
+ * written to disk, so a sale whose write failed, and that is recorded again, is not counted twice.
  */
 public class AccountingSystem {
-	private final ArrayList<SaleDTO> recordedSales;
+	private static final String JOURNAL_FILE_NAME = "sales.journal";
+
+	private final SaleJournal journal;
+	private final AtomicLong recordedSaleCount = new AtomicLong();
+	private final SalesColumnStore analytics = new SalesColumnStore();
 
 	/**
-	 * Constructor for the AccountingSystem class.
+	 * Constructor for the AccountingSystem class. Uses the journal file in the working directory.
 	 */
 	public AccountingSystem() {
-		recordedSales = new ArrayList<>();
+		this(Path.of(JOURNAL_FILE_NAME));
+	}
+
+	/**
+	 * Creates an accounting system that stores sales in the specified journal file. Sales already in the journal are
+	 * recovered and added to the analytics store.
+	 * 
+	 * @param journalFile The journal file.
+	 * @throws UncheckedIOException if the journal could not be opened.
+	 */
+	public AccountingSystem(Path journalFile) {
+		this(journalFile, SaleJournal::writeFully);
 	}
 
 	/**
-	 * Records the sale information in the accounting system.
+	 * Creates an accounting system whose journal writes each batch of sales with the specified writer.
+	 *
+	 * @param journalFile The journal file.
+	 * @param batchWriter Writes the bytes of a batch to the journal file.
+	 * @throws UncheckedIOException if the journal could not be opened.
+	 */
+	AccountingSystem(Path journalFile, SaleJournal.BatchWriter batchWriter) {
+		try {
+			journal = new SaleJournal(journalFile, this::addRecordedSale, batchWriter);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not open the sale journal", e);
+		}
+	}
+
+	/**
+	 * Records the sale information in the accounting system. This method does not wait for the sale to be written to
+	 * disk, use the returned future to wait for that.
 	 * 
 	 * @param saleDTO The sale information.
+	 * @return A future that completes when the sale is stored on disk and added to the analytics store.
+	 */
+	public CompletableFuture<Void> account(SaleDTO saleDTO) {
+		return journal.append(saleDTO).thenRun(() -> addRecordedSale(saleDTO));
+	}
+
+	/**
+	 * Records a sale that was synced from a {@link SaleQueue}. The sync sequence is stored with the sale, and a sale
+	 * whose sync sequence is not higher than that of every sale already written is skipped, so that a queued sale that
+	 * is delivered again after a failure or a restart is only recorded once. Queued sales must therefore be accounted in
+	 * the order of their sync sequence. This method does not wait for the sale to be written to disk.
+	 * 
+	 * @param saleDTO      The sale information.
+	 * @param syncSequence The sequence number of the sale in the queue.
+	 * @return A future that completes when the sale is stored on disk and added to the analytics store, or at once if
+	 *         the sale was already recorded.
+	 */
+	public CompletableFuture<Void> account(SaleDTO saleDTO, long syncSequence) {
+		if (syncSequence <= journal.getLastSyncSequence()) {
+			return CompletableFuture.completedFuture(null);
+		}
+		return journal.append(saleDTO, syncSequence).thenRun(() -> addRecordedSale(saleDTO));
+	}
+
+	/**
+	 * Returns the highest sync sequence of the synced sales stored on disk.
+	 * 
+	 * @return The highest sync sequence, 0 if no synced sale was recorded.
+	 */
+	public long getLastSyncSequence() {
+		return journal.getLastSyncSequence();
+	}
+
+	/**
+	 * Returns the analytics store of the recorded sales, including sales recovered from the journal. The store only
+	 * holds the sales of its retention window, the journal holds every sale.
+	 * 
+	 * @return The analytics store.
+	 */
+	public SalesColumnStore getAnalytics() {
+		return analytics;
+	}
+
+	/**
+	 * Returns the number of sales recorded, including sales recovered from the journal.
+	 * 
+	 * @return The number of recorded sales.
+	 */
+	public long getRecordedSaleCount() {
+		return recordedSaleCount.get();
+	}
+
+	/**
+	 * Reads all sales stored on disk, in the order they were recorded.
+	 * 
+	 * @param sales Receives each recorded sale.
+	 * @throws UncheckedIOException if the journal could not be read.
+	 */
+	public void replayRecordedSales(Consumer<SaleDTO> sales) {
+		try {
+			journal.replay(sales);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read the sale journal", e);
+		}
+	}
+
+	private void addRecordedSale(SaleDTO saleDTO) {
+		recordedSaleCount.incrementAndGet();
+		analytics.add(saleDTO);
+	}
+
+	/**
+	 * Reads the sales made on the specified day that are stored on disk, in the order they were recorded. Only the part
+	 * of the journal that holds the sales of the day is read.
+	 * 
+	 * @param day   The day of sale.
+	 * @param sales Receives each recorded sale of the day.
+	 * @throws UncheckedIOException if the journal could not be read.
+	 */
+	public void replayRecordedSales(LocalDate day, Consumer<SaleDTO> sales) {
+		try {
+			journal.replay(day, sales);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read the sale journal", e);
+		}
+	}
+
+	/**
+	 * Writes all recorded sales to disk and closes the journal.
 	 */
-	public void account(SaleDTO saleDTO) {
-		recordedSales.add(saleDTO);
+	public void close() {
+		journal.close();
 	}
 }
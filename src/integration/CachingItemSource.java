@@ -0,0 +1,304 @@
+package integration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import dto.ItemDTO;
+import dto.ItemLookupDTO;
+
+/**
+ * A read-through cache in front of another item source. Retrieved items are kept until their time to live has passed,
+ * and the least recently used items are evicted when the cache is full. That an item does not exist is cached too,
+ * with a separate time to live, so repeated scans of an unknown barcode do not reach the source. When several lanes
+ * ask for the same uncached item at the same time, the source is only asked once and the others wait for that answer.
+ * <p>
+ * The cache is split into segments by the hash of the item ID, each with its own lock, so lanes looking up different
+ * items rarely wait for each other. Failures of the source are not cached.
+ */
+public class CachingItemSource implements ItemSource {
+	private static final int DEFAULT_SEGMENT_COUNT = 16;
+
+	private final ItemSource source;
+	private final Segment[] segments;
+	private final long timeToLiveNanos;
+	private final long notFoundTimeToLiveNanos;
+	private final LongSupplier nanoClock;
+	private final ConcurrentHashMap<String, CompletableFuture<ItemDTO>> pendingLoads = new ConcurrentHashMap<>();
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong notFoundHits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Creates a cache in front of the specified source.
+	 *
+	 * @param source             The source that items are retrieved from when they are not cached.
+	 * @param maxSize            The number of items, found or not, the cache holds at most.
+	 * @param timeToLive         How long a retrieved item is kept.
+	 * @param notFoundTimeToLive How long it is remembered that an item does not exist.
+	 */
+	public CachingItemSource(ItemSource source, int maxSize, Duration timeToLive, Duration notFoundTimeToLive) {
+		this(source, maxSize, timeToLive, notFoundTimeToLive, DEFAULT_SEGMENT_COUNT, System::nanoTime);
+	}
+
+	/**
+	 * Creates a cache with the specified number of segments, that reads the time from the specified clock.
+	 *
+	 * @param source             The source that items are retrieved from when they are not cached.
+	 * @param maxSize            The number of items, found or not, the cache holds at most.
+	 * @param timeToLive         How long a retrieved item is kept.
+	 * @param notFoundTimeToLive How long it is remembered that an item does not exist.
+	 * @param segmentCount       The number of independently locked segments, a power of two.
+	 * @param nanoClock          The clock, in nanoseconds.
+	 */
+	CachingItemSource(ItemSource source, int maxSize, Duration timeToLive, Duration notFoundTimeToLive,
+			int segmentCount, LongSupplier nanoClock) {
+		if (maxSize < 1 || Integer.bitCount(segmentCount) != 1) {
+			throw new IllegalArgumentException("The cache needs a positive size and a power of two segments");
+		}
+		this.source = source;
+		this.timeToLiveNanos = timeToLive.toNanos();
+		this.notFoundTimeToLiveNanos = notFoundTimeToLive.toNanos();
+		this.nanoClock = nanoClock;
+
+		int usedSegments = Math.min(segmentCount, Integer.highestOneBit(maxSize));
+		segments = new Segment[usedSegments];
+		for (int i = 0; i < usedSegments; i++) {
+			segments[i] = new Segment((maxSize + usedSegments - 1) / usedSegments);
+		}
+	}
+
+	/**
+	 * Retrieves the item from the cache, or from the source if it is not cached or has expired.
+	 *
+	 * @param itemId The ID of the item to be retrieved.
+	 * @return The object containing information about this item.
+	 * @throws DatabaseFailureException if the item is not cached and the source failed.
+	 * @throws ItemNotFoundException    if the item does not exist, according to the cache or the source.
+	 */
+	@Override
+	public ItemDTO retrieveItem(String itemId) throws DatabaseFailureException, ItemNotFoundException {
+		CacheEntry cached = segmentOf(itemId).getIfFresh(itemId, nanoClock.getAsLong());
+		if (cached != null) {
+			if (cached.item() == null) {
+				notFoundHits.incrementAndGet();
+				throw new ItemNotFoundException(itemId);
+			}
+			hits.incrementAndGet();
+			return cached.item();
+		}
+		misses.incrementAndGet();
+		return load(itemId);
+	}
+
+	/**
+	 * Retrieves the cached items from the cache, and all other items from the source in one call. Concurrent batches
+	 * do not share their calls to the source.
+	 *
+	 * @param itemIds The IDs of the items to be retrieved, without duplicates.
+	 * @return The items that were found, the IDs that were not found and the IDs that could not be looked up.
+	 * @throws DatabaseFailureException if some items were not cached and the source failed.
+	 */
+	@Override
+	public ItemLookupDTO retrieveItems(Collection<String> itemIds) throws DatabaseFailureException {
+		HashMap<String, ItemDTO> foundItems = new HashMap<>();
+		Set<String> notFoundItemIds = new HashSet<>();
+		ArrayList<String> uncachedItemIds = new ArrayList<>();
+		long now = nanoClock.getAsLong();
+		for (String itemId : itemIds) {
+			CacheEntry cached = segmentOf(itemId).getIfFresh(itemId, now);
+			if (cached == null) {
+				uncachedItemIds.add(itemId);
+			} else if (cached.item() == null) {
+				notFoundHits.incrementAndGet();
+				notFoundItemIds.add(itemId);
+			} else {
+				hits.incrementAndGet();
+				foundItems.put(itemId, cached.item());
+			}
+		}
+		if (uncachedItemIds.isEmpty()) {
+			return new ItemLookupDTO(foundItems, notFoundItemIds, Set.of());
+		}
+
+		misses.addAndGet(uncachedItemIds.size());
+		ItemLookupDTO retrieved = source.retrieveItems(uncachedItemIds);
+		now = nanoClock.getAsLong();
+		for (Map.Entry<String, ItemDTO> item : retrieved.foundItems().entrySet()) {
+			segmentOf(item.getKey()).put(item.getKey(), new CacheEntry(item.getValue(), now + timeToLiveNanos));
+		}
+		for (String itemId : retrieved.notFoundItemIds()) {
+			segmentOf(itemId).put(itemId, new CacheEntry(null, now + notFoundTimeToLiveNanos));
+		}
+		foundItems.putAll(retrieved.foundItems());
+		notFoundItemIds.addAll(retrieved.notFoundItemIds());
+		return new ItemLookupDTO(foundItems, notFoundItemIds, retrieved.unavailableItemIds());
+	}
+
+	/**
+	 * Removes the specified item from the cache, so the next retrieval reads it from the source.
+	 *
+	 * @param itemId The ID of the item.
+	 */
+	public void invalidate(String itemId) {
+		segmentOf(itemId).remove(itemId);
+	}
+
+	/**
+	 * Removes all items from the cache.
+	 */
+	public void invalidateAll() {
+		for (Segment segment : segments) {
+			segment.clear();
+		}
+	}
+
+	/**
+	 * Returns the number of items, found or not, in the cache. Expired items that are not yet removed are included.
+	 *
+	 * @return The number of cached items.
+	 */
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	/**
+	 * Returns the number of retrievals that found the item in the cache.
+	 *
+	 * @return The number of hits.
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * Returns the number of retrievals that found in the cache that the item does not exist.
+	 *
+	 * @return The number of hits on missing items.
+	 */
+	public long getNotFoundHitCount() {
+		return notFoundHits.get();
+	}
+
+	/**
+	 * Returns the number of retrievals that were not answered by the cache.
+	 *
+	 * @return The number of misses.
+	 */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * Returns the number of items that were removed because the cache was full.
+	 *
+	 * @return The number of evictions.
+	 */
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	private ItemDTO load(String itemId) throws ItemNotFoundException {
+		CompletableFuture<ItemDTO> loading = new CompletableFuture<>();
+		CompletableFuture<ItemDTO> pending = pendingLoads.putIfAbsent(itemId, loading);
+		if (pending != null) {
+			return awaitLoad(pending);
+		}
+
+		try {
+			ItemDTO item = source.retrieveItem(itemId);
+			segmentOf(itemId).put(itemId, new CacheEntry(item, nanoClock.getAsLong() + timeToLiveNanos));
+			loading.complete(item);
+			return item;
+		} catch (ItemNotFoundException e) {
+			segmentOf(itemId).put(itemId, new CacheEntry(null, nanoClock.getAsLong() + notFoundTimeToLiveNanos));
+			loading.completeExceptionally(e);
+			throw e;
+		} catch (RuntimeException e) {
+			loading.completeExceptionally(e);
+			throw e;
+		} finally {
+			pendingLoads.remove(itemId, loading);
+		}
+	}
+
+	private ItemDTO awaitLoad(CompletableFuture<ItemDTO> pending) throws ItemNotFoundException {
+		try {
+			return pending.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof ItemNotFoundException notFound) {
+				throw notFound;
+			}
+			if (e.getCause() instanceof RuntimeException failure) {
+				throw failure;
+			}
+			throw e;
+		}
+	}
+
+	private Segment segmentOf(String itemId) {
+		int hash = itemId.hashCode();
+		return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+	}
+
+	private record CacheEntry(ItemDTO item, long expiresAtNanos) {
+	}
+
+	private class Segment {
+		private final LinkedHashMap<String, CacheEntry> entries;
+
+		Segment(int capacity) {
+			entries = new LinkedHashMap<>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+					if (size() > capacity) {
+						evictions.incrementAndGet();
+						return true;
+					}
+					return false;
+				}
+			};
+		}
+
+		synchronized CacheEntry getIfFresh(String itemId, long now) {
+			CacheEntry entry = entries.get(itemId);
+			if (entry != null && now - entry.expiresAtNanos() >= 0) {
+				entries.remove(itemId);
+				return null;
+			}
+			return entry;
+		}
+
+		synchronized void put(String itemId, CacheEntry entry) {
+			entries.put(itemId, entry);
+		}
+
+		synchronized void remove(String itemId) {
+			entries.remove(itemId);
+		}
+
+		synchronized void clear() {
+			entries.clear();
+		}
+
+		synchronized int size() {
+			return entries.size();
+		}
+	}
+}
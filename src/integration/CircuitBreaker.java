@@ -0,0 +1,146 @@
+package integration;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops calls to a failing system for a while, so that callers fail at once instead of waiting for it. The breaker is
+ * closed while calls succeed. After a number of consecutive failures it opens, and calls are not permitted. When the
+ * open duration has passed it becomes half open, and a single probe call is permitted. If the probe succeeds the breaker
+ * closes, if it fails the breaker opens again.
+ * <p>
+ * Every permission is tagged with the generation of the breaker, which changes on every change of state. The outcome
+ * of a call that was permitted before the last change of state is ignored, so a slow call that finishes after the
+ * breaker opened can not close it again, and only the probe can close a half open breaker.
+ */
+public class CircuitBreaker {
+	/**
+	 * Returned by {@link #tryAcquirePermission()} when a call is not permitted.
+	 */
+	public static final long NO_PERMISSION = -1;
+
+	/**
+	 * The states of a circuit breaker.
+	 */
+	public enum State {
+		/** Calls are permitted. */
+		CLOSED,
+		/** Calls are not permitted. */
+		OPEN,
+		/** One probe call is permitted to find out if the system has recovered. */
+		HALF_OPEN
+	}
+
+	private final int failureThreshold;
+	private final long openDurationNanos;
+	private final LongSupplier nanoClock;
+
+	private State state = State.CLOSED;
+	private long generation;
+	private int consecutiveFailures;
+	private long openedAtNanos;
+	private boolean probeInProgress;
+	private long rejectedCalls;
+
+	/**
+	 * Creates a closed circuit breaker.
+	 *
+	 * @param failureThreshold The number of consecutive failures that opens the breaker.
+	 * @param openDuration     How long the breaker stays open before a probe call is permitted.
+	 */
+	public CircuitBreaker(int failureThreshold, Duration openDuration) {
+		this(failureThreshold, openDuration, System::nanoTime);
+	}
+
+	/**
+	 * Creates a closed circuit breaker that reads the time from the specified clock.
+	 *
+	 * @param failureThreshold The number of consecutive failures that opens the breaker.
+	 * @param openDuration     How long the breaker stays open before a probe call is permitted.
+	 * @param nanoClock        The clock, in nanoseconds.
+	 */
+	CircuitBreaker(int failureThreshold, Duration openDuration, LongSupplier nanoClock) {
+		this.failureThreshold = failureThreshold;
+		this.openDurationNanos = openDuration.toNanos();
+		this.nanoClock = nanoClock;
+	}
+
+	/**
+	 * Checks if a call may be made now. A permitted call must be followed by {@link #onSuccess(long)} or
+	 * {@link #onFailure(long)} with the returned permission.
+	 *
+	 * @return The permission for the call, or {@link #NO_PERMISSION} if the caller should not make it.
+	 */
+	public synchronized long tryAcquirePermission() {
+		if (state == State.OPEN && nanoClock.getAsLong() - openedAtNanos >= openDurationNanos) {
+			transitionTo(State.HALF_OPEN);
+		}
+		if (state == State.CLOSED || state == State.HALF_OPEN && !probeInProgress) {
+			probeInProgress = state == State.HALF_OPEN;
+			return generation;
+		}
+		rejectedCalls++;
+		return NO_PERMISSION;
+	}
+
+	/**
+	 * Records that a permitted call succeeded. A successful probe closes the breaker. The success of a call that was
+	 * permitted before the last change of state is ignored.
+	 *
+	 * @param permission The permission returned by {@link #tryAcquirePermission()} for the call.
+	 */
+	public synchronized void onSuccess(long permission) {
+		if (permission != generation) {
+			return;
+		}
+		consecutiveFailures = 0;
+		if (state == State.HALF_OPEN) {
+			transitionTo(State.CLOSED);
+		}
+	}
+
+	/**
+	 * Records that a permitted call failed. The failure of a call that was permitted before the last change of state
+	 * is ignored.
+	 *
+	 * @param permission The permission returned by {@link #tryAcquirePermission()} for the call.
+	 */
+	public synchronized void onFailure(long permission) {
+		if (permission != generation) {
+			return;
+		}
+		consecutiveFailures++;
+		if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+			openedAtNanos = nanoClock.getAsLong();
+			transitionTo(State.OPEN);
+		}
+	}
+
+	/**
+	 * Returns the current state. An open breaker whose open duration has passed is reported as open until the next
+	 * call is attempted.
+	 *
+	 * @return The state of the breaker.
+	 */
+	public synchronized State getState() {
+		return state;
+	}
+
+	/**
+	 * Returns the number of calls that were not permitted.
+	 *
+	 * @return The number of rejected calls.
+	 */
+	public synchronized long getRejectedCallCount() {
+		return rejectedCalls;
+	}
+
+	private void transitionTo(State newState) {
+		state = newState;
+		generation++;
+		probeInProgress = false;
+		if (newState == State.CLOSED) {
+			consecutiveFailures = 0;
+		}
+	}
+}
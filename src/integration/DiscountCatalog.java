@@ -1,63 +1,124 @@
 package integration;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import dto.DiscountDTO;
 import dto.DiscountInfoDTO;
 import model.Amount;
 
 /**
- * Simulates a discount catalog.
+ * Simulates a discount catalog. Promotions are indexed when they are added: by item ID, by customer ID, and in sorted
+ * maps by total price and item count thresholds. Finding the eligible discounts for a sale therefore only looks at the
+ * distinct items in the sale and the promotions that apply, no matter how many promotions the catalog holds. The
+ * catalog may be read and updated concurrently.
  */
 public class DiscountCatalog {
-	private final HashMap<String, DiscountInfoDTO> catalog;
+	private final ConcurrentSkipListMap<Integer, List<DiscountInfoDTO>> itemCountPromotions;
+	private final ConcurrentSkipListMap<Amount, List<DiscountInfoDTO>> totalPricePromotions;
+	private final ConcurrentHashMap<Integer, List<DiscountInfoDTO>> customerPromotions;
+	private final ConcurrentHashMap<String, ConcurrentSkipListMap<Integer, List<DiscountInfoDTO>>> itemPromotions;
 
 	/**
 	 * Constructor for the DiscountCatalog class.
 	 */
 	public DiscountCatalog() {
-		catalog = new HashMap<>();
+		itemCountPromotions = new ConcurrentSkipListMap<>();
+		totalPricePromotions = new ConcurrentSkipListMap<>(Amount::compareTo);
+		customerPromotions = new ConcurrentHashMap<>();
+		itemPromotions = new ConcurrentHashMap<>();
 		simulateCatalog();
 	}
 
 	/**
-	 * Fetch discount based on the type of the discount.
-	 * 
+	 * Adds a promotion for sales with more than the specified number of items.
+	 *
+	 * @param itemCountThreshold The number of items the sale must exceed.
+	 * @param discount           The discount given.
+	 */
+	public void addItemCountPromotion(int itemCountThreshold, DiscountInfoDTO discount) {
+		itemCountPromotions.computeIfAbsent(itemCountThreshold, threshold -> new CopyOnWriteArrayList<>())
+				.add(discount);
+	}
+
+	/**
+	 * Adds a promotion for sales with a total price above the specified threshold.
+	 *
+	 * @param totalPriceThreshold The total price the sale must exceed.
+	 * @param discount            The discount given.
+	 */
+	public void addTotalPricePromotion(Amount totalPriceThreshold, DiscountInfoDTO discount) {
+		totalPricePromotions.computeIfAbsent(totalPriceThreshold, threshold -> new CopyOnWriteArrayList<>())
+				.add(discount);
+	}
+
+	/**
+	 * Adds a promotion for the specified customer.
+	 *
+	 * @param customerId The ID of the customer.
+	 * @param discount   The discount given.
+	 */
+	public void addCustomerPromotion(int customerId, DiscountInfoDTO discount) {
+		customerPromotions.computeIfAbsent(customerId, id -> new CopyOnWriteArrayList<>()).add(discount);
+	}
+
+	/**
+	 * Adds a promotion for sales with at least the specified quantity of an item.
+	 *
+	 * @param itemId      The ID of the item.
+	 * @param minQuantity The quantity of the item the sale must contain.
+	 * @param discount    The discount given.
+	 */
+	public void addItemPromotion(String itemId, int minQuantity, DiscountInfoDTO discount) {
+		itemPromotions.computeIfAbsent(itemId, id -> new ConcurrentSkipListMap<>())
+				.computeIfAbsent(minQuantity, quantity -> new CopyOnWriteArrayList<>())
+				.add(discount);
+	}
+
+	/**
+	 * Fetches all discounts the sale is eligible for.
+	 *
 	 * @param discountDTO The discount information.
 	 * @return A list of eligible discounts.
 	 */
 	public ArrayList<DiscountInfoDTO> fetchEligibleDiscounts(DiscountDTO discountDTO) {
 		ArrayList<DiscountInfoDTO> eligibleDiscounts = new ArrayList<>();
 
-		if (discountDTO.boughtIitems().size() > 2) {
-			DiscountInfoDTO discount = catalog.get("ITEM_BASED");
-			if (discount != null) {
-				eligibleDiscounts.add(discount);
-			}
-		}
-		if (discountDTO.totalPrice().compareTo(new Amount("100")) > 0) {
-			DiscountInfoDTO discount = catalog.get("TOTAL_PERCENT");
-			if (discount != null) {
-				eligibleDiscounts.add(discount);
-			}
+		addAll(eligibleDiscounts, itemCountPromotions.headMap(discountDTO.itemCount(), false).values());
+		addAll(eligibleDiscounts, totalPricePromotions.headMap(discountDTO.totalPrice(), false).values());
+
+		List<DiscountInfoDTO> customerDiscounts = customerPromotions.get(discountDTO.customerId());
+		if (customerDiscounts != null) {
+			eligibleDiscounts.addAll(customerDiscounts);
 		}
-		if (discountDTO.customerId() == 114514) {
-			DiscountInfoDTO discount = catalog.get("CUSTOMER_PERCENT");
-			if (discount != null) {
-				eligibleDiscounts.add(discount);
+
+		for (Map.Entry<String, Integer> item : discountDTO.itemQuantities().entrySet()) {
+			ConcurrentSkipListMap<Integer, List<DiscountInfoDTO>> promotions = itemPromotions.get(item.getKey());
+			if (promotions != null) {
+				addAll(eligibleDiscounts, promotions.headMap(item.getValue(), true).values());
 			}
 		}
 
 		return eligibleDiscounts;
 	}
 
+	private void addAll(ArrayList<DiscountInfoDTO> eligibleDiscounts, Collection<List<DiscountInfoDTO>> discounts) {
+		for (List<DiscountInfoDTO> discountsWithSameThreshold : discounts) {
+			eligibleDiscounts.addAll(discountsWithSameThreshold);
+		}
+	}
+
 	private void simulateCatalog() {
-		catalog.put("ITEM_BASED",
+		addItemCountPromotion(2,
 				new DiscountInfoDTO("ITEM_BASED", new Amount("5.00"), "5 SEK off for buying more than 2 items"));
-		catalog.put("TOTAL_PERCENT",
+		addTotalPricePromotion(new Amount(100, 0),
 				new DiscountInfoDTO("TOTAL_PERCENT", new Amount("0.10"), "10% off for total price > 100"));
-		catalog.put("CUSTOMER_PERCENT",
+		addCustomerPromotion(114514,
 				new DiscountInfoDTO("CUSTOMER_PERCENT", new Amount("0.05"), "5% off for customer 114514"));
 	}
-}
\ No newline at end of file
+}
@@ -1,77 +1,165 @@
 package integration;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Set;
 
 import dto.ItemDTO;
+import dto.ItemLookupDTO;
 import dto.SaleDTO;
+import dto.SaleLineDTO;
 import model.Amount;
 
 /**
  * This class simulates an inventory system that stores the items available for sale. It provides methods to retrieve
- * item information and update the inventory based on sales.
+ * item information and update the inventory based on sales. The items are kept in a {@link ProductCatalog} outside the
+ * Java heap, either mapped from a catalog file or, for the simulated items, in memory. The inventory may be used
+ * concurrently from several lanes, the quantity in stock of each item is updated atomically in the catalog.
  */
-public class InventorySystem {
-	private final HashMap<String, InventoryItem> inventory;
+public class InventorySystem implements ItemSource {
+	private static final int SIMULATED_QUANTITY = 2;
+
+	private final ProductCatalog catalog;
 
 	/**
 	 * Constructor for the InventorySystem class.
 	 */
 	public InventorySystem() {
-		inventory = new HashMap<>();
-		simulateInventory();
+		this(SIMULATED_QUANTITY);
+	}
+
+	/**
+	 * Creates an inventory where every simulated item has the specified quantity in stock.
+	 *
+	 * @param initialQuantity The quantity of each item in stock.
+	 */
+	InventorySystem(int initialQuantity) {
+		catalog = ProductCatalog.createInMemory(simulateInventory(initialQuantity));
+	}
+
+	/**
+	 * Creates an inventory of the items in the specified catalog file. The file is mapped, not read, so the inventory
+	 * is ready at once no matter how many items the catalog holds.
+	 *
+	 * @param catalogFile The catalog file, written by {@link ProductCatalog#create(Path, java.util.Map)}.
+	 * @throws UncheckedIOException if the catalog could not be opened.
+	 */
+	public InventorySystem(Path catalogFile) {
+		try {
+			catalog = ProductCatalog.open(catalogFile);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not open the product catalog", e);
+		}
 	}
 
 	/**
 	 * Retrieves the item from the inventory based on the item ID.
-	 * 
+	 *
 	 * @param itemId The ID of the item to be retrieved.
 	 * @return The object containing information about this item. Null if not found.
 	 * @throws DatabaseFailureException if the database server is not running.
 	 * @throws ItemNotFoundException    if the item is not found in the inventory.
 	 */
+	@Override
 	public ItemDTO retrieveItem(String itemId) throws DatabaseFailureException, ItemNotFoundException {
 		if ("fail114514".equals(itemId)) {
 			throw new DatabaseFailureException("Database server is not running");
 		}
 
-		InventoryItem item = inventory.get(itemId);
+		int record = catalog.find(itemId);
 
-		if (item == null) {
+		if (record < 0) {
 			throw new ItemNotFoundException(itemId);
 		}
 
-		return item.item;
+		return catalog.getItem(record);
+	}
+
+	/**
+	 * Retrieves all the specified items from the inventory in one call.
+	 *
+	 * @param itemIds The IDs of the items to be retrieved, without duplicates.
+	 * @return The items that were found and the IDs that were not found.
+	 * @throws DatabaseFailureException if the database server is not running.
+	 */
+	@Override
+	public ItemLookupDTO retrieveItems(Collection<String> itemIds) throws DatabaseFailureException {
+		if (itemIds.contains("fail114514")) {
+			throw new DatabaseFailureException("Database server is not running");
+		}
+
+		HashMap<String, ItemDTO> foundItems = new HashMap<>();
+		Set<String> notFoundItemIds = new HashSet<>();
+		for (String itemId : itemIds) {
+			int record = catalog.find(itemId);
+			if (record < 0) {
+				notFoundItemIds.add(itemId);
+			} else {
+				foundItems.put(itemId, catalog.getItem(record));
+			}
+		}
+		return new ItemLookupDTO(foundItems, notFoundItemIds, Set.of());
 	}
 
 	/**
-	 * Updates the inventory based on the sale information. Reduces the quantity of each item sold. This class is only
-	 * for simulation purposes and does not represent the actual external inventory.
-	 * 
+	 * Updates the inventory based on the sale information. Reduces the quantity of each item sold by the quantity of
+	 * its sale line, so each distinct item is updated once per sale. Items that are not in the inventory are ignored.
+	 * This class is only for simulation purposes and does not represent the actual external inventory.
+	 *
 	 * @param saleDTO The sale information.
 	 */
 	public void updateInventory(SaleDTO saleDTO) {
-		for (ItemDTO soldItem : saleDTO.boughtItems()) {
-			InventoryItem item = inventory.get(soldItem.id());
-			item.reduceQuantity(1);
+		for (SaleLineDTO soldLine : saleDTO.saleLines()) {
+			int record = catalog.find(soldLine.item().id());
+			if (record >= 0) {
+				catalog.reduceQuantity(record, soldLine.quantity());
+			}
 		}
 	}
 
-	/* Below are only simulation code. */
-	private static class InventoryItem {
-		private final ItemDTO item;
-		private int quantity;
-
-		public InventoryItem(ItemDTO item, int quantity) {
-			this.item = item;
-			this.quantity = quantity;
+	/**
+	 * Updates the inventory based on a sale that was synced from a {@link SaleQueue}. A sale whose sync sequence is not
+	 * higher than that of the last synced sale is skipped, so a queued sale that is delivered again is only subtracted
+	 * once. The last sync sequence is stored in the catalog, so with a catalog file it survives a restart. The sequence
+	 * is advanced before the quantities are reduced, so a crash in between loses the sale rather than subtracting it
+	 * twice.
+	 *
+	 * @param saleDTO      The sale information.
+	 * @param syncSequence The sequence number of the sale in the queue.
+	 */
+	public void updateInventory(SaleDTO saleDTO, long syncSequence) {
+		if (catalog.advanceSyncSequence(syncSequence)) {
+			updateInventory(saleDTO);
 		}
+	}
 
-		public void reduceQuantity(int amount) {
-			quantity = Math.max(0, quantity - amount);
-		}
+	/**
+	 * Returns the highest sync sequence of the synced sales subtracted from the inventory.
+	 *
+	 * @return The highest sync sequence, 0 if no synced sale was subtracted.
+	 */
+	public long getLastSyncSequence() {
+		return catalog.getSyncSequence();
+	}
+
+	/**
+	 * Returns the quantity in stock of the specified item.
+	 *
+	 * @param itemId The ID of the item.
+	 * @return The quantity in stock, 0 if the item is not in the inventory.
+	 */
+	int getQuantity(String itemId) {
+		int record = catalog.find(itemId);
+		return record < 0 ? 0 : catalog.getQuantity(record);
 	}
 
-	private void simulateInventory() {
+	/* Below are only simulation code. */
+	private LinkedHashMap<ItemDTO, Integer> simulateInventory(int initialQuantity) {
 		Amount vatAmount = new Amount("0.06");
 		Amount item1OriginalPrice = calculateOriginalPrice(new Amount("29.9"), vatAmount);
 		Amount item2OriginalPrice = calculateOriginalPrice(new Amount("14.9"), vatAmount);
@@ -89,12 +177,14 @@ public class InventorySystem {
 				vatAmount,
 				"YouGoGo Blueberry 240g, low sugar youghurt, blueberry flavour");
 
-		inventory.put(item1.id(), new InventoryItem(item1, 2));
-		inventory.put(item2.id(), new InventoryItem(item2, 2));
+		LinkedHashMap<ItemDTO, Integer> stock = new LinkedHashMap<>();
+		stock.put(item1, initialQuantity);
+		stock.put(item2, initialQuantity);
+		return stock;
 	}
 
 	private Amount calculateOriginalPrice(Amount fullPrice, Amount vatRate) {
-		Amount divisor = vatRate.add(new Amount("1"));
+		Amount divisor = vatRate.add(Amount.ONE);
 		return fullPrice.divide(divisor);
 	}
 }
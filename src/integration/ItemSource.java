@@ -0,0 +1,45 @@
+package integration;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+import dto.ItemDTO;
+import dto.ItemLookupDTO;
+
+/**
+ * Something items can be retrieved from by their ID, for example the inventory system or a cache in front of it.
+ */
+public interface ItemSource {
+	/**
+	 * Retrieves the item with the specified ID.
+	 * 
+	 * @param itemId The ID of the item to be retrieved.
+	 * @return The object containing information about this item.
+	 * @throws DatabaseFailureException if the items could not be read.
+	 * @throws ItemNotFoundException    if there is no item with the specified ID.
+	 */
+	ItemDTO retrieveItem(String itemId) throws DatabaseFailureException, ItemNotFoundException;
+
+	/**
+	 * Retrieves all the specified items at once. Sources that are called over a network should override this method
+	 * to retrieve the items in one call, by default they are retrieved one at a time.
+	 * 
+	 * @param itemIds The IDs of the items to be retrieved, without duplicates.
+	 * @return The items that were found, the IDs that were not found and the IDs that could not be looked up.
+	 * @throws DatabaseFailureException if the items could not be read.
+	 */
+	default ItemLookupDTO retrieveItems(Collection<String> itemIds) throws DatabaseFailureException {
+		HashMap<String, ItemDTO> foundItems = new HashMap<>();
+		Set<String> notFoundItemIds = new HashSet<>();
+		for (String itemId : itemIds) {
+			try {
+				foundItems.put(itemId, retrieveItem(itemId));
+			} catch (ItemNotFoundException e) {
+				notFoundItemIds.add(itemId);
+			}
+		}
+		return new ItemLookupDTO(foundItems, notFoundItemIds, Set.of());
+	}
+}
@@ -1,16 +1,16 @@
 package integration;
 
 import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
+import java.util.List;
 
 import dto.ItemDTO;
 import dto.ReceiptDTO;
 import dto.SaleDTO;
-import model.Amount;
+import dto.SaleLineDTO;
 
 /**
  * This class simulates a printer that prints the receipt to the console. 
- * It formats the receipt with the sale information and item details.
+ * It formats the receipt with the sale information and one row per sale line.
  */
 public class Printer {
 	/**
@@ -21,39 +21,24 @@ public class Printer {
 	public void printReceipt(ReceiptDTO receiptDTO) {
 		SaleDTO saleInformation = receiptDTO.sale();
 
-		HashMap<ItemDTO, Integer> quantizedItems = getQuantizedItems(saleInformation);
-		String itemsString = getItemsString(quantizedItems);
+		String itemsString = getItemsString(saleInformation.saleLines());
 
 		String formattedReceipt = getFormattedReceipt(saleInformation, itemsString);
 		System.out.println(formattedReceipt);
 	}
 
-	private HashMap<ItemDTO, Integer> getQuantizedItems(SaleDTO saleInfo) {
-		HashMap<ItemDTO, Integer> itemQuantities = new HashMap<>();
-
-		for (ItemDTO item : saleInfo.boughtItems()) {
-			itemQuantities.merge(item, 1, Integer::sum);
-		}
-
-		return itemQuantities;
-	}
-
-	private String getItemsString(HashMap<ItemDTO, Integer> itemQuantities) {
+	private String getItemsString(List<SaleLineDTO> saleLines) {
 		StringBuilder itemsStringBuilder = new StringBuilder();
 
-		for (HashMap.Entry<ItemDTO, Integer> entry : itemQuantities.entrySet()) {
-			ItemDTO item = entry.getKey();
-			int quantity = entry.getValue();
-
-			Amount priceWithVat = item.price().multiply(item.vat().add(new Amount("1")));
-			Amount totalItemPrice = priceWithVat.multiply(new Amount(Integer.toString(quantity)));
+		for (SaleLineDTO line : saleLines) {
+			ItemDTO item = line.item();
 
 			String itemName = (item.name().length() > 21)
 					? item.name().substring(0, 19) + "..."
 					: item.name();
-			String itemQuantity = String.valueOf(quantity);
-			String itemPrice = priceWithVat.colonized();
-			String itemTotal = totalItemPrice.colonized();
+			String itemQuantity = String.valueOf(line.quantity());
+			String itemPrice = line.unitPrice().colonized();
+			String itemTotal = line.lineTotal().colonized();
 
 			String formattedString = """
 					%-24s %2s x %7s %10s SEK
@@ -0,0 +1,452 @@
+package integration;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import dto.ItemDTO;
+import model.Amount;
+
+/**
+ * A product catalog stored outside the Java heap, in a memory-mapped file or a direct buffer. Items are stored as
+ * fixed-width records and found through an open-addressing hash index on the item ID, so opening a catalog only maps
+ * the file, no matter how many items it holds. Finding an item reads the index and the record directly from the
+ * mapped memory without allocating any objects, only the returned {@link ItemDTO} is created. The quantity in stock is
+ * kept in the record and updated atomically, so the catalog may be used concurrently.
+ * <p>
+ * The file starts with a header holding the item count, the index size, the sync sequence of the last sale synced
+ * from a {@link SaleQueue} and a table of the distinct VAT rates. The
+ * index follows, with a slot of the ID hash and the record number for each item. The records follow the index, each
+ * holding the quantity, the index of its VAT rate, the price, VAT and price including VAT, and the item ID, name and
+ * description as UTF-8.
+ */
+public final class ProductCatalog {
+	private static final int MAGIC = 0x504f5343;
+	private static final int VERSION = 2;
+
+	private static final int HEADER_SIZE = 32;
+	private static final int ITEM_COUNT_OFFSET = 8;
+	private static final int SLOT_COUNT_OFFSET = 12;
+	private static final int VAT_RATE_COUNT_OFFSET = 16;
+	private static final int SYNC_SEQUENCE_OFFSET = 24;
+
+	private static final int AMOUNT_SIZE = 18;
+	private static final int MAX_UNSCALED_BYTES = AMOUNT_SIZE - 2;
+	private static final int MAX_COMPACT_SCALE = 18;
+	private static final int SLOT_SIZE = 8;
+
+	private static final int QUANTITY_OFFSET = 0;
+	private static final int VAT_RATE_INDEX_OFFSET = 4;
+	private static final int ID_LENGTH_OFFSET = 6;
+	private static final int NAME_LENGTH_OFFSET = 7;
+	private static final int DESCRIPTION_LENGTH_OFFSET = 8;
+	private static final int PRICE_OFFSET = 10;
+	private static final int VAT_PRICE_OFFSET = PRICE_OFFSET + AMOUNT_SIZE;
+	private static final int FULL_PRICE_OFFSET = VAT_PRICE_OFFSET + AMOUNT_SIZE;
+	private static final int ID_OFFSET = 64;
+	private static final int ID_SIZE = 32;
+	private static final int NAME_OFFSET = ID_OFFSET + ID_SIZE;
+	private static final int NAME_SIZE = 64;
+	private static final int DESCRIPTION_OFFSET = NAME_OFFSET + NAME_SIZE;
+	private static final int DESCRIPTION_SIZE = 160;
+	private static final int RECORD_SIZE = DESCRIPTION_OFFSET + DESCRIPTION_SIZE;
+
+	private static final int SEGMENT_SHIFT = 20;
+	private static final int RECORDS_PER_SEGMENT = 1 << SEGMENT_SHIFT;
+	private static final int SEGMENT_MASK = RECORDS_PER_SEGMENT - 1;
+
+	private static final VarHandle INT_VIEW = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+	private static final VarHandle LONG_VIEW = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+	private final ByteBuffer index;
+	private final ByteBuffer[] segments;
+	private final int itemCount;
+	private final int slotMask;
+	private final int indexStart;
+	private final Amount[] vatRates;
+
+	private ProductCatalog(ByteBuffer index, ByteBuffer[] segments) {
+		this.index = index;
+		this.segments = segments;
+		this.itemCount = index.getInt(ITEM_COUNT_OFFSET);
+		this.slotMask = index.getInt(SLOT_COUNT_OFFSET) - 1;
+
+		vatRates = new Amount[index.getInt(VAT_RATE_COUNT_OFFSET)];
+		for (int i = 0; i < vatRates.length; i++) {
+			vatRates[i] = readAmount(index, HEADER_SIZE + i * AMOUNT_SIZE);
+		}
+		this.indexStart = (int) indexStart(vatRates.length);
+	}
+
+	/**
+	 * Writes a catalog file with the specified items and maps it. An existing file is replaced.
+	 *
+	 * @param catalogFile The catalog file.
+	 * @param stock       The items of the catalog and the quantity in stock of each item.
+	 * @return The catalog, mapped from the file.
+	 * @throws IOException              if the file could not be written.
+	 * @throws IllegalArgumentException if an item ID occurs twice, or an item does not fit in a record.
+	 */
+	public static ProductCatalog create(Path catalogFile, Map<ItemDTO, Integer> stock) throws IOException {
+		Layout layout = Layout.of(stock);
+		try (FileChannel channel = FileChannel.open(catalogFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer index = channel.map(FileChannel.MapMode.READ_WRITE, 0, layout.indexEnd());
+			ByteBuffer[] segments = mapSegments(channel, layout);
+			fill(layout, stock, index, segments);
+			return new ProductCatalog(index, segments);
+		}
+	}
+
+	/**
+	 * Creates a catalog with the specified items in memory outside the Java heap, without a file.
+	 *
+	 * @param stock The items of the catalog and the quantity in stock of each item.
+	 * @return The catalog.
+	 * @throws IllegalArgumentException if an item ID occurs twice, or an item does not fit in a record.
+	 */
+	public static ProductCatalog createInMemory(Map<ItemDTO, Integer> stock) {
+		Layout layout = Layout.of(stock);
+		ByteBuffer index = allocateAligned((int) layout.indexEnd());
+		ByteBuffer[] segments = new ByteBuffer[layout.segmentCount()];
+		for (int i = 0; i < segments.length; i++) {
+			segments[i] = allocateAligned((int) layout.segmentSize(i));
+		}
+		fill(layout, stock, index, segments);
+		return new ProductCatalog(index, segments);
+	}
+
+	/**
+	 * Maps an existing catalog file. Nothing is read until items are looked up, the operating system loads the pages
+	 * that are used. Changes to quantities in stock are written to the file.
+	 *
+	 * @param catalogFile The catalog file.
+	 * @return The catalog, mapped from the file.
+	 * @throws IOException              if the file could not be opened.
+	 * @throws IllegalArgumentException if the file is not a product catalog.
+	 */
+	public static ProductCatalog open(Path catalogFile) throws IOException {
+		try (FileChannel channel = FileChannel.open(catalogFile, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			int read = 0;
+			while (header.hasRemaining() && read >= 0) {
+				read = channel.read(header);
+			}
+			if (header.hasRemaining() || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+				throw new IllegalArgumentException(catalogFile + " is not a product catalog of version " + VERSION);
+			}
+			Layout layout = new Layout(header.getInt(ITEM_COUNT_OFFSET), header.getInt(SLOT_COUNT_OFFSET),
+					header.getInt(VAT_RATE_COUNT_OFFSET));
+			if (channel.size() < layout.fileSize()) {
+				throw new IllegalArgumentException("The product catalog " + catalogFile + " is truncated");
+			}
+			ByteBuffer index = channel.map(FileChannel.MapMode.READ_WRITE, 0, layout.indexEnd());
+			return new ProductCatalog(index, mapSegments(channel, layout));
+		}
+	}
+
+	/**
+	 * Finds the record of an item. No objects are allocated if the item ID only contains ASCII characters.
+	 *
+	 * @param itemId The item ID.
+	 * @return The record number of the item, or -1 if the item is not in the catalog.
+	 */
+	public int find(String itemId) {
+		int hash = hash(itemId);
+		for (int slot = hash & slotMask;; slot = (slot + 1) & slotMask) {
+			int slotOffset = slotOffset(slot);
+			int record = index.getInt(slotOffset + 4) - 1;
+			if (record < 0) {
+				return -1;
+			}
+			if (index.getInt(slotOffset) == hash && idEquals(record, itemId)) {
+				return record;
+			}
+		}
+	}
+
+	/**
+	 * Reads the item in the specified record.
+	 *
+	 * @param record The record number, returned by {@link #find(String)}.
+	 * @return The item.
+	 */
+	public ItemDTO getItem(int record) {
+		ByteBuffer segment = segmentOf(record);
+		int offset = offsetOf(record);
+		return new ItemDTO(
+				readString(segment, offset + ID_OFFSET, segment.get(offset + ID_LENGTH_OFFSET) & 0xff),
+				readString(segment, offset + NAME_OFFSET, segment.get(offset + NAME_LENGTH_OFFSET) & 0xff),
+				readAmount(segment, offset + PRICE_OFFSET),
+				vatRates[segment.getShort(offset + VAT_RATE_INDEX_OFFSET)],
+				readString(segment, offset + DESCRIPTION_OFFSET, segment.getShort(offset + DESCRIPTION_LENGTH_OFFSET)),
+				readAmount(segment, offset + VAT_PRICE_OFFSET),
+				readAmount(segment, offset + FULL_PRICE_OFFSET));
+	}
+
+	/**
+	 * Returns the quantity in stock of the item in the specified record.
+	 *
+	 * @param record The record number, returned by {@link #find(String)}.
+	 * @return The quantity in stock.
+	 */
+	public int getQuantity(int record) {
+		return (int) INT_VIEW.getVolatile(segmentOf(record), offsetOf(record) + QUANTITY_OFFSET);
+	}
+
+	/**
+	 * Reduces the quantity in stock of the item in the specified record. The quantity is never reduced below zero.
+	 *
+	 * @param record The record number, returned by {@link #find(String)}.
+	 * @param amount The quantity to remove.
+	 */
+	public void reduceQuantity(int record, int amount) {
+		ByteBuffer segment = segmentOf(record);
+		int offset = offsetOf(record) + QUANTITY_OFFSET;
+		int current;
+		do {
+			current = (int) INT_VIEW.getVolatile(segment, offset);
+		} while (!INT_VIEW.compareAndSet(segment, offset, current, Math.max(0, current - amount)));
+	}
+
+	/**
+	 * Returns the sync sequence of the last sale synced into the catalog.
+	 *
+	 * @return The sync sequence, 0 if no synced sale was subtracted.
+	 */
+	public long getSyncSequence() {
+		return (long) LONG_VIEW.getVolatile(index, SYNC_SEQUENCE_OFFSET);
+	}
+
+	/**
+	 * Advances the sync sequence of the catalog to the specified sequence, if it is higher. The sequence is stored in
+	 * the header, so with a catalog file it is kept together with the quantities in stock across a restart.
+	 *
+	 * @param syncSequence The sync sequence of a sale that is about to be subtracted.
+	 * @return <code>true</code> if the sequence was advanced, <code>false</code> if a sale with the same or a higher
+	 *         sequence was synced before.
+	 */
+	public boolean advanceSyncSequence(long syncSequence) {
+		long current;
+		do {
+			current = (long) LONG_VIEW.getVolatile(index, SYNC_SEQUENCE_OFFSET);
+			if (syncSequence <= current) {
+				return false;
+			}
+		} while (!LONG_VIEW.compareAndSet(index, SYNC_SEQUENCE_OFFSET, current, syncSequence));
+		return true;
+	}
+
+	/**
+	 * Returns the number of items in the catalog.
+	 *
+	 * @return The number of items.
+	 */
+	public int size() {
+		return itemCount;
+	}
+
+	private boolean idEquals(int record, String itemId) {
+		ByteBuffer segment = segmentOf(record);
+		int offset = offsetOf(record);
+		int idLength = segment.get(offset + ID_LENGTH_OFFSET) & 0xff;
+		for (int i = 0; i < itemId.length(); i++) {
+			char c = itemId.charAt(i);
+			if (c >= 0x80) {
+				byte[] storedId = new byte[idLength];
+				segment.get(offset + ID_OFFSET, storedId);
+				return Arrays.equals(storedId, itemId.getBytes(StandardCharsets.UTF_8));
+			}
+			if (i >= idLength || segment.get(offset + ID_OFFSET + i) != c) {
+				return false;
+			}
+		}
+		return idLength == itemId.length();
+	}
+
+	private ByteBuffer segmentOf(int record) {
+		return segments[record >>> SEGMENT_SHIFT];
+	}
+
+	private static int offsetOf(int record) {
+		return (record & SEGMENT_MASK) * RECORD_SIZE;
+	}
+
+	private int slotOffset(int slot) {
+		return indexStart + slot * SLOT_SIZE;
+	}
+
+	private static int hash(String itemId) {
+		int hash = 0x811c9dc5;
+		for (int i = 0; i < itemId.length(); i++) {
+			hash = (hash ^ itemId.charAt(i)) * 0x01000193;
+		}
+		return hash ^ (hash >>> 16);
+	}
+
+	private static long indexStart(int vatRateCount) {
+		return alignTo8(HEADER_SIZE + (long) vatRateCount * AMOUNT_SIZE);
+	}
+
+	private static long alignTo8(long position) {
+		return (position + 7) & ~7L;
+	}
+
+	private static ByteBuffer allocateAligned(int size) {
+		return ByteBuffer.allocateDirect(size + 7).alignedSlice(8).limit(size).slice();
+	}
+
+	private static ByteBuffer[] mapSegments(FileChannel channel, Layout layout) throws IOException {
+		ByteBuffer[] segments = new ByteBuffer[layout.segmentCount()];
+		for (int i = 0; i < segments.length; i++) {
+			long position = layout.indexEnd() + (long) i * RECORDS_PER_SEGMENT * RECORD_SIZE;
+			segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, position, layout.segmentSize(i));
+		}
+		return segments;
+	}
+
+	private static void fill(Layout layout, Map<ItemDTO, Integer> stock, ByteBuffer index, ByteBuffer[] segments) {
+		index.putInt(0, MAGIC);
+		index.putInt(4, VERSION);
+		index.putInt(ITEM_COUNT_OFFSET, layout.itemCount());
+		index.putInt(SLOT_COUNT_OFFSET, layout.slotCount());
+
+		LinkedHashMap<Amount, Integer> vatRateIndexes = new LinkedHashMap<>();
+		for (ItemDTO item : stock.keySet()) {
+			vatRateIndexes.putIfAbsent(item.vat(), vatRateIndexes.size());
+		}
+		index.putInt(VAT_RATE_COUNT_OFFSET, vatRateIndexes.size());
+		ArrayList<Amount> vatRates = new ArrayList<>(vatRateIndexes.keySet());
+		for (int i = 0; i < vatRates.size(); i++) {
+			writeAmount(index, HEADER_SIZE + i * AMOUNT_SIZE, vatRates.get(i));
+		}
+
+		int slotMask = layout.slotCount() - 1;
+		int indexStart = (int) indexStart(vatRates.size());
+		int record = 0;
+		for (Map.Entry<ItemDTO, Integer> entry : stock.entrySet()) {
+			ItemDTO item = entry.getKey();
+			ByteBuffer segment = segments[record >>> SEGMENT_SHIFT];
+			int offset = offsetOf(record);
+			segment.putInt(offset + QUANTITY_OFFSET, entry.getValue());
+			segment.putShort(offset + VAT_RATE_INDEX_OFFSET, vatRateIndexes.get(item.vat()).shortValue());
+			segment.put(offset + ID_LENGTH_OFFSET, (byte) writeString(segment, offset + ID_OFFSET, ID_SIZE, item.id()));
+			segment.put(offset + NAME_LENGTH_OFFSET,
+					(byte) writeString(segment, offset + NAME_OFFSET, NAME_SIZE, item.name()));
+			segment.putShort(offset + DESCRIPTION_LENGTH_OFFSET,
+					(short) writeString(segment, offset + DESCRIPTION_OFFSET, DESCRIPTION_SIZE, item.description()));
+			writeAmount(segment, offset + PRICE_OFFSET, item.price());
+			writeAmount(segment, offset + VAT_PRICE_OFFSET, item.vatPrice());
+			writeAmount(segment, offset + FULL_PRICE_OFFSET, item.fullPrice());
+
+			int hash = hash(item.id());
+			int slot = hash & slotMask;
+			while (index.getInt(indexStart + slot * SLOT_SIZE + 4) != 0) {
+				int otherRecord = index.getInt(indexStart + slot * SLOT_SIZE + 4) - 1;
+				if (index.getInt(indexStart + slot * SLOT_SIZE) == hash) {
+					ByteBuffer otherSegment = segments[otherRecord >>> SEGMENT_SHIFT];
+					String otherId = readString(otherSegment, offsetOf(otherRecord) + ID_OFFSET,
+							otherSegment.get(offsetOf(otherRecord) + ID_LENGTH_OFFSET) & 0xff);
+					if (otherId.equals(item.id())) {
+						throw new IllegalArgumentException("The item ID " + item.id() + " occurs twice");
+					}
+				}
+				slot = (slot + 1) & slotMask;
+			}
+			index.putInt(indexStart + slot * SLOT_SIZE, hash);
+			index.putInt(indexStart + slot * SLOT_SIZE + 4, record + 1);
+			record++;
+		}
+	}
+
+	private static int writeString(ByteBuffer buffer, int offset, int maxLength, String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > maxLength) {
+			throw new IllegalArgumentException(
+					"'%s' is longer than %d bytes and does not fit in a catalog record".formatted(value, maxLength));
+		}
+		buffer.put(offset, bytes);
+		return bytes.length;
+	}
+
+	private static String readString(ByteBuffer buffer, int offset, int length) {
+		byte[] bytes = new byte[length];
+		buffer.get(offset, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeAmount(ByteBuffer buffer, int offset, Amount amount) {
+		BigDecimal value = amount.toBigDecimal();
+		byte[] unscaled = value.unscaledValue().toByteArray();
+		if (unscaled.length > MAX_UNSCALED_BYTES || value.scale() != (byte) value.scale()) {
+			throw new IllegalArgumentException(value + " is too precise to fit in a catalog record");
+		}
+		buffer.put(offset, (byte) value.scale());
+		buffer.put(offset + 1, (byte) unscaled.length);
+		buffer.put(offset + 2, unscaled);
+	}
+
+	private static Amount readAmount(ByteBuffer buffer, int offset) {
+		int scale = buffer.get(offset);
+		int length = buffer.get(offset + 1);
+		if (length <= Long.BYTES && scale >= 0 && scale <= MAX_COMPACT_SCALE) {
+			long unscaled = 0;
+			for (int i = 0; i < length; i++) {
+				unscaled = (unscaled << 8) | (buffer.get(offset + 2 + i) & 0xff);
+			}
+			int unusedBits = Long.SIZE - length * Byte.SIZE;
+			if (length > 0 && unusedBits > 0) {
+				unscaled = (unscaled << unusedBits) >> unusedBits;
+			}
+			return new Amount(unscaled, scale);
+		}
+		byte[] unscaled = new byte[length];
+		buffer.get(offset + 2, unscaled);
+		return new Amount(new BigDecimal(new BigInteger(unscaled), scale));
+	}
+
+	private record Layout(int itemCount, int slotCount, int vatRateCount) {
+		static Layout of(Map<ItemDTO, Integer> stock) {
+			int slotCount = Integer.highestOneBit(Math.max(2, stock.size() * 2 - 1)) << 1;
+			long distinctVatRates = stock.keySet().stream().map(ItemDTO::vat).distinct().count();
+			if (distinctVatRates > Short.MAX_VALUE) {
+				throw new IllegalArgumentException("A catalog holds at most " + Short.MAX_VALUE + " VAT rates");
+			}
+			Layout layout = new Layout(stock.size(), slotCount, (int) distinctVatRates);
+			if (layout.indexEnd() > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Too many items for one catalog: " + stock.size());
+			}
+			return layout;
+		}
+
+		long indexEnd() {
+			return indexStart(vatRateCount) + (long) slotCount * SLOT_SIZE;
+		}
+
+		int segmentCount() {
+			return (itemCount + RECORDS_PER_SEGMENT - 1) >>> SEGMENT_SHIFT;
+		}
+
+		long segmentSize(int segment) {
+			int records = Math.min(RECORDS_PER_SEGMENT, itemCount - segment * RECORDS_PER_SEGMENT);
+			return (long) records * RECORD_SIZE;
+		}
+
+		long fileSize() {
+			return indexEnd() + (long) itemCount * RECORD_SIZE;
+		}
+	}
+}
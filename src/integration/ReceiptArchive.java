@@ -0,0 +1,656 @@
+package integration;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+import dto.ArchivedReceiptDTO;
+import dto.ReceiptDTO;
+import dto.SaleDTO;
+import util.LogHandler;
+
+/**
+ * An append-only archive of receipts, for returns and audits. The archive is split into one segment per day of sale,
+ * each segment is a data file of receipt records and a sparse index file. A record is framed by its length and a
+ * CRC32 checksum like the records of the sale journal, and holds the sequence number of the receipt within its day
+ * followed by the sale, written by {@link SaleRecordFormat}.
+ * <p>
+ * The index has one entry per block of consecutive records, with the first sequence number, the position of the block
+ * in the data file and the earliest and latest sale time in the block. A receipt is found by its ID with a binary
+ * search in the index of its day and a read of a single block, and receipts are found by time by only reading the
+ * blocks whose time range overlaps.
+ * <p>
+ * Only a few segments are kept open, with their channels and their index in memory: the segments used most recently,
+ * which include the segment of the current day. A segment that is not in use by a read or a write is closed when
+ * another segment is opened beyond that limit, so reading the receipts of a long period does not keep every day open.
+ * <p>
+ * Receipts are written by a background thread, which writes all receipts waiting at the same time with one write and
+ * one fsync per segment, so archiving a receipt does not wait for the disk.
+ */
+public class ReceiptArchive implements AutoCloseable {
+	private static final String ARCHIVE_DIRECTORY_NAME = "receipts";
+	private static final String DATA_FILE_SUFFIX = ".receipts";
+	private static final String INDEX_FILE_SUFFIX = ".index";
+	private static final int DEFAULT_INDEX_INTERVAL = 64;
+	private static final int DEFAULT_MAX_OPEN_SEGMENTS = 4;
+	private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+	private static final int INDEX_ENTRY_SIZE = 2 * Integer.BYTES + 4 * Long.BYTES;
+	private static final int MAX_BATCH_SIZE = 1024;
+	private static final PendingReceipt CLOSE = new PendingReceipt(null, null);
+
+	private final Path directory;
+	private final int indexInterval;
+	private final int maxOpenSegments;
+	private final LinkedHashMap<LocalDate, Segment> openSegments = new LinkedHashMap<>(16, 0.75f, true);
+	private final BlockingQueue<PendingReceipt> pendingReceipts = new LinkedBlockingQueue<>();
+	private final Thread writerThread;
+	private final LogHandler logger = LogHandler.getLogger();
+	private volatile boolean closed;
+
+	/**
+	 * Creates an archive in the <code>receipts</code> directory of the working directory.
+	 */
+	public ReceiptArchive() {
+		this(Path.of(ARCHIVE_DIRECTORY_NAME));
+	}
+
+	/**
+	 * Creates an archive in the specified directory, which is created if it does not exist. Receipts already in the
+	 * directory are kept.
+	 *
+	 * @param directory The directory of the archive.
+	 * @throws UncheckedIOException if the directory could not be created.
+	 */
+	public ReceiptArchive(Path directory) {
+		this(directory, DEFAULT_INDEX_INTERVAL);
+	}
+
+	/**
+	 * Creates an archive in the specified directory, with one index entry per the specified number of records.
+	 *
+	 * @param directory     The directory of the archive.
+	 * @param indexInterval The number of records in each indexed block.
+	 * @throws UncheckedIOException if the directory could not be created.
+	 */
+	ReceiptArchive(Path directory, int indexInterval) {
+		this(directory, indexInterval, DEFAULT_MAX_OPEN_SEGMENTS);
+	}
+
+	/**
+	 * Creates an archive in the specified directory, with one index entry per the specified number of records, that
+	 * keeps at most the specified number of segments open while they are not in use.
+	 *
+	 * @param directory       The directory of the archive.
+	 * @param indexInterval   The number of records in each indexed block.
+	 * @param maxOpenSegments The number of segments that are kept open.
+	 * @throws UncheckedIOException if the directory could not be created.
+	 */
+	ReceiptArchive(Path directory, int indexInterval, int maxOpenSegments) {
+		this.directory = directory;
+		this.indexInterval = indexInterval;
+		this.maxOpenSegments = maxOpenSegments;
+		try {
+			Files.createDirectories(directory);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not create the receipt archive", e);
+		}
+		writerThread = new Thread(this::writeLoop, "receipt-archive-writer");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	/**
+	 * Adds a receipt to the archive. This method does not wait for the receipt to be written.
+	 *
+	 * @param receiptDTO The receipt to archive.
+	 * @return A future that completes with the ID of the receipt when it is written and flushed to disk.
+	 * @throws IllegalStateException if the archive is closed.
+	 */
+	public CompletableFuture<Long> archive(ReceiptDTO receiptDTO) {
+		if (closed) {
+			throw new IllegalStateException("The receipt archive is closed");
+		}
+		CompletableFuture<Long> archived = new CompletableFuture<>();
+		pendingReceipts.add(new PendingReceipt(receiptDTO, archived));
+		return archived;
+	}
+
+	/**
+	 * Returns the day of sale of the receipt with the specified ID. The ID of a receipt is its day of sale, as a
+	 * number of days since 1970-01-01, in the upper 32 bits and its sequence number within the day in the lower 32.
+	 *
+	 * @param receiptId The ID of a receipt.
+	 * @return The day the receipt belongs to.
+	 */
+	public static LocalDate dayOf(long receiptId) {
+		return LocalDate.ofEpochDay(receiptId >> 32);
+	}
+
+	/**
+	 * Finds the archived receipt with the specified ID.
+	 *
+	 * @param receiptId The ID of the receipt.
+	 * @return The receipt, or null if there is no archived receipt with the ID.
+	 * @throws UncheckedIOException if the archive could not be read.
+	 */
+	public ArchivedReceiptDTO findReceipt(long receiptId) {
+		Segment segment = acquireSegment(dayOf(receiptId), false);
+		if (segment == null) {
+			return null;
+		}
+		try {
+			int sequence = (int) receiptId;
+			IndexEntry block = segment.blockOf(sequence);
+			if (block == null) {
+				return null;
+			}
+			ByteBuffer records = segment.read(block);
+			while (records.remaining() >= RECORD_HEADER_SIZE) {
+				int length = records.getInt();
+				records.getInt();
+				if (records.getInt(records.position()) == sequence) {
+					return readRecord(segment.day, records, length);
+				}
+				records.position(records.position() + length);
+			}
+			return null;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read the receipt archive", e);
+		} finally {
+			releaseSegment(segment);
+		}
+	}
+
+	/**
+	 * Finds all archived receipts of sales made in the specified period, including both ends. The receipts are returned
+	 * day by day, and in the order they were archived within each day.
+	 *
+	 * @param from The start of the period.
+	 * @param to   The end of the period.
+	 * @return The receipts of the period.
+	 * @throws UncheckedIOException if the archive could not be read.
+	 */
+	public List<ArchivedReceiptDTO> findReceipts(LocalDateTime from, LocalDateTime to) {
+		ArrayList<ArchivedReceiptDTO> receipts = new ArrayList<>();
+		long fromSecond = from.toEpochSecond(ZoneOffset.UTC);
+		long toSecond = to.toEpochSecond(ZoneOffset.UTC);
+		try {
+			for (LocalDate day = from.toLocalDate(); !day.isAfter(to.toLocalDate()); day = day.plusDays(1)) {
+				Segment segment = acquireSegment(day, false);
+				if (segment == null) {
+					continue;
+				}
+				try {
+					for (IndexEntry block : segment.blocks()) {
+						if (block.latestSaleTime() < fromSecond || block.earliestSaleTime() > toSecond) {
+							continue;
+						}
+						ByteBuffer records = segment.read(block);
+						while (records.remaining() >= RECORD_HEADER_SIZE) {
+							int length = records.getInt();
+							records.getInt();
+							ArchivedReceiptDTO receipt = readRecord(day, records, length);
+							LocalDateTime saleTime = receipt.receipt().sale().saleDateTime();
+							if (!saleTime.isBefore(from) && !saleTime.isAfter(to)) {
+								receipts.add(receipt);
+							}
+						}
+					}
+				} finally {
+					releaseSegment(segment);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read the receipt archive", e);
+		}
+		return receipts;
+	}
+
+	/**
+	 * Writes all archived receipts of the specified day to the channel, in the order they were archived, rendered by
+	 * the specified renderer. The receipts are read one index block at a time, so a day of any size is exported in a
+	 * bounded amount of memory. Receipts that are not yet written to disk are not included.
+	 *
+	 * @param day      The day of sale.
+	 * @param renderer The renderer that writes each receipt.
+	 * @param channel  The channel the receipts are written to. The channel is not closed.
+	 * @return The number of exported receipts.
+	 * @throws IOException if the archive could not be read or the channel could not be written.
+	 */
+	public int exportDay(LocalDate day, ReceiptRenderer renderer, WritableByteChannel channel) throws IOException {
+		Segment segment = acquireSegment(day, false);
+		if (segment == null) {
+			return 0;
+		}
+		try {
+			int exported = 0;
+			for (IndexEntry block : segment.blocks()) {
+				ByteBuffer records = segment.read(block);
+				while (records.remaining() >= RECORD_HEADER_SIZE) {
+					int length = records.getInt();
+					records.getInt();
+					renderer.render(readRecord(day, records, length).receipt(), channel);
+					exported++;
+				}
+			}
+			return exported;
+		} finally {
+			releaseSegment(segment);
+		}
+	}
+
+	/**
+	 * Returns the number of segments that are open.
+	 */
+	int getOpenSegmentCount() {
+		synchronized (openSegments) {
+			return openSegments.size();
+		}
+	}
+
+	/**
+	 * Writes all archived receipts and closes the archive.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		pendingReceipts.add(CLOSE);
+		try {
+			writerThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		synchronized (openSegments) {
+			for (Segment segment : openSegments.values()) {
+				segment.close();
+			}
+			openSegments.clear();
+		}
+	}
+
+	private ArchivedReceiptDTO readRecord(LocalDate day, ByteBuffer records, int length) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(records.array(),
+				records.arrayOffset() + records.position(), length));
+		records.position(records.position() + length);
+		int sequence = in.readInt();
+		SaleDTO sale = SaleRecordFormat.read(in);
+		return new ArchivedReceiptDTO(receiptId(day, sequence), new ReceiptDTO(sale));
+	}
+
+	private static long receiptId(LocalDate day, int sequence) {
+		return day.toEpochDay() << 32 | Integer.toUnsignedLong(sequence);
+	}
+
+	/**
+	 * Returns the segment of the day, opening it if it is not open, and marks it as in use until it is released. A
+	 * segment is only opened once, so the writer and the readers of a day always share the same segment.
+	 *
+	 * @param day    The day of the segment.
+	 * @param create Whether to create the segment if the day has no receipts.
+	 * @return The segment, or null if the day has no receipts and the segment is not created.
+	 * @throws UncheckedIOException if the segment could not be opened.
+	 */
+	private Segment acquireSegment(LocalDate day, boolean create) {
+		synchronized (openSegments) {
+			Segment segment = openSegments.get(day);
+			if (segment == null) {
+				if (!create && !Files.exists(dataFile(day))) {
+					return null;
+				}
+				try {
+					segment = new Segment(day);
+				} catch (IOException e) {
+					throw new UncheckedIOException("Could not open the receipt archive of " + day, e);
+				}
+				openSegments.put(day, segment);
+			}
+			segment.users++;
+			closeIdleSegments();
+			return segment;
+		}
+	}
+
+	private void releaseSegment(Segment segment) {
+		synchronized (openSegments) {
+			segment.users--;
+			closeIdleSegments();
+		}
+	}
+
+	/**
+	 * Closes the least recently used segments that are not in use, until no more than the limit are open.
+	 */
+	private void closeIdleSegments() {
+		Iterator<Segment> leastRecentlyUsed = openSegments.values().iterator();
+		while (openSegments.size() > maxOpenSegments && leastRecentlyUsed.hasNext()) {
+			Segment segment = leastRecentlyUsed.next();
+			if (segment.users == 0) {
+				leastRecentlyUsed.remove();
+				segment.close();
+			}
+		}
+	}
+
+	private Path dataFile(LocalDate day) {
+		return directory.resolve(day + DATA_FILE_SUFFIX);
+	}
+
+	private Path indexFile(LocalDate day) {
+		return directory.resolve(day + INDEX_FILE_SUFFIX);
+	}
+
+	private void writeLoop() {
+		ArrayList<PendingReceipt> batch = new ArrayList<>();
+		ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+		CRC32 checksum = new CRC32();
+		boolean running = true;
+
+		while (running) {
+			try {
+				batch.add(pendingReceipts.take());
+			} catch (InterruptedException e) {
+				break;
+			}
+			pendingReceipts.drainTo(batch, MAX_BATCH_SIZE - 1);
+
+			LinkedHashMap<LocalDate, SegmentBatch> segmentBatches = new LinkedHashMap<>();
+			for (PendingReceipt pending : batch) {
+				if (pending == CLOSE) {
+					running = false;
+					continue;
+				}
+				try {
+					SaleDTO sale = pending.receipt().sale();
+					LocalDate day = sale.saleDateTime().toLocalDate();
+					SegmentBatch segmentBatch = segmentBatches.get(day);
+					if (segmentBatch == null) {
+						segmentBatch = new SegmentBatch(acquireSegment(day, true));
+						segmentBatches.put(day, segmentBatch);
+					}
+					int sequence = segmentBatch.segment.nextSequence + segmentBatch.receipts.size();
+
+					recordBytes.reset();
+					DataOutputStream recordOut = new DataOutputStream(recordBytes);
+					recordOut.writeInt(sequence);
+					SaleRecordFormat.write(sale, recordOut);
+					checksum.reset();
+					checksum.update(recordBytes.toByteArray());
+					DataOutputStream batchOut = new DataOutputStream(segmentBatch.bytes);
+					batchOut.writeInt(recordBytes.size());
+					batchOut.writeInt((int) checksum.getValue());
+					recordBytes.writeTo(batchOut);
+					segmentBatch.receipts.add(pending);
+					segmentBatch.recordEnds.add(segmentBatch.bytes.size());
+				} catch (IOException | UncheckedIOException e) {
+					logger.logException(e);
+					pending.archived().completeExceptionally(e);
+				}
+			}
+			for (SegmentBatch segmentBatch : segmentBatches.values()) {
+				try {
+					writeBatch(segmentBatch);
+				} finally {
+					releaseSegment(segmentBatch.segment);
+				}
+			}
+			batch.clear();
+		}
+		pendingReceipts.drainTo(batch);
+		for (PendingReceipt pending : batch) {
+			if (pending != CLOSE) {
+				pending.archived().completeExceptionally(
+						new IOException("The receipt archive was closed before the receipt was written"));
+			}
+		}
+	}
+
+	private void writeBatch(SegmentBatch batch) {
+		Segment segment = batch.segment;
+		try {
+			long offset = segment.length();
+			ByteBuffer bytes = ByteBuffer.wrap(batch.bytes.toByteArray());
+			while (bytes.hasRemaining()) {
+				segment.data.write(bytes, offset + bytes.position());
+			}
+			segment.data.force(false);
+
+			long recordStart = offset;
+			for (int i = 0; i < batch.receipts.size(); i++) {
+				long recordEnd = offset + batch.recordEnds.get(i);
+				LocalDateTime saleTime = batch.receipts.get(i).receipt().sale().saleDateTime();
+				int sequence = segment.nextSequence;
+				segment.addRecord(sequence, recordStart, recordEnd, saleTime.toEpochSecond(ZoneOffset.UTC));
+				batch.receipts.get(i).archived().complete(receiptId(segment.day, sequence));
+				recordStart = recordEnd;
+			}
+		} catch (IOException e) {
+			logger.logException(e);
+			for (PendingReceipt pending : batch.receipts) {
+				pending.archived().completeExceptionally(e);
+			}
+		}
+	}
+
+	/**
+	 * The data file and index of one day. The index is changed by the writer thread and read by any thread, so it is
+	 * guarded by the segment. The number of users is guarded by the open segments of the archive.
+	 */
+	private final class Segment {
+		private final LocalDate day;
+		private final FileChannel data;
+		private final FileChannel index;
+		private final ArrayList<IndexEntry> blocks = new ArrayList<>();
+		private int users;
+
+		private int nextSequence;
+		private long length;
+		private int tailFirstSequence;
+		private int tailRecordCount;
+		private long tailOffset;
+		private long tailEarliestSaleTime;
+		private long tailLatestSaleTime;
+
+		Segment(LocalDate day) throws IOException {
+			this.day = day;
+			data = FileChannel.open(dataFile(day), StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			index = FileChannel.open(indexFile(day), StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			recover();
+		}
+
+		/**
+		 * Loads the index, and indexes the records written after the last complete block. A partly written record at
+		 * the end of the data file, left by a crash, is removed.
+		 */
+		private void recover() throws IOException {
+			ByteBuffer entries = ByteBuffer.allocate((int) (index.size() / INDEX_ENTRY_SIZE * INDEX_ENTRY_SIZE));
+			readFully(index, entries, 0);
+			entries.flip();
+			long dataSize = data.size();
+			while (entries.remaining() >= INDEX_ENTRY_SIZE) {
+				IndexEntry entry = new IndexEntry(entries.getInt(), entries.getInt(), entries.getLong(),
+						entries.getLong(), entries.getLong(), entries.getLong());
+				if (entry.offset() != length || entry.endOffset() > dataSize) {
+					break;
+				}
+				blocks.add(entry);
+				length = entry.endOffset();
+				nextSequence = entry.firstSequence() + entry.recordCount();
+			}
+			index.truncate((long) blocks.size() * INDEX_ENTRY_SIZE);
+
+			CRC32 checksum = new CRC32();
+			ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+			while (length + RECORD_HEADER_SIZE <= dataSize) {
+				header.clear();
+				readFully(data, header, length);
+				int recordLength = header.getInt(0);
+				if (recordLength < Integer.BYTES || length + RECORD_HEADER_SIZE + recordLength > dataSize) {
+					break;
+				}
+				ByteBuffer content = ByteBuffer.allocate(recordLength);
+				readFully(data, content, length + RECORD_HEADER_SIZE);
+				checksum.reset();
+				checksum.update(content.array());
+				if ((int) checksum.getValue() != header.getInt(Integer.BYTES)) {
+					break;
+				}
+				DataInputStream in = new DataInputStream(new ByteArrayInputStream(content.array()));
+				int sequence = in.readInt();
+				long saleTime = SaleRecordFormat.read(in).saleDateTime().toEpochSecond(ZoneOffset.UTC);
+				addRecord(sequence, length, length + RECORD_HEADER_SIZE + recordLength, saleTime);
+			}
+			data.truncate(length);
+		}
+
+		/**
+		 * Adds a written record to the last block, and writes the index entry of the block when it is full.
+		 */
+		synchronized void addRecord(int sequence, long offset, long endOffset, long saleTime) throws IOException {
+			if (tailRecordCount == 0) {
+				tailFirstSequence = sequence;
+				tailOffset = offset;
+				tailEarliestSaleTime = saleTime;
+				tailLatestSaleTime = saleTime;
+			}
+			tailRecordCount++;
+			tailEarliestSaleTime = Math.min(tailEarliestSaleTime, saleTime);
+			tailLatestSaleTime = Math.max(tailLatestSaleTime, saleTime);
+			length = endOffset;
+			nextSequence = sequence + 1;
+
+			if (tailRecordCount == indexInterval) {
+				IndexEntry entry = tailBlock();
+				ByteBuffer entryBytes = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+				entryBytes.putInt(entry.firstSequence()).putInt(entry.recordCount()).putLong(entry.offset())
+						.putLong(entry.endOffset()).putLong(entry.earliestSaleTime()).putLong(entry.latestSaleTime());
+				entryBytes.flip();
+				while (entryBytes.hasRemaining()) {
+					index.write(entryBytes, (long) blocks.size() * INDEX_ENTRY_SIZE + entryBytes.position());
+				}
+				blocks.add(entry);
+				tailRecordCount = 0;
+			}
+		}
+
+		synchronized long length() {
+			return length;
+		}
+
+		/**
+		 * Returns the block that holds the record with the specified sequence number, or null if there is none.
+		 */
+		synchronized IndexEntry blockOf(int sequence) {
+			if (sequence < 0 || sequence >= nextSequence) {
+				return null;
+			}
+			if (tailRecordCount > 0 && sequence >= tailFirstSequence) {
+				return tailBlock();
+			}
+			int low = 0;
+			int high = blocks.size() - 1;
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+				IndexEntry block = blocks.get(middle);
+				if (sequence < block.firstSequence()) {
+					high = middle - 1;
+				} else if (sequence >= block.firstSequence() + block.recordCount()) {
+					low = middle + 1;
+				} else {
+					return block;
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Returns all blocks, including the last block if it is not yet full.
+		 */
+		synchronized List<IndexEntry> blocks() {
+			ArrayList<IndexEntry> allBlocks = new ArrayList<>(blocks);
+			if (tailRecordCount > 0) {
+				allBlocks.add(tailBlock());
+			}
+			return allBlocks;
+		}
+
+		/**
+		 * Reads the records of the block, positioned at the first record.
+		 */
+		ByteBuffer read(IndexEntry block) throws IOException {
+			ByteBuffer records = ByteBuffer.allocate((int) (block.endOffset() - block.offset()));
+			readFully(data, records, block.offset());
+			return records.flip();
+		}
+
+		void close() {
+			try {
+				data.close();
+				index.close();
+			} catch (IOException e) {
+				logger.logException(e);
+			}
+		}
+
+		private IndexEntry tailBlock() {
+			return new IndexEntry(tailFirstSequence, tailRecordCount, tailOffset, length, tailEarliestSaleTime,
+					tailLatestSaleTime);
+		}
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of the receipt archive");
+			}
+		}
+	}
+
+	/**
+	 * The receipts of one batch that belong to the same segment, and the end of each record in the batch.
+	 */
+	private static final class SegmentBatch {
+		private final Segment segment;
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private final ArrayList<PendingReceipt> receipts = new ArrayList<>();
+		private final ArrayList<Integer> recordEnds = new ArrayList<>();
+
+		SegmentBatch(Segment segment) {
+			this.segment = segment;
+		}
+	}
+
+	/**
+	 * An entry of the sparse index. The sale times are in seconds since 1970-01-01T00:00.
+	 */
+	private record IndexEntry(int firstSequence, int recordCount, long offset, long endOffset,
+			long earliestSaleTime, long latestSaleTime) {
+	}
+
+	private record PendingReceipt(ReceiptDTO receipt, CompletableFuture<Long> archived) {
+	}
+}
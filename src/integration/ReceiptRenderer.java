@@ -0,0 +1,248 @@
+package integration;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import dto.ReceiptDTO;
+import dto.SaleDTO;
+import dto.SaleLineDTO;
+import model.Amount;
+import util.StringUtils;
+
+/**
+ * Writes receipts to a channel, with the same layout as {@link Printer}. The receipt is rendered line by line into a
+ * reusable buffer, which is written to the channel whenever it is full, so receipts of any length are rendered in a
+ * fixed amount of memory. Columns are padded by hand and amounts are written digit by digit, so no strings are built
+ * while rendering. The text is encoded as UTF-8.
+ * <p>
+ * An instance may be shared between lanes, receipts are rendered one at a time.
+ */
+public class ReceiptRenderer {
+	private static final int DEFAULT_BUFFER_SIZE = 8192;
+	private static final int MIN_BUFFER_SIZE = 64;
+	private static final int NAME_WIDTH = 24;
+	private static final int MAX_NAME_LENGTH = 21;
+	private static final int TRUNCATED_NAME_LENGTH = 19;
+
+	private static final byte[] BEGIN_RECEIPT = ascii("------------------ Begin receipt -------------------\n");
+	private static final byte[] TIME_OF_SALE = ascii("Time of Sale: ");
+	private static final byte[] DISCOUNT_APPLIED = ascii("Discount Applied: ");
+	private static final byte[] TOTAL = ascii("Total: ");
+	private static final byte[] VAT = ascii("VAT: ");
+	private static final byte[] CASH = ascii("Cash: ");
+	private static final byte[] CHANGE = ascii("Change: ");
+	private static final byte[] END_RECEIPT = ascii("------------------ End receipt ---------------------\n");
+	private static final byte[] TIMES = ascii(" x ");
+	private static final byte[] SEK = ascii(" SEK\n");
+	private static final byte[] ELLIPSIS = ascii("...");
+	private static final int TIME_WIDTH = 38;
+	private static final int TIME_LENGTH = 16;
+
+	private final ByteBuffer buffer;
+
+	/**
+	 * Creates a renderer with a buffer of the default size.
+	 */
+	public ReceiptRenderer() {
+		this(DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Creates a renderer with a buffer of the specified size.
+	 *
+	 * @param bufferSize The size of the buffer in bytes, at least 64.
+	 */
+	public ReceiptRenderer(int bufferSize) {
+		if (bufferSize < MIN_BUFFER_SIZE) {
+			throw new IllegalArgumentException("The buffer must hold at least " + MIN_BUFFER_SIZE + " bytes");
+		}
+		buffer = ByteBuffer.allocateDirect(bufferSize);
+	}
+
+	/**
+	 * Renders the receipt and writes it to the channel. The channel is not closed.
+	 *
+	 * @param receiptDTO The receipt information to be rendered.
+	 * @param channel    The channel the receipt is written to.
+	 * @throws IOException if the receipt could not be written.
+	 */
+	public synchronized void render(ReceiptDTO receiptDTO, WritableByteChannel channel) throws IOException {
+		SaleDTO sale = receiptDTO.sale();
+		buffer.clear();
+		try {
+			put(BEGIN_RECEIPT, channel);
+			put(TIME_OF_SALE, channel);
+			pad(TIME_WIDTH - TIME_LENGTH, channel);
+			putTime(sale.saleDateTime(), channel);
+			put((byte) '\n', channel);
+			put((byte) '\n', channel);
+
+			for (SaleLineDTO line : sale.saleLines()) {
+				putSaleLine(line, channel);
+			}
+			put((byte) '\n', channel);
+
+			putTotalLine(DISCOUNT_APPLIED, sale.discountedPrice(), channel);
+			putTotalLine(TOTAL, sale.totalPrice(), channel);
+			putTotalLine(VAT, sale.totalVat(), channel);
+			put((byte) '\n', channel);
+			putTotalLine(CASH, sale.amountPaid(), channel);
+			putTotalLine(CHANGE, sale.change(), channel);
+			put(END_RECEIPT, channel);
+			flush(channel);
+		} finally {
+			buffer.clear();
+		}
+	}
+
+	private void putSaleLine(SaleLineDTO line, WritableByteChannel channel) throws IOException {
+		String name = line.item().name();
+		if (name.length() > MAX_NAME_LENGTH) {
+			putChars(name, TRUNCATED_NAME_LENGTH, channel);
+			put(ELLIPSIS, channel);
+			pad(NAME_WIDTH - TRUNCATED_NAME_LENGTH - ELLIPSIS.length, channel);
+		} else {
+			putChars(name, name.length(), channel);
+			pad(NAME_WIDTH - name.length(), channel);
+		}
+		put((byte) ' ', channel);
+		putNumber(line.quantity(), 2, channel);
+		put(TIMES, channel);
+		putAmount(line.unitPrice(), 7, channel);
+		put((byte) ' ', channel);
+		putAmount(line.lineTotal(), 10, channel);
+		put(SEK, channel);
+	}
+
+	private void putTotalLine(byte[] label, Amount amount, WritableByteChannel channel) throws IOException {
+		put(label, channel);
+		putAmount(amount, 48 - label.length, channel);
+		put(SEK, channel);
+	}
+
+	private void putTime(LocalDateTime time, WritableByteChannel channel) throws IOException {
+		putDigits(time.getYear(), 4, channel);
+		put((byte) '-', channel);
+		putDigits(time.getMonthValue(), 2, channel);
+		put((byte) '-', channel);
+		putDigits(time.getDayOfMonth(), 2, channel);
+		put((byte) ' ', channel);
+		putDigits(time.getHour(), 2, channel);
+		put((byte) ':', channel);
+		putDigits(time.getMinute(), 2, channel);
+	}
+
+	/**
+	 * Writes the amount rounded to two decimals with a colon as the decimal separator, right aligned in the width.
+	 */
+	private void putAmount(Amount amount, int width, WritableByteChannel channel) throws IOException {
+		long hundredths;
+		try {
+			hundredths = amount.toRoundedHundredths();
+		} catch (ArithmeticException tooLarge) {
+			String colonized = amount.colonized();
+			pad(width - colonized.length(), channel);
+			putChars(colonized, colonized.length(), channel);
+			return;
+		}
+
+		int length = StringUtils.colonizedLength(hundredths, 2);
+		pad(width - length, channel);
+		ensureSpace(length, channel);
+		StringUtils.putColonized(hundredths, 2, buffer);
+	}
+
+	private void putNumber(long number, int width, WritableByteChannel channel) throws IOException {
+		long magnitude = Math.abs(number);
+		int digits = digitCount(magnitude);
+		pad(width - digits - (number < 0 ? 1 : 0), channel);
+		if (number < 0) {
+			put((byte) '-', channel);
+		}
+		putDigits(magnitude, digits, channel);
+	}
+
+	/**
+	 * Writes the lowest digits of a non-negative number, with leading zeros if the number has fewer digits.
+	 */
+	private void putDigits(long number, int digits, WritableByteChannel channel) throws IOException {
+		ensureSpace(digits, channel);
+		int end = buffer.position() + digits;
+		for (int i = end - 1; i >= end - digits; i--) {
+			buffer.put(i, (byte) ('0' + number % 10));
+			number /= 10;
+		}
+		buffer.position(end);
+	}
+
+	/**
+	 * Writes the first characters of the text as UTF-8.
+	 */
+	private void putChars(String text, int length, WritableByteChannel channel) throws IOException {
+		for (int i = 0; i < length; i++) {
+			char c = text.charAt(i);
+			if (c < 0x80) {
+				put((byte) c, channel);
+			} else if (c < 0x800) {
+				ensureSpace(2, channel);
+				buffer.put((byte) (0xc0 | c >> 6)).put((byte) (0x80 | c & 0x3f));
+			} else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, text.charAt(++i));
+				ensureSpace(4, channel);
+				buffer.put((byte) (0xf0 | codePoint >> 18)).put((byte) (0x80 | codePoint >> 12 & 0x3f))
+						.put((byte) (0x80 | codePoint >> 6 & 0x3f)).put((byte) (0x80 | codePoint & 0x3f));
+			} else if (Character.isSurrogate(c)) {
+				put((byte) '?', channel);
+			} else {
+				ensureSpace(3, channel);
+				buffer.put((byte) (0xe0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3f)).put((byte) (0x80 | c & 0x3f));
+			}
+		}
+	}
+
+	private void pad(int spaces, WritableByteChannel channel) throws IOException {
+		for (int i = 0; i < spaces; i++) {
+			put((byte) ' ', channel);
+		}
+	}
+
+	private void put(byte[] bytes, WritableByteChannel channel) throws IOException {
+		ensureSpace(bytes.length, channel);
+		buffer.put(bytes);
+	}
+
+	private void put(byte b, WritableByteChannel channel) throws IOException {
+		ensureSpace(1, channel);
+		buffer.put(b);
+	}
+
+	private void ensureSpace(int bytes, WritableByteChannel channel) throws IOException {
+		if (buffer.remaining() < bytes) {
+			flush(channel);
+		}
+	}
+
+	private void flush(WritableByteChannel channel) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	private static int digitCount(long number) {
+		int digits = 1;
+		while (number >= 10) {
+			number /= 10;
+			digits++;
+		}
+		return digits;
+	}
+
+	private static byte[] ascii(String text) {
+		return text.getBytes(StandardCharsets.US_ASCII);
+	}
+}
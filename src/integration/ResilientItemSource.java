@@ -0,0 +1,224 @@
+package integration;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import dto.ItemDTO;
+import dto.ItemLookupDTO;
+
+/**
+ * Protects the lanes from a slow or failing item source. Calls to the source go through a circuit breaker, and only a
+ * limited number of calls may be in progress at the same time (a bulkhead), so a failing source cannot hold every lane.
+ * When a call is not permitted, or fails, the item is served from a snapshot of the items last retrieved from the
+ * source. Lanes therefore keep scanning known items during an outage, and only fail at once for items never seen. When
+ * the bulkhead is full, a known item is served from the snapshot at once, while an item that is not in the snapshot
+ * waits a short while for a call to finish, so that a burst of lookups on a healthy source does not fail.
+ */
+public class ResilientItemSource implements ItemSource {
+	private static final Duration DEFAULT_MAX_BULKHEAD_WAIT = Duration.ofMillis(250);
+
+	private final ItemSource source;
+	private final CircuitBreaker circuitBreaker;
+	private final Semaphore bulkhead;
+	private final long maxBulkheadWaitNanos;
+	private final int maxSnapshotSize;
+	private final ConcurrentHashMap<String, ItemDTO> snapshot = new ConcurrentHashMap<>();
+
+	private final AtomicLong bulkheadRejections = new AtomicLong();
+	private final AtomicLong snapshotRetrievals = new AtomicLong();
+
+	/**
+	 * Creates a protected item source where a lookup of an unknown item waits at most 250 ms for a full bulkhead.
+	 *
+	 * @param source             The source that is protected.
+	 * @param circuitBreaker     The circuit breaker that decides if the source may be called.
+	 * @param maxConcurrentCalls The number of calls to the source that may be in progress at the same time.
+	 * @param maxSnapshotSize    The number of items the snapshot holds at most.
+	 */
+	public ResilientItemSource(ItemSource source, CircuitBreaker circuitBreaker, int maxConcurrentCalls,
+			int maxSnapshotSize) {
+		this(source, circuitBreaker, maxConcurrentCalls, DEFAULT_MAX_BULKHEAD_WAIT, maxSnapshotSize);
+	}
+
+	/**
+	 * Creates a protected item source.
+	 *
+	 * @param source             The source that is protected.
+	 * @param circuitBreaker     The circuit breaker that decides if the source may be called.
+	 * @param maxConcurrentCalls The number of calls to the source that may be in progress at the same time.
+	 * @param maxBulkheadWait    How long a lookup of an item that is not in the snapshot waits for a full bulkhead.
+	 * @param maxSnapshotSize    The number of items the snapshot holds at most.
+	 */
+	public ResilientItemSource(ItemSource source, CircuitBreaker circuitBreaker, int maxConcurrentCalls,
+			Duration maxBulkheadWait, int maxSnapshotSize) {
+		this.source = source;
+		this.circuitBreaker = circuitBreaker;
+		this.bulkhead = new Semaphore(maxConcurrentCalls);
+		this.maxBulkheadWaitNanos = maxBulkheadWait.toNanos();
+		this.maxSnapshotSize = maxSnapshotSize;
+	}
+
+	/**
+	 * Retrieves the item from the source if the bulkhead and the circuit breaker permit it, otherwise, or if the
+	 * source fails, from the snapshot. When the bulkhead is full, an item in the snapshot is returned without waiting,
+	 * and any other item waits for a call to the source to finish for a bounded time.
+	 *
+	 * @param itemId The ID of the item to be retrieved.
+	 * @return The object containing information about this item.
+	 * @throws DatabaseFailureException if the source could not be used and the item is not in the snapshot.
+	 * @throws ItemNotFoundException    if the source does not have the item.
+	 */
+	@Override
+	public ItemDTO retrieveItem(String itemId) throws DatabaseFailureException, ItemNotFoundException {
+		if (!bulkhead.tryAcquire() && (snapshot.containsKey(itemId) || !awaitBulkhead())) {
+			bulkheadRejections.incrementAndGet();
+			return retrieveFromSnapshot(itemId, null);
+		}
+		try {
+			long permission = circuitBreaker.tryAcquirePermission();
+			if (permission == CircuitBreaker.NO_PERMISSION) {
+				return retrieveFromSnapshot(itemId, null);
+			}
+			return retrieveFromSource(itemId, permission);
+		} finally {
+			bulkhead.release();
+		}
+	}
+
+	/**
+	 * Retrieves all the specified items from the source in one call if the bulkhead and the circuit breaker permit
+	 * it, otherwise, or if the source fails, from the snapshot. Items that are not in the snapshot are reported as
+	 * unavailable. When the bulkhead is full, the items are returned from the snapshot without waiting if they are all
+	 * in it, otherwise the call waits for a call to the source to finish for a bounded time.
+	 *
+	 * @param itemIds The IDs of the items to be retrieved, without duplicates.
+	 * @return The items that were found, the IDs that were not found and the IDs that could not be looked up.
+	 */
+	@Override
+	public ItemLookupDTO retrieveItems(Collection<String> itemIds) {
+		if (!bulkhead.tryAcquire() && (snapshot.keySet().containsAll(itemIds) || !awaitBulkhead())) {
+			bulkheadRejections.incrementAndGet();
+			return retrieveFromSnapshot(itemIds);
+		}
+		try {
+			long permission = circuitBreaker.tryAcquirePermission();
+			if (permission == CircuitBreaker.NO_PERMISSION) {
+				return retrieveFromSnapshot(itemIds);
+			}
+			return retrieveFromSource(itemIds, permission);
+		} finally {
+			bulkhead.release();
+		}
+	}
+
+	/**
+	 * Returns the circuit breaker of this source, for example to read its state.
+	 *
+	 * @return The circuit breaker.
+	 */
+	public CircuitBreaker getCircuitBreaker() {
+		return circuitBreaker;
+	}
+
+	/**
+	 * Returns the number of calls that were not made because too many calls were already in progress, either because
+	 * the items were served from the snapshot at once or because no call finished in time.
+	 *
+	 * @return The number of calls rejected by the bulkhead.
+	 */
+	public long getBulkheadRejectionCount() {
+		return bulkheadRejections.get();
+	}
+
+	/**
+	 * Returns the number of items that were served from the snapshot instead of the source.
+	 *
+	 * @return The number of items served from the snapshot.
+	 */
+	public long getSnapshotRetrievalCount() {
+		return snapshotRetrievals.get();
+	}
+
+	private boolean awaitBulkhead() {
+		try {
+			return bulkhead.tryAcquire(maxBulkheadWaitNanos, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private ItemDTO retrieveFromSource(String itemId, long permission) throws ItemNotFoundException {
+		try {
+			ItemDTO item = source.retrieveItem(itemId);
+			circuitBreaker.onSuccess(permission);
+			if (snapshot.size() < maxSnapshotSize || snapshot.containsKey(itemId)) {
+				snapshot.put(itemId, item);
+			}
+			return item;
+		} catch (ItemNotFoundException e) {
+			circuitBreaker.onSuccess(permission);
+			snapshot.remove(itemId);
+			throw e;
+		} catch (RuntimeException e) {
+			circuitBreaker.onFailure(permission);
+			return retrieveFromSnapshot(itemId, e);
+		}
+	}
+
+	private ItemLookupDTO retrieveFromSource(Collection<String> itemIds, long permission) {
+		ItemLookupDTO retrieved;
+		try {
+			retrieved = source.retrieveItems(itemIds);
+		} catch (RuntimeException e) {
+			circuitBreaker.onFailure(permission);
+			return retrieveFromSnapshot(itemIds);
+		}
+		circuitBreaker.onSuccess(permission);
+		for (Map.Entry<String, ItemDTO> item : retrieved.foundItems().entrySet()) {
+			if (snapshot.size() < maxSnapshotSize || snapshot.containsKey(item.getKey())) {
+				snapshot.put(item.getKey(), item.getValue());
+			}
+		}
+		for (String itemId : retrieved.notFoundItemIds()) {
+			snapshot.remove(itemId);
+		}
+		return retrieved;
+	}
+
+	private ItemLookupDTO retrieveFromSnapshot(Collection<String> itemIds) {
+		HashMap<String, ItemDTO> foundItems = new HashMap<>();
+		Set<String> unavailableItemIds = new HashSet<>();
+		for (String itemId : itemIds) {
+			ItemDTO item = snapshot.get(itemId);
+			if (item == null) {
+				unavailableItemIds.add(itemId);
+			} else {
+				foundItems.put(itemId, item);
+			}
+		}
+		snapshotRetrievals.addAndGet(foundItems.size());
+		return new ItemLookupDTO(foundItems, Set.of(), unavailableItemIds);
+	}
+
+	private ItemDTO retrieveFromSnapshot(String itemId, RuntimeException failure) {
+		ItemDTO item = snapshot.get(itemId);
+		if (item != null) {
+			snapshotRetrievals.incrementAndGet();
+			return item;
+		}
+		if (failure != null) {
+			throw failure;
+		}
+		throw new DatabaseFailureException("The inventory is unavailable and item '%s' is not in the snapshot"
+				.formatted(itemId));
+	}
+}
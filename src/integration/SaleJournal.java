@@ -0,0 +1,436 @@
+package integration;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import dto.SaleDTO;
+import util.LogHandler;
+
+/**
+ * An append-only file of recorded sales. Every record is framed by its length and a CRC32 checksum of the content, the
+ * content is written by {@link SaleRecordFormat}. Appended sales are written by a background thread that writes all
+ * sales waiting at the same time with one write and one fsync (group commit).
+ * <p>
+ * A sale that was synced from a {@link SaleQueue} is followed by its sync sequence inside the record, so that the
+ * journal knows which queued sales it already holds after a restart. After a synced sale could not be written, synced
+ * sales with a higher sequence are rejected until it is appended again, so the journal never holds a later synced sale
+ * without the earlier ones, and the highest sync sequence tells which sales it holds.
+ * <p>
+ * The journal keeps the range of the file that holds the records of each day of sale, so the sales of one day are read
+ * without reading the days before it. Sales are appended roughly in time order, so the ranges of two days only overlap
+ * by the few sales that are synced late.
+ * <p>
+ * If a batch can not be written, the file is truncated back to the end of the previous batch, so that the records
+ * written after it are not hidden behind a partly written record at the next start. If the file can not be truncated
+ * either, the journal stops and rejects all further sales.
+ */
+final class SaleJournal implements AutoCloseable {
+	private static final int HEADER_SIZE = 2 * Integer.BYTES;
+	private static final int MAX_BATCH_SIZE = 1024;
+	private static final PendingSale CLOSE = new PendingSale(null, 0, null);
+	private static final long NO_SYNC_SEQUENCE = 0;
+
+	private final Path journalFile;
+	private final FileChannel channel;
+	private final BlockingQueue<PendingSale> pendingSales = new LinkedBlockingQueue<>();
+	private final Thread writerThread;
+	private final BatchWriter batchWriter;
+	private final ConcurrentHashMap<LocalDate, DaySpan> daySpans = new ConcurrentHashMap<>();
+	private final LogHandler logger = LogHandler.getLogger();
+	private long writtenLength;
+	private long failedSyncSequence = NO_SYNC_SEQUENCE;
+	private volatile long lastSyncSequence;
+	private volatile boolean closed;
+	private volatile IOException stopCause;
+
+	/**
+	 * Opens the journal, creating the file if it does not exist. A partly written record at the end of the file, left
+	 * by a crash, is removed. Every complete record is passed to the specified consumer before the journal is opened
+	 * for appending.
+	 *
+	 * @param journalFile    The journal file.
+	 * @param recoveredSales Receives each sale found in the journal, in the order they were recorded.
+	 * @throws IOException if the journal could not be read or opened.
+	 */
+	SaleJournal(Path journalFile, Consumer<SaleDTO> recoveredSales) throws IOException {
+		this(journalFile, recoveredSales, SaleJournal::writeFully);
+	}
+
+	/**
+	 * Opens the journal, writing each batch of records with the specified writer.
+	 *
+	 * @param journalFile    The journal file.
+	 * @param recoveredSales Receives each sale found in the journal, in the order they were recorded.
+	 * @param batchWriter    Writes the bytes of a batch to the journal file.
+	 * @throws IOException if the journal could not be read or opened.
+	 */
+	SaleJournal(Path journalFile, Consumer<SaleDTO> recoveredSales, BatchWriter batchWriter) throws IOException {
+		this.journalFile = journalFile;
+		this.batchWriter = batchWriter;
+		recover(recoveredSales);
+
+		channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND);
+		writtenLength = channel.size();
+		writerThread = new Thread(this::writeLoop, "sale-journal-writer");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	/**
+	 * Appends a sale to the journal. This method does not wait for the sale to be written.
+	 *
+	 * @param sale The sale to append.
+	 * @return A future that completes when the sale is written and flushed to disk.
+	 * @throws IllegalStateException if the journal is closed or has stopped after a failure.
+	 */
+	CompletableFuture<Void> append(SaleDTO sale) {
+		return append(sale, NO_SYNC_SEQUENCE);
+	}
+
+	/**
+	 * Appends a sale that was synced from a sale queue, together with its sync sequence. This method does not wait for
+	 * the sale to be written.
+	 *
+	 * @param sale         The sale to append.
+	 * @param syncSequence The sequence number of the sale in the queue, greater than zero.
+	 * @return A future that completes when the sale is written and flushed to disk.
+	 * @throws IllegalStateException if the journal is closed or has stopped after a failure.
+	 */
+	CompletableFuture<Void> append(SaleDTO sale, long syncSequence) {
+		if (closed) {
+			throw new IllegalStateException("The sale journal is closed");
+		}
+		if (stopCause != null) {
+			throw new IllegalStateException("The sale journal has stopped after a failed write", stopCause);
+		}
+		CompletableFuture<Void> durable = new CompletableFuture<>();
+		pendingSales.add(new PendingSale(sale, syncSequence, durable));
+		return durable;
+	}
+
+	/**
+	 * Returns the highest sync sequence of the sales written to disk, including sales recovered from the journal.
+	 *
+	 * @return The highest sync sequence, 0 if no synced sale was written.
+	 */
+	long getLastSyncSequence() {
+		return lastSyncSequence;
+	}
+
+	/**
+	 * Reads all complete records in the journal. Records that are still being written are not included.
+	 *
+	 * @param sales Receives each sale in the order they were recorded.
+	 * @throws IOException if the journal could not be read.
+	 */
+	void replay(Consumer<SaleDTO> sales) throws IOException {
+		readRecords(journalFile, 0, Long.MAX_VALUE, (sale, syncSequence, offset, endOffset) -> sales.accept(sale));
+	}
+
+	/**
+	 * Reads the complete records of sales made on the specified day. Only the range of the file that holds the records
+	 * of the day is read.
+	 *
+	 * @param day   The day of sale.
+	 * @param sales Receives each sale of the day in the order they were recorded.
+	 * @throws IOException if the journal could not be read.
+	 */
+	void replay(LocalDate day, Consumer<SaleDTO> sales) throws IOException {
+		DaySpan span = daySpans.get(day);
+		if (span == null) {
+			return;
+		}
+		readRecords(journalFile, span.start(), span.end(), (sale, syncSequence, offset, endOffset) -> {
+			if (sale.saleDateTime().toLocalDate().equals(day)) {
+				sales.accept(sale);
+			}
+		});
+	}
+
+	/**
+	 * Writes all appended sales and closes the journal.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		pendingSales.add(CLOSE);
+		try {
+			writerThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void recover(Consumer<SaleDTO> recoveredSales) throws IOException {
+		if (!journalFile.toFile().exists()) {
+			return;
+		}
+		long validLength = readRecords(journalFile, 0, Long.MAX_VALUE, (sale, syncSequence, offset, endOffset) -> {
+			lastSyncSequence = Math.max(lastSyncSequence, syncSequence);
+			addToDaySpan(sale, offset, endOffset);
+			recoveredSales.accept(sale);
+		});
+		try (FileChannel recoveryChannel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+			if (recoveryChannel.size() > validLength) {
+				recoveryChannel.truncate(validLength);
+			}
+		}
+	}
+
+	/**
+	 * Reads the complete records that start in the specified range of the file, and returns the end of the last one.
+	 */
+	private static long readRecords(Path journalFile, long start, long end, RecordVisitor records)
+			throws IOException {
+		long validLength = start;
+		try (FileChannel readChannel = FileChannel.open(journalFile, StandardOpenOption.READ);
+				InputStream fileStream = Channels.newInputStream(readChannel.position(start));
+				DataInputStream in = new DataInputStream(new BufferedInputStream(fileStream))) {
+			CRC32 checksum = new CRC32();
+			while (validLength < end) {
+				byte[] content;
+				try {
+					int length = in.readInt();
+					int expectedChecksum = in.readInt();
+					if (length < 0 || validLength + HEADER_SIZE + length > readChannel.size()) {
+						break;
+					}
+					content = new byte[length];
+					in.readFully(content);
+					checksum.reset();
+					checksum.update(content);
+					if ((int) checksum.getValue() != expectedChecksum) {
+						break;
+					}
+				} catch (EOFException endOfJournal) {
+					break;
+				}
+				DataInputStream record = new DataInputStream(new ByteArrayInputStream(content));
+				SaleDTO sale = SaleRecordFormat.read(record);
+				long syncSequence = record.available() >= Long.BYTES ? record.readLong() : NO_SYNC_SEQUENCE;
+				long endOffset = validLength + HEADER_SIZE + content.length;
+				records.accept(sale, syncSequence, validLength, endOffset);
+				validLength = endOffset;
+			}
+		}
+		return validLength;
+	}
+
+	private void writeLoop() {
+		ArrayList<PendingSale> batch = new ArrayList<>();
+		ByteArrayOutputStream batchBytes = new ByteArrayOutputStream();
+		ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+		CRC32 checksum = new CRC32();
+		boolean running = true;
+
+		while (running) {
+			try {
+				batch.add(pendingSales.take());
+			} catch (InterruptedException e) {
+				break;
+			}
+			pendingSales.drainTo(batch, MAX_BATCH_SIZE - 1);
+			if (stopCause != null) {
+				running = !batch.contains(CLOSE);
+				completeBatch(batch, stopCause);
+				batch.clear();
+				continue;
+			}
+
+			batchBytes.reset();
+			ArrayList<Integer> recordEnds = new ArrayList<>(batch.size());
+			long failedSyncSequenceBeforeBatch = failedSyncSequence;
+			try {
+				DataOutputStream batchOut = new DataOutputStream(batchBytes);
+				for (Iterator<PendingSale> sales = batch.iterator(); sales.hasNext();) {
+					PendingSale pending = sales.next();
+					if (pending == CLOSE) {
+						running = false;
+						continue;
+					}
+					if (pending.syncSequence() != NO_SYNC_SEQUENCE && failedSyncSequence != NO_SYNC_SEQUENCE) {
+						if (pending.syncSequence() > failedSyncSequence) {
+							sales.remove();
+							pending.durable().completeExceptionally(new IOException(
+									"Synced sale %d was not written".formatted(failedSyncSequence)));
+							continue;
+						}
+						failedSyncSequence = NO_SYNC_SEQUENCE;
+					}
+					recordBytes.reset();
+					DataOutputStream recordOut = new DataOutputStream(recordBytes);
+					SaleRecordFormat.write(pending.sale(), recordOut);
+					if (pending.syncSequence() != NO_SYNC_SEQUENCE) {
+						recordOut.writeLong(pending.syncSequence());
+					}
+					checksum.reset();
+					checksum.update(recordBytes.toByteArray());
+					batchOut.writeInt(recordBytes.size());
+					batchOut.writeInt((int) checksum.getValue());
+					recordBytes.writeTo(batchOut);
+					recordEnds.add(batchBytes.size());
+				}
+				batchWriter.write(channel, ByteBuffer.wrap(batchBytes.toByteArray()));
+				channel.force(false);
+				addToDaySpans(batch, recordEnds);
+				writtenLength += batchBytes.size();
+				updateLastSyncSequence(batch);
+				completeBatch(batch, null);
+			} catch (IOException e) {
+				logger.logException(e);
+				discardFailedBatch(e);
+				failedSyncSequence = lowestSyncSequence(batch, failedSyncSequenceBeforeBatch);
+				completeBatch(batch, e);
+			}
+			batch.clear();
+		}
+		pendingSales.drainTo(batch);
+		completeBatch(batch, new IOException("The sale journal was closed before the sale was written"));
+		closeChannel();
+	}
+
+	/**
+	 * Writes all remaining bytes of the buffer to the end of the channel. This is the batch writer of a journal that is
+	 * not given one.
+	 */
+	static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Removes the part of a failed batch that was written. If that fails too, the journal is stopped, since a later
+	 * batch would be written after a corrupt record and be lost at the next start.
+	 */
+	private void discardFailedBatch(IOException failure) {
+		try {
+			if (channel.size() > writtenLength) {
+				channel.truncate(writtenLength);
+			}
+		} catch (IOException e) {
+			logger.logException(e);
+			failure.addSuppressed(e);
+			stopCause = failure;
+		}
+	}
+
+	/**
+	 * Adds the records of a written batch to the ranges of their days. The records start at the written length.
+	 */
+	private void addToDaySpans(ArrayList<PendingSale> batch, ArrayList<Integer> recordEnds) {
+		long recordStart = writtenLength;
+		int record = 0;
+		for (PendingSale pending : batch) {
+			if (pending == CLOSE) {
+				continue;
+			}
+			long recordEnd = writtenLength + recordEnds.get(record++);
+			addToDaySpan(pending.sale(), recordStart, recordEnd);
+			recordStart = recordEnd;
+		}
+	}
+
+	private void addToDaySpan(SaleDTO sale, long offset, long endOffset) {
+		daySpans.merge(sale.saleDateTime().toLocalDate(), new DaySpan(offset, endOffset),
+				(span, added) -> new DaySpan(Math.min(span.start(), added.start()), Math.max(span.end(), added.end())));
+	}
+
+	/**
+	 * Returns the lowest sync sequence of the synced sales in the batch, or the specified sequence if there are none.
+	 */
+	private static long lowestSyncSequence(ArrayList<PendingSale> batch, long noSyncedSale) {
+		long lowest = Long.MAX_VALUE;
+		for (PendingSale pending : batch) {
+			if (pending != CLOSE && pending.syncSequence() != NO_SYNC_SEQUENCE) {
+				lowest = Math.min(lowest, pending.syncSequence());
+			}
+		}
+		return lowest == Long.MAX_VALUE ? noSyncedSale : lowest;
+	}
+
+	private void updateLastSyncSequence(ArrayList<PendingSale> batch) {
+		long highest = lastSyncSequence;
+		for (PendingSale pending : batch) {
+			highest = Math.max(highest, pending.syncSequence());
+		}
+		lastSyncSequence = highest;
+	}
+
+	private void completeBatch(ArrayList<PendingSale> batch, IOException failure) {
+		for (PendingSale pending : batch) {
+			if (pending == CLOSE) {
+				continue;
+			}
+			if (failure == null) {
+				pending.durable().complete(null);
+			} else {
+				pending.durable().completeExceptionally(failure);
+			}
+		}
+	}
+
+	private void closeChannel() {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			logger.logException(e);
+		}
+	}
+
+	private record PendingSale(SaleDTO sale, long syncSequence, CompletableFuture<Void> durable) {
+	}
+
+	/**
+	 * The range of the file from the start of the first record of a day to the end of its last record.
+	 */
+	private record DaySpan(long start, long end) {
+	}
+
+	/**
+	 * Receives a complete record read from the journal, with its position in the file.
+	 */
+	@FunctionalInterface
+	private interface RecordVisitor {
+		void accept(SaleDTO sale, long syncSequence, long offset, long endOffset);
+	}
+
+	/**
+	 * Writes the bytes of a batch of records to the journal file.
+	 */
+	@FunctionalInterface
+	interface BatchWriter {
+		/**
+		 * Writes all remaining bytes of the buffer to the end of the channel.
+		 *
+		 * @param channel The channel of the journal file, opened for appending.
+		 * @param batch   The records of the batch.
+		 * @throws IOException if the bytes could not be written.
+		 */
+		void write(FileChannel channel, ByteBuffer batch) throws IOException;
+	}
+}
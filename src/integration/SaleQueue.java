@@ -0,0 +1,357 @@
+package integration;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import dto.QueuedSaleDTO;
+import dto.SaleDTO;
+
+/**
+ * A durable queue of finished sales that are waiting to be synced to the accounting and inventory systems, kept in a
+ * directory on the local disk. Appending a sale is a copy into a memory-mapped segment file, it does not wait for the
+ * disk or for any other system, so lanes can finish sales at full speed while the systems are unreachable.
+ * <p>
+ * Every sale gets a sequence number, starting at 1 and never reused. A segment file is named after the sequence of its
+ * first sale, and holds records framed by their length and a CRC32 checksum of the content, the content is written by
+ * {@link SaleRecordFormat}. The queue is read by one reader, usually a {@link SaleSyncer}, which commits the sequence
+ * of the last sale it has synced. The committed sequence is stored in a checkpoint file, reading continues after it
+ * when the queue is opened again, and segments whose sales are all committed are deleted.
+ * <p>
+ * Appended sales survive a crash of the application at once, since they are in the page cache, and a crash of the
+ * operating system once {@link #flush()} has been called.
+ */
+public class SaleQueue implements AutoCloseable {
+	private static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+	private static final int HEADER_SIZE = 2 * Integer.BYTES;
+	private static final String SEGMENT_SUFFIX = ".segment";
+	private static final String CHECKPOINT_FILE_NAME = "checkpoint";
+
+	private final Path directory;
+	private final int segmentSize;
+	private final TreeMap<Long, Segment> segments = new TreeMap<>();
+	private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+	private final CRC32 checksum = new CRC32();
+
+	private Segment writeSegment;
+	private int writeOffset;
+	private long nextSequence;
+	private Segment readSegment;
+	private int readOffset;
+	private long readSequence;
+	private long committedSequence;
+	private boolean closed;
+
+	/**
+	 * Opens the queue in the specified directory, creating it if it does not exist.
+	 *
+	 * @param directory The directory of the segment files.
+	 * @throws UncheckedIOException if the queue could not be opened.
+	 */
+	public SaleQueue(Path directory) {
+		this(directory, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * Opens the queue with segments of the specified size. A partly written record at the end of the last segment,
+	 * left by a crash, is removed.
+	 *
+	 * @param directory   The directory of the segment files.
+	 * @param segmentSize The size of a new segment file in bytes. Larger sales get a segment of their own.
+	 * @throws UncheckedIOException if the queue could not be opened.
+	 */
+	SaleQueue(Path directory, int segmentSize) {
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		try {
+			Files.createDirectories(directory);
+			committedSequence = readCheckpoint();
+			openSegments();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not open the sale queue", e);
+		}
+	}
+
+	/**
+	 * Adds a finished sale to the end of the queue.
+	 *
+	 * @param sale The sale to add.
+	 * @return The sequence number of the sale.
+	 * @throws UncheckedIOException  if a new segment could not be created.
+	 * @throws IllegalStateException if the queue is closed.
+	 */
+	public synchronized long append(SaleDTO sale) {
+		if (closed) {
+			throw new IllegalStateException("The sale queue is closed");
+		}
+		try {
+			recordBytes.reset();
+			SaleRecordFormat.write(sale, new DataOutputStream(recordBytes));
+			byte[] content = recordBytes.toByteArray();
+			if (writeOffset + HEADER_SIZE + content.length > writeSegment.buffer().capacity()) {
+				writeSegment.buffer().force();
+				writeSegment = createSegment(nextSequence, HEADER_SIZE + content.length);
+				writeOffset = 0;
+			}
+			checksum.reset();
+			checksum.update(content);
+			MappedByteBuffer buffer = writeSegment.buffer();
+			buffer.put(writeOffset + HEADER_SIZE, content);
+			buffer.putInt(writeOffset + Integer.BYTES, (int) checksum.getValue());
+			buffer.putInt(writeOffset, content.length);
+			writeOffset += HEADER_SIZE + content.length;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not add the sale to the queue", e);
+		}
+		notifyAll();
+		return nextSequence++;
+	}
+
+	/**
+	 * Takes the next sales that have not been read, waiting for a sale if there is none. The sales stay in the queue
+	 * until they are committed, and are read again when the queue is opened again before that.
+	 *
+	 * @param maxCount      The largest number of sales to take.
+	 * @param timeoutMillis The longest time to wait for a sale.
+	 * @return The sales in the order they were added, empty if no sale was added before the timeout.
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 */
+	public List<QueuedSaleDTO> poll(int maxCount, long timeoutMillis) throws InterruptedException {
+		long firstSequence;
+		ArrayList<byte[]> contents = new ArrayList<>();
+		synchronized (this) {
+			long deadline = System.currentTimeMillis() + timeoutMillis;
+			long remaining = timeoutMillis;
+			while (readSequence == nextSequence && remaining > 0 && !closed) {
+				wait(remaining);
+				remaining = deadline - System.currentTimeMillis();
+			}
+			firstSequence = readSequence;
+			byte[] content;
+			while (contents.size() < maxCount && (content = readNext()) != null) {
+				contents.add(content);
+			}
+		}
+
+		ArrayList<QueuedSaleDTO> sales = new ArrayList<>(contents.size());
+		try {
+			for (byte[] content : contents) {
+				SaleDTO sale = SaleRecordFormat.read(new DataInputStream(new ByteArrayInputStream(content)));
+				sales.add(new QueuedSaleDTO(firstSequence + sales.size(), sale));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read a queued sale", e);
+		}
+		return sales;
+	}
+
+	/**
+	 * Marks all sales up to and including the specified sequence as synced. The sequence is stored in the checkpoint
+	 * file before this method returns, and segments that only hold synced sales are deleted.
+	 *
+	 * @param sequence The sequence of the last synced sale.
+	 * @throws UncheckedIOException if the checkpoint could not be written.
+	 */
+	public void commit(long sequence) {
+		try {
+			writeCheckpoint(sequence);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not write the sale queue checkpoint", e);
+		}
+		List<Segment> obsolete = new ArrayList<>();
+		synchronized (this) {
+			committedSequence = Math.max(committedSequence, sequence);
+			while (segments.size() > 1) {
+				Segment oldest = segments.firstEntry().getValue();
+				long nextFirstSequence = segments.higherKey(oldest.firstSequence());
+				if (oldest == readSegment || nextFirstSequence > committedSequence + 1) {
+					break;
+				}
+				segments.pollFirstEntry();
+				obsolete.add(oldest);
+			}
+		}
+		for (Segment segment : obsolete) {
+			try {
+				Files.deleteIfExists(segment.file());
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not delete a synced segment", e);
+			}
+		}
+	}
+
+	/**
+	 * Writes the appended sales of the current segment to disk.
+	 */
+	public synchronized void flush() {
+		if (!closed) {
+			writeSegment.buffer().force();
+		}
+	}
+
+	/**
+	 * Returns the number of sales that are not committed.
+	 *
+	 * @return The number of sales waiting to be synced.
+	 */
+	public synchronized long getPendingCount() {
+		return nextSequence - 1 - committedSequence;
+	}
+
+	/**
+	 * Writes the appended sales to disk and closes the queue. Waiting readers get the sales read so far.
+	 */
+	@Override
+	public synchronized void close() {
+		if (closed) {
+			return;
+		}
+		writeSegment.buffer().force();
+		closed = true;
+		notifyAll();
+	}
+
+	private byte[] readNext() {
+		while (true) {
+			ByteBuffer buffer = readSegment.buffer();
+			if (readOffset + HEADER_SIZE <= buffer.capacity()) {
+				int length = buffer.getInt(readOffset);
+				if (length > 0) {
+					byte[] content = new byte[length];
+					buffer.get(readOffset + HEADER_SIZE, content);
+					readOffset += HEADER_SIZE + length;
+					readSequence++;
+					return content;
+				}
+			}
+			Map.Entry<Long, Segment> next = segments.higherEntry(readSegment.firstSequence());
+			if (next == null) {
+				return null;
+			}
+			readSegment = next.getValue();
+			readOffset = 0;
+		}
+	}
+
+	private void openSegments() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path file : files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX)).toList()) {
+				String name = file.getFileName().toString();
+				long firstSequence = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+				segments.put(firstSequence, new Segment(firstSequence, file, map(file, 0)));
+			}
+		}
+		if (segments.isEmpty()) {
+			writeSegment = createSegment(committedSequence + 1, 0);
+			nextSequence = committedSequence + 1;
+		} else {
+			writeSegment = segments.lastEntry().getValue();
+			int recordCount = recoverTail(writeSegment);
+			nextSequence = Math.max(writeSegment.firstSequence() + recordCount, committedSequence + 1);
+		}
+
+		Map.Entry<Long, Segment> first = segments.floorEntry(committedSequence + 1);
+		readSegment = first != null ? first.getValue() : segments.firstEntry().getValue();
+		readOffset = 0;
+		readSequence = readSegment.firstSequence();
+		while (readSequence <= committedSequence) {
+			if (readNext() == null) {
+				readSequence = committedSequence + 1;
+			}
+		}
+		commit(committedSequence);
+	}
+
+	/**
+	 * Finds the end of the complete records of a segment and clears everything after it.
+	 *
+	 * @return The number of complete records.
+	 */
+	private int recoverTail(Segment segment) {
+		MappedByteBuffer buffer = segment.buffer();
+		int offset = 0;
+		int recordCount = 0;
+		while (offset + HEADER_SIZE <= buffer.capacity()) {
+			int length = buffer.getInt(offset);
+			if (length <= 0 || offset + HEADER_SIZE + length > buffer.capacity()) {
+				break;
+			}
+			byte[] content = new byte[length];
+			buffer.get(offset + HEADER_SIZE, content);
+			checksum.reset();
+			checksum.update(content);
+			if ((int) checksum.getValue() != buffer.getInt(offset + Integer.BYTES)) {
+				break;
+			}
+			offset += HEADER_SIZE + length;
+			recordCount++;
+		}
+		byte[] zeros = new byte[Math.min(64 * 1024, buffer.capacity())];
+		for (int clear = offset; clear < buffer.capacity(); clear += zeros.length) {
+			buffer.put(clear, zeros, 0, Math.min(zeros.length, buffer.capacity() - clear));
+		}
+		writeOffset = offset;
+		return recordCount;
+	}
+
+	private Segment createSegment(long firstSequence, int minimumSize) throws IOException {
+		Path file = directory.resolve("%020d%s".formatted(firstSequence, SEGMENT_SUFFIX));
+		Segment segment = new Segment(firstSequence, file, map(file, Math.max(segmentSize, minimumSize)));
+		segments.put(firstSequence, segment);
+		return segment;
+	}
+
+	private static MappedByteBuffer map(Path file, int size) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			long mappedSize = size > 0 ? size : channel.size();
+			return channel.map(FileChannel.MapMode.READ_WRITE, 0, mappedSize);
+		}
+	}
+
+	private long readCheckpoint() throws IOException {
+		Path checkpoint = directory.resolve(CHECKPOINT_FILE_NAME);
+		if (!Files.exists(checkpoint)) {
+			return 0;
+		}
+		return ByteBuffer.wrap(Files.readAllBytes(checkpoint)).getLong();
+	}
+
+	private void writeCheckpoint(long sequence) throws IOException {
+		Path checkpoint = directory.resolve(CHECKPOINT_FILE_NAME);
+		Path tempFile = directory.resolve(CHECKPOINT_FILE_NAME + ".tmp");
+		try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer content = ByteBuffer.allocate(Long.BYTES).putLong(0, sequence);
+			while (content.hasRemaining()) {
+				channel.write(content);
+			}
+			channel.force(false);
+		}
+		try {
+			Files.move(tempFile, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tempFile, checkpoint, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private record Segment(long firstSequence, Path file, MappedByteBuffer buffer) {
+	}
+}
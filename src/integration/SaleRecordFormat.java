@@ -0,0 +1,151 @@
+package integration;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+import dto.AppliedDiscountDTO;
+import dto.ItemDTO;
+import dto.SaleDTO;
+import dto.SaleLineDTO;
+import model.Amount;
+
+/**
+ * The binary format of a recorded sale. A record is the sale time, the five totals, the sale lines, the applied
+ * discounts by type and the register ID. Amounts are stored as a scale and the bytes of the unscaled value, strings are
+ * stored as modified UTF-8. Older records can still be read: version 3 did not store the register, version 2 did not
+ * store the discounts by type either, and version 1 stored one item per scan instead of sale lines.
+ */
+final class SaleRecordFormat {
+	private static final byte VERSION = 4;
+	private static final byte DISCOUNT_VERSION = 3;
+	private static final byte SALE_LINE_VERSION = 2;
+	private static final byte ITEM_LIST_VERSION = 1;
+
+	private SaleRecordFormat() {
+	}
+
+	/**
+	 * Writes the specified sale.
+	 *
+	 * @param sale The sale to write.
+	 * @param out  The destination of the record.
+	 * @throws IOException if the record could not be written.
+	 */
+	static void write(SaleDTO sale, DataOutput out) throws IOException {
+		out.writeByte(VERSION);
+		out.writeLong(sale.saleDateTime().toEpochSecond(ZoneOffset.UTC));
+		out.writeInt(sale.saleDateTime().getNano());
+		writeAmount(sale.totalPrice(), out);
+		writeAmount(sale.totalVat(), out);
+		writeAmount(sale.amountPaid(), out);
+		writeAmount(sale.change(), out);
+		writeAmount(sale.discountedPrice(), out);
+
+		out.writeInt(sale.saleLines().size());
+		for (SaleLineDTO line : sale.saleLines()) {
+			writeItem(line.item(), out);
+			out.writeInt(line.quantity());
+			writeAmount(line.unitPrice(), out);
+			writeAmount(line.lineTotal(), out);
+		}
+
+		out.writeInt(sale.discounts().size());
+		for (AppliedDiscountDTO discount : sale.discounts()) {
+			out.writeUTF(discount.type());
+			writeAmount(discount.amount(), out);
+		}
+		out.writeUTF(sale.registerId());
+	}
+
+	/**
+	 * Reads a sale written by {@link #write(SaleDTO, DataOutput)}.
+	 *
+	 * @param in The source of the record.
+	 * @return The sale that was read.
+	 * @throws IOException if the record could not be read or has an unknown version.
+	 */
+	static SaleDTO read(DataInput in) throws IOException {
+		byte version = in.readByte();
+		if (version < ITEM_LIST_VERSION || version > VERSION) {
+			throw new IOException("Unknown sale record version " + version);
+		}
+		LocalDateTime saleDateTime = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+		Amount totalPrice = readAmount(in);
+		Amount totalVat = readAmount(in);
+		Amount amountPaid = readAmount(in);
+		Amount change = readAmount(in);
+		Amount discountedPrice = readAmount(in);
+
+		ArrayList<SaleLineDTO> saleLines = version >= SALE_LINE_VERSION ? readSaleLines(in) : readItemList(in);
+		ArrayList<AppliedDiscountDTO> discounts = version >= DISCOUNT_VERSION ? readDiscounts(in) : new ArrayList<>();
+		String registerId = version == VERSION ? in.readUTF() : "";
+
+		return new SaleDTO(saleDateTime, saleLines, totalPrice, totalVat, amountPaid, change, discountedPrice,
+				discounts, registerId);
+	}
+
+	private static ArrayList<AppliedDiscountDTO> readDiscounts(DataInput in) throws IOException {
+		int discountCount = in.readInt();
+		ArrayList<AppliedDiscountDTO> discounts = new ArrayList<>(discountCount);
+		for (int i = 0; i < discountCount; i++) {
+			discounts.add(new AppliedDiscountDTO(in.readUTF(), readAmount(in)));
+		}
+		return discounts;
+	}
+
+	private static ArrayList<SaleLineDTO> readSaleLines(DataInput in) throws IOException {
+		int lineCount = in.readInt();
+		ArrayList<SaleLineDTO> saleLines = new ArrayList<>(lineCount);
+		for (int i = 0; i < lineCount; i++) {
+			saleLines.add(new SaleLineDTO(readItem(in), in.readInt(), readAmount(in), readAmount(in)));
+		}
+		return saleLines;
+	}
+
+	private static ArrayList<SaleLineDTO> readItemList(DataInput in) throws IOException {
+		int itemCount = in.readInt();
+		LinkedHashMap<String, SaleLineDTO> saleLines = new LinkedHashMap<>();
+		for (int i = 0; i < itemCount; i++) {
+			ItemDTO item = readItem(in);
+			Amount unitPrice = item.fullPrice();
+			saleLines.merge(item.id(), new SaleLineDTO(item, 1, unitPrice, unitPrice),
+					(line, added) -> new SaleLineDTO(line.item(), line.quantity() + 1, line.unitPrice(),
+							line.lineTotal().add(added.lineTotal())));
+		}
+		return new ArrayList<>(saleLines.values());
+	}
+
+	private static void writeItem(ItemDTO item, DataOutput out) throws IOException {
+		out.writeUTF(item.id());
+		out.writeUTF(item.name());
+		writeAmount(item.price(), out);
+		writeAmount(item.vat(), out);
+		out.writeUTF(item.description());
+	}
+
+	private static ItemDTO readItem(DataInput in) throws IOException {
+		return new ItemDTO(in.readUTF(), in.readUTF(), readAmount(in), readAmount(in), in.readUTF());
+	}
+
+	private static void writeAmount(Amount amount, DataOutput out) throws IOException {
+		BigDecimal value = amount.toBigDecimal();
+		byte[] unscaled = value.unscaledValue().toByteArray();
+		out.writeInt(value.scale());
+		out.writeShort(unscaled.length);
+		out.write(unscaled);
+	}
+
+	private static Amount readAmount(DataInput in) throws IOException {
+		int scale = in.readInt();
+		byte[] unscaled = new byte[in.readUnsignedShort()];
+		in.readFully(unscaled);
+		return new Amount(new BigDecimal(new BigInteger(unscaled), scale));
+	}
+}
@@ -0,0 +1,184 @@
+package integration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import dto.QueuedSaleDTO;
+import util.LogHandler;
+
+/**
+ * Syncs the sales of a {@link SaleQueue} to the accounting and inventory systems on a background thread. Sales are
+ * taken from the queue in batches, each batch is recorded in the accounting system with one group commit, then
+ * subtracted from the inventory, and only then committed in the queue. If a system fails, for example because it is
+ * unreachable, the same batch is tried again after a delay that doubles with every failure, so the lanes keep adding
+ * sales to the queue and the syncer catches up once the system is back.
+ * <p>
+ * A batch may be delivered more than once: after a failure of the inventory system the sales are already accounted,
+ * and after a restart the sales after the last commit are read again. Both systems skip sales whose sync sequence they
+ * have already applied, so a replayed sale is only recorded once.
+ */
+public class SaleSyncer implements AutoCloseable {
+	private static final int MAX_BATCH_SIZE = 512;
+	private static final long POLL_TIMEOUT_MILLIS = 100;
+	private static final long MIN_RETRY_DELAY_MILLIS = 50;
+	private static final long MAX_RETRY_DELAY_MILLIS = 5000;
+
+	private final SaleQueue queue;
+	private final AccountingSystem accountingSystem;
+	private final InventorySystem inventorySystem;
+	private final int maxBatchSize;
+	private final long minRetryDelayMillis;
+	private final long maxRetryDelayMillis;
+	private final Thread syncerThread;
+	private final AtomicLong syncedSales = new AtomicLong();
+	private final AtomicLong failedAttempts = new AtomicLong();
+	private final LogHandler logger = LogHandler.getLogger();
+	private volatile boolean closed;
+
+	/**
+	 * Starts syncing the sales of the queue to the specified systems.
+	 *
+	 * @param queue            The queue of sales to sync.
+	 * @param accountingSystem The accounting system that records the sales.
+	 * @param inventorySystem  The inventory system that is updated after each sale.
+	 */
+	public SaleSyncer(SaleQueue queue, AccountingSystem accountingSystem, InventorySystem inventorySystem) {
+		this(queue, accountingSystem, inventorySystem, MAX_BATCH_SIZE, MIN_RETRY_DELAY_MILLIS, MAX_RETRY_DELAY_MILLIS);
+	}
+
+	/**
+	 * Starts syncing with the specified batch size and retry delays.
+	 *
+	 * @param queue               The queue of sales to sync.
+	 * @param accountingSystem    The accounting system that records the sales.
+	 * @param inventorySystem     The inventory system that is updated after each sale.
+	 * @param maxBatchSize        The largest number of sales synced at once.
+	 * @param minRetryDelayMillis The delay before the first retry of a failed batch.
+	 * @param maxRetryDelayMillis The longest delay between two retries.
+	 */
+	SaleSyncer(SaleQueue queue, AccountingSystem accountingSystem, InventorySystem inventorySystem, int maxBatchSize,
+			long minRetryDelayMillis, long maxRetryDelayMillis) {
+		this.queue = queue;
+		this.accountingSystem = accountingSystem;
+		this.inventorySystem = inventorySystem;
+		this.maxBatchSize = maxBatchSize;
+		this.minRetryDelayMillis = minRetryDelayMillis;
+		this.maxRetryDelayMillis = maxRetryDelayMillis;
+
+		syncerThread = new Thread(this::syncLoop, "sale-syncer");
+		syncerThread.setDaemon(true);
+		syncerThread.start();
+	}
+
+	/**
+	 * Returns the number of sales synced since the syncer was started.
+	 *
+	 * @return The number of synced sales.
+	 */
+	public long getSyncedSaleCount() {
+		return syncedSales.get();
+	}
+
+	/**
+	 * Returns the number of batches that failed and were tried again.
+	 *
+	 * @return The number of failed attempts.
+	 */
+	public long getFailedAttemptCount() {
+		return failedAttempts.get();
+	}
+
+	/**
+	 * Returns the number of sales in the queue that are not synced yet.
+	 *
+	 * @return The number of waiting sales.
+	 */
+	public long getPendingSaleCount() {
+		return queue.getPendingCount();
+	}
+
+	/**
+	 * Waits until every sale in the queue is synced.
+	 *
+	 * @param timeout The longest time to wait.
+	 * @return true if all sales were synced, false if the time ran out.
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 */
+	public boolean awaitSynced(Duration timeout) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + timeout.toMillis();
+		synchronized (this) {
+			long remaining = timeout.toMillis();
+			while (queue.getPendingCount() > 0 && remaining > 0) {
+				wait(remaining);
+				remaining = deadline - System.currentTimeMillis();
+			}
+		}
+		return queue.getPendingCount() == 0;
+	}
+
+	/**
+	 * Stops syncing. Sales that are not synced stay in the queue and are synced by the next syncer of the queue.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		syncerThread.interrupt();
+		try {
+			syncerThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void syncLoop() {
+		List<QueuedSaleDTO> batch = List.of();
+		long retryDelayMillis = minRetryDelayMillis;
+		while (!closed) {
+			try {
+				if (batch.isEmpty()) {
+					batch = queue.poll(maxBatchSize, POLL_TIMEOUT_MILLIS);
+					if (batch.isEmpty()) {
+						continue;
+					}
+				}
+				deliver(batch);
+				syncedSales.addAndGet(batch.size());
+				batch = List.of();
+				retryDelayMillis = minRetryDelayMillis;
+				synchronized (this) {
+					notifyAll();
+				}
+			} catch (InterruptedException e) {
+				return;
+			} catch (RuntimeException e) {
+				failedAttempts.incrementAndGet();
+				logger.logException(e);
+				try {
+					Thread.sleep(retryDelayMillis);
+				} catch (InterruptedException interrupted) {
+					return;
+				}
+				retryDelayMillis = Math.min(2 * retryDelayMillis, maxRetryDelayMillis);
+			}
+		}
+	}
+
+	private void deliver(List<QueuedSaleDTO> batch) {
+		queue.flush();
+		List<CompletableFuture<Void>> accounted = new ArrayList<>(batch.size());
+		for (QueuedSaleDTO queuedSale : batch) {
+			accounted.add(accountingSystem.account(queuedSale.sale(), queuedSale.sequence()));
+		}
+		CompletableFuture.allOf(accounted.toArray(CompletableFuture[]::new)).join();
+		for (QueuedSaleDTO queuedSale : batch) {
+			inventorySystem.updateInventory(queuedSale.sale(), queuedSale.sequence());
+		}
+		queue.commit(batch.get(batch.size() - 1).sequence());
+	}
+}
@@ -0,0 +1,104 @@
+package integration.analytics;
+
+/**
+ * The sales of one hour, or part of one, stored column by column in primitive arrays. Amounts are stored in
+ * hundredths, strings as dictionary codes. There are three groups of columns: one row per sale, one row per sale line
+ * and one row per applied discount.
+ * <p>
+ * A chunk is filled by the single writer of the store and may be scanned by any number of threads at the same time.
+ * The writer fills the rows of a sale and then publishes the new row counts in one volatile write, so a scan that reads
+ * the counts first sees every row below them completely, and whole sales only.
+ */
+final class ColumnChunk {
+	final long epochHour;
+
+	final long[] saleTotal;
+	final long[] saleVat;
+	final long[] saleDiscount;
+
+	final int[] lineItem;
+	final int[] lineQuantity;
+	final long[] lineRevenue;
+	final int[] lineVatRate;
+	final long[] lineVat;
+
+	final int[] discountType;
+	final long[] discountAmount;
+
+	private volatile RowCounts published = new RowCounts(0, 0, 0);
+	private int saleCount;
+	private int lineCount;
+	private int discountCount;
+
+	/**
+	 * Creates an empty chunk for the sales of the specified hour.
+	 *
+	 * @param epochHour        The number of hours from 1970-01-01T00:00 to the hour of the sales.
+	 * @param saleCapacity     The largest number of sales.
+	 * @param lineCapacity     The largest number of sale lines.
+	 * @param discountCapacity The largest number of applied discounts.
+	 */
+	ColumnChunk(long epochHour, int saleCapacity, int lineCapacity, int discountCapacity) {
+		this.epochHour = epochHour;
+		saleTotal = new long[saleCapacity];
+		saleVat = new long[saleCapacity];
+		saleDiscount = new long[saleCapacity];
+		lineItem = new int[lineCapacity];
+		lineQuantity = new int[lineCapacity];
+		lineRevenue = new long[lineCapacity];
+		lineVatRate = new int[lineCapacity];
+		lineVat = new long[lineCapacity];
+		discountType = new int[discountCapacity];
+		discountAmount = new long[discountCapacity];
+	}
+
+	/**
+	 * Checks if a sale with the specified number of lines and discounts fits in the chunk.
+	 */
+	boolean hasRoomFor(int lines, int discounts) {
+		return saleCount < saleTotal.length && lineCount + lines <= lineItem.length
+				&& discountCount + discounts <= discountType.length;
+	}
+
+	void addSale(long total, long vat, long discount) {
+		saleTotal[saleCount] = total;
+		saleVat[saleCount] = vat;
+		saleDiscount[saleCount] = discount;
+		saleCount++;
+	}
+
+	void addLine(int item, int quantity, long revenue, int vatRate, long vat) {
+		lineItem[lineCount] = item;
+		lineQuantity[lineCount] = quantity;
+		lineRevenue[lineCount] = revenue;
+		lineVatRate[lineCount] = vatRate;
+		lineVat[lineCount] = vat;
+		lineCount++;
+	}
+
+	void addDiscount(int type, long amount) {
+		discountType[discountCount] = type;
+		discountAmount[discountCount] = amount;
+		discountCount++;
+	}
+
+	/**
+	 * Makes the rows added since the last call visible to scans.
+	 */
+	void publish() {
+		published = new RowCounts(saleCount, lineCount, discountCount);
+	}
+
+	/**
+	 * Returns the number of published rows. Scans must not read rows at or above these counts.
+	 */
+	RowCounts published() {
+		return published;
+	}
+
+	/**
+	 * The number of published rows of each group of columns.
+	 */
+	record RowCounts(int sales, int lines, int discounts) {
+	}
+}
@@ -0,0 +1,75 @@
+package integration.analytics;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Aggregates a range of chunks into an array of totals, splitting the range in halves until one chunk is left, so that
+ * the chunks are scanned in parallel by the threads of a fork-join pool. The totals of the halves are merged by adding
+ * them element by element.
+ */
+final class ColumnScan extends RecursiveTask<long[]> {
+	private final ColumnChunk[] chunks;
+	private final ColumnChunk.RowCounts[] rows;
+	private final Aggregation aggregation;
+	private final int width;
+	private final int from;
+	private final int to;
+
+	/**
+	 * Creates a scan of the specified chunks.
+	 *
+	 * @param chunks      The chunks to scan.
+	 * @param rows        The rows of each chunk to scan.
+	 * @param width       The number of totals.
+	 * @param aggregation Adds the rows of one chunk to the totals.
+	 */
+	ColumnScan(ColumnChunk[] chunks, ColumnChunk.RowCounts[] rows, int width, Aggregation aggregation) {
+		this(chunks, rows, width, aggregation, 0, chunks.length);
+	}
+
+	private ColumnScan(ColumnChunk[] chunks, ColumnChunk.RowCounts[] rows, int width, Aggregation aggregation, int from,
+			int to) {
+		this.chunks = chunks;
+		this.rows = rows;
+		this.width = width;
+		this.aggregation = aggregation;
+		this.from = from;
+		this.to = to;
+	}
+
+	@Override
+	protected long[] compute() {
+		if (to - from <= 1) {
+			long[] totals = new long[width];
+			for (int chunk = from; chunk < to; chunk++) {
+				aggregation.accumulate(chunk, chunks[chunk], rows[chunk], totals);
+			}
+			return totals;
+		}
+		int middle = (from + to) >>> 1;
+		ColumnScan firstHalf = new ColumnScan(chunks, rows, width, aggregation, from, middle);
+		firstHalf.fork();
+		long[] secondTotals = new ColumnScan(chunks, rows, width, aggregation, middle, to).compute();
+		long[] totals = firstHalf.join();
+		for (int i = 0; i < width; i++) {
+			totals[i] += secondTotals[i];
+		}
+		return totals;
+	}
+
+	/**
+	 * Adds the rows of one chunk to an array of totals.
+	 */
+	@FunctionalInterface
+	interface Aggregation {
+		/**
+		 * Adds the specified rows of a chunk to the totals.
+		 *
+		 * @param chunkIndex The position of the chunk in the scan.
+		 * @param chunk      The chunk.
+		 * @param rows       The number of rows of the chunk to read.
+		 * @param totals     The totals to add to.
+		 */
+		void accumulate(int chunkIndex, ColumnChunk chunk, ColumnChunk.RowCounts rows, long[] totals);
+	}
+}
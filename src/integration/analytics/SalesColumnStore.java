@@ -0,0 +1,342 @@
+package integration.analytics;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntSupplier;
+
+import dto.AppliedDiscountDTO;
+import dto.SaleDTO;
+import dto.SaleLineDTO;
+import model.Amount;
+
+/**
+ * Keeps the recorded sales in columns of primitive arrays for analytics queries. Item IDs, VAT rates and discount types
+ * are dictionary encoded, amounts are stored in hundredths, and the rows are split into chunks that each hold the sales
+ * of a single hour. A query scans only the columns it needs, skips chunks outside its hours, and scans the chunks in
+ * parallel on a fork-join pool, so a day of sales is aggregated without following a pointer per sale or per amount.
+ * <p>
+ * Sales are added one at a time as they are recorded. Queries may run at the same time as sales are added, and see
+ * every sale that was added before the query started.
+ * <p>
+ * The store only keeps the sales of a retention window, which ends with the hour of the latest sale added. When a
+ * sale of a later hour is added, the chunks of the hours that fall out of the window are dropped, and a sale older
+ * than the window is not added at all. Replaying a long journal therefore holds no more than the window in memory.
+ */
+public class SalesColumnStore {
+	private static final int SALES_PER_CHUNK = 1024;
+	private static final int LINES_PER_CHUNK = 4 * SALES_PER_CHUNK;
+	private static final int DISCOUNTS_PER_CHUNK = SALES_PER_CHUNK;
+	private static final long SECONDS_PER_HOUR = 3600;
+	private static final Duration DEFAULT_RETENTION = Duration.ofDays(2);
+
+	private final StringDictionary items = new StringDictionary();
+	private final StringDictionary vatRates = new StringDictionary();
+	private final StringDictionary discountTypes = new StringDictionary();
+	private final ForkJoinPool pool;
+	private final long retentionHours;
+	private volatile ColumnChunk[] chunks = new ColumnChunk[0];
+	private final HashMap<Long, ColumnChunk> currentChunkByHour = new HashMap<>();
+	private long latestHour = Long.MIN_VALUE;
+
+	/**
+	 * Creates an empty store that keeps the sales of the last two days and runs its queries on the common fork-join
+	 * pool.
+	 */
+	public SalesColumnStore() {
+		this(DEFAULT_RETENTION);
+	}
+
+	/**
+	 * Creates an empty store that runs its queries on the common fork-join pool.
+	 *
+	 * @param retention How long before the hour of the latest sale the sales are kept, in whole hours.
+	 */
+	public SalesColumnStore(Duration retention) {
+		this(retention, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates an empty store that keeps the sales of the last two days and runs its queries on the specified pool.
+	 *
+	 * @param pool The pool that scans the chunks.
+	 */
+	SalesColumnStore(ForkJoinPool pool) {
+		this(DEFAULT_RETENTION, pool);
+	}
+
+	/**
+	 * Creates an empty store that runs its queries on the specified pool.
+	 *
+	 * @param retention How long before the hour of the latest sale the sales are kept, in whole hours.
+	 * @param pool      The pool that scans the chunks.
+	 */
+	SalesColumnStore(Duration retention, ForkJoinPool pool) {
+		this.retentionHours = Math.max(1, retention.toHours());
+		this.pool = pool;
+	}
+
+	/**
+	 * Adds a recorded sale to the chunk that is being filled for its hour, or to a new chunk if there is none or it is
+	 * full. A sale of a later hour than any before it drops the hours that fall out of the retention window, and a sale
+	 * older than the window is ignored.
+	 *
+	 * @param sale The sale to add.
+	 */
+	public synchronized void add(SaleDTO sale) {
+		long epochHour = toEpochHour(sale.saleDateTime());
+		if (epochHour > latestHour) {
+			latestHour = epochHour;
+			dropExpiredChunks();
+		}
+		if (epochHour <= latestHour - retentionHours) {
+			return;
+		}
+		int lineCount = sale.saleLines().size();
+		int discountCount = sale.discounts().size();
+		ColumnChunk currentChunk = currentChunkByHour.get(epochHour);
+		if (currentChunk == null || !currentChunk.hasRoomFor(lineCount, discountCount)) {
+			currentChunk = new ColumnChunk(epochHour, SALES_PER_CHUNK, Math.max(LINES_PER_CHUNK, lineCount),
+					Math.max(DISCOUNTS_PER_CHUNK, discountCount));
+			currentChunkByHour.put(epochHour, currentChunk);
+			ColumnChunk[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+			grown[grown.length - 1] = currentChunk;
+			chunks = grown;
+		}
+
+		currentChunk.addSale(sale.totalPrice().toRoundedHundredths(), sale.totalVat().toRoundedHundredths(),
+				sale.discountedPrice().toRoundedHundredths());
+		for (SaleLineDTO line : sale.saleLines()) {
+			Amount lineVat = line.item().vatPrice().multiply(new Amount(line.quantity(), 0));
+			currentChunk.addLine(items.encode(line.item().id()), line.quantity(),
+					line.lineTotal().toRoundedHundredths(), vatRates.encode(formatRate(line.item().vat())),
+					lineVat.toRoundedHundredths());
+		}
+		for (AppliedDiscountDTO discount : sale.discounts()) {
+			currentChunk.addDiscount(discountTypes.encode(discount.type()), discount.amount().toRoundedHundredths());
+		}
+		currentChunk.publish();
+	}
+
+	/**
+	 * Drops the chunks of the hours before the retention window. Queries that already read the chunks keep scanning
+	 * them.
+	 */
+	private void dropExpiredChunks() {
+		long firstRetainedHour = latestHour - retentionHours + 1;
+		currentChunkByHour.keySet().removeIf(hour -> hour < firstRetainedHour);
+		ColumnChunk[] retained = Arrays.stream(chunks).filter(chunk -> chunk.epochHour >= firstRetainedHour)
+				.toArray(ColumnChunk[]::new);
+		if (retained.length < chunks.length) {
+			chunks = retained;
+		}
+	}
+
+	/**
+	 * Returns the number of chunks in the store.
+	 */
+	int getChunkCount() {
+		return chunks.length;
+	}
+
+	/**
+	 * Returns the number of sales in the store.
+	 *
+	 * @return The number of sales.
+	 */
+	public long getSaleCount() {
+		long saleCount = 0;
+		for (ColumnChunk chunk : chunks) {
+			saleCount += chunk.published().sales();
+		}
+		return saleCount;
+	}
+
+	/**
+	 * Returns the sum of the total prices of all sales, after discounts and including VAT.
+	 *
+	 * @return The total revenue.
+	 */
+	public Amount getTotalRevenue() {
+		long[] totals = scan(chunks, Long.MIN_VALUE, Long.MAX_VALUE, () -> 1, (chunkIndex, chunk, rows, sums) -> {
+			sums[0] += sum(chunk.saleTotal, rows.sales());
+		});
+		return toAmount(totals[0]);
+	}
+
+	/**
+	 * Returns the revenue of each item, which is the sum of its line totals including VAT, before the discounts of the
+	 * sales.
+	 *
+	 * @return The revenue by item ID, in the order the items were first sold.
+	 */
+	public Map<String, Amount> getRevenueByItem() {
+		return revenueByItem(Long.MIN_VALUE, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the revenue of each item sold in the specified hours. Both times are truncated to whole hours, and only
+	 * the chunks of the hours from <code>from</code> up to but not including <code>to</code> are scanned.
+	 *
+	 * @param from The first hour.
+	 * @param to   The hour after the last hour.
+	 * @return The revenue by item ID, in the order the items were first sold.
+	 */
+	public Map<String, Amount> getRevenueByItem(LocalDateTime from, LocalDateTime to) {
+		return revenueByItem(toEpochHour(from), toEpochHour(to));
+	}
+
+	private Map<String, Amount> revenueByItem(long fromHour, long toHour) {
+		long[] totals = scan(chunks, fromHour, toHour, items::size, (chunkIndex, chunk, rows, sums) -> {
+			int[] item = chunk.lineItem;
+			long[] revenue = chunk.lineRevenue;
+			for (int row = 0; row < rows.lines(); row++) {
+				sums[item[row]] += revenue[row];
+			}
+		});
+		return toAmounts(totals, items);
+	}
+
+	/**
+	 * Returns the number of units sold of each item.
+	 *
+	 * @return The sold quantity by item ID, in the order the items were first sold.
+	 */
+	public Map<String, Long> getQuantityByItem() {
+		long[] totals = scan(chunks, Long.MIN_VALUE, Long.MAX_VALUE, items::size,
+				(chunkIndex, chunk, rows, sums) -> {
+			int[] item = chunk.lineItem;
+			int[] quantity = chunk.lineQuantity;
+			for (int row = 0; row < rows.lines(); row++) {
+				sums[item[row]] += quantity[row];
+			}
+		});
+		LinkedHashMap<String, Long> quantities = new LinkedHashMap<>();
+		for (int code = 0; code < totals.length; code++) {
+			if (totals[code] != 0) {
+				quantities.put(items.decode(code), totals[code]);
+			}
+		}
+		return quantities;
+	}
+
+	/**
+	 * Returns the revenue of each hour that has sales, after discounts and including VAT.
+	 *
+	 * @return The revenue by the start of the hour, in time order.
+	 */
+	public SortedMap<LocalDateTime, Amount> getRevenueByHour() {
+		ColumnChunk[] snapshot = chunks;
+		long[] totals = scan(snapshot, Long.MIN_VALUE, Long.MAX_VALUE, () -> snapshot.length,
+				(chunkIndex, chunk, rows, sums) -> {
+			sums[chunkIndex] += sum(chunk.saleTotal, rows.sales());
+		});
+		TreeMap<LocalDateTime, Long> hundredthsByHour = new TreeMap<>();
+		for (int chunk = 0; chunk < totals.length; chunk++) {
+			LocalDateTime hour = LocalDateTime.ofEpochSecond(snapshot[chunk].epochHour * SECONDS_PER_HOUR, 0,
+					ZoneOffset.UTC);
+			hundredthsByHour.merge(hour, totals[chunk], Long::sum);
+		}
+		TreeMap<LocalDateTime, Amount> revenueByHour = new TreeMap<>();
+		hundredthsByHour.forEach((hour, hundredths) -> revenueByHour.put(hour, toAmount(hundredths)));
+		return revenueByHour;
+	}
+
+	/**
+	 * Returns the sum of the discounts granted of each discount type.
+	 *
+	 * @return The discount amount by discount type, in the order the types were first granted.
+	 */
+	public Map<String, Amount> getDiscountsByType() {
+		long[] totals = scan(chunks, Long.MIN_VALUE, Long.MAX_VALUE, discountTypes::size,
+				(chunkIndex, chunk, rows, sums) -> {
+			int[] type = chunk.discountType;
+			long[] amount = chunk.discountAmount;
+			for (int row = 0; row < rows.discounts(); row++) {
+				sums[type[row]] += amount[row];
+			}
+		});
+		return toAmounts(totals, discountTypes);
+	}
+
+	/**
+	 * Returns the VAT of the sold items of each VAT rate, before the discounts of the sales.
+	 *
+	 * @return The VAT amount by VAT rate, written as a decimal fraction such as <code>0.12</code>.
+	 */
+	public Map<String, Amount> getVatByRate() {
+		long[] totals = scan(chunks, Long.MIN_VALUE, Long.MAX_VALUE, vatRates::size,
+				(chunkIndex, chunk, rows, sums) -> {
+			int[] rate = chunk.lineVatRate;
+			long[] vat = chunk.lineVat;
+			for (int row = 0; row < rows.lines(); row++) {
+				sums[rate[row]] += vat[row];
+			}
+		});
+		return toAmounts(totals, vatRates);
+	}
+
+	/**
+	 * Scans the published rows of the chunks of the specified hours. The number of totals is read after the row counts,
+	 * so that every dictionary code in the scanned rows has a total.
+	 */
+	private long[] scan(ColumnChunk[] snapshot, long fromHour, long toHour, IntSupplier width,
+			ColumnScan.Aggregation aggregation) {
+		ColumnChunk[] selected = new ColumnChunk[snapshot.length];
+		ColumnChunk.RowCounts[] rows = new ColumnChunk.RowCounts[snapshot.length];
+		int selectedCount = 0;
+		for (ColumnChunk chunk : snapshot) {
+			if (chunk.epochHour >= fromHour && chunk.epochHour < toHour) {
+				selected[selectedCount] = chunk;
+				rows[selectedCount] = chunk.published();
+				selectedCount++;
+			}
+		}
+		int totalCount = width.getAsInt();
+		if (selectedCount == 0) {
+			return new long[totalCount];
+		}
+		return pool.invoke(new ColumnScan(Arrays.copyOf(selected, selectedCount), Arrays.copyOf(rows, selectedCount),
+				totalCount, aggregation));
+	}
+
+	private static long sum(long[] column, int rowCount) {
+		long sum = 0;
+		for (int row = 0; row < rowCount; row++) {
+			sum += column[row];
+		}
+		return sum;
+	}
+
+	private static Map<String, Amount> toAmounts(long[] totals, StringDictionary dictionary) {
+		LinkedHashMap<String, Amount> amounts = new LinkedHashMap<>();
+		for (int code = 0; code < totals.length; code++) {
+			if (totals[code] != 0) {
+				amounts.put(dictionary.decode(code), toAmount(totals[code]));
+			}
+		}
+		return amounts;
+	}
+
+	private static Amount toAmount(long hundredths) {
+		return new Amount(hundredths, 2);
+	}
+
+	/**
+	 * Writes a VAT rate as a decimal fraction without trailing zeros, such as <code>0.12</code>.
+	 */
+	static String formatRate(Amount rate) {
+		return rate.toBigDecimal().stripTrailingZeros().toPlainString();
+	}
+
+	private static long toEpochHour(LocalDateTime time) {
+		return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), SECONDS_PER_HOUR);
+	}
+}
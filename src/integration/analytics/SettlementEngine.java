@@ -0,0 +1,165 @@
+package integration.analytics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+import dto.SaleDTO;
+import model.Amount;
+
+/**
+ * Computes the end-of-day settlement of the recorded sales in one pass over them: the totals by VAT rate, the discounts
+ * by type, the cash in and change out of each register and the sell-through of each item. The sales are split into
+ * blocks that are settled in parallel on a fork-join pool, and the partial totals of the blocks are merged into the
+ * report.
+ */
+public class SettlementEngine {
+	private static final int SALES_PER_BLOCK = 2048;
+
+	private final ForkJoinPool pool;
+
+	/**
+	 * Creates an engine that settles on the common fork-join pool.
+	 */
+	public SettlementEngine() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates an engine that settles on the specified pool.
+	 *
+	 * @param pool The pool that settles the blocks of sales.
+	 */
+	SettlementEngine(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Settles the specified sales. The list is split in halves until the parts are small enough to settle on one
+	 * thread.
+	 *
+	 * @param sales The sales of the day.
+	 * @return The settlement report.
+	 */
+	public SettlementReport settle(List<SaleDTO> sales) {
+		return toReport(pool.invoke(new SettleTask(sales, 0, sales.size())));
+	}
+
+	/**
+	 * Settles the sales read by the specified replay, for example
+	 * <code>settleReplay(accountingSystem::replayRecordedSales)</code>. The sales are read on the calling thread, and
+	 * each block of read sales is settled on the pool while the next block is read. Only a few blocks are kept waiting
+	 * at a time, so the sales of the day are never all in memory.
+	 *
+	 * @param replay Reads all sales of the day, passing each to the consumer it is given.
+	 * @return The settlement report.
+	 */
+	public SettlementReport settleReplay(Consumer<Consumer<SaleDTO>> replay) {
+		BlockSettler settler = new BlockSettler(pool);
+		replay.accept(settler);
+		return toReport(settler.finish());
+	}
+
+	private static SettlementReport toReport(SettlementTotals totals) {
+		LinkedHashMap<String, SettlementReport.VatTotal> vatByRate = new LinkedHashMap<>();
+		totals.vatByRate.forEach((rate, sums) -> vatByRate.put(rate,
+				new SettlementReport.VatTotal(toAmount(sums[0]), toAmount(sums[1]))));
+		LinkedHashMap<String, SettlementReport.DiscountTotal> discountsByType = new LinkedHashMap<>();
+		totals.discountsByType.forEach((type, sums) -> discountsByType.put(type,
+				new SettlementReport.DiscountTotal(sums[0], toAmount(sums[1]))));
+		LinkedHashMap<String, SettlementReport.RegisterTotal> registers = new LinkedHashMap<>();
+		totals.registers.forEach((registerId, sums) -> registers.put(registerId,
+				new SettlementReport.RegisterTotal(sums[0], toAmount(sums[1]), toAmount(sums[2]))));
+		LinkedHashMap<String, SettlementReport.ItemSellThrough> items = new LinkedHashMap<>();
+		totals.items.forEach((itemId, item) -> items.put(itemId,
+				new SettlementReport.ItemSellThrough(item.name, item.quantity, toAmount(item.revenue))));
+		return new SettlementReport(totals.saleCount, toAmount(totals.revenue), toAmount(totals.vat), vatByRate,
+				discountsByType, registers, items);
+	}
+
+	private static Amount toAmount(long hundredths) {
+		return new Amount(hundredths, 2);
+	}
+
+	/**
+	 * Collects read sales into blocks and settles each full block on the pool. When too many blocks are waiting, the
+	 * oldest is waited for and merged into the totals.
+	 */
+	private static final class BlockSettler implements Consumer<SaleDTO> {
+		private final ForkJoinPool pool;
+		private final int maxPendingBlocks;
+		private final ArrayDeque<ForkJoinTask<SettlementTotals>> pendingBlocks = new ArrayDeque<>();
+		private final SettlementTotals totals = new SettlementTotals();
+		private ArrayList<SaleDTO> block = new ArrayList<>(SALES_PER_BLOCK);
+
+		BlockSettler(ForkJoinPool pool) {
+			this.pool = pool;
+			this.maxPendingBlocks = 2 * pool.getParallelism();
+		}
+
+		@Override
+		public void accept(SaleDTO sale) {
+			block.add(sale);
+			if (block.size() == SALES_PER_BLOCK) {
+				submitBlock();
+				if (pendingBlocks.size() > maxPendingBlocks) {
+					totals.merge(pendingBlocks.remove().join());
+				}
+			}
+		}
+
+		/**
+		 * Settles the last block and waits for all blocks.
+		 */
+		SettlementTotals finish() {
+			submitBlock();
+			while (!pendingBlocks.isEmpty()) {
+				totals.merge(pendingBlocks.remove().join());
+			}
+			return totals;
+		}
+
+		private void submitBlock() {
+			pendingBlocks.add(pool.submit(new SettleTask(block, 0, block.size())));
+			block = new ArrayList<>(SALES_PER_BLOCK);
+		}
+	}
+
+	/**
+	 * Settles a range of a list of sales, splitting it in halves until a half fits in one block.
+	 */
+	private static final class SettleTask extends RecursiveTask<SettlementTotals> {
+		private final List<SaleDTO> sales;
+		private final int from;
+		private final int to;
+
+		SettleTask(List<SaleDTO> sales, int from, int to) {
+			this.sales = sales;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected SettlementTotals compute() {
+			if (to - from <= SALES_PER_BLOCK) {
+				SettlementTotals totals = new SettlementTotals();
+				for (int i = from; i < to; i++) {
+					totals.add(sales.get(i));
+				}
+				return totals;
+			}
+			int middle = (from + to) >>> 1;
+			SettleTask firstHalf = new SettleTask(sales, from, middle);
+			firstHalf.fork();
+			SettlementTotals secondTotals = new SettleTask(sales, middle, to).compute();
+			SettlementTotals totals = firstHalf.join();
+			totals.merge(secondTotals);
+			return totals;
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package integration.analytics;
+
+import java.util.Map;
+
+import model.Amount;
+
+/**
+ * The end-of-day settlement of the recorded sales.
+ *
+ * @param saleCount       The number of sales.
+ * @param revenue         The sum of the total prices, after discounts and including VAT.
+ * @param vat             The sum of the VAT of the sales.
+ * @param vatByRate       The net amount and VAT of the sold items by VAT rate, written as a decimal fraction such as
+ *                        <code>0.12</code>.
+ * @param discountsByType The number and amount of the granted discounts by discount type.
+ * @param registers       The cash taken and the change given by each register, by register ID.
+ * @param items           The sell-through of each item, by item ID.
+ */
+public record SettlementReport(long saleCount, Amount revenue, Amount vat, Map<String, VatTotal> vatByRate,
+		Map<String, DiscountTotal> discountsByType, Map<String, RegisterTotal> registers,
+		Map<String, ItemSellThrough> items) {
+	/**
+	 * The items sold at one VAT rate.
+	 *
+	 * @param net The price of the items excluding VAT, before the discounts of the sales.
+	 * @param vat The VAT of the items, before the discounts of the sales.
+	 */
+	public record VatTotal(Amount net, Amount vat) {
+	}
+
+	/**
+	 * The discounts of one type.
+	 *
+	 * @param count  The number of times the discount was granted.
+	 * @param amount The sum of the granted discounts.
+	 */
+	public record DiscountTotal(long count, Amount amount) {
+	}
+
+	/**
+	 * The cash movements of one register.
+	 *
+	 * @param saleCount The number of sales made on the register.
+	 * @param cashIn    The sum of the amounts paid.
+	 * @param changeOut The sum of the change given back.
+	 */
+	public record RegisterTotal(long saleCount, Amount cashIn, Amount changeOut) {
+		/**
+		 * Returns the cash that the register should hold more than at the start of the day.
+		 *
+		 * @return The cash taken minus the change given back.
+		 */
+		public Amount netCash() {
+			return cashIn.subtract(changeOut);
+		}
+	}
+
+	/**
+	 * The sales of one item.
+	 *
+	 * @param name         The name of the item.
+	 * @param quantitySold The number of units sold.
+	 * @param revenue      The sum of the line totals of the item, before the discounts of the sales.
+	 */
+	public record ItemSellThrough(String name, long quantitySold, Amount revenue) {
+		/**
+		 * Returns the part of the stock that was sold, given the quantity still in stock.
+		 *
+		 * @param quantityInStock The quantity in stock after the sales.
+		 * @return The sold quantity divided by the quantity sold and in stock, 0 if there was no stock at all.
+		 */
+		public double sellThroughRate(long quantityInStock) {
+			long startingStock = quantitySold + quantityInStock;
+			return startingStock == 0 ? 0 : (double) quantitySold / startingStock;
+		}
+	}
+
+	/**
+	 * Formats the report as text, with one section per breakdown.
+	 *
+	 * @return The formatted report.
+	 */
+	public String format() {
+		StringBuilder report = new StringBuilder();
+		report.append("Sales: %d, revenue: %s SEK, VAT: %s SEK%n".formatted(saleCount, revenue.colonized(),
+				vat.colonized()));
+		report.append("%n%-12s %14s %14s%n".formatted("VAT rate", "net", "VAT"));
+		vatByRate.forEach((rate, total) -> report.append("%-12s %14s %14s%n".formatted(rate, total.net().colonized(),
+				total.vat().colonized())));
+		report.append("%n%-20s %8s %14s%n".formatted("Discount", "count", "amount"));
+		discountsByType.forEach((type, total) -> report.append("%-20s %8d %14s%n".formatted(type, total.count(),
+				total.amount().colonized())));
+		report.append("%n%-16s %8s %14s %14s %14s%n".formatted("Register", "sales", "cash in", "change out", "net"));
+		registers.forEach((registerId, total) -> report.append("%-16s %8d %14s %14s %14s%n".formatted(registerId,
+				total.saleCount(), total.cashIn().colonized(), total.changeOut().colonized(),
+				total.netCash().colonized())));
+		report.append("%n%-12s %-24s %8s %14s%n".formatted("Item", "name", "sold", "revenue"));
+		items.forEach((itemId, item) -> report.append("%-12s %-24s %8d %14s%n".formatted(itemId, item.name(),
+				item.quantitySold(), item.revenue().colonized())));
+		return report.toString();
+	}
+}
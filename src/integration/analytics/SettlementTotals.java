@@ -0,0 +1,93 @@
+package integration.analytics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import dto.AppliedDiscountDTO;
+import dto.SaleDTO;
+import dto.SaleLineDTO;
+import model.Amount;
+
+/**
+ * The partial totals of the settlement of a part of the sales. Amounts are summed as <code>long</code> hundredths
+ * instead of as {@link Amount}s, so that summing and merging needs no decimal arithmetic. The partial totals of
+ * different parts of the sales are merged into the totals of the whole day.
+ */
+final class SettlementTotals {
+	long saleCount;
+	long revenue;
+	long vat;
+	final LinkedHashMap<String, long[]> vatByRate = new LinkedHashMap<>();
+	final LinkedHashMap<String, long[]> discountsByType = new LinkedHashMap<>();
+	final LinkedHashMap<String, long[]> registers = new LinkedHashMap<>();
+	final LinkedHashMap<String, ItemTotals> items = new LinkedHashMap<>();
+
+	/**
+	 * Adds one sale to the totals.
+	 */
+	void add(SaleDTO sale) {
+		saleCount++;
+		revenue += sale.totalPrice().toRoundedHundredths();
+		vat += sale.totalVat().toRoundedHundredths();
+
+		for (SaleLineDTO line : sale.saleLines()) {
+			Amount quantity = new Amount(line.quantity(), 0);
+			String vatRate = SalesColumnStore.formatRate(line.item().vat());
+			long[] rate = vatByRate.computeIfAbsent(vatRate, newRate -> new long[2]);
+			rate[0] += line.item().price().multiply(quantity).toRoundedHundredths();
+			rate[1] += line.item().vatPrice().multiply(quantity).toRoundedHundredths();
+
+			ItemTotals item = items.computeIfAbsent(line.item().id(), newItem -> new ItemTotals(line.item().name()));
+			item.quantity += line.quantity();
+			item.revenue += line.lineTotal().toRoundedHundredths();
+		}
+		for (AppliedDiscountDTO discount : sale.discounts()) {
+			long[] type = discountsByType.computeIfAbsent(discount.type(), newType -> new long[2]);
+			type[0]++;
+			type[1] += discount.amount().toRoundedHundredths();
+		}
+		long[] register = registers.computeIfAbsent(sale.registerId(), newRegister -> new long[3]);
+		register[0]++;
+		register[1] += sale.amountPaid().toRoundedHundredths();
+		register[2] += sale.change().toRoundedHundredths();
+	}
+
+	/**
+	 * Adds the specified totals to these totals.
+	 */
+	void merge(SettlementTotals other) {
+		saleCount += other.saleCount;
+		revenue += other.revenue;
+		vat += other.vat;
+		mergeSums(vatByRate, other.vatByRate);
+		mergeSums(discountsByType, other.discountsByType);
+		mergeSums(registers, other.registers);
+		other.items.forEach((itemId, otherItem) -> {
+			ItemTotals item = items.computeIfAbsent(itemId, newItem -> new ItemTotals(otherItem.name));
+			item.quantity += otherItem.quantity;
+			item.revenue += otherItem.revenue;
+		});
+	}
+
+	private static void mergeSums(Map<String, long[]> sums, Map<String, long[]> otherSums) {
+		otherSums.forEach((key, otherValues) -> {
+			long[] values = sums.computeIfAbsent(key, newKey -> new long[otherValues.length]);
+			for (int i = 0; i < values.length; i++) {
+				values[i] += otherValues[i];
+			}
+		});
+	}
+
+	/**
+	 * The number of sold units and the revenue of one item.
+	 */
+	static final class ItemTotals {
+		final String name;
+		long quantity;
+		long revenue;
+
+		ItemTotals(String name) {
+			this.name = name;
+		}
+	}
+}
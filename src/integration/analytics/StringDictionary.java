@@ -0,0 +1,61 @@
+package integration.analytics;
+
+import java.util.HashMap;
+
+/**
+ * Encodes strings as small integer codes, in the order they are first seen, so that a column of strings can be stored
+ * as an <code>int</code> array and aggregated into an array indexed by code. Encoding is done by the single writer of
+ * the store; decoding may be done by any thread, for every code that was published before.
+ */
+final class StringDictionary {
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final HashMap<String, Integer> codes = new HashMap<>();
+	private volatile String[] values = new String[INITIAL_CAPACITY];
+	private volatile int size;
+
+	/**
+	 * Returns the code of the specified string, adding it to the dictionary if it is new. Must only be called by the
+	 * writer of the store.
+	 *
+	 * @param value The string to encode.
+	 * @return The code of the string.
+	 */
+	int encode(String value) {
+		Integer code = codes.get(value);
+		if (code != null) {
+			return code;
+		}
+		int newCode = size;
+		String[] currentValues = values;
+		if (newCode == currentValues.length) {
+			String[] grown = new String[2 * currentValues.length];
+			System.arraycopy(currentValues, 0, grown, 0, newCode);
+			values = grown;
+			currentValues = grown;
+		}
+		currentValues[newCode] = value;
+		codes.put(value, newCode);
+		size = newCode + 1;
+		return newCode;
+	}
+
+	/**
+	 * Returns the string of the specified code.
+	 *
+	 * @param code A code below {@link #size()}.
+	 * @return The string with that code.
+	 */
+	String decode(int code) {
+		return values[code];
+	}
+
+	/**
+	 * Returns the number of encoded strings. All codes below it can be decoded.
+	 *
+	 * @return The number of strings in the dictionary.
+	 */
+	int size() {
+		return size;
+	}
+}
@@ -6,16 +6,56 @@ import java.math.RoundingMode;
 import util.StringUtils;
 
 /**
- * Represents an amount based on BigDecimal.
+ * Represents an amount of money. The amount is stored as a fixed-point number, an unscaled <code>long</code> together
+ * with a decimal scale, so that the common operations used when scanning items do not allocate any
+ * <code>BigDecimal</code>. If a result does not fit in a <code>long</code>, or needs more decimals than
+ * {@link #MAX_COMPACT_SCALE}, the amount falls back to a <code>BigDecimal</code>. All results are identical to the
+ * corresponding <code>BigDecimal</code> operations.
  */
 public class Amount {
+	/**
+	 * The amount zero.
+	 */
+	public static final Amount ZERO = new Amount();
+
+	/**
+	 * The amount one.
+	 */
+	public static final Amount ONE = new Amount(1, 0);
+
+	/**
+	 * The largest number of decimals that is stored in the compact <code>long</code> form.
+	 */
+	static final int MAX_COMPACT_SCALE = 18;
+
+	private static final long[] POWERS_OF_TEN = createPowersOfTen();
+
+	private final long unscaled;
+	private final int scale;
 	private final BigDecimal amount;
 
 	/**
 	 * Creates a new instance, representing the amount 0.
 	 */
 	public Amount() {
-		this(BigDecimal.ZERO);
+		this(0, 0);
+	}
+
+	/**
+	 * Creates a new instance, representing the amount <code>unscaled * 10^-scale</code>. For example,
+	 * <code>new Amount(2990, 2)</code> represents 29.90.
+	 *
+	 * @param unscaled The amount in minor units.
+	 * @param scale    The number of decimals, between 0 and {@link #MAX_COMPACT_SCALE}.
+	 * @throws IllegalArgumentException if the scale is out of range.
+	 */
+	public Amount(long unscaled, int scale) {
+		if (scale < 0 || scale > MAX_COMPACT_SCALE) {
+			throw new IllegalArgumentException("Scale must be between 0 and " + MAX_COMPACT_SCALE + ": " + scale);
+		}
+		this.unscaled = unscaled;
+		this.scale = scale;
+		this.amount = null;
 	}
 
 	/**
@@ -24,7 +64,15 @@ public class Amount {
 	 * @param amount The amount represented by the newly created instance.
 	 */
 	public Amount(BigDecimal amount) {
-		this.amount = amount;
+		if (isCompactable(amount)) {
+			this.unscaled = amount.unscaledValue().longValue();
+			this.scale = amount.scale();
+			this.amount = null;
+		} else {
+			this.unscaled = 0;
+			this.scale = 0;
+			this.amount = amount;
+		}
 	}
 
 	/**
@@ -43,7 +91,17 @@ public class Amount {
 	 * @return The result of the addition.
 	 */
 	public Amount add(Amount other) {
-		return new Amount(this.amount.add(other.amount));
+		if (isCompact() && other.isCompact()) {
+			int resultScale = Math.max(scale, other.scale);
+			try {
+				long sum = Math.addExact(upscale(unscaled, resultScale - scale),
+						upscale(other.unscaled, resultScale - other.scale));
+				return new Amount(sum, resultScale);
+			} catch (ArithmeticException overflow) {
+				/* Falls through to the BigDecimal path. */
+			}
+		}
+		return new Amount(toBigDecimal().add(other.toBigDecimal()));
 	}
 
 	/**
@@ -53,7 +111,17 @@ public class Amount {
 	 * @return The result of the subtraction.
 	 */
 	public Amount subtract(Amount other) {
-		return new Amount(this.amount.subtract(other.amount));
+		if (isCompact() && other.isCompact()) {
+			int resultScale = Math.max(scale, other.scale);
+			try {
+				long difference = Math.subtractExact(upscale(unscaled, resultScale - scale),
+						upscale(other.unscaled, resultScale - other.scale));
+				return new Amount(difference, resultScale);
+			} catch (ArithmeticException overflow) {
+				/* Falls through to the BigDecimal path. */
+			}
+		}
+		return new Amount(toBigDecimal().subtract(other.toBigDecimal()));
 	}
 
 	/**
@@ -63,7 +131,14 @@ public class Amount {
 	 * @return The result of the multiplication.
 	 */
 	public Amount multiply(Amount other) {
-		return new Amount(this.amount.multiply(other.amount));
+		if (isCompact() && other.isCompact() && scale + other.scale <= MAX_COMPACT_SCALE) {
+			try {
+				return new Amount(Math.multiplyExact(unscaled, other.unscaled), scale + other.scale);
+			} catch (ArithmeticException overflow) {
+				/* Falls through to the BigDecimal path. */
+			}
+		}
+		return new Amount(toBigDecimal().multiply(other.toBigDecimal()));
 	}
 
 	/**
@@ -73,7 +148,7 @@ public class Amount {
 	 * @return The result of the division.
 	 */
 	public Amount divide(Amount other) {
-		return new Amount(this.amount.divide(other.amount, MathContext.DECIMAL128));
+		return new Amount(toBigDecimal().divide(other.toBigDecimal(), MathContext.DECIMAL128));
 	}
 
 	/**
@@ -82,7 +157,32 @@ public class Amount {
 	 * @return A new Amount rounded to two decimal places.
 	 */
 	public Amount rounded() {
-		return new Amount(this.amount.setScale(2, RoundingMode.HALF_UP));
+		if (isCompact()) {
+			if (scale <= 2) {
+				try {
+					return new Amount(upscale(unscaled, 2 - scale), 2);
+				} catch (ArithmeticException overflow) {
+					/* Falls through to the BigDecimal path. */
+				}
+			} else {
+				return new Amount(roundHalfUp(unscaled, POWERS_OF_TEN[scale - 2]), 2);
+			}
+		}
+		return new Amount(toBigDecimal().setScale(2, RoundingMode.HALF_UP));
+	}
+
+	/**
+	 * Returns this Amount rounded to two decimal places, as a number of hundredths. For example, 29.905 is returned as
+	 * 2991. Unlike {@link #rounded()}, this method allocates nothing for compact amounts.
+	 *
+	 * @return The rounded amount in hundredths.
+	 * @throws ArithmeticException if the rounded amount does not fit in a <code>long</code>.
+	 */
+	public long toRoundedHundredths() {
+		if (isCompact()) {
+			return scale <= 2 ? upscale(unscaled, 2 - scale) : roundHalfUp(unscaled, POWERS_OF_TEN[scale - 2]);
+		}
+		return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
 	}
 
 	/**
@@ -91,7 +191,34 @@ public class Amount {
 	 * @return The formatted string with a colon as the decimal separator.
 	 */
 	public String colonized() {
-		return StringUtils.formatBigDecimalToColon(this.amount);
+		if (isCompact()) {
+			return StringUtils.appendColonized(unscaled, scale, new StringBuilder(StringUtils.colonizedLength(unscaled,
+					scale))).toString();
+		}
+		return StringUtils.formatBigDecimalToColon(amount);
+	}
+
+	/**
+	 * Appends this Amount with two decimal places, using a colon as the decimal separator. Nothing is allocated for
+	 * compact amounts, apart from growing the builder.
+	 *
+	 * @param out The builder to append to.
+	 * @return The specified builder.
+	 */
+	public StringBuilder appendColonized(StringBuilder out) {
+		if (isCompact()) {
+			return StringUtils.appendColonized(unscaled, scale, out);
+		}
+		return out.append(StringUtils.formatBigDecimalToColon(amount));
+	}
+
+	/**
+	 * Returns this Amount as a BigDecimal.
+	 *
+	 * @return The BigDecimal with the same value and scale as this Amount.
+	 */
+	public BigDecimal toBigDecimal() {
+		return isCompact() ? BigDecimal.valueOf(unscaled, scale) : amount;
 	}
 
 	/**
@@ -102,7 +229,16 @@ public class Amount {
 	 *         the specified Amount.
 	 */
 	public int compareTo(Amount other) {
-		return this.amount.compareTo(other.amount);
+		if (isCompact() && other.isCompact()) {
+			int commonScale = Math.max(scale, other.scale);
+			try {
+				return Long.compare(upscale(unscaled, commonScale - scale),
+						upscale(other.unscaled, commonScale - other.scale));
+			} catch (ArithmeticException overflow) {
+				/* Falls through to the BigDecimal path. */
+			}
+		}
+		return toBigDecimal().compareTo(other.toBigDecimal());
 	}
 
 	/**
@@ -111,7 +247,7 @@ public class Amount {
 	 * @return true if this Amount is zero, false otherwise.
 	 */
 	public boolean isZero() {
-		return this.amount.compareTo(BigDecimal.ZERO) == 0;
+		return signum() == 0;
 	}
 
 	/**
@@ -120,7 +256,7 @@ public class Amount {
 	 * @return true if this Amount is less than zero, false otherwise.
 	 */
 	public boolean isNegative() {
-		return this.amount.compareTo(BigDecimal.ZERO) < 0;
+		return signum() < 0;
 	}
 
 	/**
@@ -129,7 +265,7 @@ public class Amount {
 	 * @return true if this Amount is greater than zero, false otherwise.
 	 */
 	public boolean isPositive() {
-		return this.amount.compareTo(BigDecimal.ZERO) > 0;
+		return signum() > 0;
 	}
 
 	/**
@@ -148,16 +284,55 @@ public class Amount {
 		}
 
 		Amount otherAmount = (Amount) other;
-		return amount.compareTo(otherAmount.amount) == 0;
+		return compareTo(otherAmount) == 0;
 	}
 
 	@Override
 	public int hashCode() {
-		return amount.stripTrailingZeros().hashCode();
+		return toBigDecimal().stripTrailingZeros().hashCode();
 	}
 
 	@Override
 	public String toString() {
-		return amount.toString();
+		return toBigDecimal().toString();
+	}
+
+	/**
+	 * Checks if this Amount is stored in the compact <code>long</code> form.
+	 *
+	 * @return true if no BigDecimal is used to represent this Amount.
+	 */
+	boolean isCompact() {
+		return amount == null;
+	}
+
+	private int signum() {
+		return isCompact() ? Long.signum(unscaled) : amount.signum();
+	}
+
+	private static boolean isCompactable(BigDecimal amount) {
+		return amount.scale() >= 0 && amount.scale() <= MAX_COMPACT_SCALE && amount.unscaledValue().bitLength() < 64;
+	}
+
+	private static long upscale(long unscaled, int extraDecimals) {
+		return extraDecimals == 0 ? unscaled : Math.multiplyExact(unscaled, POWERS_OF_TEN[extraDecimals]);
+	}
+
+	private static long roundHalfUp(long unscaled, long divisor) {
+		long quotient = unscaled / divisor;
+		long remainder = Math.abs(unscaled % divisor);
+		if (remainder >= divisor - remainder) {
+			quotient += Long.signum(unscaled);
+		}
+		return quotient;
+	}
+
+	private static long[] createPowersOfTen() {
+		long[] powers = new long[MAX_COMPACT_SCALE + 1];
+		powers[0] = 1;
+		for (int i = 1; i < powers.length; i++) {
+			powers[i] = powers[i - 1] * 10;
+		}
+		return powers;
 	}
 }
@@ -1,34 +1,59 @@
 package model;
 
 import java.time.LocalDateTime;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import dto.AppliedDiscountDTO;
+import dto.DiscountDTO;
 import dto.ItemDTO;
 import dto.ReceiptDTO;
 import dto.SaleDTO;
 import dto.SaleInfoDTO;
+import dto.SaleLineDTO;
 import model.discount.DiscountStrategy;
 import observer.TotalRevenueObserver;
 
 /**
- * Represents a sale transaction, holding information about items purchased and totals.
+ * Represents a sale transaction, holding information about items purchased and totals. Bought items are kept as one
+ * sale line per distinct item, with the quantity and line total updated as items are added.
  */
 public class Sale {
+	private final String registerId;
 	private final LocalDateTime saleDateTime;
-	private final ArrayList<ItemDTO> boughtItems;
+	private final LinkedHashMap<String, SaleLineDTO> saleLines;
+	private final ItemQuantities itemQuantities = new ItemQuantities();
+	private int itemCount;
 	private Amount totalPrice;
 	private Amount totalVat;
 	private Amount totalDiscounted;
+	private ArrayList<AppliedDiscountDTO> appliedDiscounts = new ArrayList<>();
 	private Payment payment;
 
 	private ArrayList<TotalRevenueObserver> observers = new ArrayList<>();
 
 	/**
-	 * Creates a new, empty Sale instance. Initializes totals to zero.
+	 * Creates a new, empty Sale instance on an unknown register. Initializes totals to zero.
 	 */
 	public Sale() {
+		this("");
+	}
+
+	/**
+	 * Creates a new, empty Sale instance on the specified register. Initializes totals to zero.
+	 *
+	 * @param registerId The ID of the register (lane) the sale is made on.
+	 */
+	public Sale(String registerId) {
+		this.registerId = registerId;
 		saleDateTime = LocalDateTime.now();
-		boughtItems = new ArrayList<>();
+		saleLines = new LinkedHashMap<>();
 		totalPrice = new Amount();
 		totalVat = new Amount();
 		totalDiscounted = new Amount();
@@ -57,21 +82,73 @@ public class Sale {
 	 * @return The current item information and running total.
 	 */
 	public SaleInfoDTO addBoughtItem(ItemDTO boughtItem) {
-		boughtItems.add(boughtItem);
-		ItemDTO itemWithVat = calculateRunningTotal(boughtItem);
-		return new SaleInfoDTO(itemWithVat, totalPrice, totalVat);
+		return addBoughtItem(boughtItem, 1);
+	}
+
+	/**
+	 * Adds the specified quantity of a bought item to the sale and calculates the running total. If the item is
+	 * already in the sale, the quantity and total of its sale line are increased. The prices including VAT are taken
+	 * from the item, they are not calculated again.
+	 *
+	 * @param boughtItem The item to be added to the sale.
+	 * @param quantity   The number of items to add.
+	 * @return The current item information and running total.
+	 * @throws IllegalArgumentException if the quantity is not positive.
+	 */
+	public SaleInfoDTO addBoughtItem(ItemDTO boughtItem, int quantity) {
+		if (quantity <= 0) {
+			throw new IllegalArgumentException("Quantity must be positive, was " + quantity);
+		}
+		SaleLineDTO addedLine = createSaleLine(boughtItem, quantity);
+		calculateRunningTotal(addedLine);
+		saleLines.merge(boughtItem.id(), addedLine, Sale::addToLine);
+		itemCount += quantity;
+		return new SaleInfoDTO(boughtItem, quantity, totalPrice, totalVat);
 	}
 
-	private ItemDTO calculateRunningTotal(ItemDTO boughtItem) {
-		Amount itemBasePrice = boughtItem.price();
-		Amount vatRate = boughtItem.vat();
-		Amount vatPrice = itemBasePrice.multiply(vatRate);
-		Amount itemFullPrice = itemBasePrice.multiply(vatRate.add(new Amount("1")));
+	/**
+	 * Adds several bought items to the sale in one pass. The running totals are updated once, after all items are
+	 * added to their sale lines.
+	 *
+	 * @param boughtItems The items to be added to the sale, in the order they were entered.
+	 * @return The last added item and the running total. The quantity is the number of items added.
+	 */
+	public SaleInfoDTO addBoughtItems(List<ItemDTO> boughtItems) {
+		Amount addedPrice = Amount.ZERO;
+		Amount addedVat = Amount.ZERO;
+		for (ItemDTO boughtItem : boughtItems) {
+			SaleLineDTO addedLine = createSaleLine(boughtItem, 1);
+			saleLines.merge(boughtItem.id(), addedLine, Sale::addToLine);
+			addedPrice = addedPrice.add(addedLine.lineTotal());
+			addedVat = addedVat.add(boughtItem.vatPrice());
+		}
+		totalPrice = totalPrice.add(addedPrice);
+		totalVat = totalVat.add(addedVat);
+		itemCount += boughtItems.size();
+
+		ItemDTO lastItem = boughtItems.isEmpty() ? null : boughtItems.get(boughtItems.size() - 1);
+		return new SaleInfoDTO(lastItem, boughtItems.size(), totalPrice, totalVat);
+	}
+
+	private void calculateRunningTotal(SaleLineDTO addedLine) {
+		Amount itemVat = addedLine.item().vatPrice();
+		if (addedLine.quantity() == 1) {
+			totalVat = totalVat.add(itemVat);
+		} else {
+			totalVat = totalVat.add(itemVat.multiply(new Amount(addedLine.quantity(), 0)));
+		}
+		totalPrice = totalPrice.add(addedLine.lineTotal());
+	}
 
-		totalVat = totalVat.add(vatPrice);
-		totalPrice = totalPrice.add(itemFullPrice);
+	private static SaleLineDTO createSaleLine(ItemDTO item, int quantity) {
+		Amount unitPrice = item.fullPrice();
+		Amount lineTotal = quantity == 1 ? unitPrice : unitPrice.multiply(new Amount(quantity, 0));
+		return new SaleLineDTO(item, quantity, unitPrice, lineTotal);
+	}
 
-		return new ItemDTO(boughtItem.id(), boughtItem.name(), itemFullPrice, vatRate, boughtItem.description());
+	private static SaleLineDTO addToLine(SaleLineDTO line, SaleLineDTO added) {
+		return new SaleLineDTO(line.item(), line.quantity() + added.quantity(), line.unitPrice(),
+				line.lineTotal().add(added.lineTotal()));
 	}
 
 	/**
@@ -80,35 +157,60 @@ public class Sale {
 	 * @return The total price.
 	 */
 	public Amount getTotalPrice() {
-		this.payment = new Payment();
 		return this.totalPrice;
 	}
 
 	/**
-	 * Applies the given discounts to the sale and returns the discounted price.
+	 * Creates the information used to find the discounts this sale is eligible for. The item count and total are kept
+	 * up to date as items are added, and the quantities are a read-only view of the sale lines, so the sale lines are
+	 * not copied.
+	 *
+	 * @param customerId The customer ID.
+	 * @return The discount information of this sale.
+	 */
+	public DiscountDTO getDiscountInfo(int customerId) {
+		return new DiscountDTO(itemCount, itemQuantities, totalPrice, customerId);
+	}
+
+	/**
+	 * Applies the given discounts to the sale and returns the discounted price. The amount of each discount is kept by
+	 * its type, for the accounting of the sale.
 	 *
 	 * @param discounts The list of discount strategies to apply.
 	 * @return The discounted total price.
 	 */
 	public Amount setDiscountedPrice(ArrayList<DiscountStrategy> discounts) {
 		Amount discountTotal = new Amount();
+		ArrayList<AppliedDiscountDTO> applied = new ArrayList<>(discounts.size());
 
 		for (DiscountStrategy discount : discounts) {
-			discountTotal = discountTotal.add(discount.calculateDiscount(totalPrice));
+			Amount discountAmount = discount.calculateDiscount(totalPrice);
+			applied.add(new AppliedDiscountDTO(discount.getType(), discountAmount));
+			discountTotal = discountTotal.add(discountAmount);
 		}
 
 		this.totalDiscounted = discountTotal;
+		this.appliedDiscounts = applied;
 		totalPrice = totalPrice.subtract(discountTotal);
 		return totalPrice;
 	}
 
 	/**
-	 * Retrieves all items that have been added to the sale.
+	 * Retrieves the sale lines, one per distinct item, in the order the items were first added.
+	 *
+	 * @return The sale lines. Returns an empty list if no items have been added.
+	 */
+	public List<SaleLineDTO> getSaleLines() {
+		return new ArrayList<>(saleLines.values());
+	}
+
+	/**
+	 * Retrieves the number of items that have been added to the sale.
 	 *
-	 * @return The bought items. Returns an empty list if no items have been added.
+	 * @return The total quantity of all sale lines.
 	 */
-	public ArrayList<ItemDTO> getBoughtItems() {
-		return this.boughtItems;
+	public int getItemCount() {
+		return itemCount;
 	}
 
 	/**
@@ -117,6 +219,7 @@ public class Sale {
 	 * @param amount The paid amount.
 	 */
 	public void setAmountPaid(Amount amount) {
+		payment = new Payment();
 		payment.setAmount(amount);
 	}
 
@@ -130,13 +233,57 @@ public class Sale {
 		Amount change = getChange(amount);
 		notifyObservers();
 
-		return new SaleDTO(saleDateTime, boughtItems, totalPrice, totalVat, amount, change, totalDiscounted);
+		return new SaleDTO(saleDateTime, new ArrayList<>(saleLines.values()), totalPrice, totalVat, amount, change,
+				totalDiscounted, appliedDiscounts, registerId);
 	}
 
 	private Amount getChange(Amount amount) {
 		return amount.subtract(totalPrice);
 	}
 
+	/**
+	 * A read-only view of the quantity of each sale line, by item ID.
+	 */
+	private final class ItemQuantities extends AbstractMap<String, Integer> {
+		@Override
+		public Integer get(Object itemId) {
+			SaleLineDTO line = saleLines.get(itemId);
+			return line == null ? null : line.quantity();
+		}
+
+		@Override
+		public boolean containsKey(Object itemId) {
+			return saleLines.containsKey(itemId);
+		}
+
+		@Override
+		public Set<Map.Entry<String, Integer>> entrySet() {
+			return new AbstractSet<>() {
+				@Override
+				public Iterator<Map.Entry<String, Integer>> iterator() {
+					Iterator<SaleLineDTO> lines = saleLines.values().iterator();
+					return new Iterator<>() {
+						@Override
+						public boolean hasNext() {
+							return lines.hasNext();
+						}
+
+						@Override
+						public Map.Entry<String, Integer> next() {
+							SaleLineDTO line = lines.next();
+							return new AbstractMap.SimpleImmutableEntry<>(line.item().id(), line.quantity());
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return saleLines.size();
+				}
+			};
+		}
+	}
+
 	/**
 	 * Returns a receipt for a finalized sale.
 	 *
@@ -6,6 +6,11 @@ import model.Amount;
  * Discount strategy that applies a percentage discount based on the customer ID.
  */
 public class CustomerBasedDiscount implements DiscountStrategy {
+	/**
+	 * The type of the customer-based percentage discount in the discount catalog.
+	 */
+	public static final String TYPE = "CUSTOMER_PERCENT";
+
 	private final Amount discountPercentage;
 	private final String description;
 
@@ -39,4 +44,14 @@ public class CustomerBasedDiscount implements DiscountStrategy {
 	public String getDescription() {
 		return description;
 	}
+
+	/**
+	 * Retrieves the type of the discount strategy.
+	 *
+	 * @return The type of the discount strategy.
+	 */
+	@Override
+	public String getType() {
+		return TYPE;
+	}
 }
\ No newline at end of file
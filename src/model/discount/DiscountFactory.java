@@ -1,16 +1,19 @@
 package model.discount;
 
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
 
 import dto.DiscountDTO;
 import dto.DiscountInfoDTO;
 import integration.DiscountCatalog;
 
 /**
- * Factory for creating eligible discount strategies based on sale and customer data.
+ * Factory for creating eligible discount strategies based on sale and customer data. Strategies have no state, so one
+ * strategy is created for each discount in the catalog and reused for all sales.
  */
 public class DiscountFactory {
 	private final DiscountCatalog discountCatalog;
+	private final ConcurrentHashMap<DiscountInfoDTO, DiscountStrategy> strategies = new ConcurrentHashMap<>();
 
 	/**
 	 * Constructor for the DiscountFactory class.
@@ -32,16 +35,21 @@ public class DiscountFactory {
 		ArrayList<DiscountStrategy> discountStrategies = new ArrayList<>();
 
 		for (DiscountInfoDTO discount : eligibleDiscounts) {
-			switch (discount.type()) {
-			case "ITEM_BASED" -> discountStrategies
-					.add(new ItemBasedDiscount(discount.value(), discount.description()));
-			case "TOTAL_PERCENT" -> discountStrategies
-					.add(new TotalPricePercentageDiscount(discount.value(), discount.description()));
-			case "CUSTOMER_PERCENT" -> discountStrategies
-					.add(new CustomerBasedDiscount(discount.value(), discount.description()));
+			DiscountStrategy strategy = strategies.computeIfAbsent(discount, this::createStrategy);
+			if (strategy != null) {
+				discountStrategies.add(strategy);
 			}
 		}
 
 		return discountStrategies;
 	}
+
+	private DiscountStrategy createStrategy(DiscountInfoDTO discount) {
+		return switch (discount.type()) {
+		case ItemBasedDiscount.TYPE -> new ItemBasedDiscount(discount.value(), discount.description());
+		case TotalPricePercentageDiscount.TYPE -> new TotalPricePercentageDiscount(discount.value(), discount.description());
+		case CustomerBasedDiscount.TYPE -> new CustomerBasedDiscount(discount.value(), discount.description());
+		default -> null;
+		};
+	}
 }
\ No newline at end of file
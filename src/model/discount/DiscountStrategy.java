@@ -20,4 +20,11 @@ public interface DiscountStrategy {
 	 * @return The description of the discount strategy.
 	 */
 	String getDescription();
+
+	/**
+	 * Retrieves the type of the discount, as named in the discount catalog.
+	 *
+	 * @return The type of the discount strategy.
+	 */
+	String getType();
 }
\ No newline at end of file
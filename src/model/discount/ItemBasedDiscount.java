@@ -6,6 +6,11 @@ import model.Amount;
  * Discount strategy that applies a fixed discount based on bought items.
  */
 public class ItemBasedDiscount implements DiscountStrategy {
+	/**
+	 * The type of the fixed discount for bought items in the discount catalog.
+	 */
+	public static final String TYPE = "ITEM_BASED";
+
 	private final Amount discountAmount;
 	private final String description;
 
@@ -39,4 +44,14 @@ public class ItemBasedDiscount implements DiscountStrategy {
 	public String getDescription() {
 		return description;
 	}
+
+	/**
+	 * Retrieves the type of the discount strategy.
+	 *
+	 * @return The type of the discount strategy.
+	 */
+	@Override
+	public String getType() {
+		return TYPE;
+	}
 }
\ No newline at end of file
@@ -6,6 +6,11 @@ import model.Amount;
  * Discount strategy that applies a percentage discount based on the total price.
  */
 public class TotalPricePercentageDiscount implements DiscountStrategy {
+	/**
+	 * The type of the percentage discount on the total price in the discount catalog.
+	 */
+	public static final String TYPE = "TOTAL_PERCENT";
+
 	private final Amount discountPercentage;
 	private final String description;
 
@@ -39,4 +44,14 @@ public class TotalPricePercentageDiscount implements DiscountStrategy {
 	public String getDescription() {
 		return description;
 	}
+
+	/**
+	 * Retrieves the type of the discount strategy.
+	 *
+	 * @return The type of the discount strategy.
+	 */
+	@Override
+	public String getType() {
+		return TYPE;
+	}
 }
\ No newline at end of file
@@ -5,16 +5,31 @@ import model.Amount;
 /**
  * Abstract base class for total revenue observers implementing the Template Method pattern.
  * This class defines the skeleton of the algorithm for handling total revenue updates,
- * while letting subclasses override specific steps.
+ * while letting subclasses override specific steps. The revenue is kept in a {@link RevenueAccumulator}, so updates
+ * from several lanes are added without waiting for each other. The total is shown for one update at a time for each
+ * observer instance.
  */
 public abstract class AbstractTotalRevenueObserver implements TotalRevenueObserver {
-    protected Amount totalRevenue;
+    private final RevenueAccumulator ownRevenue;
+    private final RevenueTotals sharedTotals;
 
     /**
-     * Constructor for the abstract observer.
+     * Constructor for the abstract observer. The observer adds up the updates it receives.
      */
     public AbstractTotalRevenueObserver() {
-        this.totalRevenue = new Amount();
+        this.ownRevenue = new RevenueAccumulator();
+        this.sharedTotals = null;
+    }
+
+    /**
+     * Creates an observer that shows the total of revenue totals kept by someone else, for example the totals of the
+     * controller. Updates only make the observer show the current total, they are not added again.
+     *
+     * @param sharedTotals The revenue totals to show.
+     */
+    protected AbstractTotalRevenueObserver(RevenueTotals sharedTotals) {
+        this.ownRevenue = null;
+        this.sharedTotals = sharedTotals;
     }
 
     /**
@@ -26,11 +41,24 @@ public abstract class AbstractTotalRevenueObserver implements TotalRevenueObserv
     @Override
     public final void updateTotalRevenue(Amount saleAmount) {
         calculateTotalIncome(saleAmount);
-        showTotalIncome();
+        synchronized (this) {
+            showTotalIncome();
+        }
+    }
+
+    /**
+     * Returns the total revenue to show.
+     *
+     * @return The sum of all received updates, or the total of the shared revenue totals.
+     */
+    protected Amount getTotalRevenue() {
+        return sharedTotals == null ? ownRevenue.sum() : sharedTotals.getTotalRevenue();
     }
 
     private void calculateTotalIncome(Amount saleAmount) {
-        totalRevenue = totalRevenue.add(saleAmount);
+        if (ownRevenue != null) {
+            ownRevenue.add(saleAmount);
+        }
     }
 
     private void showTotalIncome() {
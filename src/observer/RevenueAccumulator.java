@@ -0,0 +1,81 @@
+package observer;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import model.Amount;
+
+/**
+ * A sum of amounts that many threads can add to without waiting for each other, in the style of
+ * {@link java.util.concurrent.atomic.LongAdder}. The sum is split over several cells, a thread adds to one cell with a
+ * compare-and-set, and moves to another cell when the compare-and-set fails because another thread changed the cell at
+ * the same time. The cells are spaced apart in memory, so that threads adding to different cells do not share a cache
+ * line. The cells are added together when the sum is read. Amounts are added exactly, with the semantics of
+ * {@link Amount#add(Amount)}.
+ * <p>
+ * A sum read while amounts are added includes some of the concurrent additions and not others, but it never includes
+ * part of an addition.
+ */
+public class RevenueAccumulator {
+	private static final int MAX_CELL_COUNT = 64;
+	private static final int CELL_SPACING = 16;
+
+	private final AtomicReferenceArray<Amount> cells;
+	private final int mask;
+
+	/**
+	 * Creates an accumulator with one cell per available processor.
+	 */
+	public RevenueAccumulator() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates an accumulator with the specified number of cells, rounded up to a power of two and at most 64. One cell
+	 * is enough for a sum that is mostly added to by a single thread.
+	 *
+	 * @param cellCount The number of cells.
+	 */
+	public RevenueAccumulator(int cellCount) {
+		int size = cellCount <= 1 ? 1 : Math.min(MAX_CELL_COUNT, Integer.highestOneBit(cellCount - 1) << 1);
+		cells = new AtomicReferenceArray<>(size * CELL_SPACING);
+		for (int i = 0; i < size; i++) {
+			cells.set(i * CELL_SPACING, Amount.ZERO);
+		}
+		mask = size - 1;
+	}
+
+	/**
+	 * Adds the specified amount to the sum.
+	 *
+	 * @param amount The amount to add.
+	 */
+	public void add(Amount amount) {
+		int cell = cellOf(Thread.currentThread().getId());
+		while (true) {
+			Amount current = cells.get(cell * CELL_SPACING);
+			if (cells.compareAndSet(cell * CELL_SPACING, current, current.add(amount))) {
+				return;
+			}
+			cell = ThreadLocalRandom.current().nextInt() & mask;
+		}
+	}
+
+	/**
+	 * Returns the sum of all added amounts.
+	 *
+	 * @return The current sum.
+	 */
+	public Amount sum() {
+		Amount sum = cells.get(0);
+		for (int cell = 1; cell <= mask; cell++) {
+			sum = sum.add(cells.get(cell * CELL_SPACING));
+		}
+		return sum;
+	}
+
+	private int cellOf(long threadId) {
+		long hash = threadId * 0x9e3779b97f4a7c15L;
+		return (int) (hash ^ hash >>> 32) & mask;
+	}
+}
@@ -0,0 +1,239 @@
+package observer;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import model.Amount;
+import util.LogHandler;
+
+/**
+ * Delivers total revenue updates to the subscribed observers on a dedicated dispatcher thread, so that slow observers
+ * do not delay the sale. Published updates are kept in a bounded ring buffer until they are delivered. All updates
+ * are delivered to each observer in the order they were published.
+ * <p>
+ * Closing the bus waits until every publisher that got past the closed check has queued its update, and only then
+ * queues the close marker. No publisher touches the buffer after the marker, so it is never dropped and no update is
+ * queued behind it. Publishers register with a phaser while they publish, and the closing thread parks on it until
+ * the last of them has left, since a publisher may wait on a full buffer for as long as a slow observer takes.
+ */
+public class RevenueEventBus implements TotalRevenueObserver {
+	/**
+	 * The number of updates the buffer holds when no capacity is specified.
+	 */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	/**
+	 * Decides what happens when an update is published while the buffer is full.
+	 */
+	public enum OverflowPolicy {
+		/** The publishing thread waits until there is room in the buffer. */
+		BLOCK,
+		/** The published update is dropped. */
+		DROP_NEWEST,
+		/** The oldest update in the buffer is dropped to make room. */
+		DROP_OLDEST
+	}
+
+	private static final RevenueEvent CLOSE = new RevenueEvent(null, 0);
+
+	private final ArrayBlockingQueue<RevenueEvent> buffer;
+	private final OverflowPolicy overflowPolicy;
+	private final List<TotalRevenueObserver> observers = new CopyOnWriteArrayList<>();
+	private final Thread dispatcherThread;
+	private final LogHandler logger = LogHandler.getLogger();
+
+	private final Phaser activePublishers = new Phaser(1);
+	private final AtomicLong droppedEvents = new AtomicLong();
+	private final AtomicLong dispatchedEvents = new AtomicLong();
+	private final AtomicLong totalDispatchLatencyNanos = new AtomicLong();
+	private final AtomicLong maxDispatchLatencyNanos = new AtomicLong();
+	private volatile boolean closed;
+
+	/**
+	 * Creates a bus with the default capacity that makes publishers wait when the buffer is full.
+	 */
+	public RevenueEventBus() {
+		this(DEFAULT_CAPACITY, OverflowPolicy.BLOCK);
+	}
+
+	/**
+	 * Creates a bus and starts its dispatcher thread.
+	 *
+	 * @param capacity       The number of updates that can wait for delivery.
+	 * @param overflowPolicy What to do when an update is published while the buffer is full.
+	 */
+	public RevenueEventBus(int capacity, OverflowPolicy overflowPolicy) {
+		this.buffer = new ArrayBlockingQueue<>(capacity);
+		this.overflowPolicy = overflowPolicy;
+		dispatcherThread = new Thread(this::dispatchLoop, "revenue-event-dispatcher");
+		dispatcherThread.setDaemon(true);
+		dispatcherThread.start();
+	}
+
+	/**
+	 * Subscribes an observer to all updates published after this call.
+	 *
+	 * @param observer The observer to subscribe.
+	 */
+	public void subscribe(TotalRevenueObserver observer) {
+		observers.add(observer);
+	}
+
+	/**
+	 * Publishes an update without waiting for it to be delivered.
+	 *
+	 * @param totalRevenue The amount of the update.
+	 */
+	@Override
+	public void updateTotalRevenue(Amount totalRevenue) {
+		publish(totalRevenue);
+	}
+
+	/**
+	 * Publishes an update without waiting for it to be delivered. What happens when the buffer is full depends on the
+	 * overflow policy of this bus.
+	 *
+	 * @param saleAmount The amount of the update.
+	 * @return true if the update was queued, false if it was dropped.
+	 * @throws IllegalStateException if the bus is closed.
+	 */
+	public boolean publish(Amount saleAmount) {
+		activePublishers.register();
+		try {
+			if (closed) {
+				throw new IllegalStateException("The revenue event bus is closed");
+			}
+			return enqueue(new RevenueEvent(saleAmount, System.nanoTime()));
+		} finally {
+			activePublishers.arriveAndDeregister();
+		}
+	}
+
+	private boolean enqueue(RevenueEvent event) {
+		switch (overflowPolicy) {
+		case BLOCK -> {
+			try {
+				buffer.put(event);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				droppedEvents.incrementAndGet();
+				return false;
+			}
+		}
+		case DROP_NEWEST -> {
+			if (!buffer.offer(event)) {
+				droppedEvents.incrementAndGet();
+				return false;
+			}
+		}
+		case DROP_OLDEST -> {
+			while (!buffer.offer(event)) {
+				if (buffer.poll() != null) {
+					droppedEvents.incrementAndGet();
+				}
+			}
+		}
+		}
+		return true;
+	}
+
+	/**
+	 * Delivers all queued updates and stops the dispatcher thread.
+	 */
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		activePublishers.arriveAndAwaitAdvance();
+		try {
+			buffer.put(CLOSE);
+			dispatcherThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Returns the number of updates waiting to be delivered.
+	 *
+	 * @return The current queue depth.
+	 */
+	public int getQueueDepth() {
+		return buffer.size();
+	}
+
+	/**
+	 * Returns the number of updates that were dropped because the buffer was full.
+	 *
+	 * @return The number of dropped updates.
+	 */
+	public long getDroppedEventCount() {
+		return droppedEvents.get();
+	}
+
+	/**
+	 * Returns the number of updates that were delivered to all observers.
+	 *
+	 * @return The number of delivered updates.
+	 */
+	public long getDispatchedEventCount() {
+		return dispatchedEvents.get();
+	}
+
+	/**
+	 * Returns the average time from publishing an update until it was delivered to all observers.
+	 *
+	 * @return The average dispatch latency in microseconds, 0 if nothing is delivered yet.
+	 */
+	public long getAverageDispatchLatencyMicros() {
+		long dispatched = dispatchedEvents.get();
+		return dispatched == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalDispatchLatencyNanos.get() / dispatched);
+	}
+
+	/**
+	 * Returns the longest time from publishing an update until it was delivered to all observers.
+	 *
+	 * @return The maximum dispatch latency in microseconds.
+	 */
+	public long getMaxDispatchLatencyMicros() {
+		return TimeUnit.NANOSECONDS.toMicros(maxDispatchLatencyNanos.get());
+	}
+
+	private void dispatchLoop() {
+		while (true) {
+			RevenueEvent event;
+			try {
+				event = buffer.take();
+			} catch (InterruptedException e) {
+				return;
+			}
+			if (event == CLOSE) {
+				return;
+			}
+			deliver(event);
+		}
+	}
+
+	private void deliver(RevenueEvent event) {
+		for (TotalRevenueObserver observer : observers) {
+			try {
+				observer.updateTotalRevenue(event.saleAmount());
+			} catch (RuntimeException e) {
+				logger.logException(e);
+			}
+		}
+
+		long latency = System.nanoTime() - event.publishedNanos();
+		totalDispatchLatencyNanos.addAndGet(latency);
+		maxDispatchLatencyNanos.accumulateAndGet(latency, Math::max);
+		dispatchedEvents.incrementAndGet();
+	}
+
+	private record RevenueEvent(Amount saleAmount, long publishedNanos) {
+	}
+}
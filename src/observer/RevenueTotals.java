@@ -0,0 +1,141 @@
+package observer;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+import model.Amount;
+
+/**
+ * The revenue of all lanes, kept as a total, a total per lane and a total per time window. Every lane records its own
+ * sales, and the totals are {@link RevenueAccumulator}s, so lanes do not wait for each other when recording and
+ * dashboards can read the totals at any time without stopping the lanes.
+ * <p>
+ * The time windows are a ring of the most recent windows of equal length. A window is reused for a new period when the
+ * ring has come around to it, so only the revenue of the last <code>windowCount</code> windows is kept.
+ */
+public class RevenueTotals {
+	private static final Duration DEFAULT_WINDOW_LENGTH = Duration.ofMinutes(1);
+	private static final int DEFAULT_WINDOW_COUNT = 60;
+	private static final int LANE_CELL_COUNT = 1;
+
+	private final RevenueAccumulator totalRevenue = new RevenueAccumulator();
+	private final ConcurrentHashMap<String, RevenueAccumulator> laneRevenue = new ConcurrentHashMap<>();
+	private final AtomicReferenceArray<Window> windows;
+	private final long windowLengthMillis;
+	private final LongSupplier millisClock;
+
+	/**
+	 * Creates totals with windows of one minute, covering the last hour.
+	 */
+	public RevenueTotals() {
+		this(DEFAULT_WINDOW_LENGTH, DEFAULT_WINDOW_COUNT, System::currentTimeMillis);
+	}
+
+	/**
+	 * Creates totals with the specified windows, that reads the time from the specified clock.
+	 *
+	 * @param windowLength The length of each time window.
+	 * @param windowCount  The number of most recent windows that are kept.
+	 * @param millisClock  The clock, in milliseconds.
+	 */
+	RevenueTotals(Duration windowLength, int windowCount, LongSupplier millisClock) {
+		this.windowLengthMillis = windowLength.toMillis();
+		this.windows = new AtomicReferenceArray<>(windowCount);
+		this.millisClock = millisClock;
+	}
+
+	/**
+	 * Records the amount of a sale made on the specified lane, in the current time window.
+	 *
+	 * @param laneId The ID of the lane the sale was made on.
+	 * @param amount The amount of the sale.
+	 */
+	public void record(String laneId, Amount amount) {
+		totalRevenue.add(amount);
+		laneRevenue.computeIfAbsent(laneId, newLane -> new RevenueAccumulator(LANE_CELL_COUNT)).add(amount);
+		currentWindow().revenue().add(amount);
+	}
+
+	/**
+	 * Returns the revenue of all lanes.
+	 *
+	 * @return The total revenue.
+	 */
+	public Amount getTotalRevenue() {
+		return totalRevenue.sum();
+	}
+
+	/**
+	 * Returns the revenue of the specified lane.
+	 *
+	 * @param laneId The ID of the lane.
+	 * @return The revenue of the lane, zero if no sale was recorded on it.
+	 */
+	public Amount getLaneRevenue(String laneId) {
+		RevenueAccumulator revenue = laneRevenue.get(laneId);
+		return revenue == null ? Amount.ZERO : revenue.sum();
+	}
+
+	/**
+	 * Returns the revenue of every lane that has recorded a sale.
+	 *
+	 * @return The revenue by lane ID.
+	 */
+	public Map<String, Amount> getRevenueByLane() {
+		LinkedHashMap<String, Amount> revenueByLane = new LinkedHashMap<>();
+		laneRevenue.forEach((laneId, revenue) -> revenueByLane.put(laneId, revenue.sum()));
+		return revenueByLane;
+	}
+
+	/**
+	 * Returns the revenue of the current time window and the windows before it, that together cover at least the
+	 * specified period. Periods longer than all kept windows return the revenue of all kept windows.
+	 *
+	 * @param period The period to sum the revenue of.
+	 * @return The revenue of the period.
+	 */
+	public Amount getRecentRevenue(Duration period) {
+		long currentWindow = millisClock.getAsLong() / windowLengthMillis;
+		long windowsInPeriod = Math.min(windows.length(), Math.max(1, ceilDiv(period.toMillis(), windowLengthMillis)));
+		Amount revenue = Amount.ZERO;
+		for (int i = 0; i < windows.length(); i++) {
+			Window window = windows.get(i);
+			if (window != null && window.number() <= currentWindow && window.number() > currentWindow - windowsInPeriod) {
+				revenue = revenue.add(window.revenue().sum());
+			}
+		}
+		return revenue;
+	}
+
+	/**
+	 * Returns the window of the current time, replacing the window of an earlier period in its place in the ring.
+	 */
+	private Window currentWindow() {
+		long number = millisClock.getAsLong() / windowLengthMillis;
+		int index = (int) Math.floorMod(number, (long) windows.length());
+		while (true) {
+			Window window = windows.get(index);
+			if (window != null && window.number() >= number) {
+				return window;
+			}
+			Window newWindow = new Window(number, new RevenueAccumulator());
+			if (windows.compareAndSet(index, window, newWindow)) {
+				return newWindow;
+			}
+		}
+	}
+
+	private static long ceilDiv(long dividend, long divisor) {
+		return -Math.floorDiv(-dividend, divisor);
+	}
+
+	/**
+	 * The revenue of one time window. The number of a window is the number of window lengths since 1970-01-01.
+	 */
+	private record Window(long number, RevenueAccumulator revenue) {
+	}
+}
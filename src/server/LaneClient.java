@@ -0,0 +1,172 @@
+package server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+
+import dto.ItemDTO;
+import dto.SaleInfoDTO;
+import model.Amount;
+
+/**
+ * A lane that uses a {@link LaneServer}. The methods send one request each and wait for its response. A client is one
+ * lane, its methods are expected to be called from one thread at a time.
+ */
+public class LaneClient implements AutoCloseable {
+	private final Socket socket;
+	private final DataInputStream in;
+	private final DataOutputStream out;
+
+	/**
+	 * Connects to the server as the specified lane.
+	 *
+	 * @param host   The host of the server.
+	 * @param port   The port of the server.
+	 * @param laneId The ID of the lane.
+	 * @throws UncheckedIOException if the server could not be reached.
+	 * @throws LaneRequestException if the lane is already connected.
+	 */
+	public LaneClient(String host, int port, String laneId) {
+		try {
+			socket = new Socket(host, port);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not connect lane '%s'".formatted(laneId), e);
+		}
+		try {
+			socket.setTcpNoDelay(true);
+			in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			out.writeUTF(laneId);
+			out.flush();
+			readStatus();
+		} catch (IOException e) {
+			close();
+			throw new UncheckedIOException("Could not connect lane '%s'".formatted(laneId), e);
+		} catch (LaneRequestException e) {
+			close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Starts a new sale on the lane.
+	 *
+	 * @throws UncheckedIOException if the connection failed.
+	 */
+	public void startSale() {
+		try {
+			out.writeByte(LaneProtocol.START_SALE);
+			out.flush();
+			readStatus();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not start the sale", e);
+		}
+	}
+
+	/**
+	 * Enters items into the sale.
+	 *
+	 * @param itemId   The ID of the item.
+	 * @param quantity The number of items to enter.
+	 * @return The entered item and the running total.
+	 * @throws LaneRequestException if the item does not exist or could not be entered.
+	 * @throws UncheckedIOException if the connection failed.
+	 */
+	public SaleInfoDTO enterItem(String itemId, int quantity) {
+		try {
+			out.writeByte(LaneProtocol.ENTER_ITEM);
+			out.writeUTF(itemId);
+			out.writeInt(quantity);
+			out.flush();
+			readStatus();
+			ItemDTO item = new ItemDTO(in.readUTF(), in.readUTF(), LaneProtocol.readAmount(in),
+					LaneProtocol.readAmount(in), in.readUTF());
+			return new SaleInfoDTO(item, in.readInt(), LaneProtocol.readAmount(in), LaneProtocol.readAmount(in));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not enter item '%s'".formatted(itemId), e);
+		}
+	}
+
+	/**
+	 * Ends the sale.
+	 *
+	 * @return The total price of the sale.
+	 * @throws LaneRequestException if no sale is started.
+	 * @throws UncheckedIOException if the connection failed.
+	 */
+	public Amount endSale() {
+		try {
+			out.writeByte(LaneProtocol.END_SALE);
+			out.flush();
+			return readAmount();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not end the sale", e);
+		}
+	}
+
+	/**
+	 * Applies the discounts of the specified customer to the sale.
+	 *
+	 * @param customerId The customer ID.
+	 * @return The discounted total price.
+	 * @throws LaneRequestException if no sale is started.
+	 * @throws UncheckedIOException if the connection failed.
+	 */
+	public Amount requestDiscount(int customerId) {
+		try {
+			out.writeByte(LaneProtocol.REQUEST_DISCOUNT);
+			out.writeInt(customerId);
+			out.flush();
+			return readAmount();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not request a discount", e);
+		}
+	}
+
+	/**
+	 * Pays for the ended sale, which finishes it.
+	 *
+	 * @param amount The paid amount.
+	 * @return The change to give the customer.
+	 * @throws LaneRequestException if the sale could not be paid.
+	 * @throws UncheckedIOException if the connection failed.
+	 */
+	public Amount pay(Amount amount) {
+		try {
+			out.writeByte(LaneProtocol.PAY);
+			LaneProtocol.writeAmount(out, amount);
+			out.flush();
+			return readAmount();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not pay for the sale", e);
+		}
+	}
+
+	/**
+	 * Disconnects the lane. An unfinished sale is discarded by the server.
+	 */
+	@Override
+	public void close() {
+		try {
+			socket.close();
+		} catch (IOException alreadyBroken) {
+			/* The connection is gone either way. */
+		}
+	}
+
+	private Amount readAmount() throws IOException {
+		readStatus();
+		return LaneProtocol.readAmount(in);
+	}
+
+	private void readStatus() throws IOException {
+		byte status = in.readByte();
+		if (status != LaneProtocol.OK) {
+			throw new LaneRequestException(in.readUTF(), status == LaneProtocol.ITEM_NOT_FOUND);
+		}
+	}
+}
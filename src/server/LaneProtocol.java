@@ -0,0 +1,68 @@
+package server;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import model.Amount;
+
+/**
+ * The messages that lanes and the {@link LaneServer} exchange. A connection starts with the client sending the ID of
+ * its lane, which the server answers with a status. After that the client sends requests and the server answers each
+ * request with one response, in the order of the requests. Clients may send several requests before reading the
+ * responses.
+ * <p>
+ * A request is one operation byte followed by its arguments:
+ * <ul>
+ * <li>{@link #START_SALE}</li>
+ * <li>{@link #ENTER_ITEM} item ID, quantity (int)</li>
+ * <li>{@link #END_SALE}</li>
+ * <li>{@link #REQUEST_DISCOUNT} customer ID (int)</li>
+ * <li>{@link #PAY} paid amount</li>
+ * </ul>
+ * A response is one status byte. After {@link #OK} comes the result of the operation: nothing for starting a sale, the
+ * item ID, name, price, VAT rate, description, quantity, running total and total VAT for an entered item, and one
+ * amount for the others, which is the total, the discounted total and the change. After any other status comes a
+ * message. Strings are written with {@link DataOutput#writeUTF(String)}, amounts with
+ * {@link #writeAmount(DataOutput, Amount)}.
+ */
+final class LaneProtocol {
+	static final byte START_SALE = 1;
+	static final byte ENTER_ITEM = 2;
+	static final byte END_SALE = 3;
+	static final byte REQUEST_DISCOUNT = 4;
+	static final byte PAY = 5;
+
+	static final byte OK = 0;
+	static final byte ITEM_NOT_FOUND = 1;
+	static final byte ERROR = 2;
+
+	private LaneProtocol() {
+	}
+
+	/**
+	 * Writes an amount as its scale (int), the length of its unscaled value (byte) and the unscaled value in two's
+	 * complement, most significant byte first. Usual amounts take 7 or 8 bytes.
+	 *
+	 * @throws IllegalArgumentException if the unscaled value is longer than 255 bytes. Nothing is written then.
+	 */
+	static void writeAmount(DataOutput out, Amount amount) throws IOException {
+		BigDecimal value = amount.toBigDecimal();
+		byte[] unscaled = value.unscaledValue().toByteArray();
+		if (unscaled.length > 255) {
+			throw new IllegalArgumentException("The amount %s is too large to send".formatted(value));
+		}
+		out.writeInt(value.scale());
+		out.writeByte(unscaled.length);
+		out.write(unscaled);
+	}
+
+	static Amount readAmount(DataInput in) throws IOException {
+		int scale = in.readInt();
+		byte[] unscaled = new byte[in.readUnsignedByte()];
+		in.readFully(unscaled);
+		return new Amount(new BigDecimal(new BigInteger(unscaled), scale));
+	}
+}
@@ -0,0 +1,29 @@
+package server;
+
+/**
+ * Thrown by a {@link LaneClient} when the server could not carry out a request, for example because the entered item
+ * does not exist or no sale is started on the lane.
+ */
+public class LaneRequestException extends RuntimeException {
+	private final boolean itemNotFound;
+
+	/**
+	 * Creates a new instance with the message sent by the server.
+	 *
+	 * @param message      The message that describes what went wrong.
+	 * @param itemNotFound true if the request failed because the entered item does not exist.
+	 */
+	LaneRequestException(String message, boolean itemNotFound) {
+		super(message);
+		this.itemNotFound = itemNotFound;
+	}
+
+	/**
+	 * Tells whether the request failed because the entered item does not exist.
+	 *
+	 * @return true if the item was not found, false for other failures.
+	 */
+	public boolean isItemNotFound() {
+		return itemNotFound;
+	}
+}
@@ -0,0 +1,273 @@
+package server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import controller.Controller;
+import dto.ItemDTO;
+import dto.SaleInfoDTO;
+import integration.ItemNotFoundException;
+import model.Amount;
+import util.LogHandler;
+
+/**
+ * Lets lanes use a {@link Controller} over TCP, with the {@link LaneProtocol}. Every connection is one lane: the client
+ * names its lane when it connects, and its requests operate on the sale of that lane. A lane can only be connected
+ * once at a time, and an unfinished sale is discarded when its connection closes.
+ * <p>
+ * Each connection is served by its own thread, which blocks while it waits for the next request. The threads come
+ * from a cached pool, so idle lanes cost a parked thread and no CPU. Responses are flushed when no further request is
+ * buffered, so clients that send several requests at once get their responses in one write.
+ */
+public class LaneServer implements AutoCloseable {
+	private static final int ACCEPT_BACKLOG = 4096;
+
+	private final Controller controller;
+	private final ServerSocket serverSocket;
+	private final ExecutorService connectionExecutor;
+	private final Thread acceptorThread;
+	private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+	private final Set<String> connectedLanes = ConcurrentHashMap.newKeySet();
+	private final AtomicLong handledRequests = new AtomicLong();
+	private final LogHandler logger = LogHandler.getLogger();
+	private volatile boolean closed;
+
+	/**
+	 * Starts serving lanes on the specified port of the loopback address.
+	 *
+	 * @param controller The controller that handles the requests.
+	 * @param port       The port, 0 picks a free port.
+	 * @throws UncheckedIOException if the port could not be opened.
+	 */
+	public LaneServer(Controller controller, int port) {
+		this(controller, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+	}
+
+	/**
+	 * Starts serving lanes on the specified address.
+	 *
+	 * @param controller The controller that handles the requests.
+	 * @param address    The address and port to listen on.
+	 * @throws UncheckedIOException if the port could not be opened.
+	 */
+	public LaneServer(Controller controller, InetSocketAddress address) {
+		this.controller = controller;
+		try {
+			serverSocket = new ServerSocket(address.getPort(), ACCEPT_BACKLOG, address.getAddress());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not open the lane server", e);
+		}
+		AtomicInteger threadNumber = new AtomicInteger();
+		connectionExecutor = Executors.newCachedThreadPool(task -> {
+			Thread thread = new Thread(task, "lane-connection-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		acceptorThread = new Thread(this::acceptLoop, "lane-server-acceptor");
+		acceptorThread.setDaemon(true);
+		acceptorThread.start();
+	}
+
+	/**
+	 * Returns the port the server listens on, for example when it was started on port 0.
+	 *
+	 * @return The port.
+	 */
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Returns the number of lanes that are connected.
+	 *
+	 * @return The number of connected lanes.
+	 */
+	public int getConnectedLaneCount() {
+		return connectedLanes.size();
+	}
+
+	/**
+	 * Returns the number of requests handled, including requests that failed.
+	 *
+	 * @return The number of handled requests.
+	 */
+	public long getHandledRequestCount() {
+		return handledRequests.get();
+	}
+
+	/**
+	 * Stops accepting lanes and closes all connections. Unfinished sales of the connected lanes are discarded.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			logger.logException(e);
+		}
+		for (Socket connection : connections) {
+			closeQuietly(connection);
+		}
+		connectionExecutor.shutdown();
+		try {
+			acceptorThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void acceptLoop() {
+		while (!closed) {
+			Socket socket;
+			try {
+				socket = serverSocket.accept();
+			} catch (IOException e) {
+				if (!serverSocket.isClosed()) {
+					logger.logException(e);
+					continue;
+				}
+				return;
+			}
+			connections.add(socket);
+			try {
+				connectionExecutor.execute(() -> serve(socket));
+			} catch (RejectedExecutionException serverClosed) {
+				connections.remove(socket);
+				closeQuietly(socket);
+			}
+		}
+	}
+
+	private void serve(Socket socket) {
+		String laneId = null;
+		try (socket) {
+			socket.setTcpNoDelay(true);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			ByteArrayOutputStream response = new ByteArrayOutputStream();
+
+			String requestedLaneId = in.readUTF();
+			if (!connectedLanes.add(requestedLaneId)) {
+				out.writeByte(LaneProtocol.ERROR);
+				out.writeUTF("Lane '%s' is already connected".formatted(requestedLaneId));
+				out.flush();
+				return;
+			}
+			laneId = requestedLaneId;
+			out.writeByte(LaneProtocol.OK);
+			out.flush();
+
+			int operation;
+			while (!closed && (operation = in.read()) >= 0) {
+				boolean canContinue = handle(operation, laneId, in, response);
+				response.writeTo(out);
+				response.reset();
+				if (!canContinue) {
+					out.flush();
+					return;
+				}
+				if (in.available() == 0) {
+					out.flush();
+				}
+			}
+		} catch (IOException disconnected) {
+			/* The lane closed the connection or the server is closing, the sale is discarded below. */
+		} finally {
+			connections.remove(socket);
+			if (laneId != null) {
+				controller.cancelSale(laneId);
+				connectedLanes.remove(laneId);
+			}
+		}
+	}
+
+	/**
+	 * Reads the arguments of one request, carries it out and writes the response to the buffer. If the request fails,
+	 * the buffer only holds the error response.
+	 *
+	 * @return false if the operation is unknown, the connection cannot continue then.
+	 */
+	private boolean handle(int operation, String laneId, DataInputStream in, ByteArrayOutputStream response)
+			throws IOException {
+		handledRequests.incrementAndGet();
+		DataOutputStream out = new DataOutputStream(response);
+		try {
+			switch (operation) {
+				case LaneProtocol.START_SALE -> {
+					controller.startSale(laneId);
+					out.writeByte(LaneProtocol.OK);
+				}
+				case LaneProtocol.ENTER_ITEM -> {
+					String itemId = in.readUTF();
+					int quantity = in.readInt();
+					writeSaleInfo(controller.enterItem(laneId, itemId, quantity), out);
+				}
+				case LaneProtocol.END_SALE -> writeAmount(controller.endSale(laneId), out);
+				case LaneProtocol.REQUEST_DISCOUNT -> writeAmount(controller.requestDiscount(laneId, in.readInt()), out);
+				case LaneProtocol.PAY -> {
+					Amount paidAmount = LaneProtocol.readAmount(in);
+					writeAmount(controller.finalizeSaleWithPayment(laneId, paidAmount), out);
+				}
+				default -> {
+					writeError(LaneProtocol.ERROR, "Unknown operation %d".formatted(operation), out);
+					return false;
+				}
+			}
+		} catch (ItemNotFoundException e) {
+			response.reset();
+			writeError(LaneProtocol.ITEM_NOT_FOUND, e.getMessage(), out);
+		} catch (RuntimeException e) {
+			response.reset();
+			writeError(LaneProtocol.ERROR, String.valueOf(e.getMessage()), out);
+		}
+		return true;
+	}
+
+	private void writeSaleInfo(SaleInfoDTO saleInfo, DataOutputStream out) throws IOException {
+		ItemDTO item = saleInfo.currentItem();
+		out.writeByte(LaneProtocol.OK);
+		out.writeUTF(item.id());
+		out.writeUTF(item.name());
+		LaneProtocol.writeAmount(out, item.price());
+		LaneProtocol.writeAmount(out, item.vat());
+		out.writeUTF(item.description());
+		out.writeInt(saleInfo.quantity());
+		LaneProtocol.writeAmount(out, saleInfo.totalPrice());
+		LaneProtocol.writeAmount(out, saleInfo.totalVat());
+	}
+
+	private void writeAmount(Amount amount, DataOutputStream out) throws IOException {
+		out.writeByte(LaneProtocol.OK);
+		LaneProtocol.writeAmount(out, amount);
+	}
+
+	private void writeError(byte status, String message, DataOutputStream out) throws IOException {
+		out.writeByte(status);
+		out.writeUTF(message);
+	}
+
+	private static void closeQuietly(Socket socket) {
+		try {
+			socket.close();
+		} catch (IOException alreadyBroken) {
+			/* Nothing more can be done for this connection. */
+		}
+	}
+}
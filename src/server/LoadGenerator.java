@@ -0,0 +1,239 @@
+package server;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import controller.Controller;
+import dto.ReceiptDTO;
+import integration.AccountingSystem;
+import integration.DiscountCatalog;
+import integration.InventorySystem;
+import integration.Printer;
+import model.Amount;
+import model.discount.DiscountFactory;
+import util.metrics.LatencyHistogram;
+
+/**
+ * Drives many simulated lanes against a {@link LaneServer} and reports the throughput and the latency of each
+ * operation, as the clients see it. Every lane has its own connection. The lanes are shared by a smaller number of
+ * worker threads, each worker runs whole sales on its lanes in turn, so the number of lanes is not limited by the
+ * number of client threads.
+ * <p>
+ * Run it with <code>java server.LoadGenerator [lanes] [seconds] [workers] [host port]</code>. Without a host and port,
+ * a server is started in the same JVM, with a journal in a temporary file and receipts that are not printed.
+ */
+public class LoadGenerator {
+	private static final String[] ITEM_IDS = { "abc123", "def456" };
+	private static final int ITEMS_PER_SALE = 10;
+	private static final int CUSTOMER_ID = 114514;
+	private static final Amount PAID_AMOUNT = new Amount("5000");
+	private static final int DEFAULT_LANE_COUNT = 1000;
+	private static final int DEFAULT_SECONDS = 10;
+	private static final int DEFAULT_WORKER_COUNT = 64;
+
+	private final String host;
+	private final int port;
+	private final int laneCount;
+	private final int workerCount;
+	private final Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+	private final AtomicLong finishedSales = new AtomicLong();
+	private final AtomicLong failedRequests = new AtomicLong();
+
+	/**
+	 * Creates a load generator for the server at the specified address.
+	 *
+	 * @param host        The host of the server.
+	 * @param port        The port of the server.
+	 * @param laneCount   The number of lanes to connect.
+	 * @param workerCount The number of threads that drive the lanes.
+	 */
+	public LoadGenerator(String host, int port, int laneCount, int workerCount) {
+		this.host = host;
+		this.port = port;
+		this.laneCount = laneCount;
+		this.workerCount = Math.min(workerCount, laneCount);
+		for (String operation : List.of("startSale", "enterItem", "endSale", "requestDiscount", "pay")) {
+			latencies.put(operation, new LatencyHistogram());
+		}
+	}
+
+	/**
+	 * Connects all lanes, runs sales on them for the specified time and disconnects them.
+	 *
+	 * @param duration How long to run sales.
+	 * @return The throughput and latencies.
+	 * @throws UncheckedIOException if a lane could not connect.
+	 * @throws InterruptedException if the thread is interrupted while the workers run.
+	 */
+	public Report run(Duration duration) throws InterruptedException {
+		List<List<LaneClient>> lanesByWorker = new ArrayList<>();
+		for (int worker = 0; worker < workerCount; worker++) {
+			lanesByWorker.add(new ArrayList<>());
+		}
+		try {
+			for (int lane = 0; lane < laneCount; lane++) {
+				lanesByWorker.get(lane % workerCount).add(new LaneClient(host, port, "load-lane-" + lane));
+			}
+
+			long startTime = System.nanoTime();
+			long deadline = startTime + duration.toNanos();
+			List<Thread> workers = new ArrayList<>();
+			for (int worker = 0; worker < workerCount; worker++) {
+				List<LaneClient> lanes = lanesByWorker.get(worker);
+				Thread thread = new Thread(() -> drive(lanes, deadline), "load-worker-" + worker);
+				workers.add(thread);
+				thread.start();
+			}
+			for (Thread worker : workers) {
+				worker.join();
+			}
+			return createReport(Duration.ofNanos(System.nanoTime() - startTime));
+		} finally {
+			for (List<LaneClient> lanes : lanesByWorker) {
+				lanes.forEach(LaneClient::close);
+			}
+		}
+	}
+
+	private void drive(List<LaneClient> lanes, long deadline) {
+		int saleNumber = 0;
+		while (!lanes.isEmpty() && System.nanoTime() < deadline) {
+			Iterator<LaneClient> iterator = lanes.iterator();
+			while (iterator.hasNext() && System.nanoTime() < deadline) {
+				LaneClient lane = iterator.next();
+				try {
+					runSale(lane, saleNumber++);
+				} catch (LaneRequestException e) {
+					failedRequests.incrementAndGet();
+				} catch (UncheckedIOException e) {
+					failedRequests.incrementAndGet();
+					lane.close();
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	private void runSale(LaneClient lane, int saleNumber) {
+		timed("startSale", () -> {
+			lane.startSale();
+			return null;
+		});
+		for (int i = 0; i < ITEMS_PER_SALE; i++) {
+			String itemId = ITEM_IDS[(saleNumber + i) % ITEM_IDS.length];
+			timed("enterItem", () -> lane.enterItem(itemId, 1));
+		}
+		timed("endSale", lane::endSale);
+		timed("requestDiscount", () -> lane.requestDiscount(CUSTOMER_ID));
+		timed("pay", () -> lane.pay(PAID_AMOUNT));
+		finishedSales.incrementAndGet();
+	}
+
+	private <T> T timed(String operation, Supplier<T> request) {
+		long startTime = System.nanoTime();
+		try {
+			return request.get();
+		} finally {
+			latencies.get(operation).recordSince(startTime);
+		}
+	}
+
+	private Report createReport(Duration elapsed) {
+		Map<String, LatencyHistogram.Snapshot> snapshots = new LinkedHashMap<>();
+		long requests = 0;
+		for (Map.Entry<String, LatencyHistogram> operation : latencies.entrySet()) {
+			LatencyHistogram.Snapshot snapshot = operation.getValue().snapshot();
+			snapshots.put(operation.getKey(), snapshot);
+			requests += snapshot.getCount();
+		}
+		return new Report(laneCount, elapsed, finishedSales.get(), requests, failedRequests.get(), snapshots);
+	}
+
+	/**
+	 * The result of a load test.
+	 *
+	 * @param laneCount      The number of connected lanes.
+	 * @param elapsed        How long the sales ran.
+	 * @param finishedSales  The number of sales that were paid.
+	 * @param requests       The number of requests sent, including failed requests.
+	 * @param failedRequests The number of requests that failed.
+	 * @param latencies      The latency of each operation, by operation name.
+	 */
+	public record Report(int laneCount, Duration elapsed, long finishedSales, long requests, long failedRequests,
+			Map<String, LatencyHistogram.Snapshot> latencies) {
+		/**
+		 * Formats the report as a table, with latencies in microseconds.
+		 *
+		 * @return The formatted report.
+		 */
+		public String format() {
+			double seconds = elapsed.toNanos() / 1e9;
+			StringBuilder report = new StringBuilder();
+			report.append("Lanes: %d, duration: %.1f s%n".formatted(laneCount, seconds));
+			report.append("Finished sales: %d (%.0f/s), requests: %d (%.0f/s), failed requests: %d%n".formatted(
+					finishedSales, finishedSales / seconds, requests, requests / seconds, failedRequests));
+			report.append("%-16s %10s %10s %10s %10s %10s%n".formatted("Operation", "count", "p50 us", "p99 us",
+					"p99.9 us", "max us"));
+			for (Map.Entry<String, LatencyHistogram.Snapshot> operation : latencies.entrySet()) {
+				LatencyHistogram.Snapshot latency = operation.getValue();
+				report.append("%-16s %10d %10.1f %10.1f %10.1f %10.1f%n".formatted(operation.getKey(),
+						latency.getCount(), latency.getValueAtPercentile(50) / 1e3,
+						latency.getValueAtPercentile(99) / 1e3, latency.getValueAtPercentile(99.9) / 1e3,
+						latency.getMaxNanos() / 1e3));
+			}
+			return report.toString();
+		}
+	}
+
+	/**
+	 * Runs a load test and prints the report.
+	 *
+	 * @param args The number of lanes, the number of seconds, the number of workers, and the host and port of the
+	 *             server. All are optional.
+	 * @throws IOException          if the journal of the in-process server could not be created.
+	 * @throws InterruptedException if the test is interrupted.
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int laneCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LANE_COUNT;
+		Duration duration = Duration.ofSeconds(args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SECONDS);
+		int workerCount = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_WORKER_COUNT;
+		if (args.length > 4) {
+			Report report = new LoadGenerator(args[3], Integer.parseInt(args[4]), laneCount, workerCount)
+					.run(duration);
+			System.out.print(report.format());
+			return;
+		}
+
+		Path journalFile = Files.createTempFile("load-generator", ".journal");
+		Controller controller = new Controller(new AccountingSystem(journalFile), new InventorySystem(),
+				new DiscountFactory(new DiscountCatalog()), new DiscardingPrinter());
+		try (LaneServer server = new LaneServer(controller, 0)) {
+			String host = InetAddress.getLoopbackAddress().getHostAddress();
+			Report report = new LoadGenerator(host, server.getPort(), laneCount, workerCount).run(duration);
+			System.out.print(report.format());
+		} finally {
+			controller.shutdown();
+			Files.deleteIfExists(journalFile);
+		}
+	}
+
+	/**
+	 * A printer that drops receipts, so that the load test measures the server and not the console.
+	 */
+	private static class DiscardingPrinter extends Printer {
+		@Override
+		public void printReceipt(ReceiptDTO receiptDTO) {
+		}
+	}
+}
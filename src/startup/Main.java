@@ -1,20 +1,32 @@
 package startup;
 
+import java.nio.file.Path;
+import java.time.Duration;
+
 import controller.Controller;
+import util.metrics.MetricsFileExporter;
 import view.View;
 
 /**
  * This class serves as the entry point for the application.
  */
 public class Main {
+	private static final Path METRICS_FILE = Path.of("metrics.prom");
+	private static final Duration METRICS_EXPORT_INTERVAL = Duration.ofSeconds(10);
+
 	/**
-	 * The main method that starts the application.
+	 * The main method that starts the application. The metrics of the controller are dumped to
+	 * <code>metrics.prom</code> while it runs.
 	 *
 	 * @param args Command-line arguments (not used).
 	 */
 	public static void main(String[] args) {
 		Controller controller = new Controller();
+		MetricsFileExporter metricsExporter = new MetricsFileExporter(controller.getMetrics(), METRICS_FILE,
+				METRICS_EXPORT_INTERVAL);
 		View view = new View(controller);
 		view.simulateExecution();
+		controller.shutdown();
+		metricsExporter.close();
 	}
 }
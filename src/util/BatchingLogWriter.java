@@ -0,0 +1,243 @@
+package util;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes lines to a log file on a background thread. Lines are buffered and written in batches, the file is flushed
+ * when a batch reaches its maximum size or when the flush interval has passed. When the file grows beyond its maximum
+ * size, or the date changes, the file is rotated: it is renamed to <code>name.date.N.ext</code> and a new file is
+ * started. Writing a line never blocks, lines are dropped and counted if the queue is full.
+ * <p>
+ * A line whose content depends on what is already in the file, such as a reference to an earlier line, can be written
+ * as a {@link Line} that is rendered on the writer thread with the number of the file it goes into.
+ */
+public class BatchingLogWriter implements AutoCloseable {
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final Line CLOSE = fileNumber -> "close";
+
+	private final Path logFile;
+	private final int maxBatchSize;
+	private final long flushIntervalNanos;
+	private final long maxFileSize;
+	private final ArrayBlockingQueue<Line> queue;
+	private final Thread writerThread;
+	private final Thread shutdownHook;
+	private final AtomicLong droppedLines = new AtomicLong();
+	private volatile boolean closed;
+
+	private OutputStream out;
+	private long fileNumber;
+	private long fileSize;
+	private LocalDate fileDate;
+
+	/**
+	 * Opens the log file for appending and starts the writer thread. The log is closed when the JVM shuts down.
+	 *
+	 * @param logFile             The log file.
+	 * @param queueCapacity       The number of lines that can wait to be written.
+	 * @param maxBatchSize        The number of lines written before the file is flushed.
+	 * @param flushIntervalMillis The longest time a written line may wait before the file is flushed.
+	 * @param maxFileSize         The size in bytes at which the file is rotated.
+	 * @throws IOException if the log file could not be opened.
+	 */
+	public BatchingLogWriter(Path logFile, int queueCapacity, int maxBatchSize, long flushIntervalMillis,
+			long maxFileSize) throws IOException {
+		this.logFile = logFile;
+		this.maxBatchSize = maxBatchSize;
+		this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+		this.maxFileSize = maxFileSize;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		openFile();
+
+		writerThread = new Thread(this::writeLoop, "log-writer-" + logFile.getFileName());
+		writerThread.setDaemon(true);
+		writerThread.start();
+		shutdownHook = new Thread(this::closeWithoutHook);
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+	}
+
+	/**
+	 * Queues a line to be written. A line separator is added after the line.
+	 *
+	 * @param line The line to write.
+	 * @return true if the line was queued, false if it was dropped because the queue is full or the log is closed.
+	 */
+	public boolean write(String line) {
+		return write(fileNumber -> line);
+	}
+
+	/**
+	 * Queues a line that is rendered when it is written. A line separator is added after the line.
+	 *
+	 * @param line The line to write.
+	 * @return true if the line was queued, false if it was dropped because the queue is full or the log is closed.
+	 */
+	public boolean write(Line line) {
+		if (closed || !queue.offer(line)) {
+			droppedLines.incrementAndGet();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of lines that were dropped because the queue was full.
+	 *
+	 * @return The number of dropped lines.
+	 */
+	public long getDroppedLineCount() {
+		return droppedLines.get();
+	}
+
+	/**
+	 * Writes all queued lines and closes the log file.
+	 */
+	@Override
+	public void close() {
+		closeWithoutHook();
+		try {
+			Runtime.getRuntime().removeShutdownHook(shutdownHook);
+		} catch (IllegalStateException shutdownInProgress) {
+			/* The hook is already running or has run. */
+		}
+	}
+
+	private void closeWithoutHook() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			queue.put(CLOSE);
+			writerThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void writeLoop() {
+		ArrayList<Line> batch = new ArrayList<>(maxBatchSize);
+		long lastFlush = System.nanoTime();
+		int unflushedLines = 0;
+		boolean running = true;
+
+		while (running) {
+			try {
+				Line line = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+				if (line != null) {
+					batch.add(line);
+					queue.drainTo(batch, maxBatchSize - 1);
+				}
+				for (Line queuedLine : batch) {
+					if (queuedLine == CLOSE) {
+						running = false;
+					} else {
+						writeLine(queuedLine);
+						unflushedLines++;
+					}
+				}
+				batch.clear();
+
+				long now = System.nanoTime();
+				if (unflushedLines > 0
+						&& (!running || unflushedLines >= maxBatchSize || now - lastFlush >= flushIntervalNanos)) {
+					out.flush();
+					unflushedLines = 0;
+					lastFlush = now;
+				}
+			} catch (InterruptedException e) {
+				running = false;
+			} catch (IOException e) {
+				System.err.println("Could not write to log file " + logFile + ": " + e.getMessage());
+				batch.clear();
+			}
+		}
+		closeFile();
+	}
+
+	/**
+	 * Writes a line, rotating the file first if the line does not fit. A line that is rendered again after the rotation
+	 * is given the number of the new file.
+	 */
+	private void writeLine(Line line) throws IOException {
+		byte[] bytes = render(line);
+		if (fileSize > 0 && (fileSize + bytes.length > maxFileSize || !CachedClock.today().equals(fileDate))) {
+			rotate();
+			bytes = render(line);
+		}
+		out.write(bytes);
+		fileSize += bytes.length;
+	}
+
+	private byte[] render(Line line) {
+		return (line.render(fileNumber) + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+	}
+
+	private void rotate() throws IOException {
+		out.close();
+		try {
+			Files.move(logFile, nextRotatedFile());
+		} finally {
+			openFile();
+			fileNumber++;
+		}
+	}
+
+	private Path nextRotatedFile() {
+		String fileName = logFile.getFileName().toString();
+		int extensionStart = fileName.lastIndexOf('.');
+		String baseName = extensionStart < 0 ? fileName : fileName.substring(0, extensionStart);
+		String extension = extensionStart < 0 ? "" : fileName.substring(extensionStart);
+
+		Path rotated;
+		int index = 1;
+		do {
+			rotated = logFile.resolveSibling(baseName + "." + fileDate + "." + index + extension);
+			index++;
+		} while (Files.exists(rotated));
+		return rotated;
+	}
+
+	private void openFile() throws IOException {
+		out = new BufferedOutputStream(new FileOutputStream(logFile.toFile(), true), BUFFER_SIZE);
+		fileSize = Files.size(logFile);
+		fileDate = fileSize == 0
+				? CachedClock.today()
+				: LocalDate.ofInstant(Files.getLastModifiedTime(logFile).toInstant(), ZoneId.systemDefault());
+	}
+
+	private void closeFile() {
+		try {
+			out.close();
+		} catch (IOException e) {
+			System.err.println("Could not close log file " + logFile + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * A line that is rendered on the writer thread, just before it is written.
+	 */
+	@FunctionalInterface
+	public interface Line {
+		/**
+		 * Renders the line.
+		 *
+		 * @param fileNumber The number of the file the line is written to, which starts at 0 and grows by one every
+		 *                   time the file is rotated.
+		 * @return The line, without a line separator.
+		 */
+		String render(long fileNumber);
+	}
+}
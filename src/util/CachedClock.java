@@ -0,0 +1,51 @@
+package util;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * A clock that formats the current time as <code>yyyy-MM-dd HH:mm:ss</code>. The formatted time is cached and only
+ * rebuilt once per second, so frequent callers such as log writers do not format the time on every call.
+ */
+public final class CachedClock {
+	private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+	private static volatile Tick lastTick = new Tick(Long.MIN_VALUE, null, null);
+
+	private CachedClock() {
+	}
+
+	/**
+	 * Returns the current time, formatted as <code>yyyy-MM-dd HH:mm:ss</code>.
+	 *
+	 * @return The formatted current time.
+	 */
+	public static String now() {
+		return currentTick().formatted();
+	}
+
+	/**
+	 * Returns the current date.
+	 *
+	 * @return The current date in the system time zone.
+	 */
+	public static LocalDate today() {
+		return currentTick().date();
+	}
+
+	private static Tick currentTick() {
+		long epochSecond = System.currentTimeMillis() / 1000;
+		Tick tick = lastTick;
+		if (tick.epochSecond() != epochSecond) {
+			LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneId.systemDefault());
+			tick = new Tick(epochSecond, time.format(FORMATTER), time.toLocalDate());
+			lastTick = tick;
+		}
+		return tick;
+	}
+
+	private record Tick(long epochSecond, String formatted, LocalDate date) {
+	}
+}
@@ -1,22 +1,51 @@
 package util;
 
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * This class is responsible for the log.
+ * This class is responsible for the log. Exceptions are logged as JSON lines, one object per line, and written to the
+ * log file by a background writer so that logging never waits for file I/O. The full stack trace of an exception is
+ * only written the first time it is seen in a log file, later entries in the same file refer to it by its hash.
+ * Identical exceptions that are thrown repeatedly are only logged once per rate limit window, together with the number
+ * of entries that were suppressed.
+ * <p>
+ * Whether a stack trace was already written is decided by the writer thread when the entry is written, so that every
+ * rotated file is readable on its own. When too many exceptions are tracked the history is cleared, the suppressed
+ * counts that are still pending are written first and the stack traces are written again after the clear.
  */
 public class LogHandler {
 	private static final String LOG_FILE_NAME = "exceptions.log";
+	private static final int QUEUE_CAPACITY = 16 * 1024;
+	private static final int MAX_BATCH_SIZE = 256;
+	private static final long FLUSH_INTERVAL_MILLIS = 500;
+	private static final long MAX_FILE_SIZE = 64L * 1024 * 1024;
+	private static final long RATE_LIMIT_WINDOW_MILLIS = 1000;
+	private static final int MAX_TRACKED_EXCEPTIONS = 10_000;
 	private static final LogHandler INSTANCE = new LogHandler();
-	private PrintWriter logFile;
+
+	private final ConcurrentHashMap<Long, ExceptionHistory> history = new ConcurrentHashMap<>();
+	private final AtomicLong historyGeneration = new AtomicLong();
+	private final long rateLimitWindowMillis;
+	private final int maxTrackedExceptions;
+	private BatchingLogWriter logFile;
+
+	/* Only used by the writer thread. */
+	private final Set<Long> writtenStackTraces = new HashSet<>();
+	private long writtenFileNumber;
+	private long writtenGeneration;
 
 	/**
 	 * Returns the singleton instance of LogHandler.
-	 * 
+	 *
 	 * @return The singleton instance of LogHandler.
 	 */
 	public static LogHandler getLogger() {
@@ -24,8 +53,33 @@ public class LogHandler {
 	}
 
 	private LogHandler() {
+		this(Path.of(LOG_FILE_NAME), RATE_LIMIT_WINDOW_MILLIS);
+	}
+
+	/**
+	 * Creates a logger that writes to the specified file.
+	 *
+	 * @param logFilePath           The log file.
+	 * @param rateLimitWindowMillis The time during which identical exceptions are only logged once.
+	 */
+	LogHandler(Path logFilePath, long rateLimitWindowMillis) {
+		this(logFilePath, rateLimitWindowMillis, MAX_FILE_SIZE, MAX_TRACKED_EXCEPTIONS);
+	}
+
+	/**
+	 * Creates a logger that writes to the specified file, with the specified limits.
+	 *
+	 * @param logFilePath           The log file.
+	 * @param rateLimitWindowMillis The time during which identical exceptions are only logged once.
+	 * @param maxFileSize           The size in bytes after which the log file is rotated.
+	 * @param maxTrackedExceptions  The number of distinct exceptions after which the history is cleared.
+	 */
+	LogHandler(Path logFilePath, long rateLimitWindowMillis, long maxFileSize, int maxTrackedExceptions) {
+		this.rateLimitWindowMillis = rateLimitWindowMillis;
+		this.maxTrackedExceptions = maxTrackedExceptions;
 		try {
-			logFile = new PrintWriter(new FileWriter(LOG_FILE_NAME, true), true);
+			logFile = new BatchingLogWriter(logFilePath, QUEUE_CAPACITY, MAX_BATCH_SIZE, FLUSH_INTERVAL_MILLIS,
+					maxFileSize);
 		} catch (IOException e) {
 			System.out.println("Could not create exception logger or file.");
 			e.printStackTrace();
@@ -33,20 +87,162 @@ public class LogHandler {
 	}
 
 	/**
-	 * Writes a log entry describing a thrown exception.
-	 * 
+	 * Writes a log entry describing a thrown exception. This method does not wait for the entry to be written.
+	 *
 	 * @param exception The exception that shall be logged.
 	 */
 	public void logException(Exception exception) {
-		String logMessage = "%s, Exception was thrown: %s".formatted(createTime(), exception.getMessage());
-		logFile.println(logMessage);
-		exception.printStackTrace(logFile);
-		logFile.println("\n");
+		if (logFile == null) {
+			return;
+		}
+		long stackHash = hashStackTrace(exception);
+		long entryHash = 31 * stackHash + String.valueOf(exception.getMessage()).hashCode();
+		long now = System.currentTimeMillis();
+
+		if (history.size() >= maxTrackedExceptions) {
+			clearHistory();
+		}
+		long suppressed = history.computeIfAbsent(entryHash, hash -> new ExceptionHistory(exception, stackHash))
+				.tryLog(now, rateLimitWindowMillis);
+		if (suppressed < 0) {
+			return;
+		}
+		write(exception, stackHash, suppressed);
+	}
+
+	/* Writes the pending suppressed counts as their own entries, so that they are not lost with the history. */
+	private void clearHistory() {
+		synchronized (history) {
+			if (history.size() < maxTrackedExceptions) {
+				return;
+			}
+			for (ExceptionHistory exceptionHistory : history.values()) {
+				long suppressed = exceptionHistory.takeSuppressed();
+				if (suppressed > 0) {
+					write(exceptionHistory.exception, exceptionHistory.stackHash, suppressed);
+				}
+			}
+			history.clear();
+			historyGeneration.incrementAndGet();
+		}
+	}
+
+	private void write(Exception exception, long stackHash, long suppressed) {
+		String time = CachedClock.now();
+		long generation = historyGeneration.get();
+		logFile.write(fileNumber -> createEntry(time, exception, stackHash, suppressed,
+				isFirstInFile(stackHash, fileNumber, generation) ? stackTraceOf(exception) : null));
+	}
+
+	/* Called by the writer thread, the written stack traces are forgotten when the file rotates or history is cleared. */
+	private boolean isFirstInFile(long stackHash, long fileNumber, long generation) {
+		if (fileNumber != writtenFileNumber || generation > writtenGeneration) {
+			writtenStackTraces.clear();
+			writtenFileNumber = fileNumber;
+			writtenGeneration = Math.max(generation, writtenGeneration);
+		}
+		return writtenStackTraces.add(stackHash);
+	}
+
+	/**
+	 * Writes all pending entries and closes the log file.
+	 */
+	void close() {
+		if (logFile != null) {
+			logFile.close();
+		}
+	}
+
+	private static String createEntry(String time, Exception exception, long stackHash, long suppressed,
+			String stackTrace) {
+		StringBuilder entry = new StringBuilder(256);
+		entry.append("{\"time\":\"").append(time).append('"');
+		entry.append(",\"exception\":");
+		appendJsonString(entry, exception.getClass().getName());
+		entry.append(",\"message\":");
+		appendJsonString(entry, exception.getMessage());
+		entry.append(",\"stackHash\":\"").append(Long.toHexString(stackHash)).append('"');
+		if (suppressed > 0) {
+			entry.append(",\"suppressed\":").append(suppressed);
+		}
+		if (stackTrace != null) {
+			entry.append(",\"stackTrace\":");
+			appendJsonString(entry, stackTrace);
+		}
+		return entry.append('}').toString();
+	}
+
+	private static long hashStackTrace(Throwable exception) {
+		long hash = 17;
+		Set<Throwable> hashed = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Throwable current = exception; current != null && hashed.add(current); current = current.getCause()) {
+			hash = 31 * hash + current.getClass().getName().hashCode();
+			for (StackTraceElement frame : current.getStackTrace()) {
+				hash = 31 * hash + frame.getClassName().hashCode();
+				hash = 31 * hash + frame.getMethodName().hashCode();
+				hash = 31 * hash + frame.getLineNumber();
+			}
+		}
+		return hash;
 	}
 
-	private String createTime() {
-		LocalDateTime now = LocalDateTime.now();
-		DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-		return now.format(formatter);
+	private static String stackTraceOf(Exception exception) {
+		StringWriter stackTrace = new StringWriter();
+		exception.printStackTrace(new PrintWriter(stackTrace));
+		return stackTrace.toString();
+	}
+
+	private static void appendJsonString(StringBuilder json, String value) {
+		if (value == null) {
+			json.append("null");
+			return;
+		}
+		json.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"' -> json.append("\\\"");
+			case '\\' -> json.append("\\\\");
+			case '\n' -> json.append("\\n");
+			case '\r' -> json.append("\\r");
+			case '\t' -> json.append("\\t");
+			default -> {
+				if (c < 0x20) {
+					json.append("\\u%04x".formatted((int) c));
+				} else {
+					json.append(c);
+				}
+			}
+			}
+		}
+		json.append('"');
+	}
+
+	private static class ExceptionHistory {
+		private final Exception exception;
+		private final long stackHash;
+		private final AtomicLong lastLoggedMillis = new AtomicLong(Long.MIN_VALUE);
+		private final AtomicLong suppressedCount = new AtomicLong();
+
+		ExceptionHistory(Exception exception, long stackHash) {
+			this.exception = exception;
+			this.stackHash = stackHash;
+		}
+
+		/* Returns the number of occurrences suppressed since the last entry, or -1 if this one is suppressed too. */
+		long tryLog(long now, long windowMillis) {
+			long lastLogged = lastLoggedMillis.get();
+			if (lastLogged != Long.MIN_VALUE && now - lastLogged < windowMillis
+					|| !lastLoggedMillis.compareAndSet(lastLogged, now)) {
+				suppressedCount.incrementAndGet();
+				return -1;
+			}
+			return suppressedCount.getAndSet(0);
+		}
+
+		/* Returns the number of occurrences suppressed since the last entry, and starts counting again. */
+		long takeSuppressed() {
+			return suppressedCount.getAndSet(0);
+		}
 	}
 }
@@ -2,23 +2,119 @@ package util;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.Locale;
 
 /**
  * This class contains utility methods for string formatting.
+ * <p>
+ * Amounts of money are formatted with two decimal places, rounded half up, and a colon as the decimal separator, for
+ * example <code>-12:50</code>. The methods that take an amount as an unscaled <code>long</code> and a scale write the
+ * characters straight into the caller's <code>StringBuilder</code>, <code>char[]</code> or <code>ByteBuffer</code>
+ * and allocate nothing. They keep no state, so they may be called from any thread.
  */
 public class StringUtils {
+	private static final int MAX_SCALE = 18;
+	private static final long[] POWERS_OF_TEN = createPowersOfTen();
+
 	/**
 	 * Formats a BigDecimal to a string with two decimal places, replacing the decimal point with a colon.
-	 * 
+	 *
 	 * @param number The decimal number to format.
 	 * @return The formatted string with a colon instead of a decimal point.
 	 */
 	public static String formatBigDecimalToColon(BigDecimal number) {
+		BigDecimal rounded = number.setScale(2, RoundingMode.HALF_UP);
+		if (rounded.unscaledValue().bitLength() < 64) {
+			long unscaled = rounded.unscaledValue().longValue();
+			return appendColonized(unscaled, 2, new StringBuilder(colonizedLength(unscaled, 2))).toString();
+		}
 		DecimalFormat formatter = getStandardizedDecimalFormatter();
-		return formatter.format(number.setScale(2, RoundingMode.HALF_UP));
+		return formatter.format(rounded);
+	}
+
+	/**
+	 * Returns the number of characters of the formatted amount <code>unscaled * 10^-scale</code>, for example to pad
+	 * it to a column width.
+	 *
+	 * @param unscaled The amount in units of <code>10^-scale</code>.
+	 * @param scale    The number of decimals of the amount, between 0 and 18.
+	 * @return The length of the formatted amount.
+	 */
+	public static int colonizedLength(long unscaled, int scale) {
+		long units = roundedUnits(unscaled, scale);
+		int cents = roundedCents(unscaled, scale);
+		return colonizedLength(units, isNegative(unscaled, units, cents));
+	}
+
+	/**
+	 * Appends the amount <code>unscaled * 10^-scale</code> with two decimal places and a colon as the decimal
+	 * separator.
+	 *
+	 * @param unscaled The amount in units of <code>10^-scale</code>.
+	 * @param scale    The number of decimals of the amount, between 0 and 18.
+	 * @param out      The builder the formatted amount is appended to.
+	 * @return The specified builder.
+	 */
+	public static StringBuilder appendColonized(long unscaled, int scale, StringBuilder out) {
+		long units = roundedUnits(unscaled, scale);
+		int cents = roundedCents(unscaled, scale);
+		boolean negative = isNegative(unscaled, units, cents);
+		int length = colonizedLength(units, negative);
+		for (int i = 0; i < length; i++) {
+			out.append(colonizedCharAt(units, cents, negative, length, i));
+		}
+		return out;
+	}
+
+	/**
+	 * Writes the amount <code>unscaled * 10^-scale</code> with two decimal places and a colon as the decimal separator
+	 * into the array.
+	 *
+	 * @param unscaled The amount in units of <code>10^-scale</code>.
+	 * @param scale    The number of decimals of the amount, between 0 and 18.
+	 * @param out      The array the formatted amount is written to.
+	 * @param offset   The index of the first character to write.
+	 * @return The index after the last written character.
+	 * @throws IndexOutOfBoundsException if the formatted amount does not fit in the array.
+	 */
+	public static int formatColonized(long unscaled, int scale, char[] out, int offset) {
+		long units = roundedUnits(unscaled, scale);
+		int cents = roundedCents(unscaled, scale);
+		boolean negative = isNegative(unscaled, units, cents);
+		int length = colonizedLength(units, negative);
+		if (offset < 0 || length > out.length - offset) {
+			throw new IndexOutOfBoundsException("The formatted amount does not fit at offset " + offset);
+		}
+		for (int i = 0; i < length; i++) {
+			out[offset + i] = colonizedCharAt(units, cents, negative, length, i);
+		}
+		return offset + length;
+	}
+
+	/**
+	 * Writes the amount <code>unscaled * 10^-scale</code> with two decimal places and a colon as the decimal separator
+	 * into the buffer, as ASCII, at its current position.
+	 *
+	 * @param unscaled The amount in units of <code>10^-scale</code>.
+	 * @param scale    The number of decimals of the amount, between 0 and 18.
+	 * @param out      The buffer the formatted amount is written to.
+	 * @throws BufferOverflowException if the formatted amount does not fit in the remaining buffer.
+	 */
+	public static void putColonized(long unscaled, int scale, ByteBuffer out) {
+		long units = roundedUnits(unscaled, scale);
+		int cents = roundedCents(unscaled, scale);
+		boolean negative = isNegative(unscaled, units, cents);
+		int length = colonizedLength(units, negative);
+		if (out.remaining() < length) {
+			throw new BufferOverflowException();
+		}
+		for (int i = 0; i < length; i++) {
+			out.put((byte) colonizedCharAt(units, cents, negative, length, i));
+		}
 	}
 
 	private static DecimalFormat getStandardizedDecimalFormatter() {
@@ -27,4 +123,103 @@ public class StringUtils {
 		DecimalFormat formatter = new DecimalFormat("0.00", symbols);
 		return formatter;
 	}
+
+	/**
+	 * Returns the character at the index of the formatted amount, which has the specified length.
+	 */
+	private static char colonizedCharAt(long units, int cents, boolean negative, int length, int index) {
+		if (negative && index == 0) {
+			return '-';
+		}
+		int fromEnd = length - 1 - index;
+		if (fromEnd < 2) {
+			return (char) ('0' + (fromEnd == 0 ? cents % 10 : cents / 10));
+		}
+		if (fromEnd == 2) {
+			return ':';
+		}
+		long negativeUnits = units > 0 ? -units : units;
+		return (char) ('0' - negativeUnits / POWERS_OF_TEN[fromEnd - 3] % 10);
+	}
+
+	private static int colonizedLength(long units, boolean negative) {
+		return (negative ? 1 : 0) + digitCount(units) + 3;
+	}
+
+	/**
+	 * Returns the whole units of the amount rounded half up to two decimals, with the sign of the amount.
+	 */
+	private static long roundedUnits(long unscaled, int scale) {
+		checkScale(scale);
+		if (scale == 0) {
+			return unscaled;
+		}
+		if (scale == 1) {
+			return unscaled / 10;
+		}
+		return roundedHundredths(unscaled, scale) / 100;
+	}
+
+	/**
+	 * Returns the two decimals of the amount rounded half up, without sign.
+	 */
+	private static int roundedCents(long unscaled, int scale) {
+		checkScale(scale);
+		if (scale == 0) {
+			return 0;
+		}
+		if (scale == 1) {
+			return (int) Math.abs(unscaled % 10) * 10;
+		}
+		return (int) Math.abs(roundedHundredths(unscaled, scale) % 100);
+	}
+
+	/**
+	 * Checks if the rounded amount is below zero, an amount that rounds to zero gets no minus sign.
+	 */
+	private static boolean isNegative(long unscaled, long units, int cents) {
+		return units < 0 || units == 0 && unscaled < 0 && cents != 0;
+	}
+
+	/**
+	 * Rounds to hundredths, for a scale of at least two. The quotient is only adjusted when the divisor is at least
+	 * ten, so the adjustment cannot overflow.
+	 */
+	private static long roundedHundredths(long unscaled, int scale) {
+		long divisor = POWERS_OF_TEN[scale - 2];
+		long quotient = unscaled / divisor;
+		long remainder = Math.abs(unscaled % divisor);
+		if (remainder >= divisor - remainder) {
+			quotient += Long.signum(unscaled);
+		}
+		return quotient;
+	}
+
+	/**
+	 * Returns the number of digits of the whole units, without sign.
+	 */
+	private static int digitCount(long units) {
+		long negativeUnits = units > 0 ? -units : units;
+		int digits = 1;
+		while (negativeUnits <= -10) {
+			negativeUnits /= 10;
+			digits++;
+		}
+		return digits;
+	}
+
+	private static void checkScale(int scale) {
+		if (scale < 0 || scale > MAX_SCALE) {
+			throw new IllegalArgumentException("Scale must be between 0 and " + MAX_SCALE + ": " + scale);
+		}
+	}
+
+	private static long[] createPowersOfTen() {
+		long[] powers = new long[MAX_SCALE + 1];
+		powers[0] = 1;
+		for (int i = 1; i < powers.length; i++) {
+			powers[i] = powers[i - 1] * 10;
+		}
+		return powers;
+	}
 }
@@ -0,0 +1,40 @@
+package util.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count that only grows, for example the number of finished sales. Many threads can increment it without waiting for
+ * each other.
+ */
+public class Counter {
+	private final LongAdder count = new LongAdder();
+
+	/**
+	 * Adds one to the count.
+	 */
+	public void increment() {
+		count.increment();
+	}
+
+	/**
+	 * Adds the specified number to the count.
+	 *
+	 * @param amount The number to add, not negative.
+	 * @throws IllegalArgumentException if the number is negative.
+	 */
+	public void add(long amount) {
+		if (amount < 0) {
+			throw new IllegalArgumentException("A counter cannot decrease, got %d".formatted(amount));
+		}
+		count.add(amount);
+	}
+
+	/**
+	 * Returns the current count.
+	 *
+	 * @return The count.
+	 */
+	public long get() {
+		return count.sum();
+	}
+}
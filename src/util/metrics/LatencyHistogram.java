@@ -0,0 +1,162 @@
+package util.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records latencies in nanoseconds into buckets of logarithmically growing width, in the style of an HDR histogram.
+ * Values below 128 ns have a bucket each, larger values share a bucket with values that differ by less than 1/64 of
+ * the value, so percentiles are accurate to within about 1.6%. Values of 2<sup>40</sup> ns (about 18 minutes) or more
+ * are recorded as the largest value.
+ * <p>
+ * Recording is one increment of a bucket counter and one add to the total, without locks, so many threads can record
+ * into the same histogram. The buckets of one power of two are allocated the first time a value in that range is
+ * recorded, so a histogram only takes memory for the ranges its latencies actually fall in. Percentiles are read from
+ * a {@link Snapshot}.
+ */
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 7;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final long MAX_VALUE = (1L << 40) - 1;
+	private static final int BUCKET_COUNT = indexOf(MAX_VALUE) + 1;
+	private static final int GROUP_BITS = SUB_BUCKET_BITS - 1;
+	private static final int GROUP_SIZE = 1 << GROUP_BITS;
+
+	private final AtomicReferenceArray<AtomicLongArray> groups = new AtomicReferenceArray<>(
+			(BUCKET_COUNT + GROUP_SIZE - 1) / GROUP_SIZE);
+	private final LongAdder totalNanos = new LongAdder();
+
+	/**
+	 * Records one latency. Negative values are recorded as zero.
+	 *
+	 * @param nanos The latency in nanoseconds.
+	 */
+	public void record(long nanos) {
+		long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+		int index = indexOf(value);
+		AtomicLongArray group = groups.get(index >>> GROUP_BITS);
+		if (group == null) {
+			group = createGroup(index >>> GROUP_BITS);
+		}
+		group.incrementAndGet(index & (GROUP_SIZE - 1));
+		totalNanos.add(value);
+	}
+
+	/**
+	 * Records the time that has passed since the specified start time.
+	 *
+	 * @param startNanos The start time, read from {@link System#nanoTime()}.
+	 */
+	public void recordSince(long startNanos) {
+		record(System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * Returns a copy of the recorded values. Values recorded while the copy is made may be left out of some of its
+	 * counts.
+	 *
+	 * @return The snapshot of the histogram.
+	 */
+	public Snapshot snapshot() {
+		long[] copy = new long[BUCKET_COUNT];
+		for (int groupIndex = 0; groupIndex < groups.length(); groupIndex++) {
+			AtomicLongArray group = groups.get(groupIndex);
+			for (int i = 0; group != null && i < GROUP_SIZE && groupIndex * GROUP_SIZE + i < BUCKET_COUNT; i++) {
+				copy[groupIndex * GROUP_SIZE + i] = group.get(i);
+			}
+		}
+		return new Snapshot(copy, totalNanos.sum());
+	}
+
+	private AtomicLongArray createGroup(int groupIndex) {
+		groups.compareAndSet(groupIndex, null, new AtomicLongArray(GROUP_SIZE));
+		return groups.get(groupIndex);
+	}
+
+	static int indexOf(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+		return (shift << (SUB_BUCKET_BITS - 1)) + (int) (value >>> shift);
+	}
+
+	static long highestValueOf(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = (index >>> (SUB_BUCKET_BITS - 1)) - 1;
+		long subBucket = index - ((long) shift << (SUB_BUCKET_BITS - 1));
+		return (subBucket << shift) + (1L << shift) - 1;
+	}
+
+	/**
+	 * The values of a histogram at one point in time.
+	 */
+	public static final class Snapshot {
+		private final long[] counts;
+		private final long count;
+		private final long totalNanos;
+
+		private Snapshot(long[] counts, long totalNanos) {
+			this.counts = counts;
+			this.totalNanos = totalNanos;
+			long sum = 0;
+			for (long bucketCount : counts) {
+				sum += bucketCount;
+			}
+			this.count = sum;
+		}
+
+		/**
+		 * Returns the number of recorded values.
+		 *
+		 * @return The number of values.
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * Returns the sum of all recorded values.
+		 *
+		 * @return The sum in nanoseconds.
+		 */
+		public long getTotalNanos() {
+			return totalNanos;
+		}
+
+		/**
+		 * Returns the latency that the specified percentage of the recorded values are at or below, rounded up to the
+		 * highest value of its bucket.
+		 *
+		 * @param percentile The percentage, between 0 and 100.
+		 * @return The latency in nanoseconds, 0 if nothing was recorded.
+		 */
+		public long getValueAtPercentile(double percentile) {
+			if (count == 0) {
+				return 0;
+			}
+			double fraction = Math.min(Math.max(percentile, 0), 100) / 100;
+			long rank = Math.max(1, (long) Math.ceil(fraction * count));
+			long seen = 0;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= rank) {
+					return highestValueOf(i);
+				}
+			}
+			return highestValueOf(counts.length - 1);
+		}
+
+		/**
+		 * Returns the largest recorded latency, rounded up to the highest value of its bucket.
+		 *
+		 * @return The latency in nanoseconds, 0 if nothing was recorded.
+		 */
+		public long getMaxNanos() {
+			return getValueAtPercentile(100);
+		}
+	}
+}
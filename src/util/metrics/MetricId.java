@@ -0,0 +1,34 @@
+package util.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The name and labels that identify a metric, for example <code>pos_operation_latency_seconds</code> with the labels
+ * <code>operation=enterItem</code> and <code>lane=1</code>.
+ *
+ * @param name   The name of the metric.
+ * @param labels The label values by label name, in the order they were given.
+ */
+public record MetricId(String name, Map<String, String> labels) {
+	/**
+	 * Creates an ID from a name and alternating label names and values.
+	 *
+	 * @param name                The name of the metric.
+	 * @param labelNamesAndValues The label names, each followed by its value.
+	 * @return The ID.
+	 * @throws IllegalArgumentException if a label name has no value.
+	 */
+	public static MetricId of(String name, String... labelNamesAndValues) {
+		if (labelNamesAndValues.length % 2 != 0) {
+			throw new IllegalArgumentException("Label '%s' of metric '%s' has no value"
+					.formatted(labelNamesAndValues[labelNamesAndValues.length - 1], name));
+		}
+		LinkedHashMap<String, String> labels = new LinkedHashMap<>();
+		for (int i = 0; i < labelNamesAndValues.length; i += 2) {
+			labels.put(labelNamesAndValues[i], labelNamesAndValues[i + 1]);
+		}
+		return new MetricId(name, Collections.unmodifiableMap(labels));
+	}
+}
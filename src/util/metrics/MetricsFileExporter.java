@@ -0,0 +1,97 @@
+package util.metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+
+import util.LogHandler;
+
+/**
+ * Dumps the metrics of a registry to a file in the {@link PrometheusTextFormat}, at a fixed interval on a background
+ * thread and once more when the exporter is closed. Each dump replaces the whole file, readers never see a partly
+ * written dump.
+ */
+public class MetricsFileExporter implements AutoCloseable {
+	private final MetricsRegistry registry;
+	private final Path file;
+	private final Path tempFile;
+	private final long intervalMillis;
+	private final Thread exporterThread;
+	private volatile boolean closed;
+
+	/**
+	 * Starts dumping the metrics of the registry to the specified file.
+	 *
+	 * @param registry The registry to dump.
+	 * @param file     The file to write.
+	 * @param interval The time between two dumps.
+	 */
+	public MetricsFileExporter(MetricsRegistry registry, Path file, Duration interval) {
+		this.registry = registry;
+		this.file = file;
+		this.tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+		this.intervalMillis = interval.toMillis();
+
+		exporterThread = new Thread(this::exportLoop, "metrics-exporter-" + file.getFileName());
+		exporterThread.setDaemon(true);
+		exporterThread.start();
+	}
+
+	/**
+	 * Dumps the current metrics to the file.
+	 *
+	 * @throws UncheckedIOException if the file could not be written.
+	 */
+	public synchronized void export() {
+		try {
+			Files.writeString(tempFile, PrometheusTextFormat.write(registry), StandardCharsets.UTF_8);
+			try {
+				Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not write the metrics file", e);
+		}
+	}
+
+	/**
+	 * Stops the background thread and dumps the metrics a last time.
+	 *
+	 * @throws UncheckedIOException if the file could not be written.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		exporterThread.interrupt();
+		try {
+			exporterThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		export();
+	}
+
+	private void exportLoop() {
+		while (!closed) {
+			try {
+				Thread.sleep(intervalMillis);
+			} catch (InterruptedException e) {
+				return;
+			}
+			try {
+				export();
+			} catch (UncheckedIOException e) {
+				LogHandler.getLogger().logException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package util.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Holds the metrics of the application: counters, gauges and latency histograms, each identified by a name and labels.
+ * Asking for a counter or histogram that does not exist yet creates it, so callers do not need to register metrics
+ * before use. Looking a metric up costs a map lookup, callers that record often should keep the metric they got.
+ * <p>
+ * The registry does not publish its metrics, exporters such as {@link MetricsFileExporter} and
+ * {@link PrometheusEndpoint} read them when they publish.
+ */
+public class MetricsRegistry {
+	private final ConcurrentHashMap<MetricId, Counter> counters = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<MetricId, DoubleSupplier> gauges = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<MetricId, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the counter with the specified name and labels, creating it if needed.
+	 *
+	 * @param name                The name of the counter.
+	 * @param labelNamesAndValues The label names, each followed by its value.
+	 * @return The counter.
+	 */
+	public Counter counter(String name, String... labelNamesAndValues) {
+		return counters.computeIfAbsent(MetricId.of(name, labelNamesAndValues), newId -> new Counter());
+	}
+
+	/**
+	 * Registers a gauge, a value that is read when the metrics are published, for example a queue depth. A gauge with
+	 * the same name and labels is replaced.
+	 *
+	 * @param name                The name of the gauge.
+	 * @param value               Reads the current value.
+	 * @param labelNamesAndValues The label names, each followed by its value.
+	 */
+	public void gauge(String name, DoubleSupplier value, String... labelNamesAndValues) {
+		gauges.put(MetricId.of(name, labelNamesAndValues), value);
+	}
+
+	/**
+	 * Returns the latency histogram with the specified name and labels, creating it if needed.
+	 *
+	 * @param name                The name of the histogram.
+	 * @param labelNamesAndValues The label names, each followed by its value.
+	 * @return The histogram.
+	 */
+	public LatencyHistogram histogram(String name, String... labelNamesAndValues) {
+		return histograms.computeIfAbsent(MetricId.of(name, labelNamesAndValues), newId -> new LatencyHistogram());
+	}
+
+	/**
+	 * Returns all counters.
+	 *
+	 * @return The counters by ID, in no particular order.
+	 */
+	public Map<MetricId, Counter> getCounters() {
+		return Collections.unmodifiableMap(counters);
+	}
+
+	/**
+	 * Returns all gauges.
+	 *
+	 * @return The gauges by ID, in no particular order.
+	 */
+	public Map<MetricId, DoubleSupplier> getGauges() {
+		return Collections.unmodifiableMap(gauges);
+	}
+
+	/**
+	 * Returns all latency histograms.
+	 *
+	 * @return The histograms by ID, in no particular order.
+	 */
+	public Map<MetricId, LatencyHistogram> getHistograms() {
+		return Collections.unmodifiableMap(histograms);
+	}
+}
@@ -0,0 +1,100 @@
+package util.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the metrics of a registry over HTTP at <code>/metrics</code>, in the {@link PrometheusTextFormat}, so that a
+ * Prometheus server can scrape them. The metrics are read when they are requested. Requests are handled by one
+ * background thread.
+ */
+public class PrometheusEndpoint implements AutoCloseable {
+	private static final String PATH = "/metrics";
+
+	private final MetricsRegistry registry;
+	private final HttpServer server;
+	private final ExecutorService executor;
+
+	/**
+	 * Starts serving the metrics on the specified port of the loopback address.
+	 *
+	 * @param registry The registry to serve.
+	 * @param port     The port, 0 picks a free port.
+	 * @throws UncheckedIOException if the port could not be opened.
+	 */
+	public PrometheusEndpoint(MetricsRegistry registry, int port) {
+		this(registry, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+	}
+
+	/**
+	 * Starts serving the metrics on the specified address.
+	 *
+	 * @param registry The registry to serve.
+	 * @param address  The address and port to listen on.
+	 * @throws UncheckedIOException if the port could not be opened.
+	 */
+	public PrometheusEndpoint(MetricsRegistry registry, InetSocketAddress address) {
+		this.registry = registry;
+		try {
+			server = HttpServer.create(address, 0);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not open the metrics endpoint", e);
+		}
+		executor = Executors.newSingleThreadExecutor(task -> {
+			Thread thread = new Thread(task, "metrics-endpoint");
+			thread.setDaemon(true);
+			return thread;
+		});
+		server.createContext(PATH, this::handle);
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	/**
+	 * Returns the port the endpoint listens on, for example when it was started on port 0.
+	 *
+	 * @return The port.
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * Stops serving the metrics.
+	 */
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdown();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			String method = exchange.getRequestMethod();
+			if (!method.equals("GET") && !method.equals("HEAD")) {
+				exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+			byte[] body = PrometheusTextFormat.write(registry).getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", PrometheusTextFormat.CONTENT_TYPE);
+			if (method.equals("HEAD")) {
+				exchange.sendResponseHeaders(200, -1);
+				return;
+			}
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package util.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Writes the metrics of a registry in the Prometheus text exposition format. Counters and gauges are written as they
+ * are, latency histograms are written as summaries in seconds with the quantiles 0.5, 0.9, 0.99 and 0.999. Metrics are
+ * sorted by name and labels, so that all samples of one metric are written together.
+ */
+public final class PrometheusTextFormat {
+	/**
+	 * The content type of the format, for HTTP responses.
+	 */
+	public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+	private static final double NANOS_PER_SECOND = 1e9;
+	private static final Comparator<MetricId> ORDER = Comparator.comparing(MetricId::name)
+			.thenComparing(id -> id.labels().toString());
+
+	private PrometheusTextFormat() {
+	}
+
+	/**
+	 * Writes all metrics of the registry.
+	 *
+	 * @param registry The registry to write.
+	 * @param out      Receives the text.
+	 */
+	public static void write(MetricsRegistry registry, StringBuilder out) {
+		String previousName = null;
+		for (Map.Entry<MetricId, Counter> counter : sorted(registry.getCounters())) {
+			previousName = writeType(counter.getKey(), "counter", previousName, out);
+			writeSample(counter.getKey().name(), counter.getKey(), null, counter.getValue().get(), out);
+		}
+		previousName = null;
+		for (Map.Entry<MetricId, DoubleSupplier> gauge : sorted(registry.getGauges())) {
+			previousName = writeType(gauge.getKey(), "gauge", previousName, out);
+			writeSample(gauge.getKey().name(), gauge.getKey(), null, gauge.getValue().getAsDouble(), out);
+		}
+		previousName = null;
+		for (Map.Entry<MetricId, LatencyHistogram> histogram : sorted(registry.getHistograms())) {
+			MetricId id = histogram.getKey();
+			previousName = writeType(id, "summary", previousName, out);
+			LatencyHistogram.Snapshot snapshot = histogram.getValue().snapshot();
+			for (double quantile : QUANTILES) {
+				writeSample(id.name(), id, String.valueOf(quantile),
+						snapshot.getValueAtPercentile(quantile * 100) / NANOS_PER_SECOND, out);
+			}
+			writeSample(id.name() + "_sum", id, null, snapshot.getTotalNanos() / NANOS_PER_SECOND, out);
+			writeSample(id.name() + "_count", id, null, snapshot.getCount(), out);
+		}
+	}
+
+	/**
+	 * Writes all metrics of the registry.
+	 *
+	 * @param registry The registry to write.
+	 * @return The text.
+	 */
+	public static String write(MetricsRegistry registry) {
+		StringBuilder out = new StringBuilder();
+		write(registry, out);
+		return out.toString();
+	}
+
+	private static <T> List<Map.Entry<MetricId, T>> sorted(Map<MetricId, T> metrics) {
+		List<Map.Entry<MetricId, T>> entries = new ArrayList<>(metrics.entrySet());
+		entries.sort(Map.Entry.comparingByKey(ORDER));
+		return entries;
+	}
+
+	private static String writeType(MetricId id, String type, String previousName, StringBuilder out) {
+		if (!id.name().equals(previousName)) {
+			out.append("# TYPE ").append(id.name()).append(' ').append(type).append('\n');
+		}
+		return id.name();
+	}
+
+	private static void writeSample(String name, MetricId id, String quantile, double value, StringBuilder out) {
+		out.append(name);
+		if (!id.labels().isEmpty() || quantile != null) {
+			out.append('{');
+			String separator = "";
+			for (Map.Entry<String, String> label : id.labels().entrySet()) {
+				out.append(separator);
+				writeLabel(label.getKey(), label.getValue(), out);
+				separator = ",";
+			}
+			if (quantile != null) {
+				out.append(separator);
+				writeLabel("quantile", quantile, out);
+			}
+			out.append('}');
+		}
+		out.append(' ');
+		if (Double.isInfinite(value)) {
+			out.append(value > 0 ? "+Inf" : "-Inf");
+		} else if (value == (long) value) {
+			out.append((long) value);
+		} else {
+			out.append(value);
+		}
+		out.append('\n');
+	}
+
+	private static void writeLabel(String name, String value, StringBuilder out) {
+		out.append(name).append("=\"");
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '\\' -> out.append("\\\\");
+				case '"' -> out.append("\\\"");
+				case '\n' -> out.append("\\n");
+				default -> out.append(c);
+			}
+		}
+		out.append('"');
+	}
+}
@@ -1,26 +1,41 @@
 package view;
 
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.nio.file.Path;
+
 import observer.AbstractTotalRevenueObserver;
+import util.BatchingLogWriter;
+import util.CachedClock;
 
 /**
- * Observer that prints the total revenue to a file.
+ * Observer that prints the total revenue to a file. Lines are written in batches by a background writer, and the file
+ * is rotated when it grows too large or the date changes.
  */
 public class TotalRevenueFileOutput extends AbstractTotalRevenueObserver {
     private static final String REVENUE_FILE_NAME = "total_revenue.log";
-    private PrintWriter revenueFile;
+    private static final int QUEUE_CAPACITY = 64 * 1024;
+    private static final int MAX_BATCH_SIZE = 4096;
+    private static final long FLUSH_INTERVAL_MILLIS = 200;
+    private static final long MAX_FILE_SIZE = 64L * 1024 * 1024;
+    private BatchingLogWriter revenueFile;
 
 	/**
 	 * Constructor for the class, creates a new file writer and prints the total revenue to the file
 	 */
     public TotalRevenueFileOutput() {
+        this(Path.of(REVENUE_FILE_NAME));
+    }
+
+	/**
+	 * Creates an observer that prints the total revenue to the specified file
+	 * 
+	 * @param revenueFilePath the file to print the total revenue to
+	 */
+    public TotalRevenueFileOutput(Path revenueFilePath) {
         super();
         try {
-            revenueFile = new PrintWriter(new FileWriter(REVENUE_FILE_NAME, true), true);
+            revenueFile = new BatchingLogWriter(revenueFilePath, QUEUE_CAPACITY, MAX_BATCH_SIZE,
+                    FLUSH_INTERVAL_MILLIS, MAX_FILE_SIZE);
         } catch (IOException e) {
             System.out.println("Could not create revenue log file.");
             e.printStackTrace();
@@ -28,14 +43,14 @@ public class TotalRevenueFileOutput extends AbstractTotalRevenueObserver {
     }
 
 	/**
-	 * Prints the total revenue to the file
+	 * Prints the total revenue to the file. Each line holds the running total, so a line dropped when the writer is
+	 * overloaded is covered by the next one.
 	 * 
 	 * @throws Exception if cannot write to file
 	 */
     @Override
     protected void doShowTotalIncome() throws Exception {
-        String logMessage = "%s, Total Revenue: %s SEK".formatted(createTime(), totalRevenue.colonized());
-        revenueFile.println(logMessage);
+        revenueFile.write(CachedClock.now() + ", Total Revenue: " + getTotalRevenue().colonized() + " SEK");
     }
 
 	/**
@@ -48,9 +63,10 @@ public class TotalRevenueFileOutput extends AbstractTotalRevenueObserver {
         System.err.println("Error writing to revenue log file: " + e.getMessage());
     }
 
-    private String createTime() {
-        LocalDateTime now = LocalDateTime.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        return now.format(formatter);
+	/**
+	 * Writes all pending lines and closes the revenue log file
+	 */
+    public void close() {
+        revenueFile.close();
     }
 }
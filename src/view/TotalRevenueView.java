@@ -1,6 +1,7 @@
 package view;
 
 import observer.AbstractTotalRevenueObserver;
+import observer.RevenueTotals;
 
 /**
  * Observer that prints the total revenue to the console.
@@ -13,6 +14,15 @@ public class TotalRevenueView extends AbstractTotalRevenueObserver {
         super();
     }
 
+    /**
+     * Creates a view that shows the total of the specified revenue totals
+     * 
+     * @param sharedTotals the revenue totals to show
+     */
+    public TotalRevenueView(RevenueTotals sharedTotals) {
+        super(sharedTotals);
+    }
+
     /**
 	 * Prints the total revenue to the console
      */
@@ -20,7 +30,7 @@ public class TotalRevenueView extends AbstractTotalRevenueObserver {
     protected void doShowTotalIncome() throws Exception {
         System.out.println("""
                 Total Revenue: %s SEK
-                """.formatted(totalRevenue.colonized()));
+                """.formatted(getTotalRevenue().colonized()));
     }
 
     /**
@@ -21,7 +21,7 @@ public class View {
 	 */
 	public View(Controller controller) {
 		this.controller = controller;
-		controller.registerObserver(new TotalRevenueView());
+		controller.registerObserver(new TotalRevenueView(controller.getRevenueTotals()));
 		controller.registerObserver(new TotalRevenueFileOutput());
 	}
 
@@ -96,16 +96,18 @@ public class View {
 	private void displayRunningInfo(SaleInfoDTO saleInfo) {
 		ItemDTO currentItem = saleInfo.currentItem();
 
+		int quantity = saleInfo.quantity();
+		String items = quantity == 1 ? "item" : "items";
 		String id = currentItem.id();
 		String name = currentItem.name();
-		String price = currentItem.price().colonized();
+		String price = currentItem.fullPrice().colonized();
 		String vat = currentItem.vat().multiply(new Amount("100")).colonized();
 		String description = currentItem.description();
 		String totalPrice = saleInfo.totalPrice().colonized();
 		String totalVat = saleInfo.totalVat().colonized();
 
 		System.out.println("""
-				Add 1 item with item id %s:
+				Add %d %s with item id %s:
 				Item ID: %s
 				Item name: %s
 				Item cost: %s SEK
@@ -114,7 +116,7 @@ public class View {
 
 				Total cost (incl VAT): %s SEK
 				Total VAT: %s SEK
-				""".formatted(id, id, name, price, vat, description, totalPrice, totalVat));
+				""".formatted(quantity, items, id, id, name, price, vat, description, totalPrice, totalVat));
 	}
 
 	private void displayEndSaleInfo(Amount totalPrice) {
@@ -2,15 +2,41 @@ package controller;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 
+import dto.BatchEntryDTO;
+import dto.ItemDTO;
+import dto.SaleDTO;
+import dto.SaleLineDTO;
 import dto.SaleInfoDTO;
+import integration.AccountingSystem;
+import integration.DiscountCatalog;
+import integration.InventorySystem;
 import integration.ItemNotFoundException;
+import integration.Printer;
+import integration.SaleQueue;
+import integration.analytics.SettlementReport;
 import model.Amount;
+import model.discount.DiscountFactory;
+import util.metrics.LatencyHistogram;
+import util.metrics.MetricsRegistry;
 
 public class ControllerTest {
+	@TempDir
+	private Path tempDir;
+
 	private Controller controller;
 
 	private ByteArrayOutputStream printoutBuffer;
@@ -18,7 +44,7 @@ public class ControllerTest {
 
 	@BeforeEach
 	public void setUp() {
-		controller = new Controller();
+		controller = new Controller(tempDir);
 
 		printoutBuffer = new ByteArrayOutputStream();
 		PrintStream inMemSysOut = new PrintStream(printoutBuffer);
@@ -28,6 +54,7 @@ public class ControllerTest {
 
 	@AfterEach
 	public void tearDown() {
+		controller.shutdown();
 		controller = null;
 
 		printoutBuffer = null;
@@ -53,6 +80,42 @@ public class ControllerTest {
 		assertNotNull(saleInfo.currentItem(), "Current item in SaleInfoDTO should not be null.");
 	}
 
+	@Test
+	public void testEnterItemWithQuantity() throws ItemNotFoundException {
+		controller.startSale();
+		controller.enterItem("abc123");
+
+		SaleInfoDTO saleInfo = controller.enterItem("abc123", 3);
+
+		assertEquals(3, saleInfo.quantity(), "SaleInfoDTO should contain the entered quantity.");
+		assertEquals(new Amount("119.60"), saleInfo.totalPrice().rounded(), "Running total should include all four items.");
+	}
+
+	@Test
+	public void testEnterItems() {
+		controller.startSale();
+
+		BatchEntryDTO result = controller.enterItems(List.of("abc123", "nonExistentItem", "abc123", "def456"));
+
+		assertEquals(3, result.enteredItemCount(), "Every known item should be entered.");
+		assertEquals(List.of("nonExistentItem"), result.notFoundItemIds(), "The unknown item should be reported.");
+		assertTrue(result.unavailableItemIds().isEmpty(), "No item should be unavailable.");
+		assertEquals(new Amount("74.70"), result.totalPrice().rounded(), "Running total should include all three items.");
+	}
+
+	@Test
+	public void testEnterItemsWhenDatabaseFails() throws ItemNotFoundException {
+		controller.startSale();
+		controller.enterItem("abc123");
+
+		BatchEntryDTO result = controller.enterItems(List.of("abc123", "fail114514"));
+
+		assertEquals(1, result.enteredItemCount(), "The cached item should still be entered.");
+		assertEquals(List.of("fail114514"), result.unavailableItemIds(),
+				"The item that could not be looked up should be reported.");
+		assertEquals(new Amount("59.80"), result.totalPrice().rounded(), "Running total should include both items.");
+	}
+
 	@Test
 	public void testEnterInvalidItem() {
 		controller.startSale();
@@ -99,4 +162,134 @@ public class ControllerTest {
 		assertEquals(0, totalPrice.compareTo(expectedTotalPrice), "Total Price should be 74.70 SEK.");
 		assertEquals(0, change.compareTo(expectedChange), "Change should be 25.30 SEK.");
 	}
+
+	@Test
+	public void testPaymentAfterDiscountWithoutEndSale() throws ItemNotFoundException {
+		controller.startSale();
+		controller.enterItem("abc123");
+
+		Amount discountedPrice = controller.requestDiscount(114514);
+		Amount change = controller.finalizeSaleWithPayment(new Amount("100"));
+
+		assertTrue(discountedPrice.compareTo(new Amount("29.90")) < 0, "The customer discount should be applied.");
+		assertEquals(new Amount("100").subtract(discountedPrice).rounded(), change,
+				"Change should be the paid amount minus the discounted price.");
+	}
+
+	@Test
+	public void testLanesHaveSeparateSales() throws ItemNotFoundException {
+		controller.startSale("lane1");
+		controller.startSale("lane2");
+
+		controller.enterItem("lane1", "abc123");
+		controller.enterItem("lane2", "def456");
+		controller.enterItem("lane2", "def456");
+
+		assertEquals(new Amount("29.90"), controller.endSale("lane1"), "Lane 1 should only contain its own item.");
+		assertEquals(new Amount("29.80"), controller.endSale("lane2"), "Lane 2 should only contain its own items.");
+	}
+
+	@Test
+	public void testEnterItemWithoutStartedSale() {
+		assertThrows(IllegalStateException.class, () -> {
+			controller.enterItem("unknownLane", "abc123");
+		});
+	}
+
+	@Test
+	public void testOperationMetricsArePerLane() throws ItemNotFoundException {
+		controller.startSale("lane1");
+		controller.enterItem("lane1", "abc123");
+		controller.enterItem("lane1", "def456");
+		assertThrows(ItemNotFoundException.class, () -> controller.enterItem("lane1", "nonExistentItem"));
+		controller.endSale("lane1");
+		controller.finalizeSaleWithPayment("lane1", new Amount("100"));
+
+		MetricsRegistry metrics = controller.getMetrics();
+		LatencyHistogram.Snapshot enterItem = metrics
+				.histogram("pos_operation_latency_seconds", "operation", "enterItem", "lane", "lane1").snapshot();
+		assertEquals(3, enterItem.getCount(), "Every entered item should be timed.");
+		assertTrue(enterItem.getValueAtPercentile(99) > 0, "Entering an item should take some time.");
+		assertEquals(1, metrics.histogram("pos_operation_latency_seconds", "operation", "receiptPrinting", "lane", "lane1")
+				.snapshot().getCount(), "Printing the receipt should be timed.");
+		assertEquals(1, metrics.counter("pos_items_not_found_total", "lane", "lane1").get(),
+				"The unknown item should be counted.");
+		assertEquals(1, metrics.counter("pos_sales_finished_total", "lane", "lane1").get(),
+				"The finished sale should be counted.");
+	}
+
+	@Test
+	public void testOfflineFirstSalesAreSynced() throws Exception {
+		AccountingSystem accountingSystem = new AccountingSystem(tempDir.resolve("offline.journal"));
+		InventorySystem inventorySystem = new InventorySystem();
+		Controller offlineController = new Controller(accountingSystem, inventorySystem, inventorySystem,
+				new DiscountFactory(new DiscountCatalog()), new Printer(), null, new SaleQueue(tempDir.resolve("queue")));
+		try {
+			offlineController.startSale("lane1");
+			offlineController.enterItem("lane1", "abc123");
+			offlineController.endSale("lane1");
+			offlineController.finalizeSaleWithPayment("lane1", new Amount("100"));
+
+			assertTrue(offlineController.getSaleSyncer().awaitSynced(Duration.ofSeconds(5)),
+					"The queued sale should be synced.");
+			assertEquals(1, accountingSystem.getRecordedSaleCount(), "The synced sale should be accounted.");
+		} finally {
+			offlineController.shutdown();
+		}
+	}
+
+	@Test
+	public void testSettlementReportOnlyIncludesTheRequestedDay() {
+		AccountingSystem accountingSystem = new AccountingSystem(tempDir.resolve("settlement.journal"));
+		Controller settlingController = new Controller(accountingSystem, new InventorySystem(),
+				new DiscountFactory(new DiscountCatalog()), new Printer());
+		try {
+			accountingSystem.account(createSale("2024-02-12T21:55", "lane1", "40.00"));
+			accountingSystem.account(createSale("2024-02-13T08:05", "lane2", "20.00"));
+			accountingSystem.account(createSale("2024-02-13T17:30", "lane2", "30.00")).join();
+
+			SettlementReport report = settlingController.createSettlementReport(LocalDate.parse("2024-02-13"));
+
+			assertEquals(2, report.saleCount(), "Only the sales of the settled day should be included.");
+			assertEquals(new Amount("50.00"), report.revenue(), "Failed to sum the revenue of the settled day.");
+			assertEquals(List.of("lane2"), new ArrayList<>(report.registers().keySet()),
+					"Registers without sales on the settled day should not be listed.");
+		} finally {
+			settlingController.shutdown();
+		}
+	}
+
+	@Test
+	public void testConcurrentLanes() throws Exception {
+		int laneCount = 16;
+		ExecutorService executor = Executors.newFixedThreadPool(laneCount);
+		List<Future<Amount>> changes = new ArrayList<>();
+
+		for (int lane = 0; lane < laneCount; lane++) {
+			String laneId = "lane" + lane;
+			changes.add(executor.submit(() -> {
+				controller.startSale(laneId);
+				for (int i = 0; i < 100; i++) {
+					controller.enterItem(laneId, "abc123");
+					controller.enterItem(laneId, "def456");
+				}
+				controller.endSale(laneId);
+				return controller.finalizeSaleWithPayment(laneId, new Amount("5000"));
+			}));
+		}
+		executor.shutdown();
+
+		for (Future<Amount> change : changes) {
+			assertEquals(new Amount("520.00"), change.get(), "Every lane should get the change for its own sale.");
+		}
+	}
+
+	private SaleDTO createSale(String time, String laneId, String total) {
+		Amount totalPrice = new Amount(total);
+		ArrayList<SaleLineDTO> saleLines = new ArrayList<>();
+		saleLines.add(new SaleLineDTO(new ItemDTO("abc123", "Test Item", totalPrice, Amount.ZERO, "Test description"), 1,
+				totalPrice, totalPrice));
+		return new SaleDTO(LocalDateTime.parse(time), saleLines, totalPrice, Amount.ZERO, totalPrice, Amount.ZERO,
+				Amount.ZERO, new ArrayList<>(), laneId);
+	}
 }
@@ -0,0 +1,281 @@
+package integration;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dto.AppliedDiscountDTO;
+import dto.ItemDTO;
+import dto.SaleDTO;
+import dto.SaleLineDTO;
+import model.Amount;
+
+public class AccountingSystemTest {
+	@TempDir
+	private Path tempDir;
+
+	private Path journalFile;
+	private AccountingSystem accountingSystem;
+
+	@BeforeEach
+	public void setUp() {
+		journalFile = tempDir.resolve("sales.journal");
+		accountingSystem = new AccountingSystem(journalFile);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		accountingSystem.close();
+		accountingSystem = null;
+	}
+
+	@Test
+	public void testRecordedSalesAreRecoveredAfterRestart() {
+		SaleDTO firstSale = createSale("2024-02-12T16:05:00.123456789", "abc123");
+		SaleDTO secondSale = createSale("2024-02-12T16:07", "def456");
+
+		accountingSystem.account(firstSale);
+		accountingSystem.account(secondSale);
+		accountingSystem.close();
+
+		accountingSystem = new AccountingSystem(journalFile);
+		List<SaleDTO> recovered = new ArrayList<>();
+		accountingSystem.replayRecordedSales(recovered::add);
+
+		assertEquals(2, accountingSystem.getRecordedSaleCount(), "Both sales should be recovered.");
+		assertEquals(List.of(firstSale, secondSale), recovered, "Recovered sales should equal the recorded ones.");
+	}
+
+	@Test
+	public void testSalesOfOneDayAreReplayed() {
+		accountingSystem.account(createSale("2024-02-11T16:05", "abc123"));
+		accountingSystem.account(createSale("2024-02-12T09:00", "def456"));
+		accountingSystem.account(createSale("2024-02-11T23:59", "ghi789"));
+		accountingSystem.account(createSale("2024-02-13T10:00", "jkl012")).join();
+		List<String> written = new ArrayList<>();
+		accountingSystem.replayRecordedSales(LocalDate.parse("2024-02-11"),
+				sale -> written.add(sale.saleLines().get(0).item().id()));
+		accountingSystem.close();
+
+		accountingSystem = new AccountingSystem(journalFile);
+		accountingSystem.account(createSale("2024-02-12T18:00", "mno345")).join();
+		List<String> recovered = new ArrayList<>();
+		accountingSystem.replayRecordedSales(LocalDate.parse("2024-02-12"),
+				sale -> recovered.add(sale.saleLines().get(0).item().id()));
+
+		assertEquals(List.of("abc123", "ghi789"), written, "A late sale of the day should be included.");
+		assertEquals(List.of("def456", "mno345"), recovered,
+				"The sales of the day should be found in recovered and new records.");
+	}
+
+	@Test
+	public void testSyncedSaleIsRecordedOnceAcrossRestart() {
+		SaleDTO sale = createSale("2024-02-12T16:05", "abc123");
+
+		accountingSystem.account(sale, 7).join();
+		accountingSystem.account(sale, 7).join();
+		accountingSystem.close();
+		accountingSystem = new AccountingSystem(journalFile);
+		accountingSystem.account(sale, 7).join();
+
+		assertEquals(7, accountingSystem.getLastSyncSequence(), "The sync sequence should be recovered from the journal.");
+		assertEquals(1, accountingSystem.getRecordedSaleCount(), "A synced sale should only be recorded once.");
+	}
+
+	@Test
+	public void testDiscountsAndAnalyticsAreRecoveredAfterRestart() {
+		SaleDTO sale = createSale("2024-02-12T16:05", "abc123");
+		sale.discounts().add(new AppliedDiscountDTO("ITEM_BASED", new Amount("5.00")));
+
+		accountingSystem.account(sale);
+		accountingSystem.close();
+		accountingSystem = new AccountingSystem(journalFile);
+		List<SaleDTO> recovered = new ArrayList<>();
+		accountingSystem.replayRecordedSales(recovered::add);
+
+		assertEquals(sale.discounts(), recovered.get(0).discounts(), "The applied discounts should be recovered.");
+		assertEquals(Map.of("ITEM_BASED", new Amount("5.00")), accountingSystem.getAnalytics().getDiscountsByType(),
+				"Recovered sales should be added to the analytics store.");
+	}
+
+	@Test
+	public void testTornRecordIsDiscardedOnRecovery() throws IOException {
+		accountingSystem.account(createSale("2024-02-12T16:05", "abc123")).join();
+		accountingSystem.close();
+		long validLength = Files.size(journalFile);
+		Files.write(journalFile, new byte[] { 0, 0, 0, 100, 1, 2, 3 }, StandardOpenOption.APPEND);
+
+		accountingSystem = new AccountingSystem(journalFile);
+		accountingSystem.account(createSale("2024-02-12T16:07", "def456")).join();
+		List<SaleDTO> recovered = new ArrayList<>();
+		accountingSystem.replayRecordedSales(recovered::add);
+
+		assertTrue(Files.size(journalFile) > validLength, "New sales should be appended after the valid records.");
+		assertEquals(2, recovered.size(), "The torn record should be removed, and the new sale kept.");
+		assertEquals("def456", recovered.get(1).saleLines().get(0).item().id(), "The new sale should be readable.");
+	}
+
+	@Test
+	public void testSalesAfterFailedWriteSurviveRestart() throws IOException {
+		AtomicBoolean failNextWrite = new AtomicBoolean(true);
+		SaleJournal journal = new SaleJournal(tempDir.resolve("failing.journal"), sale -> {
+		}, (channel, batch) -> {
+			if (failNextWrite.getAndSet(false)) {
+				channel.write(batch.limit(batch.limit() / 2));
+				throw new IOException("Disk full");
+			}
+			while (batch.hasRemaining()) {
+				channel.write(batch);
+			}
+		});
+		CompletableFuture<Void> failedSale = journal.append(createSale("2024-02-12T16:05", "abc123"));
+		assertThrows(CompletionException.class, failedSale::join, "The sale of the failed batch should fail.");
+		journal.append(createSale("2024-02-12T16:06", "def456")).join();
+		journal.append(createSale("2024-02-12T16:07", "ghi789")).join();
+		journal.close();
+
+		List<SaleDTO> recovered = new ArrayList<>();
+		new SaleJournal(tempDir.resolve("failing.journal"), recovered::add).close();
+
+		assertEquals(List.of("def456", "ghi789"), recovered.stream().map(sale -> sale.saleLines().get(0).item().id())
+				.toList(), "The sales written after the failed batch should be recovered.");
+	}
+
+	@Test
+	public void testSyncedSalesAfterFailedOneWaitForIt() throws IOException {
+		AtomicBoolean failNextWrite = new AtomicBoolean(true);
+		SaleJournal journal = new SaleJournal(tempDir.resolve("failing.journal"), sale -> {
+		}, (channel, batch) -> {
+			if (failNextWrite.getAndSet(false)) {
+				throw new IOException("Disk full");
+			}
+			SaleJournal.writeFully(channel, batch);
+		});
+		try {
+			CompletableFuture<Void> failedSale = journal.append(createSale("2024-02-12T16:05", "abc123"), 1);
+			assertThrows(CompletionException.class, failedSale::join, "The failed sale should fail.");
+			CompletableFuture<Void> laterSale = journal.append(createSale("2024-02-12T16:06", "def456"), 2);
+
+			assertThrows(CompletionException.class, laterSale::join,
+					"A later synced sale should not be written before the failed one.");
+			assertEquals(0, journal.getLastSyncSequence(), "No synced sale should be written.");
+			journal.append(createSale("2024-02-12T16:05", "abc123"), 1).join();
+			journal.append(createSale("2024-02-12T16:06", "def456"), 2).join();
+			assertEquals(2, journal.getLastSyncSequence(), "Both sales should be written when delivered again.");
+		} finally {
+			journal.close();
+		}
+	}
+
+	@Test
+	public void testJournalStopsWhenFailedWriteCanNotBeRemoved() throws IOException {
+		SaleJournal journal = new SaleJournal(tempDir.resolve("failing.journal"), sale -> {
+		}, (channel, batch) -> {
+			channel.write(batch.limit(batch.limit() / 2));
+			channel.close();
+			throw new IOException("Disk removed");
+		});
+		try {
+			CompletableFuture<Void> failedSale = journal.append(createSale("2024-02-12T16:05", "abc123"));
+
+			assertThrows(CompletionException.class, failedSale::join, "The sale of the failed batch should fail.");
+			assertThrows(IllegalStateException.class, () -> journal.append(createSale("2024-02-12T16:06", "def456")),
+					"A journal that could not remove a failed write should reject new sales.");
+		} finally {
+			journal.close();
+		}
+	}
+
+	@Test
+	public void testConcurrentSalesAreAllDurable() throws Exception {
+		int laneCount = 16;
+		int salesPerLane = 200;
+		ExecutorService executor = Executors.newFixedThreadPool(laneCount);
+		List<Future<List<CompletableFuture<Void>>>> lanes = new ArrayList<>();
+
+		for (int lane = 0; lane < laneCount; lane++) {
+			lanes.add(executor.submit(() -> {
+				List<CompletableFuture<Void>> written = new ArrayList<>();
+				for (int i = 0; i < salesPerLane; i++) {
+					written.add(accountingSystem.account(createSale("2024-02-12T16:05", "abc123")));
+				}
+				return written;
+			}));
+		}
+		for (Future<List<CompletableFuture<Void>>> lane : lanes) {
+			lane.get().forEach(CompletableFuture::join);
+		}
+		executor.shutdown();
+
+		List<SaleDTO> recovered = new ArrayList<>();
+		accountingSystem.replayRecordedSales(recovered::add);
+
+		assertEquals(laneCount * salesPerLane, recovered.size(), "Every sale should be in the journal.");
+	}
+
+	@Test
+	public void testVersionOneRecordIsReadAsSaleLines() throws IOException {
+		ByteArrayOutputStream record = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(record);
+		out.writeByte(1);
+		out.writeLong(LocalDateTime.parse("2024-02-12T16:05").toEpochSecond(ZoneOffset.UTC));
+		out.writeInt(0);
+		for (int i = 0; i < 5; i++) {
+			writeAmount(out, 0, 0);
+		}
+		out.writeInt(3);
+		for (String itemId : new String[] { "abc123", "def456", "abc123" }) {
+			out.writeUTF(itemId);
+			out.writeUTF("Test Item");
+			writeAmount(out, 1000, 2);
+			writeAmount(out, 25, 2);
+			out.writeUTF("Test description");
+		}
+
+		SaleDTO sale = SaleRecordFormat.read(new DataInputStream(new ByteArrayInputStream(record.toByteArray())));
+
+		assertEquals(2, sale.saleLines().size(), "The bought items should be aggregated into sale lines.");
+		assertEquals(2, sale.saleLines().get(0).quantity(), "Failed to count the items of the first line.");
+		assertEquals(new Amount("12.50"), sale.saleLines().get(0).unitPrice(), "Failed to calculate the unit price.");
+		assertEquals(new Amount("25.00"), sale.saleLines().get(0).lineTotal(), "Failed to calculate the line total.");
+	}
+
+	private void writeAmount(DataOutputStream out, int unscaled, int scale) throws IOException {
+		byte[] unscaledBytes = BigInteger.valueOf(unscaled).toByteArray();
+		out.writeInt(scale);
+		out.writeShort(unscaledBytes.length);
+		out.write(unscaledBytes);
+	}
+
+	private SaleDTO createSale(String time, String itemId) {
+		ArrayList<SaleLineDTO> saleLines = new ArrayList<>();
+		saleLines.add(new SaleLineDTO(new ItemDTO(itemId, "Test Item", new Amount("28.207547169811320754716981132075"),
+				new Amount("0.06"), "Test description"), 2, new Amount("29.9"), new Amount("59.8")));
+		saleLines.add(new SaleLineDTO(new ItemDTO("xyz789", "Second Item", new Amount("10"), new Amount("0.25"),
+				"Second test description"), 1, new Amount("12.50"), new Amount("12.50")));
+		return new SaleDTO(LocalDateTime.parse(time), saleLines, new Amount("74.7"), new Amount("4.23"),
+				new Amount("100"), new Amount("25.30"), new Amount("-3.5"));
+	}
+}
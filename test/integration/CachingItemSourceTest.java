@@ -0,0 +1,194 @@
+package integration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dto.ItemDTO;
+import dto.ItemLookupDTO;
+import model.Amount;
+
+public class CachingItemSourceTest {
+	private static final Duration TIME_TO_LIVE = Duration.ofSeconds(60);
+	private static final Duration NOT_FOUND_TIME_TO_LIVE = Duration.ofSeconds(5);
+
+	private SlowItemSource slowSource;
+	private AtomicLong clock;
+	private CachingItemSource cache;
+
+	@BeforeEach
+	public void setUp() {
+		slowSource = new SlowItemSource(0);
+		clock = new AtomicLong();
+		cache = new CachingItemSource(slowSource, 2, TIME_TO_LIVE, NOT_FOUND_TIME_TO_LIVE, 1, clock::get);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		cache = null;
+		slowSource = null;
+	}
+
+	@Test
+	public void testCachedItemIsNotRetrievedAgain() throws ItemNotFoundException {
+		ItemDTO first = cache.retrieveItem("abc123");
+		ItemDTO second = cache.retrieveItem("abc123");
+
+		assertSame(first, second, "The cached item should be returned.");
+		assertEquals(1, slowSource.calls.get(), "The source should only be asked once.");
+		assertEquals(1, cache.getHitCount(), "The second retrieval should be a hit.");
+		assertEquals(1, cache.getMissCount(), "The first retrieval should be a miss.");
+	}
+
+	@Test
+	public void testExpiredItemIsRetrievedAgain() throws ItemNotFoundException {
+		cache.retrieveItem("abc123");
+		clock.addAndGet(TIME_TO_LIVE.toNanos());
+		cache.retrieveItem("abc123");
+
+		assertEquals(2, slowSource.calls.get(), "An expired item should be retrieved from the source.");
+	}
+
+	@Test
+	public void testMissingItemIsCached() {
+		assertThrows(ItemNotFoundException.class, () -> cache.retrieveItem("nothing"), "The item does not exist.");
+		assertThrows(ItemNotFoundException.class, () -> cache.retrieveItem("nothing"), "The item does not exist.");
+
+		assertEquals(1, slowSource.calls.get(), "That the item is missing should be cached.");
+		assertEquals(1, cache.getNotFoundHitCount(), "The second retrieval should be a hit on a missing item.");
+
+		clock.addAndGet(NOT_FOUND_TIME_TO_LIVE.toNanos());
+		assertThrows(ItemNotFoundException.class, () -> cache.retrieveItem("nothing"), "The item does not exist.");
+		assertEquals(2, slowSource.calls.get(), "A missing item should be looked up again after its time to live.");
+	}
+
+	@Test
+	public void testLeastRecentlyUsedItemIsEvicted() throws ItemNotFoundException {
+		cache.retrieveItem("abc123");
+		cache.retrieveItem("def456");
+		cache.retrieveItem("abc123");
+		cache.retrieveItem("ghi789");
+		slowSource.calls.set(0);
+
+		cache.retrieveItem("abc123");
+		cache.retrieveItem("def456");
+
+		assertEquals(1, slowSource.calls.get(), "Only the least recently used item should be evicted.");
+		assertEquals(2, cache.getEvictionCount(), "Two items should have been evicted.");
+		assertEquals(2, cache.size(), "The cache should not grow beyond its maximum size.");
+	}
+
+	@Test
+	public void testFailureIsNotCached() {
+		slowSource.failing = true;
+		assertThrows(DatabaseFailureException.class, () -> cache.retrieveItem("abc123"), "The source fails.");
+
+		slowSource.failing = false;
+		assertDoesNotThrow(() -> cache.retrieveItem("abc123"), "The item should be retrieved after the failure.");
+		assertEquals(2, slowSource.calls.get(), "The failure should not be cached.");
+	}
+
+	@Test
+	public void testBatchRetrievesOnlyUncachedItems() throws ItemNotFoundException {
+		cache.retrieveItem("abc123");
+		slowSource.calls.set(0);
+
+		ItemLookupDTO lookup = cache.retrieveItems(List.of("abc123", "def456", "nothing"));
+
+		assertEquals(Set.of("abc123", "def456"), lookup.foundItems().keySet(), "Both existing items should be found.");
+		assertEquals(Set.of("nothing"), lookup.notFoundItemIds(), "The missing item should be reported.");
+		assertEquals(1, slowSource.batchCalls.get(), "The uncached items should be retrieved in one call.");
+		assertEquals(0, slowSource.calls.get(), "No item should be retrieved one by one.");
+		assertEquals(1, cache.getHitCount(), "The cached item should be a hit.");
+
+		assertThrows(ItemNotFoundException.class, () -> cache.retrieveItem("nothing"),
+				"That the item is missing should be cached by the batch.");
+		assertEquals(0, slowSource.calls.get(), "The missing item should not be looked up again.");
+	}
+
+	@Test
+	public void testConcurrentMissesShareOneRetrieval() throws Exception {
+		slowSource = new SlowItemSource(200);
+		cache = new CachingItemSource(slowSource, 100, TIME_TO_LIVE, NOT_FOUND_TIME_TO_LIVE);
+		int laneCount = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(laneCount);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<ItemDTO>> lanes = new ArrayList<>();
+
+		for (int i = 0; i < laneCount; i++) {
+			lanes.add(executor.submit(() -> {
+				start.await();
+				return cache.retrieveItem("abc123");
+			}));
+		}
+		start.countDown();
+		for (Future<ItemDTO> lane : lanes) {
+			assertEquals("abc123", lane.get().id(), "Every lane should get the item.");
+		}
+		executor.shutdown();
+
+		assertEquals(1, slowSource.calls.get(), "The slow source should only be asked once.");
+	}
+
+	private static class SlowItemSource implements ItemSource {
+		private final Map<String, ItemDTO> items = Map.of(
+				"abc123", new ItemDTO("abc123", "Oatmeal", new Amount("28.2"), new Amount("0.06"), "Oatmeal 500g"),
+				"def456", new ItemDTO("def456", "Yoghurt", new Amount("14.06"), new Amount("0.06"), "Yoghurt 240g"),
+				"ghi789", new ItemDTO("ghi789", "Milk", new Amount("12.50"), new Amount("0.12"), "Milk 1l"));
+		private final long latencyMillis;
+		private final AtomicInteger calls = new AtomicInteger();
+		private final AtomicInteger batchCalls = new AtomicInteger();
+		private volatile boolean failing;
+
+		SlowItemSource(long latencyMillis) {
+			this.latencyMillis = latencyMillis;
+		}
+
+		@Override
+		public ItemDTO retrieveItem(String itemId) throws ItemNotFoundException {
+			calls.incrementAndGet();
+			try {
+				Thread.sleep(latencyMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (failing) {
+				throw new DatabaseFailureException("Database server is not running");
+			}
+			ItemDTO item = items.get(itemId);
+			if (item == null) {
+				throw new ItemNotFoundException(itemId);
+			}
+			return item;
+		}
+
+		@Override
+		public ItemLookupDTO retrieveItems(Collection<String> itemIds) {
+			batchCalls.incrementAndGet();
+			Map<String, ItemDTO> found = new HashMap<>();
+			Set<String> notFound = new HashSet<>();
+			for (String itemId : itemIds) {
+				if (items.containsKey(itemId)) {
+					found.put(itemId, items.get(itemId));
+				} else {
+					notFound.add(itemId);
+				}
+			}
+			return new ItemLookupDTO(found, notFound, Set.of());
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package integration;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+	private static final Duration OPEN_DURATION = Duration.ofSeconds(10);
+
+	private AtomicLong clock;
+	private CircuitBreaker circuitBreaker;
+
+	@BeforeEach
+	public void setUp() {
+		clock = new AtomicLong();
+		circuitBreaker = new CircuitBreaker(3, OPEN_DURATION, clock::get);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		circuitBreaker = null;
+	}
+
+	@Test
+	public void testOpensAfterConsecutiveFailures() {
+		failCalls(2);
+		assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState(), "Two failures should not open it.");
+
+		failCalls(1);
+
+		assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState(), "Three failures should open it.");
+		assertEquals(CircuitBreaker.NO_PERMISSION, circuitBreaker.tryAcquirePermission(),
+				"No calls should be permitted when open.");
+		assertEquals(1, circuitBreaker.getRejectedCallCount(), "The rejected call should be counted.");
+	}
+
+	@Test
+	public void testSuccessResetsFailureCount() {
+		failCalls(2);
+		long permission = circuitBreaker.tryAcquirePermission();
+		assertNotEquals(CircuitBreaker.NO_PERMISSION, permission, "Calls should be permitted when closed.");
+		circuitBreaker.onSuccess(permission);
+		failCalls(2);
+
+		assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState(), "Failures should be consecutive.");
+	}
+
+	@Test
+	public void testHalfOpenPermitsOneProbe() {
+		failCalls(3);
+		clock.addAndGet(OPEN_DURATION.toNanos());
+
+		long probe = circuitBreaker.tryAcquirePermission();
+		assertNotEquals(CircuitBreaker.NO_PERMISSION, probe, "A probe should be permitted after the open duration.");
+		assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState(), "The breaker should be half open.");
+		assertEquals(CircuitBreaker.NO_PERMISSION, circuitBreaker.tryAcquirePermission(),
+				"Only one probe should be in progress.");
+
+		circuitBreaker.onSuccess(probe);
+
+		assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState(), "A successful probe should close it.");
+	}
+
+	@Test
+	public void testFailedProbeOpensAgain() {
+		failCalls(3);
+		clock.addAndGet(OPEN_DURATION.toNanos());
+
+		failCalls(1);
+
+		assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState(), "A failed probe should open it again.");
+		clock.addAndGet(OPEN_DURATION.toNanos() - 1);
+		assertEquals(CircuitBreaker.NO_PERMISSION, circuitBreaker.tryAcquirePermission(),
+				"The open duration should start over.");
+	}
+
+	@Test
+	public void testSlowSuccessDoesNotCloseOpenBreaker() {
+		long slowCall = circuitBreaker.tryAcquirePermission();
+		failCalls(3);
+
+		circuitBreaker.onSuccess(slowCall);
+
+		assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState(),
+				"A call permitted before the breaker opened should not close it.");
+	}
+
+	@Test
+	public void testSlowSuccessDoesNotEndProbe() {
+		long slowCall = circuitBreaker.tryAcquirePermission();
+		failCalls(3);
+		clock.addAndGet(OPEN_DURATION.toNanos());
+		long probe = circuitBreaker.tryAcquirePermission();
+
+		circuitBreaker.onSuccess(slowCall);
+
+		assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState(),
+				"Only the probe should close a half open breaker.");
+		assertEquals(CircuitBreaker.NO_PERMISSION, circuitBreaker.tryAcquirePermission(),
+				"The probe should still be in progress.");
+		circuitBreaker.onFailure(probe);
+		assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState(), "The failed probe should open it again.");
+	}
+
+	private void failCalls(int count) {
+		for (int i = 0; i < count; i++) {
+			long permission = circuitBreaker.tryAcquirePermission();
+			assertNotEquals(CircuitBreaker.NO_PERMISSION, permission, "The call should be permitted.");
+			circuitBreaker.onFailure(permission);
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package integration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dto.DiscountDTO;
+import dto.DiscountInfoDTO;
+import model.Amount;
+
+public class DiscountCatalogTest {
+	private DiscountCatalog discountCatalog;
+
+	@BeforeEach
+	public void setUp() {
+		discountCatalog = new DiscountCatalog();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		discountCatalog = null;
+	}
+
+	@Test
+	public void testSimulatedDiscounts() {
+		DiscountDTO discountInfo = new DiscountDTO(3, Map.of("abc123", 3), new Amount("100.01"), 114514);
+
+		ArrayList<DiscountInfoDTO> discounts = discountCatalog.fetchEligibleDiscounts(discountInfo);
+
+		assertEquals(3, discounts.size(), "All simulated discounts should apply.");
+		assertEquals("ITEM_BASED", discounts.get(0).type(), "Item count discount should be first.");
+		assertEquals("TOTAL_PERCENT", discounts.get(1).type(), "Total price discount should be second.");
+		assertEquals("CUSTOMER_PERCENT", discounts.get(2).type(), "Customer discount should be third.");
+	}
+
+	@Test
+	public void testThresholdsAreExclusive() {
+		DiscountDTO discountInfo = new DiscountDTO(2, Map.of("abc123", 2), new Amount("100.00"), 1);
+
+		ArrayList<DiscountInfoDTO> discounts = discountCatalog.fetchEligibleDiscounts(discountInfo);
+
+		assertTrue(discounts.isEmpty(), "A sale exactly at the thresholds should get no discount.");
+	}
+
+	@Test
+	public void testItemPromotionRequiresQuantity() {
+		DiscountInfoDTO twoForOne = new DiscountInfoDTO("ITEM_BASED", new Amount("14.90"), "Buy 2 yoghurts");
+		discountCatalog.addItemPromotion("def456", 2, twoForOne);
+
+		ArrayList<DiscountInfoDTO> withOne = discountCatalog
+				.fetchEligibleDiscounts(new DiscountDTO(1, Map.of("def456", 1), new Amount("14.90"), 1));
+		ArrayList<DiscountInfoDTO> withTwo = discountCatalog
+				.fetchEligibleDiscounts(new DiscountDTO(2, Map.of("def456", 2), new Amount("29.80"), 1));
+
+		assertTrue(withOne.isEmpty(), "One item should not be enough.");
+		assertEquals(List.of(twoForOne), withTwo, "Two items should give the promotion.");
+	}
+
+	@Test
+	public void testOnlyMatchingPromotionsAmongThousands() {
+		for (int i = 0; i < 10_000; i++) {
+			DiscountInfoDTO discount = new DiscountInfoDTO("ITEM_BASED", new Amount(i, 2), "Promotion " + i);
+			discountCatalog.addItemPromotion("item" + i, 1, discount);
+			discountCatalog.addCustomerPromotion(i, discount);
+			discountCatalog.addTotalPricePromotion(new Amount(1000 + i, 0), discount);
+		}
+		Map<String, Integer> basket = new HashMap<>();
+		basket.put("item7", 1);
+		basket.put("item42", 3);
+		basket.put("notPromoted", 1);
+
+		ArrayList<DiscountInfoDTO> discounts = discountCatalog
+				.fetchEligibleDiscounts(new DiscountDTO(5, basket, new Amount("1002.50"), 99));
+
+		assertEquals(2 + 3 + 1 + 2, discounts.size(),
+				"Item count, 3 total price, 1 customer and 2 item promotions should apply.");
+	}
+}
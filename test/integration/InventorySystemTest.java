@@ -2,11 +2,22 @@ package integration;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 
 import dto.ItemDTO;
+import dto.SaleDTO;
+import dto.SaleLineDTO;
 import model.Amount;
 
 public class InventorySystemTest {
@@ -65,6 +76,57 @@ public class InventorySystemTest {
 		assertEquals(expectedItem2, item2, "Item 2 does not match the expected value.");
 	}
 
+	@Test
+	public void testItemPricesArePrecalculated() throws DatabaseFailureException, ItemNotFoundException {
+		ItemDTO item1 = inventorySystem.retrieveItem("abc123");
+		ItemDTO item2 = inventorySystem.retrieveItem("def456");
+
+		assertEquals(item1.price().multiply(item1.vat()), item1.vatPrice(), "The VAT of the item is wrong.");
+		assertEquals(new Amount("29.90"), item1.fullPrice().rounded(), "The price including VAT is wrong.");
+		assertSame(item1.vat(), item2.vat(), "Items with the same VAT rate should share the VAT rate object.");
+	}
+
+	@Test
+	public void testInventoryFromCatalogFile(@TempDir Path tempDir) throws Exception {
+		Path catalogFile = tempDir.resolve("products.catalog");
+		ItemDTO milk = new ItemDTO("ghi789", "Whole Milk", new Amount("12.50"), new Amount("0.12"), "Whole milk 1l");
+		LinkedHashMap<ItemDTO, Integer> stock = new LinkedHashMap<>();
+		stock.put(milk, 10);
+		ProductCatalog.create(catalogFile, stock);
+
+		InventorySystem fileInventory = new InventorySystem(catalogFile);
+		ArrayList<ItemDTO> soldItems = new ArrayList<>();
+		soldItems.add(fileInventory.retrieveItem("ghi789"));
+		fileInventory.updateInventory(createSale(soldItems));
+
+		assertEquals(milk, soldItems.get(0), "The item should be read from the catalog file.");
+		assertEquals(9, new InventorySystem(catalogFile).getQuantity("ghi789"),
+				"The sold quantity should be stored in the catalog file.");
+		assertThrows(ItemNotFoundException.class, () -> fileInventory.retrieveItem("abc123"),
+				"Only the items in the catalog file should be found.");
+	}
+
+	@Test
+	public void testSyncedSaleIsSubtractedOnceAcrossRestart(@TempDir Path tempDir) throws Exception {
+		Path catalogFile = tempDir.resolve("products.catalog");
+		ItemDTO milk = new ItemDTO("ghi789", "Whole Milk", new Amount("12.50"), new Amount("0.12"), "Whole milk 1l");
+		LinkedHashMap<ItemDTO, Integer> stock = new LinkedHashMap<>();
+		stock.put(milk, 10);
+		ProductCatalog.create(catalogFile, stock);
+		ArrayList<ItemDTO> soldItems = new ArrayList<>();
+		soldItems.add(milk);
+		SaleDTO sale = createSale(soldItems);
+
+		InventorySystem fileInventory = new InventorySystem(catalogFile);
+		fileInventory.updateInventory(sale, 3);
+		fileInventory.updateInventory(sale, 3);
+		InventorySystem restartedInventory = new InventorySystem(catalogFile);
+		restartedInventory.updateInventory(sale, 3);
+
+		assertEquals(3, restartedInventory.getLastSyncSequence(), "The sync sequence should be kept in the catalog.");
+		assertEquals(9, restartedInventory.getQuantity("ghi789"), "A synced sale should only be subtracted once.");
+	}
+
 	private Amount calculateOriginalPrice(Amount fullPrice, Amount vatRate) {
 		Amount divisor = vatRate.add(new Amount("1"));
 		return fullPrice.divide(divisor);
@@ -86,4 +148,73 @@ public class InventorySystemTest {
 		});
 		assertTrue(exception.getMessage().contains(invalidItemId));
 	}
+
+	@Test
+	void testUpdateInventoryReducesQuantity() throws ItemNotFoundException {
+		ArrayList<ItemDTO> soldItems = new ArrayList<>();
+		soldItems.add(inventorySystem.retrieveItem("abc123"));
+		soldItems.add(inventorySystem.retrieveItem("abc123"));
+		soldItems.add(inventorySystem.retrieveItem("def456"));
+
+		inventorySystem.updateInventory(createSale(soldItems));
+
+		assertEquals(0, inventorySystem.getQuantity("abc123"), "Both abc123 should be sold.");
+		assertEquals(1, inventorySystem.getQuantity("def456"), "One def456 should be left.");
+	}
+
+	@Test
+	void testUpdateInventoryDoesNotGoBelowZero() throws ItemNotFoundException {
+		ArrayList<ItemDTO> soldItems = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			soldItems.add(inventorySystem.retrieveItem("abc123"));
+		}
+
+		inventorySystem.updateInventory(createSale(soldItems));
+
+		assertEquals(0, inventorySystem.getQuantity("abc123"), "Quantity should stop at zero.");
+	}
+
+	@Test
+	void testConcurrentUpdatesLoseNoStock() throws Exception {
+		int threadCount = 32;
+		int salesPerThread = 2_000;
+		int initialQuantity = 1_000_000;
+		InventorySystem stressedInventory = new InventorySystem(initialQuantity);
+
+		ArrayList<ItemDTO> soldItems = new ArrayList<>();
+		soldItems.add(stressedInventory.retrieveItem("abc123"));
+		soldItems.add(stressedInventory.retrieveItem("def456"));
+		soldItems.add(stressedInventory.retrieveItem("abc123"));
+		SaleDTO sale = createSale(soldItems);
+
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		CountDownLatch start = new CountDownLatch(1);
+		for (int i = 0; i < threadCount; i++) {
+			executor.submit(() -> {
+				start.await();
+				for (int j = 0; j < salesPerThread; j++) {
+					stressedInventory.updateInventory(sale);
+				}
+				return null;
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS), "Stress test did not finish in time.");
+
+		int totalSales = threadCount * salesPerThread;
+		assertEquals(initialQuantity - 2 * totalSales, stressedInventory.getQuantity("abc123"),
+				"No abc123 decrement should be lost.");
+		assertEquals(initialQuantity - totalSales, stressedInventory.getQuantity("def456"),
+				"No def456 decrement should be lost.");
+	}
+
+	private SaleDTO createSale(ArrayList<ItemDTO> soldItems) {
+		Amount zero = new Amount();
+		ArrayList<SaleLineDTO> saleLines = new ArrayList<>();
+		for (ItemDTO soldItem : soldItems) {
+			saleLines.add(new SaleLineDTO(soldItem, 1, soldItem.price(), soldItem.price()));
+		}
+		return new SaleDTO(LocalDateTime.now(), saleLines, zero, zero, zero, zero, zero);
+	}
 }
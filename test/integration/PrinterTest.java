@@ -11,6 +11,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import dto.ItemDTO;
 import dto.ReceiptDTO;
 import dto.SaleDTO;
+import dto.SaleLineDTO;
 import model.Amount;
 
 public class PrinterTest {
@@ -39,15 +40,13 @@ public class PrinterTest {
 
 	@Test
 	public void testPrinterPrint() {
-		ArrayList<ItemDTO> boughtItems = new ArrayList<>();
-		for (int i = 0; i < 11; i++) {
-			boughtItems.add(new ItemDTO("test1", "test1",
-					new Amount("12"), new Amount("0.456"),
-					"testDesc"));
-		}
-		boughtItems.add(new ItemDTO("test2", "test kinda long name item",
+		ArrayList<SaleLineDTO> saleLines = new ArrayList<>();
+		saleLines.add(createSaleLine(new ItemDTO("test1", "test1",
+				new Amount("12"), new Amount("0.456"),
+				"testDesc"), 11));
+		saleLines.add(createSaleLine(new ItemDTO("test2", "test kinda long name item",
 				new Amount("4567"), new Amount("0.123"),
-				"testDesc2"));
+				"testDesc2"), 1));
 
 		LocalDateTime saleDateTime = LocalDateTime.parse("2024-02-12T16:05");
 		Amount totalPrice = new Amount("74.7");
@@ -55,12 +54,14 @@ public class PrinterTest {
 		Amount amountPaid = new Amount("100.0");
 		Amount change = new Amount("25.3");
 		Amount discountedPrice = new Amount("70.97");
-		SaleDTO saleInfo = new SaleDTO(saleDateTime, boughtItems, totalPrice, totalVat, amountPaid, change, discountedPrice);
+		SaleDTO saleInfo = new SaleDTO(saleDateTime, saleLines, totalPrice, totalVat, amountPaid, change, discountedPrice);
 		ReceiptDTO receipt = new ReceiptDTO(saleInfo);
 
 		printer.printReceipt(receipt);
 
 		String output = printoutBuffer.toString();
+		assertTrue(output.contains("test1                    11 x   17:47     192:19 SEK"),
+				"Failed to print the quantity of a sale line.");
 		assertTrue(output.contains("Begin receipt"),
 				"Faild to print the start of receipt.");
 		assertTrue(output.contains("test kinda long nam...    1 x 5128:74    5128:74 SEK"),
@@ -70,4 +71,9 @@ public class PrinterTest {
 		assertTrue(output.contains("End receipt"),
 				"Failed to print the end of receipt.");
 	}
+
+	private SaleLineDTO createSaleLine(ItemDTO item, int quantity) {
+		Amount unitPrice = item.fullPrice();
+		return new SaleLineDTO(item, quantity, unitPrice, unitPrice.multiply(new Amount(quantity, 0)));
+	}
 }
@@ -0,0 +1,139 @@
+package integration;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dto.ItemDTO;
+import model.Amount;
+
+public class ProductCatalogTest {
+	@TempDir
+	private Path tempDir;
+
+	private Path catalogFile;
+	private LinkedHashMap<ItemDTO, Integer> stock;
+
+	@BeforeEach
+	public void setUp() {
+		catalogFile = tempDir.resolve("products.catalog");
+		stock = new LinkedHashMap<>();
+		stock.put(new ItemDTO("abc123", "BigWheel Oatmeal", new Amount("28.207547169811320754716981132075"),
+				new Amount("0.06"), "BigWheel Oatmeal 500g"), 5);
+		stock.put(new ItemDTO("def456", "YouGoGo Blueberry", new Amount("14.06"), new Amount("0.06"),
+				"YouGoGo Blueberry 240g"), 7);
+		stock.put(new ItemDTO("mjölk1", "Mjölk", new Amount("-12.50"), new Amount("0.12"), "Lättmjölk 1l"), 3);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		stock = null;
+	}
+
+	@Test
+	public void testItemsAreFoundAfterReopening() throws IOException {
+		ProductCatalog.create(catalogFile, stock);
+
+		ProductCatalog catalog = ProductCatalog.open(catalogFile);
+
+		assertEquals(3, catalog.size(), "Every item should be in the catalog.");
+		for (ItemDTO item : stock.keySet()) {
+			int record = catalog.find(item.id());
+			assertTrue(record >= 0, "Item " + item.id() + " should be found.");
+			assertEquals(item, catalog.getItem(record), "Item " + item.id() + " should be read unchanged.");
+			assertEquals(stock.get(item), catalog.getQuantity(record), "The quantity of " + item.id() + " is wrong.");
+		}
+	}
+
+	@Test
+	public void testPricesOutsideTheCompactScalesAreReadBack() throws IOException {
+		ItemDTO roundPrice = new ItemDTO("round1", "Round Price", new Amount(new BigDecimal("1E+2")), new Amount("0.25"),
+				"Price with a negative scale");
+		ItemDTO precisePrice = new ItemDTO("precise1", "Precise Price", new Amount("0.1234567890123456789"),
+				new Amount("0.25"), "Price with 19 decimals");
+		LinkedHashMap<ItemDTO, Integer> precisionStock = new LinkedHashMap<>();
+		precisionStock.put(roundPrice, 1);
+		precisionStock.put(precisePrice, 1);
+		ProductCatalog.create(catalogFile, precisionStock);
+
+		ProductCatalog catalog = ProductCatalog.open(catalogFile);
+
+		assertEquals(roundPrice, catalog.getItem(catalog.find("round1")), "A negative scale should be read back.");
+		assertEquals(precisePrice, catalog.getItem(catalog.find("precise1")), "19 decimals should be read back.");
+	}
+
+	@Test
+	public void testMissingItemIsNotFound() {
+		ProductCatalog catalog = ProductCatalog.createInMemory(stock);
+
+		assertEquals(-1, catalog.find("abc12"), "A prefix of an item ID should not be found.");
+		assertEquals(-1, catalog.find("abc1234"), "A longer item ID should not be found.");
+		assertEquals(-1, catalog.find("mjölk2"), "A missing non-ASCII item ID should not be found.");
+	}
+
+	@Test
+	public void testItemsWithSameVatRateShareIt() {
+		ProductCatalog catalog = ProductCatalog.createInMemory(stock);
+
+		assertSame(catalog.getItem(catalog.find("abc123")).vat(), catalog.getItem(catalog.find("def456")).vat(),
+				"Items with the same VAT rate should share the VAT rate object.");
+	}
+
+	@Test
+	public void testReducedQuantityIsWrittenToFile() throws IOException {
+		ProductCatalog catalog = ProductCatalog.create(catalogFile, stock);
+		catalog.reduceQuantity(catalog.find("def456"), 3);
+		catalog.reduceQuantity(catalog.find("mjölk1"), 10);
+
+		ProductCatalog reopened = ProductCatalog.open(catalogFile);
+
+		assertEquals(4, reopened.getQuantity(reopened.find("def456")), "The reduced quantity should be stored.");
+		assertEquals(0, reopened.getQuantity(reopened.find("mjölk1")), "The quantity should not go below zero.");
+	}
+
+	@Test
+	public void testManyItems() {
+		LinkedHashMap<ItemDTO, Integer> manyItems = new LinkedHashMap<>();
+		for (int i = 0; i < 50_000; i++) {
+			manyItems.put(new ItemDTO("item" + i, "Item " + i, new Amount(100 + i, 2), new Amount("0.25"), ""), i);
+		}
+
+		ProductCatalog catalog = ProductCatalog.createInMemory(manyItems);
+
+		for (int i = 0; i < 50_000; i += 997) {
+			int record = catalog.find("item" + i);
+			assertEquals("item" + i, catalog.getItem(record).id(), "Item " + i + " should be found.");
+			assertEquals(i, catalog.getQuantity(record), "The quantity of item " + i + " is wrong.");
+		}
+	}
+
+	@Test
+	public void testDuplicateItemIdIsRejected() {
+		stock.put(new ItemDTO("abc123", "Other Oatmeal", new Amount("10"), new Amount("0.06"), "Other"), 1);
+
+		assertThrows(IllegalArgumentException.class, () -> ProductCatalog.createInMemory(stock),
+				"An item ID may only occur once.");
+	}
+
+	@Test
+	public void testTooLongNameIsRejected() {
+		stock.put(new ItemDTO("long1", "x".repeat(65), new Amount("10"), new Amount("0.06"), ""), 1);
+
+		assertThrows(IllegalArgumentException.class, () -> ProductCatalog.createInMemory(stock),
+				"A name that does not fit in the record should be rejected.");
+	}
+
+	@Test
+	public void testFileThatIsNotACatalogIsRejected() throws IOException {
+		Files.writeString(catalogFile, "This is not a product catalog");
+
+		assertThrows(IllegalArgumentException.class, () -> ProductCatalog.open(catalogFile),
+				"A file without the catalog header should be rejected.");
+	}
+}
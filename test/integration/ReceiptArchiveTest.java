@@ -0,0 +1,163 @@
+package integration;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dto.ArchivedReceiptDTO;
+import dto.ItemDTO;
+import dto.ReceiptDTO;
+import dto.SaleDTO;
+import dto.SaleLineDTO;
+import model.Amount;
+
+public class ReceiptArchiveTest {
+	private static final LocalDateTime OPENING_TIME = LocalDateTime.parse("2024-02-12T08:00");
+
+	@TempDir
+	private Path tempDir;
+
+	private ReceiptArchive archive;
+
+	@BeforeEach
+	public void setUp() {
+		archive = new ReceiptArchive(tempDir, 4);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		archive.close();
+		archive = null;
+	}
+
+	@Test
+	public void testArchivedReceiptIsFoundById() {
+		ReceiptDTO receipt = createReceipt(OPENING_TIME, 3);
+
+		long receiptId = archive.archive(receipt).join();
+		ArchivedReceiptDTO found = archive.findReceipt(receiptId);
+
+		assertEquals(OPENING_TIME.toLocalDate(), ReceiptArchive.dayOf(receiptId), "The ID should hold the day of sale.");
+		assertNotNull(found, "The archived receipt should be found.");
+		assertEquals(receiptId, found.receiptId(), "The found receipt should have the requested ID.");
+		assertEquals(receipt.sale().saleDateTime(), found.receipt().sale().saleDateTime(),
+				"The found receipt should have the archived sale time.");
+		assertEquals(3, found.receipt().sale().saleLines().get(0).quantity(),
+				"The found receipt should have the archived sale lines.");
+		assertNull(archive.findReceipt(receiptId + 1), "A receipt that was not archived should not be found.");
+		assertNull(archive.findReceipt(receiptId + (1L << 32)), "A receipt of a day without sales should not be found.");
+	}
+
+	@Test
+	public void testEveryReceiptIsFoundAcrossBlocks() {
+		List<Long> receiptIds = archiveReceipts(11);
+
+		for (int i = 0; i < receiptIds.size(); i++) {
+			ArchivedReceiptDTO found = archive.findReceipt(receiptIds.get(i));
+			assertNotNull(found, "Receipt " + i + " should be found.");
+			assertEquals(i + 1, found.receipt().sale().saleLines().get(0).quantity(), "Receipt " + i + " differs.");
+		}
+	}
+
+	@Test
+	public void testReceiptsAreFoundByTime() {
+		archiveReceipts(11);
+		archive.archive(createReceipt(OPENING_TIME.plusMinutes(25), 99)).join();
+
+		List<ArchivedReceiptDTO> found = archive.findReceipts(OPENING_TIME.plusMinutes(20),
+				OPENING_TIME.plusMinutes(50));
+
+		List<Integer> quantities = new ArrayList<>();
+		for (ArchivedReceiptDTO receipt : found) {
+			quantities.add(receipt.receipt().sale().saleLines().get(0).quantity());
+		}
+		assertEquals(List.of(3, 4, 5, 6, 99), quantities,
+				"The receipts in the period should be found in the order they were archived.");
+	}
+
+	@Test
+	public void testReceiptsAreFoundAfterReopening() throws IOException {
+		List<Long> receiptIds = archiveReceipts(6);
+		archive.close();
+		Path dataFile = tempDir.resolve(OPENING_TIME.toLocalDate() + ".receipts");
+		Files.write(dataFile, new byte[] { 0, 0, 1, 0, 42 }, StandardOpenOption.APPEND);
+
+		archive = new ReceiptArchive(tempDir, 4);
+		long nextId = archive.archive(createReceipt(OPENING_TIME.plusHours(1), 7)).join();
+
+		assertEquals(receiptIds.get(5) + 1, nextId, "Numbering should continue after the recovered receipts.");
+		for (long receiptId : receiptIds) {
+			assertNotNull(archive.findReceipt(receiptId), "Receipt " + receiptId + " should survive a restart.");
+		}
+		assertEquals(7, archive.findReceipt(nextId).receipt().sale().saleLines().get(0).quantity(),
+				"A receipt archived after a torn write should be found.");
+	}
+
+	@Test
+	public void testOnlyRecentSegmentsAreKeptOpen() {
+		archive.close();
+		archive = new ReceiptArchive(tempDir, 4, 2);
+		for (int day = 0; day < 5; day++) {
+			archive.archive(createReceipt(OPENING_TIME.plusDays(day), day + 1)).join();
+		}
+		archive.close();
+		archive = new ReceiptArchive(tempDir, 4, 2);
+
+		List<ArchivedReceiptDTO> found = archive.findReceipts(OPENING_TIME, OPENING_TIME.plusDays(5));
+
+		assertEquals(5, found.size(), "The receipts of every day should be found.");
+		assertEquals(2, archive.getOpenSegmentCount(), "Only the most recently used segments should stay open.");
+		assertEquals(1, archive.findReceipt(found.get(0).receiptId()).receipt().sale().saleLines().get(0).quantity(),
+				"A closed segment should be opened again when it is read.");
+	}
+
+	@Test
+	public void testDayIsExportedAsRenderedReceipts() throws IOException {
+		List<Long> receiptIds = archiveReceipts(5);
+		archive.archive(createReceipt(OPENING_TIME.plusDays(1), 1)).join();
+		ReceiptRenderer renderer = new ReceiptRenderer();
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		for (long receiptId : receiptIds) {
+			renderer.render(archive.findReceipt(receiptId).receipt(), Channels.newChannel(expected));
+		}
+
+		ByteArrayOutputStream exported = new ByteArrayOutputStream();
+		int exportedCount = archive.exportDay(OPENING_TIME.toLocalDate(), renderer, Channels.newChannel(exported));
+
+		assertEquals(5, exportedCount, "Only the receipts of the day should be exported.");
+		assertEquals(expected.toString(StandardCharsets.UTF_8), exported.toString(StandardCharsets.UTF_8),
+				"The exported receipts should be rendered in the order they were archived.");
+		assertEquals(0, archive.exportDay(LocalDate.parse("2000-01-01"), renderer, Channels.newChannel(exported)),
+				"A day without sales should export nothing.");
+	}
+
+	private List<Long> archiveReceipts(int count) {
+		List<Long> receiptIds = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			receiptIds.add(archive.archive(createReceipt(OPENING_TIME.plusMinutes(10L * i), i + 1)).join());
+		}
+		return receiptIds;
+	}
+
+	private ReceiptDTO createReceipt(LocalDateTime saleTime, int quantity) {
+		ItemDTO item = new ItemDTO("abc123", "BigWheel Oatmeal", new Amount("28.21"), new Amount("0.06"), "Oatmeal");
+		Amount lineTotal = item.fullPrice().multiply(new Amount(quantity, 0));
+		ArrayList<SaleLineDTO> saleLines = new ArrayList<>();
+		saleLines.add(new SaleLineDTO(item, quantity, item.fullPrice(), lineTotal));
+		SaleDTO sale = new SaleDTO(saleTime, saleLines, lineTotal, item.vatPrice(), new Amount("1000"),
+				new Amount("1000").subtract(lineTotal), lineTotal);
+		return new ReceiptDTO(sale);
+	}
+}
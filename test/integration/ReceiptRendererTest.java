@@ -0,0 +1,93 @@
+package integration;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dto.ItemDTO;
+import dto.ReceiptDTO;
+import dto.SaleDTO;
+import dto.SaleLineDTO;
+import model.Amount;
+
+public class ReceiptRendererTest {
+	private ByteArrayOutputStream renderedBuffer;
+	private ByteArrayOutputStream printoutBuffer;
+	private PrintStream originalSysOut;
+
+	@BeforeEach
+	public void setUp() {
+		renderedBuffer = new ByteArrayOutputStream();
+		printoutBuffer = new ByteArrayOutputStream();
+		originalSysOut = System.out;
+		System.setOut(new PrintStream(printoutBuffer, true, StandardCharsets.UTF_8));
+	}
+
+	@AfterEach
+	public void tearDown() {
+		System.setOut(originalSysOut);
+		renderedBuffer = null;
+		printoutBuffer = null;
+	}
+
+	@Test
+	public void testRenderedReceiptMatchesPrinter() throws IOException {
+		ArrayList<SaleLineDTO> saleLines = new ArrayList<>();
+		saleLines.add(createSaleLine(new ItemDTO("test1", "test1", new Amount("12"), new Amount("0.456"), "testDesc"), 11));
+		saleLines.add(createSaleLine(new ItemDTO("test2", "test kinda long name item", new Amount("4567"),
+				new Amount("0.123"), "testDesc2"), 1));
+		saleLines.add(createSaleLine(new ItemDTO("test3", "Smör & grädde", new Amount("0.004"), new Amount("0.12"),
+				"testDesc3"), 100));
+		ReceiptDTO receipt = createReceipt(saleLines, new Amount("-25.305"));
+
+		new ReceiptRenderer().render(receipt, Channels.newChannel(renderedBuffer));
+
+		assertEquals(printedReceipt(receipt), renderedBuffer.toString(StandardCharsets.UTF_8),
+				"The rendered receipt should be identical to the printed receipt.");
+	}
+
+	@Test
+	public void testLongReceiptIsRenderedThroughSmallBuffer() throws IOException {
+		ArrayList<SaleLineDTO> saleLines = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			saleLines.add(createSaleLine(new ItemDTO("item" + i, "Item number " + i, new Amount(1000 + i, 2),
+					new Amount("0.25"), "Item"), 1 + i % 15));
+		}
+		ReceiptDTO receipt = createReceipt(saleLines, new Amount("25.3"));
+
+		new ReceiptRenderer(64).render(receipt, Channels.newChannel(renderedBuffer));
+
+		assertEquals(printedReceipt(receipt), renderedBuffer.toString(StandardCharsets.UTF_8),
+				"A receipt larger than the buffer should be rendered in full.");
+	}
+
+	@Test
+	public void testTooSmallBuffer() {
+		assertThrows(IllegalArgumentException.class, () -> new ReceiptRenderer(16),
+				"A buffer smaller than the minimum should be rejected.");
+	}
+
+	private String printedReceipt(ReceiptDTO receipt) {
+		new Printer().printReceipt(receipt);
+		String printout = printoutBuffer.toString(StandardCharsets.UTF_8);
+		return printout.substring(0, printout.length() - System.lineSeparator().length());
+	}
+
+	private ReceiptDTO createReceipt(ArrayList<SaleLineDTO> saleLines, Amount change) {
+		SaleDTO sale = new SaleDTO(LocalDateTime.parse("2024-02-12T16:05"), saleLines, new Amount("74.7"),
+				new Amount("4.23"), new Amount("100.0"), change, new Amount("70.97"));
+		return new ReceiptDTO(sale);
+	}
+
+	private SaleLineDTO createSaleLine(ItemDTO item, int quantity) {
+		Amount unitPrice = item.fullPrice();
+		return new SaleLineDTO(item, quantity, unitPrice, unitPrice.multiply(new Amount(quantity, 0)));
+	}
+}
@@ -0,0 +1,147 @@
+package integration;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dto.ItemDTO;
+import model.Amount;
+
+public class ResilientItemSourceTest {
+	private static final ItemDTO OATMEAL = new ItemDTO("abc123", "Oatmeal", new Amount("28.2"), new Amount("0.06"),
+			"Oatmeal 500g");
+
+	private FlakyItemSource flakySource;
+	private CircuitBreaker circuitBreaker;
+	private ResilientItemSource resilientSource;
+
+	@BeforeEach
+	public void setUp() {
+		flakySource = new FlakyItemSource();
+		circuitBreaker = new CircuitBreaker(2, Duration.ofMinutes(1));
+		resilientSource = new ResilientItemSource(flakySource, circuitBreaker, 1, 100);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		resilientSource = null;
+	}
+
+	@Test
+	public void testKnownItemIsServedFromSnapshotDuringOutage() throws ItemNotFoundException {
+		resilientSource.retrieveItem("abc123");
+		flakySource.failing = true;
+
+		assertEquals(OATMEAL, resilientSource.retrieveItem("abc123"), "The item should be served from the snapshot.");
+		assertEquals(1, resilientSource.getSnapshotRetrievalCount(), "The snapshot retrieval should be counted.");
+	}
+
+	@Test
+	public void testOpenCircuitDoesNotCallSource() throws ItemNotFoundException {
+		resilientSource.retrieveItem("abc123");
+		flakySource.failing = true;
+		assertThrows(DatabaseFailureException.class, () -> resilientSource.retrieveItem("unknown1"),
+				"An unknown item cannot be served during an outage.");
+		assertThrows(DatabaseFailureException.class, () -> resilientSource.retrieveItem("unknown2"),
+				"An unknown item cannot be served during an outage.");
+		int callsWhenOpened = flakySource.calls.get();
+
+		assertThrows(DatabaseFailureException.class, () -> resilientSource.retrieveItem("unknown3"),
+				"An unknown item cannot be served when the circuit is open.");
+		assertEquals(OATMEAL, resilientSource.retrieveItem("abc123"), "The item should be served from the snapshot.");
+
+		assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState(), "Two failures should open the circuit.");
+		assertEquals(callsWhenOpened, flakySource.calls.get(), "The source should not be called when open.");
+	}
+
+	@Test
+	public void testMissingItemDoesNotOpenCircuit() {
+		for (int i = 0; i < 5; i++) {
+			assertThrows(ItemNotFoundException.class, () -> resilientSource.retrieveItem("nothing"),
+					"The item does not exist.");
+		}
+
+		assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState(), "A missing item is not a failure.");
+	}
+
+	@Test
+	public void testFullBulkheadDoesNotWait() throws Exception {
+		resilientSource.retrieveItem("abc123");
+		flakySource.blocked = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		Future<ItemDTO> slowCall = executor.submit(() -> resilientSource.retrieveItem("abc123"));
+		while (flakySource.calls.get() < 2) {
+			Thread.onSpinWait();
+		}
+
+		long start = System.nanoTime();
+		ItemDTO item = resilientSource.retrieveItem("abc123");
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		flakySource.blocked.countDown();
+
+		assertEquals(OATMEAL, item, "The item should be served from the snapshot.");
+		assertTrue(elapsedMillis < 1000, "The call should not wait for the slow call.");
+		assertEquals(1, resilientSource.getBulkheadRejectionCount(), "The bulkhead rejection should be counted.");
+		assertEquals(OATMEAL, slowCall.get(), "The slow call should finish.");
+		executor.shutdown();
+	}
+
+	@Test
+	public void testUnknownItemWaitsForFullBulkhead() throws Exception {
+		resilientSource = new ResilientItemSource(flakySource, circuitBreaker, 1, Duration.ofSeconds(5), 100);
+		flakySource.blocked = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		Future<ItemDTO> slowCall = executor.submit(() -> resilientSource.retrieveItem("abc123"));
+		while (flakySource.calls.get() < 1) {
+			Thread.onSpinWait();
+		}
+		Thread releaser = new Thread(() -> {
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			flakySource.blocked.countDown();
+		});
+		releaser.start();
+
+		assertThrows(ItemNotFoundException.class, () -> resilientSource.retrieveItem("unknown1"),
+				"An item that is not in the snapshot should wait for the bulkhead and reach the source.");
+		releaser.join();
+		assertEquals(OATMEAL, slowCall.get(), "The slow call should finish.");
+		assertEquals(0, resilientSource.getBulkheadRejectionCount(), "A call that got through should not be counted.");
+		executor.shutdown();
+	}
+
+	private static class FlakyItemSource implements ItemSource {
+		private final AtomicInteger calls = new AtomicInteger();
+		private volatile boolean failing;
+		private volatile CountDownLatch blocked;
+
+		@Override
+		public ItemDTO retrieveItem(String itemId) throws ItemNotFoundException {
+			calls.incrementAndGet();
+			if (blocked != null) {
+				try {
+					blocked.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			if (failing) {
+				throw new DatabaseFailureException("Database server is not running");
+			}
+			if (!OATMEAL.id().equals(itemId)) {
+				throw new ItemNotFoundException(itemId);
+			}
+			return OATMEAL;
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package integration;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dto.ItemDTO;
+import dto.QueuedSaleDTO;
+import dto.SaleDTO;
+import dto.SaleLineDTO;
+import model.Amount;
+
+public class SaleQueueTest {
+	private static final int SMALL_SEGMENT_SIZE = 1024;
+
+	@TempDir
+	private Path queueDirectory;
+
+	private SaleQueue queue;
+
+	@BeforeEach
+	public void setUp() {
+		queue = new SaleQueue(queueDirectory, SMALL_SEGMENT_SIZE);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		queue.close();
+		queue = null;
+	}
+
+	@Test
+	public void testSalesArePolledInOrder() throws InterruptedException {
+		SaleDTO firstSale = createSale("abc123");
+		SaleDTO secondSale = createSale("def456");
+
+		long firstSequence = queue.append(firstSale);
+		long secondSequence = queue.append(secondSale);
+		List<QueuedSaleDTO> polled = queue.poll(10, 0);
+
+		assertEquals(firstSequence + 1, secondSequence, "Sequences should be consecutive.");
+		assertEquals(List.of(new QueuedSaleDTO(firstSequence, firstSale), new QueuedSaleDTO(secondSequence, secondSale)),
+				polled, "The sales should be polled in the order they were added.");
+		assertTrue(queue.poll(10, 0).isEmpty(), "Polled sales should not be polled again.");
+	}
+
+	@Test
+	public void testUncommittedSalesAreReadAgainAfterReopen() throws InterruptedException {
+		for (int i = 0; i < 3; i++) {
+			queue.append(createSale("abc123"));
+		}
+		List<QueuedSaleDTO> polled = queue.poll(10, 0);
+		queue.commit(polled.get(0).sequence());
+		queue.close();
+
+		queue = new SaleQueue(queueDirectory, SMALL_SEGMENT_SIZE);
+		List<QueuedSaleDTO> reread = queue.poll(10, 0);
+
+		assertEquals(polled.subList(1, 3), reread, "Only the sales after the commit should be read again.");
+		assertEquals(2, queue.getPendingCount(), "The uncommitted sales should still be pending.");
+		assertEquals(polled.get(2).sequence() + 1, queue.append(createSale("def456")),
+				"New sales should continue the sequence.");
+	}
+
+	@Test
+	public void testCommittedSegmentsAreDeleted() throws IOException, InterruptedException {
+		long lastSequence = 0;
+		for (int i = 0; i < 20; i++) {
+			lastSequence = queue.append(createSale("abc123"));
+		}
+		assertTrue(countSegments() > 2, "The sales should be spread over several segments.");
+
+		List<QueuedSaleDTO> polled = queue.poll(20, 0);
+		queue.commit(lastSequence);
+
+		assertEquals(20, polled.size(), "Sales should be read across segments.");
+		assertEquals(1, countSegments(), "Only the segment that is written to should be kept.");
+		assertEquals(0, queue.getPendingCount(), "No sale should be pending after the commit.");
+	}
+
+	@Test
+	public void testTornTailIsRemovedOnReopen() throws IOException, InterruptedException {
+		SaleDTO sale = createSale("abc123");
+		queue.append(sale);
+		queue.close();
+		Path segment;
+		try (Stream<Path> files = Files.list(queueDirectory)) {
+			segment = files.filter(file -> file.toString().endsWith(".segment")).findFirst().orElseThrow();
+		}
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer header = ByteBuffer.allocate(4);
+			channel.read(header, 0);
+			int tailOffset = 8 + header.getInt(0);
+			channel.write(ByteBuffer.wrap(new byte[] { 0, 0, 0, 50, 1, 2, 3, 4, 5 }), tailOffset);
+		}
+
+		queue = new SaleQueue(queueDirectory, SMALL_SEGMENT_SIZE);
+		long nextSequence = queue.append(createSale("def456"));
+		List<QueuedSaleDTO> polled = queue.poll(10, 0);
+
+		assertEquals(2, polled.size(), "The torn record should be removed, and the new sale kept.");
+		assertEquals(sale, polled.get(0).sale(), "The complete sale should be kept.");
+		assertEquals(nextSequence, polled.get(1).sequence(), "The new sale should take the place of the torn one.");
+	}
+
+	@Test
+	public void testPollWaitsForAppendedSale() throws InterruptedException {
+		Thread lane = new Thread(() -> {
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				return;
+			}
+			queue.append(createSale("abc123"));
+		});
+		lane.start();
+
+		List<QueuedSaleDTO> polled = queue.poll(10, 5000);
+		lane.join();
+
+		assertEquals(1, polled.size(), "Poll should return the sale added while it waited.");
+	}
+
+	private long countSegments() throws IOException {
+		try (Stream<Path> files = Files.list(queueDirectory)) {
+			return files.filter(file -> file.toString().endsWith(".segment")).count();
+		}
+	}
+
+	private SaleDTO createSale(String itemId) {
+		ArrayList<SaleLineDTO> saleLines = new ArrayList<>();
+		saleLines.add(new SaleLineDTO(new ItemDTO(itemId, "Test Item", new Amount("28.21"),
+				new Amount("0.06"), "Test description"), 2, new Amount("29.9"), new Amount("59.8")));
+		return new SaleDTO(LocalDateTime.parse("2024-02-12T16:05"), saleLines, new Amount("59.8"), new Amount("3.39"),
+				new Amount("100"), new Amount("40.2"), Amount.ZERO);
+	}
+}
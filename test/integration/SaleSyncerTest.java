@@ -0,0 +1,170 @@
+package integration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dto.ItemDTO;
+import dto.SaleDTO;
+import dto.SaleLineDTO;
+import model.Amount;
+
+public class SaleSyncerTest {
+	@TempDir
+	private Path tempDir;
+
+	private SaleQueue queue;
+	private UnreliableAccountingSystem accountingSystem;
+	private UnreliableInventorySystem inventorySystem;
+	private SaleSyncer syncer;
+
+	@BeforeEach
+	public void setUp() {
+		queue = new SaleQueue(tempDir.resolve("queue"));
+		accountingSystem = new UnreliableAccountingSystem(tempDir.resolve("sales.journal"));
+		inventorySystem = new UnreliableInventorySystem(100);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		if (syncer != null) {
+			syncer.close();
+		}
+		queue.close();
+		accountingSystem.close();
+	}
+
+	@Test
+	public void testQueuedSalesAreSynced() throws InterruptedException {
+		int initialQuantity = inventorySystem.getQuantity("abc123");
+		syncer = new SaleSyncer(queue, accountingSystem, inventorySystem, 512, 1, 10);
+
+		for (int i = 0; i < 5; i++) {
+			queue.append(createSale());
+		}
+
+		assertTrue(syncer.awaitSynced(Duration.ofSeconds(5)), "All sales should be synced.");
+		assertEquals(5, accountingSystem.getRecordedSaleCount(), "Every sale should be accounted.");
+		assertEquals(initialQuantity - 10, inventorySystem.getQuantity("abc123"),
+				"Every sale should be subtracted from the inventory.");
+	}
+
+	@Test
+	public void testSalesAreSyncedOnceAfterOutage() throws InterruptedException {
+		int initialQuantity = inventorySystem.getQuantity("abc123");
+		accountingSystem.failuresLeft = 2;
+		inventorySystem.failuresLeft = 1;
+		syncer = new SaleSyncer(queue, accountingSystem, inventorySystem, 2, 1, 10);
+
+		for (int i = 0; i < 7; i++) {
+			queue.append(createSale());
+		}
+
+		assertTrue(syncer.awaitSynced(Duration.ofSeconds(5)), "The syncer should catch up after the outage.");
+		assertEquals(3, syncer.getFailedAttemptCount(), "Every failed batch should be counted.");
+		assertEquals(7, accountingSystem.getRecordedSaleCount(), "No sale should be accounted twice.");
+		assertEquals(initialQuantity - 14, inventorySystem.getQuantity("abc123"),
+				"No sale should be subtracted from the inventory twice.");
+	}
+
+	@Test
+	public void testFailedJournalWriteIsNotCountedTwice() throws InterruptedException {
+		accountingSystem.close();
+		AtomicBoolean failNextWrite = new AtomicBoolean(true);
+		accountingSystem = new UnreliableAccountingSystem(tempDir.resolve("failing.journal"), (channel, batch) -> {
+			if (failNextWrite.getAndSet(false)) {
+				throw new IOException("Disk full");
+			}
+			SaleJournal.writeFully(channel, batch);
+		});
+		for (int i = 0; i < 4; i++) {
+			queue.append(createSale());
+		}
+		syncer = new SaleSyncer(queue, accountingSystem, inventorySystem, 512, 1, 10);
+
+		assertTrue(syncer.awaitSynced(Duration.ofSeconds(5)), "The syncer should catch up after the failed write.");
+		assertEquals(1, syncer.getFailedAttemptCount(), "The failed write should fail the batch once.");
+		assertEquals(4, accountingSystem.getRecordedSaleCount(), "No sale should be counted twice.");
+		assertEquals(4, accountingSystem.getAnalytics().getSaleCount(), "No sale should be analysed twice.");
+		assertEquals(new Amount("239.20"), accountingSystem.getAnalytics().getTotalRevenue(),
+				"The revenue should only include each sale once.");
+	}
+
+	@Test
+	public void testRedeliveredSalesAreSkipped() throws InterruptedException {
+		for (int i = 0; i < 3; i++) {
+			queue.append(createSale());
+		}
+		for (var queuedSale : queue.poll(3, 0)) {
+			accountingSystem.account(queuedSale.sale(), queuedSale.sequence()).join();
+		}
+		queue.close();
+		queue = new SaleQueue(tempDir.resolve("queue"));
+
+		syncer = new SaleSyncer(queue, accountingSystem, inventorySystem, 512, 1, 10);
+
+		assertTrue(syncer.awaitSynced(Duration.ofSeconds(5)), "The uncommitted sales should be delivered again.");
+		assertEquals(3, accountingSystem.getRecordedSaleCount(), "Sales accounted before should not be accounted again.");
+	}
+
+	private SaleDTO createSale() {
+		ArrayList<SaleLineDTO> saleLines = new ArrayList<>();
+		saleLines.add(new SaleLineDTO(new ItemDTO("abc123", "Test Item", new Amount("28.21"), new Amount("0.06"),
+				"Test description"), 2, new Amount("29.9"), new Amount("59.8")));
+		return new SaleDTO(LocalDateTime.parse("2024-02-12T16:05"), saleLines, new Amount("59.8"), new Amount("3.39"),
+				new Amount("100"), new Amount("40.2"), Amount.ZERO);
+	}
+
+	/**
+	 * An accounting system that is unreachable for a number of calls.
+	 */
+	private static class UnreliableAccountingSystem extends AccountingSystem {
+		private volatile int failuresLeft;
+
+		UnreliableAccountingSystem(Path journalFile) {
+			super(journalFile);
+		}
+
+		UnreliableAccountingSystem(Path journalFile, SaleJournal.BatchWriter batchWriter) {
+			super(journalFile, batchWriter);
+		}
+
+		@Override
+		public CompletableFuture<Void> account(SaleDTO saleDTO, long syncSequence) {
+			if (failuresLeft > 0) {
+				failuresLeft--;
+				throw new IllegalStateException("The accounting system is unreachable");
+			}
+			return super.account(saleDTO, syncSequence);
+		}
+	}
+
+	/**
+	 * An inventory system that is unreachable for a number of calls.
+	 */
+	private static class UnreliableInventorySystem extends InventorySystem {
+		private volatile int failuresLeft;
+
+		UnreliableInventorySystem(int initialQuantity) {
+			super(initialQuantity);
+		}
+
+		@Override
+		public void updateInventory(SaleDTO saleDTO, long syncSequence) {
+			if (failuresLeft > 0) {
+				failuresLeft--;
+				throw new IllegalStateException("The inventory system is unreachable");
+			}
+			super.updateInventory(saleDTO, syncSequence);
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package integration.analytics;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dto.AppliedDiscountDTO;
+import dto.ItemDTO;
+import dto.SaleDTO;
+import dto.SaleLineDTO;
+import model.Amount;
+
+public class SalesColumnStoreTest {
+	private static final ItemDTO MILK = new ItemDTO("abc123", "Milk", new Amount("10.00"), new Amount("0.25"), "1L");
+	private static final ItemDTO BREAD = new ItemDTO("def456", "Bread", new Amount("20.00"), new Amount("0.12"), "Rye");
+
+	private ForkJoinPool pool;
+	private SalesColumnStore store;
+
+	@BeforeEach
+	public void setUp() {
+		pool = new ForkJoinPool(4);
+		store = new SalesColumnStore(pool);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		pool.shutdown();
+		store = null;
+	}
+
+	@Test
+	public void testRevenueAndQuantityByItem() {
+		store.add(createSale("2024-02-12T16:05", 2, 1));
+		store.add(createSale("2024-02-12T16:30", 1, 0));
+
+		assertEquals(Map.of("abc123", new Amount("37.50"), "def456", new Amount("22.40")), store.getRevenueByItem(),
+				"Failed to sum the line totals of each item.");
+		assertEquals(Map.of("abc123", 3L, "def456", 1L), store.getQuantityByItem(),
+				"Failed to sum the quantities of each item.");
+		assertEquals(2, store.getSaleCount(), "Both sales should be stored.");
+	}
+
+	@Test
+	public void testRevenueByHourAndHourRange() {
+		store.add(createSale("2024-02-12T16:05", 1, 0));
+		store.add(createSale("2024-02-12T17:10", 0, 1));
+		store.add(createSale("2024-02-12T16:50", 1, 0));
+
+		SortedMap<LocalDateTime, Amount> revenueByHour = store.getRevenueByHour();
+		Map<String, Amount> lateRevenue = store.getRevenueByItem(LocalDateTime.parse("2024-02-12T17:00"),
+				LocalDateTime.parse("2024-02-12T18:00"));
+
+		assertEquals(List.of(LocalDateTime.parse("2024-02-12T16:00"), LocalDateTime.parse("2024-02-12T17:00")),
+				new ArrayList<>(revenueByHour.keySet()), "Every hour with sales should be listed in time order.");
+		assertEquals(new Amount("25.00"), revenueByHour.get(LocalDateTime.parse("2024-02-12T16:00")),
+				"Sales of the same hour should be summed.");
+		assertEquals(Map.of("def456", new Amount("22.40")), lateRevenue,
+				"Only the sales of the requested hours should be scanned.");
+	}
+
+	@Test
+	public void testLateSaleIsAddedToTheChunkOfItsHour() {
+		store.add(createSale("2024-02-12T16:05", 1, 0));
+		store.add(createSale("2024-02-12T17:10", 0, 1));
+		store.add(createSale("2024-02-12T16:50", 1, 0));
+		store.add(createSale("2024-02-12T17:20", 0, 1));
+
+		assertEquals(2, store.getChunkCount(), "Sales of an hour that already has a chunk should not start a new one.");
+		assertEquals(4, store.getSaleCount(), "Every sale should be stored.");
+	}
+
+	@Test
+	public void testSalesOutsideTheRetentionWindowAreDropped() {
+		store = new SalesColumnStore(Duration.ofHours(24), pool);
+		store.add(createSale("2024-02-11T09:05", 1, 0));
+		store.add(createSale("2024-02-12T08:30", 0, 1));
+		store.add(createSale("2024-02-12T09:10", 1, 0));
+		store.add(createSale("2024-02-11T09:30", 1, 0));
+
+		assertEquals(List.of(LocalDateTime.parse("2024-02-12T08:00"), LocalDateTime.parse("2024-02-12T09:00")),
+				new ArrayList<>(store.getRevenueByHour().keySet()), "Only the hours of the last day should be kept.");
+		assertEquals(2, store.getChunkCount(), "The chunk of the expired hour should be dropped.");
+		assertEquals(2, store.getSaleCount(), "A sale older than the window should not be added.");
+	}
+
+	@Test
+	public void testDiscountsByTypeAndVatByRate() {
+		SaleDTO sale = createSale("2024-02-12T16:05", 2, 1);
+		sale.discounts().add(new AppliedDiscountDTO("ITEM_BASED", new Amount("5.00")));
+		sale.discounts().add(new AppliedDiscountDTO("TOTAL_PERCENT", new Amount("4.74")));
+		store.add(sale);
+		store.add(createSale("2024-02-12T16:07", 1, 0));
+
+		assertEquals(Map.of("ITEM_BASED", new Amount("5.00"), "TOTAL_PERCENT", new Amount("4.74")),
+				store.getDiscountsByType(), "Failed to sum the discounts of each type.");
+		assertEquals(Map.of("0.25", new Amount("7.50"), "0.12", new Amount("2.40")), store.getVatByRate(),
+				"Failed to sum the VAT of each rate.");
+	}
+
+	@Test
+	public void testAggregatesOverManyChunks() {
+		int saleCount = 10_000;
+		for (int i = 0; i < saleCount; i++) {
+			store.add(createSale("2024-02-12T16:05", 1, 1));
+		}
+
+		assertEquals(saleCount, store.getSaleCount(), "Every sale should be stored.");
+		assertEquals(new Amount("349000.00"), store.getTotalRevenue(), "Failed to sum the revenue of all chunks.");
+		assertEquals(Map.of("abc123", (long) saleCount, "def456", (long) saleCount), store.getQuantityByItem(),
+				"Failed to sum the quantities of all chunks.");
+	}
+
+	@Test
+	public void testQueriesWhileSalesAreAdded() throws InterruptedException {
+		Thread lane = new Thread(() -> {
+			for (int i = 0; i < 20_000; i++) {
+				store.add(createSale("2024-02-12T16:05", 1, 0));
+			}
+		});
+		lane.start();
+
+		while (lane.isAlive()) {
+			Amount itemRevenue = store.getRevenueByItem().getOrDefault("abc123", Amount.ZERO);
+			assertEquals(0, itemRevenue.toRoundedHundredths() % 1250, "A query should only see whole sales.");
+		}
+		lane.join();
+		assertEquals(new Amount("250000.00"), store.getTotalRevenue(), "Every sale should be stored.");
+	}
+
+	private SaleDTO createSale(String time, int milkQuantity, int breadQuantity) {
+		ArrayList<SaleLineDTO> saleLines = new ArrayList<>();
+		Amount total = Amount.ZERO;
+		Amount vat = Amount.ZERO;
+		if (milkQuantity > 0) {
+			Amount lineTotal = MILK.fullPrice().multiply(new Amount(milkQuantity, 0));
+			saleLines.add(new SaleLineDTO(MILK, milkQuantity, MILK.fullPrice(), lineTotal));
+			total = total.add(lineTotal);
+			vat = vat.add(MILK.vatPrice().multiply(new Amount(milkQuantity, 0)));
+		}
+		if (breadQuantity > 0) {
+			Amount lineTotal = BREAD.fullPrice().multiply(new Amount(breadQuantity, 0));
+			saleLines.add(new SaleLineDTO(BREAD, breadQuantity, BREAD.fullPrice(), lineTotal));
+			total = total.add(lineTotal);
+			vat = vat.add(BREAD.vatPrice().multiply(new Amount(breadQuantity, 0)));
+		}
+		return new SaleDTO(LocalDateTime.parse(time), saleLines, total, vat, total, Amount.ZERO, Amount.ZERO);
+	}
+}
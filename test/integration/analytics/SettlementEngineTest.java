@@ -0,0 +1,128 @@
+package integration.analytics;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dto.AppliedDiscountDTO;
+import dto.ItemDTO;
+import dto.SaleDTO;
+import dto.SaleLineDTO;
+import integration.AccountingSystem;
+import model.Amount;
+
+public class SettlementEngineTest {
+	private static final ItemDTO MILK = new ItemDTO("abc123", "Milk", new Amount("10.00"), new Amount("0.25"), "1L");
+	private static final ItemDTO BREAD = new ItemDTO("def456", "Bread", new Amount("20.00"), new Amount("0.12"), "Rye");
+
+	private ForkJoinPool pool;
+	private SettlementEngine engine;
+
+	@BeforeEach
+	public void setUp() {
+		pool = new ForkJoinPool(4);
+		engine = new SettlementEngine(pool);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		pool.shutdown();
+		engine = null;
+	}
+
+	@Test
+	public void testSettlementTotals() {
+		SaleDTO discountedSale = createSale("lane1", 2, 1, "100.00");
+		discountedSale.discounts().add(new AppliedDiscountDTO("ITEM_BASED", new Amount("5.00")));
+		List<SaleDTO> sales = List.of(discountedSale, createSale("lane2", 1, 0, "20.00"),
+				createSale("lane1", 0, 1, "50.00"));
+
+		SettlementReport report = engine.settle(sales);
+
+		assertEquals(3, report.saleCount(), "Every sale should be settled.");
+		assertEquals(new Amount("82.30"), report.revenue(), "Failed to sum the revenue.");
+		assertEquals(Map.of("0.25", new SettlementReport.VatTotal(new Amount("30.00"), new Amount("7.50")), "0.12",
+				new SettlementReport.VatTotal(new Amount("40.00"), new Amount("4.80"))), report.vatByRate(),
+				"Failed to sum the net amount and VAT of each rate.");
+		assertEquals(Map.of("ITEM_BASED", new SettlementReport.DiscountTotal(1, new Amount("5.00"))),
+				report.discountsByType(), "Failed to sum the discounts of each type.");
+		assertEquals(new SettlementReport.RegisterTotal(2, new Amount("150.00"), new Amount("80.20")),
+				report.registers().get("lane1"), "Failed to sum the cash of the first lane.");
+		assertEquals(new Amount("12.50"), report.registers().get("lane2").netCash(),
+				"The net cash should be the cash in minus the change out.");
+		assertEquals(new SettlementReport.ItemSellThrough("Milk", 3, new Amount("37.50")), report.items().get("abc123"),
+				"Failed to sum the sales of an item.");
+	}
+
+	@Test
+	public void testParallelSettlementEqualsSequential() {
+		List<SaleDTO> sales = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			sales.add(createSale("lane" + i % 7, i % 3, i % 4, "200.00"));
+		}
+		ForkJoinPool singleThread = new ForkJoinPool(1);
+
+		SettlementReport sequential = new SettlementEngine(singleThread).settle(sales);
+		SettlementReport parallel = engine.settle(sales);
+		SettlementReport replayed = engine.settleReplay(sales::forEach);
+		singleThread.shutdown();
+
+		assertEquals(sequential, parallel, "Splitting the sales should not change the report.");
+		assertEquals(sequential, replayed, "Settling read blocks should give the same report as settling the list.");
+	}
+
+	@Test
+	public void testSettleJournal(@TempDir Path tempDir) {
+		AccountingSystem accountingSystem = new AccountingSystem(tempDir.resolve("sales.journal"));
+		try {
+			accountingSystem.account(createSale("lane1", 1, 0, "20.00"));
+			accountingSystem.account(createSale("lane2", 0, 1, "30.00")).join();
+
+			SettlementReport report = engine.settleReplay(accountingSystem::replayRecordedSales);
+
+			assertEquals(List.of("lane1", "lane2"), new ArrayList<>(report.registers().keySet()),
+					"The register of each sale should be read from the journal.");
+			assertEquals(new Amount("34.90"), report.revenue(), "Failed to sum the revenue of the journal.");
+		} finally {
+			accountingSystem.close();
+		}
+	}
+
+	@Test
+	public void testSellThroughRate() {
+		SettlementReport.ItemSellThrough item = new SettlementReport.ItemSellThrough("Milk", 30, new Amount("375"));
+
+		assertEquals(0.75, item.sellThroughRate(10), 1e-9, "Failed to divide the sold by the starting stock.");
+		assertEquals(0, new SettlementReport.ItemSellThrough("Milk", 0, Amount.ZERO).sellThroughRate(0), 1e-9,
+				"An item without stock should have no sell-through.");
+	}
+
+	private SaleDTO createSale(String registerId, int milkQuantity, int breadQuantity, String paid) {
+		ArrayList<SaleLineDTO> saleLines = new ArrayList<>();
+		addLine(saleLines, MILK, milkQuantity);
+		addLine(saleLines, BREAD, breadQuantity);
+		Amount total = Amount.ZERO;
+		Amount vat = Amount.ZERO;
+		for (SaleLineDTO line : saleLines) {
+			total = total.add(line.lineTotal());
+			vat = vat.add(line.item().vatPrice().multiply(new Amount(line.quantity(), 0)));
+		}
+		Amount amountPaid = new Amount(paid);
+		return new SaleDTO(LocalDateTime.parse("2024-02-12T16:05"), saleLines, total, vat, amountPaid,
+				amountPaid.subtract(total), Amount.ZERO, new ArrayList<>(), registerId);
+	}
+
+	private void addLine(List<SaleLineDTO> saleLines, ItemDTO item, int quantity) {
+		if (quantity > 0) {
+			saleLines.add(new SaleLineDTO(item, quantity, item.fullPrice(),
+					item.fullPrice().multiply(new Amount(quantity, 0))));
+		}
+	}
+}
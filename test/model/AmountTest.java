@@ -0,0 +1,146 @@
+package model;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AmountTest {
+	private static final String[] VAT_RATES = { "0", "0.06", "0.12", "0.25", "0.456", "0.123" };
+	private static final String[] DISCOUNT_RATES = { "0.05", "0.10", "0.15", "0.333" };
+
+	private Random random;
+
+	@BeforeEach
+	public void setUp() {
+		random = new Random(114514);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		random = null;
+	}
+
+	@Test
+	public void testVatRoundingMatchesBigDecimal() {
+		for (int i = 0; i < 10_000; i++) {
+			String price = randomPrice();
+			String vat = VAT_RATES[i % VAT_RATES.length];
+
+			Amount vatPrice = new Amount(price).multiply(new Amount(vat));
+			Amount fullPrice = new Amount(price).multiply(new Amount(vat).add(Amount.ONE));
+
+			BigDecimal expectedVat = new BigDecimal(price).multiply(new BigDecimal(vat));
+			BigDecimal expectedFull = new BigDecimal(price).multiply(new BigDecimal(vat).add(BigDecimal.ONE));
+
+			assertEquals(expectedVat, vatPrice.toBigDecimal(), "VAT differs for price " + price);
+			assertEquals(expectedFull, fullPrice.toBigDecimal(), "Full price differs for price " + price);
+			assertEquals(expectedFull.setScale(2, RoundingMode.HALF_UP), fullPrice.rounded().toBigDecimal(),
+					"Rounded full price differs for price " + price);
+		}
+	}
+
+	@Test
+	public void testPercentageDiscountRoundingMatchesBigDecimal() {
+		for (int i = 0; i < 10_000; i++) {
+			String total = randomPrice();
+			String rate = DISCOUNT_RATES[i % DISCOUNT_RATES.length];
+
+			Amount discount = new Amount(total).multiply(new Amount(rate));
+			Amount discounted = new Amount(total).subtract(discount).rounded();
+
+			BigDecimal expectedDiscount = new BigDecimal(total).multiply(new BigDecimal(rate));
+			BigDecimal expectedDiscounted = new BigDecimal(total).subtract(expectedDiscount)
+					.setScale(2, RoundingMode.HALF_UP);
+
+			assertEquals(expectedDiscount, discount.toBigDecimal(), "Discount differs for total " + total);
+			assertEquals(expectedDiscounted, discounted.toBigDecimal(), "Discounted total differs for " + total);
+		}
+	}
+
+	@Test
+	public void testRunningTotalWithDividedPriceMatchesBigDecimal() {
+		Amount vat = new Amount("0.06");
+		Amount price = new Amount("29.9").divide(vat.add(Amount.ONE));
+		Amount total = new Amount();
+
+		BigDecimal expectedPrice = new BigDecimal("29.9").divide(new BigDecimal("1.06"), MathContext.DECIMAL128);
+		BigDecimal expectedTotal = BigDecimal.ZERO;
+
+		for (int i = 0; i < 100; i++) {
+			total = total.add(price.multiply(vat.add(Amount.ONE)));
+			expectedTotal = expectedTotal.add(expectedPrice.multiply(new BigDecimal("1.06")));
+		}
+
+		assertEquals(expectedTotal, total.toBigDecimal(), "Running total should match BigDecimal.");
+		assertEquals(new Amount("2990.00"), total.rounded(), "Rounded running total should be 2990.00.");
+	}
+
+	@Test
+	public void testHalfUpRoundingOfNegativeAmounts() {
+		assertEquals(new BigDecimal("-0.13"), new Amount("-0.125").rounded().toBigDecimal(),
+				"Negative half should round away from zero.");
+		assertEquals(new BigDecimal("-0.12"), new Amount("-0.1249").rounded().toBigDecimal(),
+				"Negative below half should round towards zero.");
+		assertEquals(new BigDecimal("5.00"), new Amount("5").rounded().toBigDecimal(),
+				"Integers should get two decimals.");
+	}
+
+	@Test
+	public void testRoundedHundredthsMatchRounded() {
+		for (int i = 0; i < 10_000; i++) {
+			Amount amount = new Amount(randomPrice()).multiply(new Amount(VAT_RATES[i % VAT_RATES.length]));
+			if (i % 2 == 1) {
+				amount = Amount.ZERO.subtract(amount);
+			}
+
+			assertEquals(amount.rounded().toBigDecimal().unscaledValue().longValueExact(), amount.toRoundedHundredths(),
+					"Hundredths differ for amount " + amount);
+		}
+		assertThrows(ArithmeticException.class, () -> new Amount(Long.MAX_VALUE, 0).toRoundedHundredths(),
+				"An amount that does not fit in hundredths should be rejected.");
+	}
+
+	@Test
+	public void testOverflowFallsBackToBigDecimal() {
+		Amount large = new Amount(Long.MAX_VALUE, 0);
+
+		Amount sum = large.add(Amount.ONE);
+		Amount product = large.multiply(large);
+
+		BigDecimal expectedSum = BigDecimal.valueOf(Long.MAX_VALUE).add(BigDecimal.ONE);
+		BigDecimal expectedProduct = BigDecimal.valueOf(Long.MAX_VALUE).multiply(BigDecimal.valueOf(Long.MAX_VALUE));
+
+		assertFalse(sum.isCompact(), "Overflowing sum should use BigDecimal.");
+		assertEquals(expectedSum, sum.toBigDecimal(), "Overflowing sum should be exact.");
+		assertEquals(expectedProduct, product.toBigDecimal(), "Overflowing product should be exact.");
+		assertEquals(large, sum.subtract(Amount.ONE), "Result back in range should be equal to the original.");
+	}
+
+	@Test
+	public void testScanPathStaysCompact() {
+		Amount fullPrice = new Amount("12.50").multiply(new Amount("0.25").add(Amount.ONE));
+
+		assertTrue(fullPrice.isCompact(), "Price times VAT should not need a BigDecimal.");
+		assertTrue(new Amount().add(fullPrice).isCompact(), "Running total should not need a BigDecimal.");
+	}
+
+	@Test
+	public void testEqualsAndHashCodeIgnoreScale() {
+		Amount compact = new Amount("12.50");
+		Amount big = new Amount("12.5000000000000000000");
+
+		assertFalse(big.isCompact(), "Amount with more than 18 decimals should use BigDecimal.");
+
+		assertEquals(compact, big, "Amounts with the same value should be equal.");
+		assertEquals(compact.hashCode(), big.hashCode(), "Equal amounts should have the same hash code.");
+	}
+
+	private String randomPrice() {
+		long minorUnits = random.nextInt(10_000_000) - 1_000_000;
+		return BigDecimal.valueOf(minorUnits, 2).toPlainString();
+	}
+}
@@ -1,14 +1,22 @@
 package model;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import dto.AppliedDiscountDTO;
+import dto.DiscountDTO;
 import dto.ItemDTO;
 import dto.ReceiptDTO;
 import dto.SaleDTO;
 import dto.SaleInfoDTO;
+import dto.SaleLineDTO;
+import model.discount.DiscountStrategy;
+import model.discount.ItemBasedDiscount;
+import model.discount.TotalPricePercentageDiscount;
 
 public class SaleTest {
 
@@ -26,8 +34,8 @@ public class SaleTest {
 
 	@Test
 	public void testSaleConstructor() {
-		assertNotNull(saleInstance.getBoughtItems(), "Bought items list should be initialized.");
-		assertEquals(0, saleInstance.getBoughtItems().size(), "Bought items list should be empty initially.");
+		assertNotNull(saleInstance.getSaleLines(), "Sale lines should be initialized.");
+		assertEquals(0, saleInstance.getSaleLines().size(), "Sale lines should be empty initially.");
 		assertEquals(new Amount("0"), saleInstance.getTotalPrice(),
 				"Initial total price should be zero.");
 	}
@@ -45,20 +53,20 @@ public class SaleTest {
 
 		assertNotNull(resultInfo,
 				"Returned SaleInfoDTO should not be null.");
-		assertEquals(expectedFullPrice, resultInfo.currentItem().price(),
+		assertEquals(expectedFullPrice, resultInfo.currentItem().fullPrice(),
 				"Returned item DTO should have the full price.");
 		assertEquals(expectedFullPrice, resultInfo.totalPrice(),
 				"Returned running total should match the item's full price.");
-		assertEquals(1, saleInstance.getBoughtItems().size(),
-				"One item should be in the bought items list.");
-		assertEquals(testItem.id(), saleInstance.getBoughtItems().get(0).id(),
+		assertEquals(1, saleInstance.getSaleLines().size(),
+				"One sale line should be in the sale.");
+		assertEquals(testItem.id(), saleInstance.getSaleLines().get(0).item().id(),
 				"The correct item should be added.");
 		assertEquals(expectedFullPrice, saleInstance.getTotalPrice(),
 				"Sale total price should be updated correctly.");
 	}
 
 	@Test
-	public void testGetBoughtItems() {
+	public void testGetSaleLines() {
 		ItemDTO item1 = new ItemDTO("item1", "Test Item 1", new Amount("10.00"), new Amount("0.25"),
 				"Test item number one");
 		ItemDTO item2 = new ItemDTO("item2", "Test Item 2", new Amount("20.00"), new Amount("0.20"),
@@ -76,22 +84,79 @@ public class SaleTest {
 		saleInstance.addBoughtItem(item4);
 		saleInstance.addBoughtItem(item5);
 
-		List<ItemDTO> items = saleInstance.getBoughtItems();
+		List<SaleLineDTO> lines = saleInstance.getSaleLines();
 
-		assertEquals(5, items.size(),
+		assertEquals(5, lines.size(),
 				"Failed to add Items");
-		assertEquals("item1", items.get(0).id(),
+		assertEquals("item1", lines.get(0).item().id(),
 				"Failed to read Item ID");
-		assertEquals("Test Item 2", items.get(1).name(),
+		assertEquals("Test Item 2", lines.get(1).item().name(),
 				"Failed to read Item name");
-		assertEquals(new Amount("30.00"), items.get(2).price(),
+		assertEquals(new Amount("30.00"), lines.get(2).item().price(),
 				"Failed to read Item price");
-		assertEquals(new Amount("0.10"), items.get(3).vat(),
+		assertEquals(new Amount("0.10"), lines.get(3).item().vat(),
 				"Failed to read Item VAT");
-		assertEquals("Test item number five", items.get(4).description(),
+		assertEquals("Test item number five", lines.get(4).item().description(),
 				"Failed to read Item description");
 	}
 
+	@Test
+	public void testAddBoughtItems() {
+		ItemDTO milk = new ItemDTO("item1", "Test Item 1", new Amount("10.00"), new Amount("0.25"), "1L milk");
+		ItemDTO bread = new ItemDTO("item2", "Test Item 2", new Amount("20.00"), new Amount("0.20"), "Bread");
+
+		saleInstance.addBoughtItem(bread);
+		SaleInfoDTO resultInfo = saleInstance.addBoughtItems(List.of(milk, bread, milk));
+
+		List<SaleLineDTO> lines = saleInstance.getSaleLines();
+		assertEquals(2, lines.size(), "Each distinct item should have one sale line.");
+		assertEquals(2, lines.get(0).quantity(), "Failed to add up the quantity of item2");
+		assertEquals(2, lines.get(1).quantity(), "Failed to add up the quantity of item1");
+		assertSame(milk, resultInfo.currentItem(), "The last item of the batch should be the current item.");
+		assertEquals(3, resultInfo.quantity(), "Returned quantity should be the number of items in the batch.");
+		assertEquals(new Amount("73.00"), resultInfo.totalPrice(), "Failed to calculate running total");
+		assertEquals(new Amount("13.00"), resultInfo.totalVat(), "Failed to calculate running VAT");
+		assertEquals(4, saleInstance.getItemCount(), "Failed to count bought items");
+	}
+
+	@Test
+	public void testSameItemIsAggregatedIntoOneLine() {
+		ItemDTO milk = new ItemDTO("item1", "Test Item 1", new Amount("10.00"), new Amount("0.25"), "1L milk");
+		ItemDTO bread = new ItemDTO("item2", "Test Item 2", new Amount("20.00"), new Amount("0.20"), "Bread");
+
+		saleInstance.addBoughtItem(milk);
+		saleInstance.addBoughtItem(bread);
+		SaleInfoDTO resultInfo = saleInstance.addBoughtItem(milk, 3);
+
+		List<SaleLineDTO> lines = saleInstance.getSaleLines();
+		assertEquals(2, lines.size(),
+				"Each distinct item should have one sale line.");
+		assertEquals(4, lines.get(0).quantity(),
+				"Failed to add up the quantity of item1");
+		assertEquals(new Amount("12.50"), lines.get(0).unitPrice(),
+				"Failed to calculate the unit price including VAT");
+		assertEquals(new Amount("50.00"), lines.get(0).lineTotal(),
+				"Failed to add up the line total of item1");
+		assertEquals(3, resultInfo.quantity(),
+				"Returned quantity should be the entered quantity.");
+		assertEquals(new Amount("74.00"), resultInfo.totalPrice(),
+				"Failed to calculate running total");
+		assertEquals(new Amount("14.00"), resultInfo.totalVat(),
+				"Failed to calculate running VAT");
+		assertEquals(5, saleInstance.getItemCount(),
+				"Failed to count bought items");
+	}
+
+	@Test
+	public void testAddBoughtItemWithNonPositiveQuantity() {
+		ItemDTO milk = new ItemDTO("item1", "Test Item 1", new Amount("10.00"), new Amount("0.25"), "1L milk");
+
+		assertThrows(IllegalArgumentException.class, () -> saleInstance.addBoughtItem(milk, 0),
+				"A quantity of zero should be rejected.");
+		assertEquals(0, saleInstance.getSaleLines().size(),
+				"No sale line should be added.");
+	}
+
 	@Test
 	public void testGetSaleInfo() {
 		ItemDTO item = new ItemDTO("item1", "Test Item 1", new Amount("10.00"), new Amount("0.25"), "1L milk");
@@ -121,4 +186,63 @@ public class SaleTest {
 		assertEquals(saleDTO, receipt.sale(),
 				"Failed to transfer saleDTO correctly to receipt");
 	}
+
+	@Test
+	public void testGetDiscountInfo() {
+		ItemDTO milk = new ItemDTO("item1", "Test Item 1", new Amount("10.00"), new Amount("0.25"), "1L milk");
+		ItemDTO bread = new ItemDTO("item2", "Test Item 2", new Amount("20.00"), new Amount("0.20"), "Bread");
+		saleInstance.addBoughtItem(milk);
+		saleInstance.addBoughtItem(bread);
+		saleInstance.addBoughtItem(milk);
+
+		DiscountDTO discountInfo = saleInstance.getDiscountInfo(114514);
+
+		assertEquals(3, discountInfo.itemCount(),
+				"Failed to count bought items");
+		assertEquals(2, discountInfo.itemQuantities().get("item1"),
+				"Failed to tally quantity of item1");
+		assertEquals(1, discountInfo.itemQuantities().get("item2"),
+				"Failed to tally quantity of item2");
+		assertEquals(new Amount("49.00"), discountInfo.totalPrice(),
+				"Failed to transfer total price");
+		assertEquals(114514, discountInfo.customerId(),
+				"Failed to transfer customer ID");
+	}
+
+	@Test
+	public void testDiscountInfoTalliesQuantitiesAndBatches() {
+		ItemDTO milk = new ItemDTO("item1", "Test Item 1", new Amount("10.00"), new Amount("0.25"), "1L milk");
+		ItemDTO bread = new ItemDTO("item2", "Test Item 2", new Amount("20.00"), new Amount("0.20"), "Bread");
+		saleInstance.addBoughtItem(milk, 3);
+		saleInstance.addBoughtItems(List.of(bread, milk, bread));
+
+		DiscountDTO discountInfo = saleInstance.getDiscountInfo(114514);
+
+		assertEquals(Map.of("item1", 4, "item2", 2), discountInfo.itemQuantities(),
+				"Failed to tally the quantities of entered quantities and batches");
+		assertThrows(UnsupportedOperationException.class, () -> discountInfo.itemQuantities().put("item3", 1),
+				"The tallied quantities should be read-only");
+		assertThrows(UnsupportedOperationException.class, () -> discountInfo.itemQuantities().remove("item1"),
+				"The tallied quantities should be read-only");
+		assertEquals(saleInstance.getSaleLines().size(), discountInfo.itemQuantities().size(),
+				"There should be one quantity per sale line");
+	}
+
+	@Test
+	public void testAppliedDiscountsAreKeptByType() {
+		ItemDTO item = new ItemDTO("item1", "Test Item 1", new Amount("80.00"), new Amount("0.25"), "1L milk");
+		saleInstance.addBoughtItem(item);
+		ArrayList<DiscountStrategy> discounts = new ArrayList<>();
+		discounts.add(new ItemBasedDiscount(new Amount("5.00"), "5 off"));
+		discounts.add(new TotalPricePercentageDiscount(new Amount("0.10"), "10% off"));
+
+		saleInstance.setDiscountedPrice(discounts);
+		SaleDTO saleDTO = saleInstance.getSaleInfo(new Amount("100.00"));
+
+		assertEquals(List.of(new AppliedDiscountDTO(ItemBasedDiscount.TYPE, new Amount("5.00")),
+				new AppliedDiscountDTO(TotalPricePercentageDiscount.TYPE, new Amount("10.00"))), saleDTO.discounts(),
+				"Every applied discount should be kept with its type and amount.");
+		assertEquals(new Amount("15.00"), saleDTO.discountedPrice(),
+				"Failed to sum the applied discounts");
+	}
 }
@@ -0,0 +1,55 @@
+package model.discount;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dto.DiscountDTO;
+import integration.DiscountCatalog;
+import model.Amount;
+
+public class DiscountFactoryTest {
+	private DiscountFactory discountFactory;
+
+	@BeforeEach
+	public void setUp() {
+		discountFactory = new DiscountFactory(new DiscountCatalog());
+	}
+
+	@AfterEach
+	public void tearDown() {
+		discountFactory = null;
+	}
+
+	@Test
+	public void testAllDiscountsForEligibleSale() {
+		DiscountDTO discountInfo = new DiscountDTO(3, Map.of("abc123", 3), new Amount("150"), 114514);
+
+		ArrayList<DiscountStrategy> discounts = discountFactory.fetchEligibleDiscounts(discountInfo);
+
+		assertEquals(3, discounts.size(), "All three discounts should apply.");
+	}
+
+	@Test
+	public void testNoDiscountsForSmallSale() {
+		DiscountDTO discountInfo = new DiscountDTO(1, Map.of("abc123", 1), new Amount("29.90"), 1);
+
+		ArrayList<DiscountStrategy> discounts = discountFactory.fetchEligibleDiscounts(discountInfo);
+
+		assertTrue(discounts.isEmpty(), "No discount should apply.");
+	}
+
+	@Test
+	public void testStrategiesAreReused() {
+		DiscountDTO discountInfo = new DiscountDTO(3, Map.of("abc123", 3), new Amount("150"), 114514);
+
+		ArrayList<DiscountStrategy> firstDiscounts = discountFactory.fetchEligibleDiscounts(discountInfo);
+		ArrayList<DiscountStrategy> secondDiscounts = discountFactory.fetchEligibleDiscounts(discountInfo);
+
+		for (int i = 0; i < firstDiscounts.size(); i++) {
+			assertSame(firstDiscounts.get(i), secondDiscounts.get(i), "The same strategy instance should be reused.");
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package observer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import model.Amount;
+
+public class RevenueAccumulatorTest {
+	private static final int THREAD_COUNT = 8;
+	private static final int ADDS_PER_THREAD = 10000;
+
+	@Test
+	public void testConcurrentAddsAreNotLost() throws InterruptedException {
+		RevenueAccumulator accumulator = new RevenueAccumulator(4);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < THREAD_COUNT; t++) {
+			Thread thread = new Thread(() -> {
+				awaitQuietly(start);
+				for (int i = 0; i < ADDS_PER_THREAD; i++) {
+					accumulator.add(i % 2 == 0 ? new Amount("0.01") : new Amount("1.5"));
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		Amount expected = new Amount("0.01").add(new Amount("1.5"))
+				.multiply(new Amount(THREAD_COUNT * ADDS_PER_THREAD / 2, 0));
+		assertEquals(expected, accumulator.sum(), "No concurrent addition should be lost.");
+	}
+
+	@Test
+	public void testSumIsExact() {
+		RevenueAccumulator accumulator = new RevenueAccumulator();
+		for (int i = 0; i < 10; i++) {
+			accumulator.add(new Amount("0.1"));
+		}
+
+		assertEquals(new Amount("1"), accumulator.sum(), "Decimal amounts should be added exactly.");
+	}
+
+	@Test
+	public void testNewAccumulatorIsZero() {
+		assertEquals(Amount.ZERO, new RevenueAccumulator(1).sum(), "Nothing added should sum to zero.");
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
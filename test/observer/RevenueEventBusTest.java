@@ -0,0 +1,186 @@
+package observer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import model.Amount;
+
+public class RevenueEventBusTest {
+	private RevenueEventBus eventBus;
+
+	@AfterEach
+	public void tearDown() {
+		eventBus.close();
+		eventBus = null;
+	}
+
+	@Test
+	public void testUpdatesAreDeliveredInOrder() {
+		eventBus = new RevenueEventBus();
+		List<Amount> firstReceived = new ArrayList<>();
+		List<Amount> secondReceived = new ArrayList<>();
+		eventBus.subscribe(firstReceived::add);
+		eventBus.subscribe(secondReceived::add);
+
+		List<Amount> published = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			Amount amount = new Amount(i, 2);
+			published.add(amount);
+			eventBus.publish(amount);
+		}
+		eventBus.close();
+
+		assertEquals(published, firstReceived, "First observer should get all updates in order.");
+		assertEquals(published, secondReceived, "Second observer should get all updates in order.");
+		assertEquals(1000, eventBus.getDispatchedEventCount(), "All updates should be counted as dispatched.");
+		assertEquals(0, eventBus.getQueueDepth(), "Queue should be empty after close.");
+	}
+
+	@Test
+	public void testDropNewestWhenFull() throws InterruptedException {
+		eventBus = new RevenueEventBus(2, RevenueEventBus.OverflowPolicy.DROP_NEWEST);
+		CountDownLatch observerBlocked = new CountDownLatch(1);
+		CountDownLatch releaseObserver = new CountDownLatch(1);
+		List<Amount> received = new ArrayList<>();
+		eventBus.subscribe(amount -> {
+			observerBlocked.countDown();
+			awaitQuietly(releaseObserver);
+			received.add(amount);
+		});
+
+		eventBus.publish(new Amount(1, 0));
+		observerBlocked.await();
+		assertTrue(eventBus.publish(new Amount(2, 0)), "Second update should fit in the buffer.");
+		assertTrue(eventBus.publish(new Amount(3, 0)), "Third update should fit in the buffer.");
+		assertFalse(eventBus.publish(new Amount(4, 0)), "Fourth update should be dropped.");
+		assertEquals(2, eventBus.getQueueDepth(), "Two updates should be waiting.");
+		releaseObserver.countDown();
+		eventBus.close();
+
+		assertEquals(List.of(new Amount(1, 0), new Amount(2, 0), new Amount(3, 0)), received,
+				"The newest update should be the one dropped.");
+		assertEquals(1, eventBus.getDroppedEventCount(), "One update should be counted as dropped.");
+	}
+
+	@Test
+	public void testDropOldestWhenFull() throws InterruptedException {
+		eventBus = new RevenueEventBus(2, RevenueEventBus.OverflowPolicy.DROP_OLDEST);
+		CountDownLatch observerBlocked = new CountDownLatch(1);
+		CountDownLatch releaseObserver = new CountDownLatch(1);
+		List<Amount> received = new ArrayList<>();
+		eventBus.subscribe(amount -> {
+			observerBlocked.countDown();
+			awaitQuietly(releaseObserver);
+			received.add(amount);
+		});
+
+		eventBus.publish(new Amount(1, 0));
+		observerBlocked.await();
+		eventBus.publish(new Amount(2, 0));
+		eventBus.publish(new Amount(3, 0));
+		eventBus.publish(new Amount(4, 0));
+		releaseObserver.countDown();
+		eventBus.close();
+
+		assertEquals(List.of(new Amount(1, 0), new Amount(3, 0), new Amount(4, 0)), received,
+				"The oldest waiting update should be the one dropped.");
+		assertEquals(1, eventBus.getDroppedEventCount(), "One update should be counted as dropped.");
+	}
+
+	@Test
+	public void testCloseWhilePublishingDropOldest() throws InterruptedException {
+		eventBus = new RevenueEventBus(1, RevenueEventBus.OverflowPolicy.DROP_OLDEST);
+		AtomicLong publishedCount = new AtomicLong();
+		List<Thread> publishers = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			Thread publisher = new Thread(() -> {
+				try {
+					while (true) {
+						eventBus.publish(Amount.ONE);
+						publishedCount.incrementAndGet();
+					}
+				} catch (IllegalStateException closed) {
+					// The bus was closed, stop publishing.
+				}
+			});
+			publishers.add(publisher);
+			publisher.start();
+		}
+		Thread.sleep(20);
+
+		assertTimeoutPreemptively(Duration.ofSeconds(5), eventBus::close, "Publishers should not block the close.");
+		for (Thread publisher : publishers) {
+			publisher.join();
+		}
+
+		assertEquals(publishedCount.get(), eventBus.getDispatchedEventCount() + eventBus.getDroppedEventCount(),
+				"Every published update should be delivered or counted as dropped.");
+	}
+
+	@Test
+	public void testCloseWaitsForBlockedPublisherWithoutSpinning() throws InterruptedException {
+		eventBus = new RevenueEventBus(1, RevenueEventBus.OverflowPolicy.BLOCK);
+		CountDownLatch observerBlocked = new CountDownLatch(1);
+		CountDownLatch releaseObserver = new CountDownLatch(1);
+		List<Amount> received = new ArrayList<>();
+		eventBus.subscribe(amount -> {
+			observerBlocked.countDown();
+			awaitQuietly(releaseObserver);
+			received.add(amount);
+		});
+		eventBus.publish(new Amount(1, 0));
+		observerBlocked.await();
+		eventBus.publish(new Amount(2, 0));
+		Thread publisher = new Thread(() -> eventBus.publish(new Amount(3, 0)));
+		publisher.start();
+		awaitState(publisher, Thread.State.WAITING);
+
+		Thread closer = new Thread(eventBus::close);
+		closer.start();
+		awaitState(closer, Thread.State.WAITING);
+		releaseObserver.countDown();
+		closer.join();
+		publisher.join();
+
+		assertEquals(List.of(new Amount(1, 0), new Amount(2, 0), new Amount(3, 0)), received,
+				"The update of the blocked publisher should be delivered before the bus closes.");
+	}
+
+	@Test
+	public void testFailingObserverDoesNotStopDelivery() {
+		eventBus = new RevenueEventBus();
+		List<Amount> received = new ArrayList<>();
+		eventBus.subscribe(amount -> {
+			throw new IllegalStateException("Observer failure");
+		});
+		eventBus.subscribe(received::add);
+
+		eventBus.publish(new Amount(1, 0));
+		eventBus.publish(new Amount(2, 0));
+		eventBus.close();
+
+		assertEquals(2, received.size(), "The second observer should get all updates.");
+	}
+
+	private static void awaitState(Thread thread, Thread.State state) throws InterruptedException {
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (thread.getState() != state) {
+			assertTrue(System.nanoTime() < deadline, "The thread should reach the state " + state + ".");
+			Thread.sleep(1);
+		}
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
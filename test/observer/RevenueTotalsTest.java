@@ -0,0 +1,70 @@
+package observer;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import model.Amount;
+
+public class RevenueTotalsTest {
+	private AtomicLong now;
+	private RevenueTotals totals;
+
+	@BeforeEach
+	public void setUp() {
+		now = new AtomicLong(1_000_000);
+		totals = new RevenueTotals(Duration.ofSeconds(10), 3, now::get);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		totals = null;
+	}
+
+	@Test
+	public void testRevenueIsTotalledPerLane() {
+		totals.record("lane-1", new Amount("10.50"));
+		totals.record("lane-2", new Amount("4"));
+		totals.record("lane-1", new Amount("0.25"));
+
+		assertEquals(new Amount("14.75"), totals.getTotalRevenue(), "All lanes should be in the total.");
+		assertEquals(new Amount("10.75"), totals.getLaneRevenue("lane-1"), "Lane 1 total is wrong.");
+		assertEquals(Amount.ZERO, totals.getLaneRevenue("lane-3"), "A lane without sales should be zero.");
+		Map<String, Amount> byLane = totals.getRevenueByLane();
+		assertEquals(2, byLane.size(), "Only lanes with sales should be listed.");
+		assertEquals(new Amount("4"), byLane.get("lane-2"), "Lane 2 total is wrong.");
+	}
+
+	@Test
+	public void testRecentRevenueCoversRequestedWindows() {
+		totals.record("lane-1", new Amount("1"));
+		now.addAndGet(10_000);
+		totals.record("lane-1", new Amount("2"));
+		now.addAndGet(10_000);
+		totals.record("lane-1", new Amount("4"));
+
+		assertEquals(new Amount("4"), totals.getRecentRevenue(Duration.ofSeconds(1)),
+				"A short period should cover the current window only.");
+		assertEquals(new Amount("6"), totals.getRecentRevenue(Duration.ofSeconds(20)),
+				"Two windows should cover the two latest windows.");
+		assertEquals(new Amount("7"), totals.getRecentRevenue(Duration.ofHours(1)),
+				"A long period should cover all kept windows.");
+	}
+
+	@Test
+	public void testOldWindowsAreReused() {
+		totals.record("lane-1", new Amount("1"));
+		now.addAndGet(30_000);
+		totals.record("lane-1", new Amount("8"));
+
+		assertEquals(new Amount("8"), totals.getRecentRevenue(Duration.ofHours(1)),
+				"The revenue of a window that has come around again should be replaced.");
+		now.addAndGet(40_000);
+		assertEquals(Amount.ZERO, totals.getRecentRevenue(Duration.ofHours(1)),
+				"Windows older than the ring should not be counted.");
+		assertEquals(new Amount("9"), totals.getTotalRevenue(), "The total should keep all revenue.");
+	}
+}
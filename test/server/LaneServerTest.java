@@ -0,0 +1,128 @@
+package server;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import controller.Controller;
+import dto.ReceiptDTO;
+import dto.SaleInfoDTO;
+import integration.AccountingSystem;
+import integration.DiscountCatalog;
+import integration.InventorySystem;
+import integration.Printer;
+import model.Amount;
+import model.discount.DiscountFactory;
+
+public class LaneServerTest {
+	private static final String HOST = InetAddress.getLoopbackAddress().getHostAddress();
+
+	@TempDir
+	private Path tempDir;
+
+	private Controller controller;
+	private LaneServer server;
+
+	@BeforeEach
+	public void setUp() {
+		controller = new Controller(new AccountingSystem(tempDir.resolve("sales.journal")), new InventorySystem(),
+				new DiscountFactory(new DiscountCatalog()), new SilentPrinter());
+		server = new LaneServer(controller, 0);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		server.close();
+		controller.shutdown();
+		server = null;
+		controller = null;
+	}
+
+	@Test
+	public void testSaleOverConnection() {
+		try (LaneClient lane = new LaneClient(HOST, server.getPort(), "lane1")) {
+			lane.startSale();
+			lane.enterItem("abc123", 1);
+			SaleInfoDTO saleInfo = lane.enterItem("def456", 2);
+			LaneRequestException notFound = assertThrows(LaneRequestException.class,
+					() -> lane.enterItem("nonExistentItem", 1));
+			Amount total = lane.endSale();
+			Amount change = lane.pay(new Amount("200"));
+
+			assertEquals("def456", saleInfo.currentItem().id(), "The entered item should be sent back.");
+			assertEquals(2, saleInfo.quantity(), "The entered quantity should be sent back.");
+			assertEquals(total, saleInfo.totalPrice().rounded(), "The running total should match the end total.");
+			assertTrue(notFound.isItemNotFound(), "An unknown item should be reported as not found.");
+			assertEquals(new Amount("200").subtract(total), change, "The change should be paid minus total.");
+		}
+	}
+
+	@Test
+	public void testFailedRequestKeepsConnection() {
+		try (LaneClient lane = new LaneClient(HOST, server.getPort(), "lane1")) {
+			LaneRequestException noSale = assertThrows(LaneRequestException.class, lane::endSale);
+			lane.startSale();
+
+			assertFalse(noSale.isItemNotFound(), "A missing sale is not a missing item.");
+			assertEquals(new Amount("29.90"), lane.enterItem("abc123", 1).totalPrice().rounded(),
+					"The lane should still work after a failed request.");
+		}
+	}
+
+	@Test
+	public void testLaneCanOnlyConnectOnce() {
+		try (LaneClient lane = new LaneClient(HOST, server.getPort(), "lane1")) {
+			assertThrows(LaneRequestException.class, () -> new LaneClient(HOST, server.getPort(), "lane1"),
+					"A second connection for the same lane should be rejected.");
+			lane.startSale();
+
+			assertEquals(1, server.getConnectedLaneCount(), "Only the first connection should be a lane.");
+			assertEquals(new Amount("29.90"), lane.enterItem("abc123", 1).totalPrice().rounded(),
+					"The first connection should still work after the second was rejected.");
+		}
+	}
+
+	@Test
+	public void testDisconnectDiscardsSale() throws InterruptedException {
+		try (LaneClient lane = new LaneClient(HOST, server.getPort(), "lane1")) {
+			lane.startSale();
+			lane.enterItem("abc123", 1);
+		}
+		awaitDisconnect();
+
+		try (LaneClient lane = new LaneClient(HOST, server.getPort(), "lane1")) {
+			assertThrows(LaneRequestException.class, lane::endSale, "The sale should end with its connection.");
+		}
+	}
+
+	@Test
+	public void testLoadGenerator() throws InterruptedException {
+		LoadGenerator.Report report = new LoadGenerator(HOST, server.getPort(), 20, 4).run(Duration.ofMillis(300));
+
+		assertTrue(report.finishedSales() > 0, "Sales should be finished during the test.");
+		assertEquals(0, report.failedRequests(), "No request should fail.");
+		assertEquals(report.finishedSales() * 10, report.latencies().get("enterItem").getCount(),
+				"Every finished sale should have entered ten items.");
+		assertTrue(report.format().contains("requestDiscount"), "The report should list every operation.");
+		awaitDisconnect();
+	}
+
+	private void awaitDisconnect() throws InterruptedException {
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (server.getConnectedLaneCount() > 0 && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		assertEquals(0, server.getConnectedLaneCount(), "The server should notice closed connections.");
+	}
+
+	private static class SilentPrinter extends Printer {
+		@Override
+		public void printReceipt(ReceiptDTO receiptDTO) {
+		}
+	}
+}
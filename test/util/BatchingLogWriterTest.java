@@ -0,0 +1,82 @@
+package util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchingLogWriterTest {
+	@TempDir
+	private Path tempDir;
+
+	private Path logFile;
+
+	@BeforeEach
+	public void setUp() {
+		logFile = tempDir.resolve("test.log");
+	}
+
+	@Test
+	public void testAllLinesAreWrittenOnClose() throws IOException {
+		BatchingLogWriter writer = new BatchingLogWriter(logFile, 100_000, 512, 10_000, Long.MAX_VALUE);
+		for (int i = 0; i < 50_000; i++) {
+			assertTrue(writer.write("line " + i), "Line should be queued.");
+		}
+		writer.close();
+
+		List<String> lines = Files.readAllLines(logFile);
+		assertEquals(50_000, lines.size(), "All lines should be written.");
+		assertEquals("line 49999", lines.get(49_999), "Lines should be written in order.");
+	}
+
+	@Test
+	public void testLinesAreFlushedAfterInterval() throws Exception {
+		BatchingLogWriter writer = new BatchingLogWriter(logFile, 100, 100, 20, Long.MAX_VALUE);
+		writer.write("flushed by timer");
+
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (Files.size(logFile) == 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		List<String> lines = Files.readAllLines(logFile);
+		writer.close();
+
+		assertEquals(List.of("flushed by timer"), lines, "Line should be flushed without closing the writer.");
+	}
+
+	@Test
+	public void testFileIsRotatedBySize() throws IOException {
+		BatchingLogWriter writer = new BatchingLogWriter(logFile, 1_000, 10, 10_000, 100);
+		for (int i = 0; i < 100; i++) {
+			writer.write("line %03d".formatted(i));
+		}
+		writer.close();
+
+		List<String> allLines = new ArrayList<>();
+		try (Stream<Path> files = Files.list(tempDir)) {
+			for (Path file : files.sorted().toList()) {
+				assertTrue(Files.size(file) <= 100, "No file should be larger than the maximum size.");
+				allLines.addAll(Files.readAllLines(file));
+			}
+		}
+		allLines.sort(null);
+
+		assertEquals(100, allLines.size(), "No line should be lost when rotating.");
+		assertEquals("line 000", allLines.get(0), "The first line should be kept.");
+	}
+
+	@Test
+	public void testWriteAfterCloseIsDropped() throws IOException {
+		BatchingLogWriter writer = new BatchingLogWriter(logFile, 10, 10, 10_000, Long.MAX_VALUE);
+		writer.close();
+
+		assertFalse(writer.write("too late"), "Line written after close should be dropped.");
+		assertEquals(1, writer.getDroppedLineCount(), "Dropped line should be counted.");
+	}
+}
@@ -0,0 +1,132 @@
+package util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogHandlerTest {
+	@TempDir
+	private Path tempDir;
+
+	private Path logFile;
+
+	@BeforeEach
+	public void setUp() {
+		logFile = tempDir.resolve("exceptions.log");
+	}
+
+	@Test
+	public void testEntryIsJsonLineWithStackTrace() throws IOException {
+		LogHandler logger = new LogHandler(logFile, 1000);
+		logger.logException(new IllegalStateException("Database \"inventory\" is not running"));
+		logger.close();
+
+		List<String> lines = Files.readAllLines(logFile);
+		assertEquals(1, lines.size(), "One entry should be written on one line.");
+		assertTrue(lines.get(0).startsWith("{\"time\":\""), "Entry should be a JSON object.");
+		assertTrue(lines.get(0).contains("\"message\":\"Database \\\"inventory\\\" is not running\""),
+				"Message should be escaped.");
+		assertTrue(lines.get(0).contains("\"stackTrace\":\"java.lang.IllegalStateException"),
+				"First entry should contain the stack trace.");
+	}
+
+	@Test
+	public void testRepeatedExceptionsAreRateLimited() throws IOException {
+		LogHandler logger = new LogHandler(logFile, 60_000);
+		for (int i = 0; i < 1000; i++) {
+			logger.logException(createException("Database server is not running"));
+		}
+		logger.close();
+
+		List<String> lines = Files.readAllLines(logFile);
+		assertEquals(1, lines.size(), "Identical exceptions should only be logged once per window.");
+	}
+
+	@Test
+	public void testSuppressedCountIsLoggedAfterWindow() throws Exception {
+		LogHandler logger = new LogHandler(logFile, 50);
+		for (int i = 0; i < 11; i++) {
+			if (i == 10) {
+				Thread.sleep(100);
+			}
+			logger.logException(createException("Database server is not running"));
+		}
+		logger.close();
+
+		List<String> lines = Files.readAllLines(logFile);
+		assertEquals(2, lines.size(), "A new entry should be logged after the window.");
+		assertTrue(lines.get(1).contains("\"suppressed\":9"), "Suppressed entries should be counted.");
+		assertFalse(lines.get(1).contains("stackTrace"), "A stack trace should only be logged once.");
+	}
+
+	@Test
+	public void testSameStackTraceIsOnlyWrittenOnce() throws IOException {
+		LogHandler logger = new LogHandler(logFile, 60_000);
+		for (String message : List.of("First message", "Second message")) {
+			logger.logException(createException(message));
+		}
+		logger.close();
+
+		List<String> lines = Files.readAllLines(logFile);
+		assertEquals(2, lines.size(), "Exceptions with different messages should both be logged.");
+		assertTrue(lines.get(0).contains("stackTrace"), "First entry should contain the stack trace.");
+		assertFalse(lines.get(1).contains("stackTrace"), "Second entry should only refer to the stack hash.");
+	}
+
+	@Test
+	public void testStackTraceIsWrittenAgainAfterRotation() throws IOException {
+		LogHandler logger = new LogHandler(logFile, 60_000, 1, 10_000);
+		for (String message : List.of("First message", "Second message")) {
+			logger.logException(createException(message));
+		}
+		logger.close();
+
+		List<String> lines = Files.readAllLines(logFile);
+		assertEquals(1, lines.size(), "The second entry should be written to a new file.");
+		assertTrue(lines.get(0).contains("\"message\":\"Second message\""), "The new file should hold the second entry.");
+		assertTrue(lines.get(0).contains("stackTrace"), "The new file should contain the stack trace again.");
+	}
+
+	@Test
+	public void testSuppressedCountIsWrittenBeforeHistoryIsCleared() throws IOException {
+		LogHandler logger = new LogHandler(logFile, 60_000, 64L * 1024 * 1024, 2);
+		for (int i = 0; i < 3; i++) {
+			logger.logException(createException("First message"));
+		}
+		logger.logException(createException("Second message"));
+		logger.logException(createException("Third message"));
+		logger.close();
+
+		List<String> lines = Files.readAllLines(logFile);
+		assertEquals(4, lines.size(), "The suppressed count should be written as its own entry.");
+		assertTrue(lines.get(2).contains("\"message\":\"First message\""), "The count should be of the first message.");
+		assertTrue(lines.get(2).contains("\"suppressed\":2"), "The pending suppressed count should be written.");
+		assertFalse(lines.get(2).contains("stackTrace"), "The stack trace was already written before the clear.");
+		assertTrue(lines.get(3).contains("stackTrace"), "The stack trace should be written again after the clear.");
+	}
+
+	@Test
+	public void testCyclicCauseChainIsLogged() throws IOException {
+		LogHandler logger = new LogHandler(logFile, 60_000);
+		IllegalStateException cause = new IllegalStateException("Connection lost");
+		RuntimeException exception = new RuntimeException("Lookup failed", cause);
+		cause.initCause(exception);
+
+		assertTimeoutPreemptively(Duration.ofSeconds(5), () -> logger.logException(exception),
+				"A cyclic cause chain should not hang the logger.");
+		logger.close();
+
+		List<String> lines = Files.readAllLines(logFile);
+		assertEquals(1, lines.size(), "The exception with a cyclic cause chain should be logged.");
+	}
+
+	private Exception createException(String message) {
+		return new IllegalStateException(message);
+	}
+}
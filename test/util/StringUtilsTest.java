@@ -0,0 +1,104 @@
+package util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StringUtilsTest {
+	private static final long[] EDGE_VALUES = { 0, 1, -1, 4, -4, 5, -5, 9, -9, 10, -10, 44, 45, -45, 49, 50, -50, 99,
+			-99, 100, -100, 994, 995, -995, 999, -999, 1005, -1005, Long.MAX_VALUE, Long.MIN_VALUE,
+			Long.MAX_VALUE - 5, Long.MIN_VALUE + 5 };
+
+	private Random random;
+
+	@BeforeEach
+	public void setUp() {
+		random = new Random(114514);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		random = null;
+	}
+
+	@Test
+	public void testEdgeValuesMatchDecimalFormat() {
+		for (long unscaled : EDGE_VALUES) {
+			for (int scale = 0; scale <= 18; scale++) {
+				assertParity(unscaled, scale);
+			}
+		}
+	}
+
+	@Test
+	public void testRandomValuesMatchDecimalFormat() {
+		for (int i = 0; i < 100_000; i++) {
+			long unscaled = i % 2 == 0 ? random.nextLong() : random.nextInt(2_000_000) - 1_000_000;
+			assertParity(unscaled, random.nextInt(19));
+		}
+	}
+
+	@Test
+	public void testHalfUpRoundingOfNegativeAmounts() {
+		assertEquals("-0:13", format(-125, 3), "Negative half should round away from zero.");
+		assertEquals("-0:12", format(-1249, 4), "Negative below half should round towards zero.");
+		assertEquals("0:00", format(-4, 3), "An amount that rounds to zero should have no minus sign.");
+		assertEquals("-0:01", format(-5, 3), "A negative half cent should round to minus one cent.");
+		assertEquals("-12:50", format(-125, 1), "One decimal should get a trailing zero.");
+	}
+
+	@Test
+	public void testBigDecimalMatchesDecimalFormat() {
+		String[] numbers = { "0", "-0.005", "1E+3", "-2.5E-1", "12345678901234567890.125", "-99999999999999999999.995",
+				"0.0000000000000000000000000005" };
+		for (String number : numbers) {
+			BigDecimal value = new BigDecimal(number);
+			assertEquals(legacyFormat(value), StringUtils.formatBigDecimalToColon(value), "Output differs for " + number);
+		}
+	}
+
+	@Test
+	public void testTooSmallTargetIsRejected() {
+		assertThrows(IndexOutOfBoundsException.class, () -> StringUtils.formatColonized(12345, 2, new char[5], 1),
+				"A formatted amount that does not fit in the array should be rejected.");
+		assertThrows(BufferOverflowException.class, () -> StringUtils.putColonized(12345, 2, ByteBuffer.allocate(5)),
+				"A formatted amount that does not fit in the buffer should be rejected.");
+		assertThrows(IllegalArgumentException.class, () -> StringUtils.appendColonized(1, 19, new StringBuilder()),
+				"A scale above 18 should be rejected.");
+	}
+
+	private void assertParity(long unscaled, int scale) {
+		String expected = legacyFormat(BigDecimal.valueOf(unscaled, scale));
+		String message = "Output differs for " + unscaled + " with scale " + scale;
+
+		assertEquals(expected, format(unscaled, scale), message);
+		assertEquals(expected.length(), StringUtils.colonizedLength(unscaled, scale), message);
+
+		char[] chars = new char[expected.length() + 2];
+		int end = StringUtils.formatColonized(unscaled, scale, chars, 1);
+		assertEquals(expected, new String(chars, 1, end - 1), message);
+
+		ByteBuffer bytes = ByteBuffer.allocate(expected.length());
+		StringUtils.putColonized(unscaled, scale, bytes);
+		assertEquals(expected, new String(bytes.array(), StandardCharsets.US_ASCII), message);
+	}
+
+	private String format(long unscaled, int scale) {
+		return StringUtils.appendColonized(unscaled, scale, new StringBuilder()).toString();
+	}
+
+	private String legacyFormat(BigDecimal number) {
+		DecimalFormatSymbols symbols = new DecimalFormatSymbols(Locale.US);
+		symbols.setDecimalSeparator(':');
+		return new DecimalFormat("0.00", symbols).format(number.setScale(2, RoundingMode.HALF_UP));
+	}
+}
@@ -0,0 +1,98 @@
+package util.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+	private LatencyHistogram histogram;
+
+	@BeforeEach
+	public void setUp() {
+		histogram = new LatencyHistogram();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		histogram = null;
+	}
+
+	@Test
+	public void testSmallValuesAreExact() {
+		for (int i = 1; i <= 100; i++) {
+			histogram.record(i);
+		}
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+		assertEquals(100, snapshot.getCount(), "Every value should be counted.");
+		assertEquals(5050, snapshot.getTotalNanos(), "The total should be the sum of the values.");
+		assertEquals(50, snapshot.getValueAtPercentile(50), "The median of small values should be exact.");
+		assertEquals(99, snapshot.getValueAtPercentile(99), "The 99th percentile of small values should be exact.");
+		assertEquals(100, snapshot.getMaxNanos(), "The maximum of small values should be exact.");
+	}
+
+	@Test
+	public void testLargeValuesAreWithinPrecision() {
+		for (long i = 1; i <= 100_000; i++) {
+			histogram.record(i * 1000);
+		}
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+		assertWithinPrecision(50_000_000, snapshot.getValueAtPercentile(50), "median");
+		assertWithinPrecision(99_000_000, snapshot.getValueAtPercentile(99), "99th percentile");
+		assertWithinPrecision(99_900_000, snapshot.getValueAtPercentile(99.9), "99.9th percentile");
+		assertWithinPrecision(100_000_000, snapshot.getMaxNanos(), "maximum");
+	}
+
+	@Test
+	public void testBucketsCoverEveryValue() {
+		for (long value = 1; value > 0 && value < (1L << 40); value = value * 3 + 1) {
+			long highest = LatencyHistogram.highestValueOf(LatencyHistogram.indexOf(value));
+			assertTrue(highest >= value && highest - value <= value / 64, "Bucket of " + value + " ends at " + highest);
+		}
+	}
+
+	@Test
+	public void testOutOfRangeValuesAreClamped() {
+		histogram.record(-5);
+		histogram.record(Long.MAX_VALUE);
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+		assertEquals(0, snapshot.getValueAtPercentile(50), "A negative value should be recorded as zero.");
+		assertTrue(snapshot.getMaxNanos() >= (1L << 40) - 1, "A huge value should be recorded as the largest value.");
+	}
+
+	@Test
+	public void testEmptyHistogram() {
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+		assertEquals(0, snapshot.getCount(), "Nothing should be counted.");
+		assertEquals(0, snapshot.getValueAtPercentile(99), "An empty histogram should have no percentiles.");
+	}
+
+	@Test
+	public void testConcurrentRecordsAreCounted() throws InterruptedException {
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < 50_000; i++) {
+					histogram.record(i);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(200_000, histogram.snapshot().getCount(), "No concurrent record should be lost.");
+	}
+
+	private static void assertWithinPrecision(long expected, long actual, String percentile) {
+		assertTrue(actual >= expected && actual - expected <= expected / 64,
+				"The %s should be %d within 1/64, was %d".formatted(percentile, expected, actual));
+	}
+}
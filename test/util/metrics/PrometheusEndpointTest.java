@@ -0,0 +1,92 @@
+package util.metrics;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrometheusEndpointTest {
+	@TempDir
+	private Path tempDir;
+
+	private MetricsRegistry registry;
+	private PrometheusEndpoint endpoint;
+
+	@BeforeEach
+	public void setUp() {
+		registry = new MetricsRegistry();
+		registry.counter("pos_sales_finished_total", "lane", "1").add(3);
+		registry.counter("pos_sales_finished_total", "lane", "2").increment();
+		registry.gauge("pos_open_sales", () -> 2);
+		registry.histogram("pos_operation_latency_seconds", "operation", "enterItem", "lane", "1").record(1_500_000);
+		registry.counter("pos_escaped_total", "name", "a \"quoted\\\" value\n").increment();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		if (endpoint != null) {
+			endpoint.close();
+			endpoint = null;
+		}
+		registry = null;
+	}
+
+	@Test
+	public void testTextFormat() {
+		String text = PrometheusTextFormat.write(registry);
+
+		assertTrue(text.contains("""
+				# TYPE pos_sales_finished_total counter
+				pos_sales_finished_total{lane="1"} 3
+				pos_sales_finished_total{lane="2"} 1
+				"""), "Samples of one counter should follow its type line. Got:\n" + text);
+		assertTrue(text.contains("# TYPE pos_open_sales gauge\npos_open_sales 2\n"), "The gauge should be written.");
+		assertTrue(text.contains("# TYPE pos_operation_latency_seconds summary\n"), "Latencies should be summaries.");
+		assertTrue(text.contains("pos_operation_latency_seconds{operation=\"enterItem\",lane=\"1\",quantile=\"0.99\"} 0.0015"),
+				"Quantiles should be written in seconds. Got:\n" + text);
+		assertTrue(text.contains("pos_operation_latency_seconds_count{operation=\"enterItem\",lane=\"1\"} 1\n"),
+				"The count should be written.");
+		assertTrue(text.contains("pos_escaped_total{name=\"a \\\"quoted\\\\\\\" value\\n\"} 1\n"),
+				"Label values should be escaped. Got:\n" + text);
+	}
+
+	@Test
+	public void testEndpointServesMetrics() throws IOException, InterruptedException {
+		endpoint = new PrometheusEndpoint(registry, 0);
+		HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+		URI uri = URI.create("http://127.0.0.1:" + endpoint.getPort() + "/metrics");
+
+		HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri).GET().build(),
+				HttpResponse.BodyHandlers.ofString());
+		HttpResponse<String> rejected = client.send(
+				HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.noBody()).build(),
+				HttpResponse.BodyHandlers.ofString());
+
+		assertEquals(200, response.statusCode(), "The metrics should be served.");
+		assertEquals(PrometheusTextFormat.CONTENT_TYPE, response.headers().firstValue("Content-Type").orElse(null),
+				"The Prometheus content type should be used.");
+		assertEquals(PrometheusTextFormat.write(registry), response.body(), "The body should be the text format.");
+		assertEquals(405, rejected.statusCode(), "Only GET and HEAD should be allowed.");
+	}
+
+	@Test
+	public void testFileExporterWritesOnClose() throws IOException {
+		Path file = tempDir.resolve("metrics.prom");
+		MetricsFileExporter exporter = new MetricsFileExporter(registry, file, Duration.ofHours(1));
+		registry.counter("pos_sales_finished_total", "lane", "1").increment();
+
+		exporter.close();
+
+		assertEquals(PrometheusTextFormat.write(registry), Files.readString(file),
+				"The last dump should hold the metrics at close.");
+		assertFalse(Files.exists(tempDir.resolve("metrics.prom.tmp")), "No temporary file should be left.");
+	}
+}
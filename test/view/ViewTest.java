@@ -2,13 +2,18 @@ package view;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.nio.file.Path;
 
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 
 import controller.Controller;
 
 public class ViewTest {
+    @TempDir
+    private Path tempDir;
+
     private View view;
     private Controller controller;
     private ByteArrayOutputStream printoutBuffer;
@@ -16,7 +21,7 @@ public class ViewTest {
 
     @BeforeEach
     public void setUp() {
-        controller = new Controller();
+        controller = new Controller(tempDir);
         view = new View(controller);
 
         printoutBuffer = new ByteArrayOutputStream();
@@ -28,6 +33,7 @@ public class ViewTest {
     @AfterEach
     public void tearDown() {
         view = null;
+        controller.shutdown();
         controller = null;
         printoutBuffer = null;
         System.setOut(originalSysOut);